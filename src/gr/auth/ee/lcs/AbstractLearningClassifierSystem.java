@@ -25,15 +25,31 @@
 package gr.auth.ee.lcs;
 
 import gr.auth.ee.lcs.classifiers.Classifier;
+import gr.auth.ee.lcs.classifiers.ClassifierPool;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.MatchCacheManager;
+import gr.auth.ee.lcs.classifiers.MatchMatrix;
+import gr.auth.ee.lcs.classifiers.MatchSetView;
+import gr.auth.ee.lcs.classifiers.SubsumptionIndex;
 import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
 import gr.auth.ee.lcs.data.ClassifierTransformBridge;
 import gr.auth.ee.lcs.data.ILCSMetric;
 import gr.auth.ee.lcs.utilities.ExtendedBitSet;
+import gr.auth.ee.lcs.utilities.RandomSource;
 import gr.auth.ee.lcs.utilities.SettingsLoader;
 
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
 import java.util.Vector;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import weka.core.Instances;
 
@@ -75,6 +91,56 @@ public abstract class AbstractLearningClassifierSystem {
 	 */
 	private int hookCallbackRate;
 
+	/**
+	 * True if the trained populations should use a match index (if the
+	 * representation supports one).
+	 */
+	private final boolean useMatchIndex;
+
+	/**
+	 * True if the trained populations should use an instance-major match
+	 * matrix. Takes precedence over the match index.
+	 */
+	private final boolean useMatchMatrix;
+
+	/**
+	 * True if the trained populations should use a subsumption index for
+	 * finding duplicate and subsuming classifiers.
+	 */
+	private final boolean useSubsumptionIndex;
+
+	/**
+	 * The number of macroclassifiers above which the populations of the LCS
+	 * generate their match sets in parallel.
+	 */
+	private final int parallelMatchThreshold;
+
+	/**
+	 * The number of threads training a population concurrently. When more
+	 * than one, the threads share the population Hogwild-style.
+	 */
+	private int trainThreads;
+
+	/**
+	 * The number of train instances in each mini-batch. When positive, the
+	 * match sets of a batch are generated in parallel against the population
+	 * as it was at the beginning of the batch and the batch is then merged
+	 * serially.
+	 */
+	private int trainBatchSize;
+
+	/**
+	 * The pool of deleted classifiers reused for new ones while training, or
+	 * null if deleted classifiers are not reused.
+	 */
+	private final ClassifierPool classifierPool;
+
+	/**
+	 * The reusable match set used while training, one for each training
+	 * thread.
+	 */
+	private final ThreadLocal<MatchSetView> trainMatchSet = new ThreadLocal<MatchSetView>();
+
 	/**
 	 * Constructor.
 	 * 
@@ -85,9 +151,32 @@ public abstract class AbstractLearningClassifierSystem {
 		} catch (IOException e) {
 			e.printStackTrace();
 		}
+		RandomSource.initialize((long) SettingsLoader.getNumericSetting(
+				"randomSeed", 0));
 		hooks = new Vector<ILCSMetric>();
 		hookCallbackRate = (int) SettingsLoader.getNumericSetting(
 				"callbackRate", 100);
+		parallelMatchThreshold = (int) SettingsLoader.getNumericSetting(
+				"parallelMatchThreshold",
+				ClassifierSet.DEFAULT_PARALLEL_MATCH_THRESHOLD);
+		useMatchIndex = SettingsLoader.getNumericSetting("useMatchIndex", 0) != 0;
+		useMatchMatrix = SettingsLoader.getNumericSetting("useMatchMatrix", 0) != 0;
+		useSubsumptionIndex = SettingsLoader.getNumericSetting(
+				"useSubsumptionIndex", 1) != 0;
+		trainThreads = Math.max(1,
+				(int) SettingsLoader.getNumericSetting("trainThreads", 1));
+		trainBatchSize = Math.max(0,
+				(int) SettingsLoader.getNumericSetting("trainBatchSize", 0));
+		final int classifierPoolSize = (int) SettingsLoader.getNumericSetting(
+				"classifierPoolSize", 0);
+		classifierPool = (classifierPoolSize > 0) ? new ClassifierPool(
+				classifierPoolSize) : null;
+		final double matchCacheBudget = SettingsLoader.getNumericSetting(
+				"matchCacheBudget", 0);
+		if (matchCacheBudget > 0)
+			MatchCacheManager.setBudget((long) (matchCacheBudget * 1024 * 1024));
+		MatchCacheManager.setStatisticsEnabled(SettingsLoader
+				.getNumericSetting("matchCacheStatistics", 0) != 0);
 	}
 
 	/**
@@ -99,6 +188,86 @@ public abstract class AbstractLearningClassifierSystem {
 	 */
 	public abstract int[] classifyInstance(double[] instance);
 
+	/**
+	 * Classify a batch of instances. The batch is split into ranges that are
+	 * classified in parallel, while the rule population is frozen (put in
+	 * concurrent mode), so that every thread reads the same snapshot. Each
+	 * thread generates its match sets serially.
+	 * 
+	 * @param instancesToClassify
+	 *            the instances to classify
+	 * @return the labels each instance is classified in
+	 */
+	public BatchClassification classifyInstances(
+			final double[][] instancesToClassify) {
+		return classifyInstances(instancesToClassify,
+				(trainThreads > 1) ? trainThreads : Runtime.getRuntime()
+						.availableProcessors());
+	}
+
+	/**
+	 * Classify a batch of instances on a given number of threads. See
+	 * classifyInstances(double[][]).
+	 * 
+	 * @param instancesToClassify
+	 *            the instances to classify
+	 * @param threads
+	 *            the number of threads to classify on (the batch is
+	 *            classified serially when one)
+	 * @return the labels each instance is classified in
+	 */
+	public final BatchClassification classifyInstances(
+			final double[][] instancesToClassify, final int threads) {
+		final int numInstances = instancesToClassify.length;
+		final int[][] classifications = new int[numInstances][];
+		final ClassifierSet population = getRulePopulation();
+		final int numOfThreads = Math.min(numInstances, threads);
+		if ((numOfThreads <= 1) || (population == null)) {
+			for (int i = 0; i < numInstances; i++)
+				classifications[i] = classifyInstance(instancesToClassify[i]);
+			return new BatchClassification(classifications);
+		}
+
+		final List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(
+				numOfThreads);
+		for (int t = 0; t < numOfThreads; t++) {
+			final int from = (int) (((long) numInstances * t) / numOfThreads);
+			final int to = (int) (((long) numInstances * (t + 1)) / numOfThreads);
+			tasks.add(new Callable<Object>() {
+				@Override
+				public Object call() {
+					ClassifierSet.setSerialMatching(true);
+					try {
+						for (int i = from; i < to; i++)
+							classifications[i] = classifyInstance(instancesToClassify[i]);
+					} finally {
+						ClassifierSet.setSerialMatching(false);
+					}
+					return null;
+				}
+			});
+		}
+
+		final boolean wasConcurrent = population.isConcurrent();
+		final ExecutorService threadPool = Executors
+				.newFixedThreadPool(numOfThreads);
+		population.setConcurrent(true);
+		try {
+			for (final Future<Object> result : threadPool.invokeAll(tasks))
+				result.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			if (!wasConcurrent)
+				population.setConcurrent(false);
+			threadPool.shutdown();
+		}
+		return new BatchClassification(classifications);
+	}
+
 	private void cleanUpZeroCoverageClassifiers(final ClassifierSet aSet) {
 
 		final int setSize = aSet.getNumberOfMacroclassifiers();
@@ -157,13 +326,33 @@ public abstract class AbstractLearningClassifierSystem {
 	 */
 	public abstract double[] getEvaluations(Instances testSet);
 
+	/**
+	 * Return a classifier object for the specific LCS, whose chromosome is to
+	 * be completely overwritten by the caller. A deleted classifier is reused
+	 * if one is available.
+	 * 
+	 * @return the new classifier, with an undefined chromosome
+	 */
+	public final Classifier getClassifierShell() {
+		final Classifier recycled = (classifierPool == null) ? null
+				: classifierPool.obtain();
+		if (recycled == null)
+			return Classifier.createNewClassifier(this);
+		return recycled;
+	}
+
 	/**
 	 * Create a new classifier for the specific LCS.
 	 * 
 	 * @return the new classifier.
 	 */
 	public final Classifier getNewClassifier() {
-		return Classifier.createNewClassifier(this);
+		final Classifier recycled = (classifierPool == null) ? null
+				: classifierPool.obtain();
+		if (recycled == null)
+			return Classifier.createNewClassifier(this);
+		recycled.clear(0, recycled.size());
+		return recycled;
 	}
 
 	/**
@@ -174,7 +363,22 @@ public abstract class AbstractLearningClassifierSystem {
 	 * @return a new classifier containing information about the LCS
 	 */
 	public final Classifier getNewClassifier(final ExtendedBitSet chromosome) {
-		return Classifier.createNewClassifier(this, chromosome);
+		final Classifier recycled = (classifierPool == null) ? null
+				: classifierPool.obtain();
+		if (recycled == null)
+			return Classifier.createNewClassifier(this, chromosome);
+		recycled.copy(chromosome);
+		return recycled;
+	}
+
+	/**
+	 * Getter for the mini-batch size used in training.
+	 * 
+	 * @return the number of train instances in each mini-batch or 0 if the
+	 *         instances are trained one by one
+	 */
+	public final int getTrainBatchSize() {
+		return trainBatchSize;
 	}
 
 	/**
@@ -213,6 +417,35 @@ public abstract class AbstractLearningClassifierSystem {
 		return hooks.add(evaluator);
 	}
 
+	/**
+	 * Save evaluation results to a properties file, along with the training
+	 * settings that affect them (the train batch size and threads).
+	 * 
+	 * @param filename
+	 *            the filename of the properties file
+	 * @param evals
+	 *            the evaluations, in the order of getEvaluationNames()
+	 */
+	public final void saveEvaluations(final String filename,
+			final double[] evals) {
+		final Properties results = new Properties();
+		results.setProperty("trainBatchSize", Integer.toString(trainBatchSize));
+		results.setProperty("trainThreads", Integer.toString(trainThreads));
+		final String[] names = getEvaluationNames();
+		for (int i = 0; i < evals.length; i++)
+			results.setProperty(names[i], Double.toString(evals[i]));
+		try {
+			final FileOutputStream output = new FileOutputStream(filename);
+			try {
+				results.store(output, "LCS evaluations");
+			} finally {
+				output.close();
+			}
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
 	/**
 	 * Save the rules to the given filename.
 	 * 
@@ -241,15 +474,41 @@ public abstract class AbstractLearningClassifierSystem {
 	}
 
 	/**
-	 * Sets the LCS's population.
+	 * Sets the LCS's population. The population generates its match sets in
+	 * parallel above the LCS's parallel match threshold.
 	 * 
 	 * @param population
 	 *            the new LCS's population
 	 */
 	public final void setRulePopulation(ClassifierSet population) {
+		if (population != null)
+			population.setParallelMatchThreshold(parallelMatchThreshold);
 		rulePopulation = population;
 	}
 
+	/**
+	 * Setter for the mini-batch size used in training, overriding the
+	 * trainBatchSize setting.
+	 * 
+	 * @param batchSize
+	 *            the number of train instances in each mini-batch or 0 to
+	 *            train the instances one by one
+	 */
+	public final void setTrainBatchSize(final int batchSize) {
+		trainBatchSize = Math.max(0, batchSize);
+	}
+
+	/**
+	 * Setter for the number of threads training a population, overriding the
+	 * trainThreads setting.
+	 * 
+	 * @param threads
+	 *            the number of threads (1 to train serially)
+	 */
+	public final void setTrainThreads(final int threads) {
+		trainThreads = Math.max(1, threads);
+	}
+
 	/**
 	 * Run the LCS and train it.
 	 */
@@ -282,9 +541,40 @@ public abstract class AbstractLearningClassifierSystem {
 	 */
 	public final void trainSet(final int iterations,
 			final ClassifierSet population, final boolean evolve) {
+		if (useMatchMatrix && !(population.getMatchIndex() instanceof MatchMatrix))
+			population.setMatchIndex(new MatchMatrix(this));
+		else if (useMatchIndex && (population.getMatchIndex() == null))
+			population.setMatchIndex(transformBridge.createMatchIndex());
+		if (useSubsumptionIndex && (population.getSubsumptionIndex() == null))
+			population.setSubsumptionIndex(new SubsumptionIndex(transformBridge));
+		population.setClassifierPool(classifierPool);
+		population.setParallelMatchThreshold(parallelMatchThreshold);
+		try {
+			if (trainBatchSize > 0)
+				trainSetInBatches(iterations, population, evolve);
+			else if (trainThreads > 1)
+				trainSetConcurrently(iterations, population, evolve);
+			else
+				trainSetSerially(iterations, population, evolve);
+		} finally {
+			population.setClassifierPool(null);
+		}
+	}
 
+	/**
+	 * Train a classifier set with all train instances, one instance at a
+	 * time.
+	 * 
+	 * @param iterations
+	 *            the number of full iterations to train the LCS
+	 * @param population
+	 *            the population of the classifiers to train.
+	 * @param evolve
+	 *            set true to evolve population, false to only update it
+	 */
+	private void trainSetSerially(final int iterations,
+			final ClassifierSet population, final boolean evolve) {
 		final int numInstances = instances.length;
-
 		int repetition = 0;
 		int trainsBeforeHook = 0;
 		final double instanceProb = (1. / (numInstances));
@@ -295,8 +585,11 @@ public abstract class AbstractLearningClassifierSystem {
 
 				for (int i = 0; i < numInstances; i++) {
 					trainWithInstance(population, i, evolve);
-					if (Math.random() < instanceProb)
+					if (RandomSource.nextDouble() < instanceProb)
 						cleanUpZeroCoverageClassifiers(population);
+					// The classifiers deleted so far are no longer matched
+					if (classifierPool != null)
+						classifierPool.reclaim();
 				}
 				repetition++;
 				trainsBeforeHook++;
@@ -309,6 +602,203 @@ public abstract class AbstractLearningClassifierSystem {
 
 	}
 
+	/**
+	 * Train a classifier set with all train instances in mini-batches. The
+	 * match sets of each batch are generated in parallel against a frozen
+	 * snapshot of the population. Then, in a serial merge phase, each match
+	 * set is refreshed (classifiers deleted by earlier instances of the batch
+	 * are dropped) and given to the update strategy, which performs the
+	 * parameter updates, covering, evolution and deletions as usual.
+	 * 
+	 * @param iterations
+	 *            the number of full iterations to train the LCS
+	 * @param population
+	 *            the population of the classifiers to train.
+	 * @param evolve
+	 *            set true to evolve population, false to only update it
+	 */
+	private void trainSetInBatches(final int iterations,
+			final ClassifierSet population, final boolean evolve) {
+		final int numInstances = instances.length;
+		final double instanceProb = (1. / (numInstances));
+		final int numOfThreads = (trainThreads > 1) ? trainThreads : Runtime
+				.getRuntime().availableProcessors();
+		final MatchSetView[] batchMatchSets = new MatchSetView[Math.min(
+				trainBatchSize, numInstances)];
+		for (int i = 0; i < batchMatchSets.length; i++)
+			batchMatchSets[i] = new MatchSetView();
+
+		final ExecutorService threadPool = Executors
+				.newFixedThreadPool(numOfThreads);
+		try {
+			int trainsBeforeHook = 0;
+			for (int repetition = 0; repetition < iterations; repetition++) {
+				System.out.print('.');
+				for (int batchStart = 0; batchStart < numInstances; batchStart += trainBatchSize) {
+					final int batchSize = Math.min(trainBatchSize,
+							numInstances - batchStart);
+					matchBatch(threadPool, numOfThreads, population,
+							batchMatchSets, batchStart, batchSize);
+
+					for (int k = 0; k < batchSize; k++) {
+						final MatchSetView matchSet = batchMatchSets[k]
+								.refresh(population);
+						getUpdateStrategy().updateSet(population, matchSet,
+								batchStart + k, evolve);
+						if (RandomSource.nextDouble() < instanceProb)
+							cleanUpZeroCoverageClassifiers(population);
+					}
+					// The match sets of the batch are no longer used
+					if (classifierPool != null)
+						classifierPool.reclaim();
+				}
+				trainsBeforeHook++;
+				if ((trainsBeforeHook >= hookCallbackRate)
+						|| (repetition == (iterations - 1))) {
+					executeCallbacks(population);
+					trainsBeforeHook = 0;
+				}
+			}
+		} finally {
+			threadPool.shutdown();
+		}
+	}
+
+	/**
+	 * Generate the match sets of a mini-batch in parallel. The population is
+	 * frozen (put in concurrent mode) while matching, so that every thread
+	 * reads the same snapshot.
+	 * 
+	 * @param threadPool
+	 *            the pool running the matching tasks
+	 * @param numOfThreads
+	 *            the number of tasks to split the batch into
+	 * @param population
+	 *            the population to match against
+	 * @param batchMatchSets
+	 *            the views receiving the match set of each batch instance
+	 * @param batchStart
+	 *            the index of the first train instance of the batch
+	 * @param batchSize
+	 *            the number of instances in the batch
+	 */
+	private static void matchBatch(final ExecutorService threadPool,
+			final int numOfThreads, final ClassifierSet population,
+			final MatchSetView[] batchMatchSets, final int batchStart,
+			final int batchSize) {
+		final List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(
+				numOfThreads);
+		for (int t = 0; t < Math.min(numOfThreads, batchSize); t++) {
+			final int firstInBatch = t;
+			tasks.add(new Callable<Object>() {
+				@Override
+				public Object call() {
+					ClassifierSet.setSerialMatching(true);
+					try {
+						for (int k = firstInBatch; k < batchSize; k += numOfThreads)
+							population.generateMatchSet(batchStart + k,
+									batchMatchSets[k]);
+					} finally {
+						ClassifierSet.setSerialMatching(false);
+					}
+					return null;
+				}
+			});
+		}
+
+		population.setConcurrent(true);
+		try {
+			for (final Future<Object> result : threadPool.invokeAll(tasks))
+				result.get();
+		} catch (InterruptedException e) {
+			// Abort the batch (and the training)
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException(e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());
+		} finally {
+			population.setConcurrent(false);
+		}
+	}
+
+	/**
+	 * Train a classifier set with all train instances, using several threads
+	 * that share the population. Each repetition, the threads train on
+	 * disjoint train instances without any locking of the classifiers'
+	 * parameters (Hogwild-style), while the additions and deletions are
+	 * queued to a single writer by the concurrent population. The zero
+	 * coverage classifiers are cleaned up between repetitions, once the
+	 * population is serial again.
+	 * 
+	 * @param iterations
+	 *            the number of full iterations to train the LCS
+	 * @param population
+	 *            the population of the classifiers to train.
+	 * @param evolve
+	 *            set true to evolve population, false to only update it
+	 */
+	private void trainSetConcurrently(final int iterations,
+			final ClassifierSet population, final boolean evolve) {
+		final int numInstances = instances.length;
+		final double instanceProb = (1. / (numInstances));
+		final ExecutorService threadPool = Executors
+				.newFixedThreadPool(trainThreads);
+		try {
+			int trainsBeforeHook = 0;
+			for (int repetition = 0; repetition < iterations; repetition++) {
+				System.out.print('.');
+				final AtomicInteger nextInstance = new AtomicInteger(0);
+				final List<Callable<Object>> tasks = new ArrayList<Callable<Object>>(
+						trainThreads);
+				for (int t = 0; t < trainThreads; t++) {
+					final long threadSeed = RandomSource.nextLong();
+					tasks.add(new Callable<Object>() {
+						@Override
+						public Object call() {
+							RandomSource.setThreadSeed(threadSeed);
+							ClassifierSet.setSerialMatching(true);
+							try {
+								int i;
+								while ((i = nextInstance.getAndIncrement()) < numInstances)
+									trainWithInstance(population, i, evolve);
+							} finally {
+								ClassifierSet.setSerialMatching(false);
+							}
+							return null;
+						}
+					});
+				}
+
+				population.setConcurrent(true);
+				try {
+					for (final Future<Object> result : threadPool
+							.invokeAll(tasks))
+						result.get();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new IllegalStateException(e);
+				} catch (ExecutionException e) {
+					throw new IllegalStateException(e.getCause());
+				} finally {
+					population.setConcurrent(false);
+				}
+
+				for (int i = 0; i < numInstances; i++) {
+					if (RandomSource.nextDouble() < instanceProb)
+						cleanUpZeroCoverageClassifiers(population);
+				}
+				trainsBeforeHook++;
+				if ((trainsBeforeHook >= hookCallbackRate)
+						|| (repetition == (iterations - 1))) {
+					executeCallbacks(population);
+					trainsBeforeHook = 0;
+				}
+			}
+		} finally {
+			threadPool.shutdown();
+		}
+	}
+
 	/**
 	 * Train with instance main template. Trains the classifier set with a
 	 * single instance.
@@ -323,8 +813,13 @@ public abstract class AbstractLearningClassifierSystem {
 	public final void trainWithInstance(final ClassifierSet population,
 			final int dataInstanceIndex, final boolean evolve) {
 
-		final ClassifierSet matchSet = population
-				.generateMatchSet(dataInstanceIndex);
+		MatchSetView reusableMatchSet = trainMatchSet.get();
+		if (reusableMatchSet == null) {
+			reusableMatchSet = new MatchSetView();
+			trainMatchSet.set(reusableMatchSet);
+		}
+		final MatchSetView matchSet = population.generateMatchSet(
+				dataInstanceIndex, reusableMatchSet);
 
 		getUpdateStrategy().updateSet(population, matchSet, dataInstanceIndex,
 				evolve);
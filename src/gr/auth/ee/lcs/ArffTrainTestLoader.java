@@ -25,10 +25,10 @@ import gr.auth.ee.lcs.classifiers.ClassifierSet;
 import gr.auth.ee.lcs.classifiers.statistics.bundles.SetStatisticsBundle;
 import gr.auth.ee.lcs.evaluators.TestFileClassification;
 import gr.auth.ee.lcs.utilities.InstancesUtility;
+import gr.auth.ee.lcs.utilities.RandomSource;
 import gr.auth.ee.lcs.utilities.SettingsLoader;
 
 import java.io.IOException;
-import java.util.Random;
 
 import weka.core.Instances;
 
@@ -108,6 +108,11 @@ public class ArffTrainTestLoader {
 			System.out.println(names[i] + ": " + evals[i]);
 		}
 
+		final String evaluationsFile = SettingsLoader.getStringSetting(
+				"evaluationsFile", "");
+		if (!evaluationsFile.isEmpty())
+			myLcs.saveEvaluations(evaluationsFile, evals);
+
 		SetStatisticsBundle bundle = new SetStatisticsBundle(myLcs,
 				(int) SettingsLoader.getNumericSetting("numberOfLabels", 1));
 		System.out.println(bundle);
@@ -130,13 +135,13 @@ public class ArffTrainTestLoader {
 		if (set.classIndex() < 0) {
 			set.setClassIndex(set.numAttributes() - 1);
 		}
-		set.randomize(new Random());
+		set.randomize(RandomSource.current());
 		// set.stratify(10);
 
 		if (generateTestSet) {
 			final int numOfFolds = (int) SettingsLoader.getNumericSetting(
 					"NumberOfFolds", 10);
-			final int fold = (int) Math.floor(Math.random() * numOfFolds);
+			final int fold = RandomSource.nextInt(numOfFolds);
 			trainSet = set.trainCV(numOfFolds, fold);
 			testSet = set.testCV(numOfFolds, fold);
 		} else {
@@ -164,7 +169,7 @@ public class ArffTrainTestLoader {
 
 		if (set.classIndex() < 0)
 			set.setClassIndex(set.numAttributes() - 1);
-		set.randomize(new Random());
+		set.randomize(RandomSource.current());
 		// set.stratify(10);
 		trainSet = set;
 
@@ -0,0 +1,145 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs;
+
+import java.util.Arrays;
+
+/**
+ * The classification of a batch of instances, packed in a single label array.
+ * The labels of each instance are kept sorted in their own range of the
+ * array, given by an offsets array.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public final class BatchClassification {
+
+	/**
+	 * The start of the labels of each instance in the label array. The last
+	 * element is the total number of labels.
+	 */
+	private final int[] offsets;
+
+	/**
+	 * The (sorted per instance) labels of all instances.
+	 */
+	private final int[] labels;
+
+	/**
+	 * Constructor. Packs the classification of each instance.
+	 * 
+	 * @param classifications
+	 *            the labels each instance is classified in
+	 */
+	public BatchClassification(final int[][] classifications) {
+		offsets = new int[classifications.length + 1];
+		for (int i = 0; i < classifications.length; i++)
+			offsets[i + 1] = offsets[i] + classifications[i].length;
+
+		labels = new int[offsets[classifications.length]];
+		for (int i = 0; i < classifications.length; i++) {
+			System.arraycopy(classifications[i], 0, labels, offsets[i],
+					classifications[i].length);
+			Arrays.sort(labels, offsets[i], offsets[i + 1]);
+		}
+	}
+
+	/**
+	 * Returns a label of an instance.
+	 * 
+	 * @param instance
+	 *            the index of the instance in the batch
+	 * @param index
+	 *            the index of the label among the instance's labels
+	 * @return the label
+	 */
+	public int getLabel(final int instance, final int index) {
+		return labels[offsets[instance] + index];
+	}
+
+	/**
+	 * Returns the labels of an instance.
+	 * 
+	 * @param instance
+	 *            the index of the instance in the batch
+	 * @return a (sorted) copy of the labels the instance is classified in
+	 */
+	public int[] getLabels(final int instance) {
+		return Arrays.copyOfRange(labels, offsets[instance],
+				offsets[instance + 1]);
+	}
+
+	/**
+	 * Returns the number of labels of an instance.
+	 * 
+	 * @param instance
+	 *            the index of the instance in the batch
+	 * @return the number of labels the instance is classified in
+	 */
+	public int getNumberOfLabels(final int instance) {
+		return offsets[instance + 1] - offsets[instance];
+	}
+
+	/**
+	 * Returns true if an instance is classified in a label.
+	 * 
+	 * @param instance
+	 *            the index of the instance in the batch
+	 * @param label
+	 *            the label
+	 * @return true if the label is one of the instance's labels
+	 */
+	public boolean isClassifiedAs(final int instance, final int label) {
+		return Arrays.binarySearch(labels, offsets[instance],
+				offsets[instance + 1], label) >= 0;
+	}
+
+	/**
+	 * Returns true if an instance is classified in exactly the given labels.
+	 * 
+	 * @param instance
+	 *            the index of the instance in the batch
+	 * @param sortedLabels
+	 *            the labels, sorted
+	 * @return true if the instance's labels are the given ones
+	 */
+	public boolean isClassifiedExactlyAs(final int instance,
+			final int[] sortedLabels) {
+		if (getNumberOfLabels(instance) != sortedLabels.length)
+			return false;
+		final int start = offsets[instance];
+		for (int i = 0; i < sortedLabels.length; i++) {
+			if (labels[start + i] != sortedLabels[i])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the number of instances in the batch.
+	 * 
+	 * @return the number of classified instances
+	 */
+	public int size() {
+		return offsets.length - 1;
+	}
+}
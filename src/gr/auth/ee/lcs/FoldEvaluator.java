@@ -31,10 +31,10 @@
 package gr.auth.ee.lcs;
 
 import gr.auth.ee.lcs.utilities.InstancesUtility;
+import gr.auth.ee.lcs.utilities.RandomSource;
 import gr.auth.ee.lcs.utilities.SettingsLoader;
 
 import java.io.IOException;
-import java.util.Random;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
@@ -89,6 +89,8 @@ public class FoldEvaluator {
 
 		@Override
 		public void run() {
+			// Seed by fold, whichever pool thread runs it
+			RandomSource.setThreadSeed(RandomSource.deriveSeed(i));
 			double[][] results = new double[numOfFoldRepetitions][];
 			for (int repetition = 0; repetition < numOfFoldRepetitions; repetition++) {
 				AbstractLearningClassifierSystem foldLCS = prototype
@@ -179,7 +181,7 @@ public class FoldEvaluator {
 
 		instances = InstancesUtility.openInstance(filename);
 		runs = (int) SettingsLoader.getNumericSetting("foldsToRun", numOfFolds);
-		instances.randomize(new Random());
+		instances.randomize(RandomSource.current());
 
 		int numOfThreads = (int) SettingsLoader.getNumericSetting(
 				"numOfThreads", 1);
@@ -256,6 +258,11 @@ public class FoldEvaluator {
 		// print results
 		printEvaluations(means);
 
+		final String evaluationsFile = SettingsLoader.getStringSetting(
+				"evaluationsFile", "");
+		if (!evaluationsFile.isEmpty())
+			prototype.saveEvaluations(evaluationsFile, means);
+
 	}
 
 	/**
@@ -289,6 +296,9 @@ public class FoldEvaluator {
 	public void printEvaluations(double[] means) {
 		final String[] names = prototype.getEvaluationNames();
 
+		if (prototype.getTrainBatchSize() > 0)
+			System.out.println("Train batch size: "
+					+ prototype.getTrainBatchSize());
 		for (int i = 0; i < means.length; i++) {
 			System.out.println(names[i] + ": " + means[i]);
 		}
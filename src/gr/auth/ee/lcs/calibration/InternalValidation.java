@@ -25,11 +25,19 @@
 package gr.auth.ee.lcs.calibration;
 
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.BatchClassification;
+import gr.auth.ee.lcs.classifiers.ClassifierSet;
 import gr.auth.ee.lcs.data.IClassificationStrategy;
+import gr.auth.ee.lcs.data.IConfidenceClassificationStrategy;
 import gr.auth.ee.lcs.data.ILCSMetric;
+import gr.auth.ee.lcs.evaluators.AccuracyRecallEvaluator;
 
 /**
- * Internal Validation for thresholds.
+ * Internal Validation for thresholds. When the classification strategy
+ * provides confidence values and the metric is an accuracy/recall evaluator,
+ * the confidences of the evaluator's instances are computed once (with the
+ * LCS's rule population) and each candidate threshold is scored on them,
+ * instead of classifying all instances again.
  * 
  * @author Miltos Allamanis
  * 
@@ -51,6 +59,11 @@ public class InternalValidation {
 	 */
 	private final AbstractLearningClassifierSystem myLCS;
 
+	/**
+	 * The confidences of the instances, if calibrating on cached confidences.
+	 */
+	private float[][] confidences = null;
+
 	/**
 	 * Constructor.
 	 * 
@@ -76,16 +89,81 @@ public class InternalValidation {
 	 */
 	public void calibrate(int iterations) {
 
+		if ((strategy instanceof IConfidenceClassificationStrategy)
+				&& (optimizationMetric instanceof AccuracyRecallEvaluator))
+			confidences = getConfidences(
+					(IConfidenceClassificationStrategy) strategy,
+					((AccuracyRecallEvaluator) optimizationMetric)
+							.getInstances());
+
 		double step = .25;
 		double center = .25;
 		for (int i = 0; i < iterations; i++) {
 			center = getNextCenter(center, step, strategy);
 			step /= 2.;
 		}
+		confidences = null;
 		strategy.setThreshold(center);
 		System.out.println("Threshold set to " + center);
 	}
 
+	/**
+	 * Evaluate a threshold.
+	 * 
+	 * @param threshold
+	 *            the threshold to evaluate
+	 * @param classificationStrategy
+	 *            the classification used
+	 * @return the metric when classifying with the threshold
+	 */
+	private double evaluate(final double threshold,
+			final IClassificationStrategy classificationStrategy) {
+		if (confidences == null) {
+			classificationStrategy.setThreshold(threshold);
+			return optimizationMetric.getMetric(myLCS);
+		}
+
+		final int[][] classifications = new int[confidences.length][];
+		for (int i = 0; i < confidences.length; i++) {
+			final float[] confidence = confidences[i];
+			int numberOfActiveLabels = 0;
+			for (int label = 0; label < confidence.length; label++)
+				if (confidence[label] > threshold)
+					numberOfActiveLabels++;
+
+			final int[] result = new int[numberOfActiveLabels];
+			int currentIndex = 0;
+			for (int label = 0; label < confidence.length; label++)
+				if (confidence[label] > threshold) {
+					result[currentIndex] = label;
+					currentIndex++;
+				}
+			classifications[i] = result;
+		}
+		return ((AccuracyRecallEvaluator) optimizationMetric)
+				.getMetric(new BatchClassification(classifications));
+	}
+
+	/**
+	 * Compute the confidences of the rule population for a set of instances.
+	 * 
+	 * @param confidenceStrategy
+	 *            the strategy providing the confidences
+	 * @param instances
+	 *            the instances
+	 * @return the confidence array of each instance
+	 */
+	private float[][] getConfidences(
+			final IConfidenceClassificationStrategy confidenceStrategy,
+			final double[][] instances) {
+		final ClassifierSet rules = myLCS.getRulePopulation();
+		final float[][] confidenceValues = new float[instances.length][];
+		for (int i = 0; i < instances.length; i++)
+			confidenceValues[i] = confidenceStrategy.getConfidenceArray(rules,
+					instances[i]);
+		return confidenceValues;
+	}
+
 	/**
 	 * Calculates the next center.
 	 * 
@@ -108,8 +186,7 @@ public class InternalValidation {
 		double bestEvaluation = Double.MIN_VALUE;
 		double bestThreshold = center;
 		for (double th = downLimit; th <= upLimit; th += (step / 2)) {
-			classificationStrategy.setThreshold(th);
-			final double eval = optimizationMetric.getMetric(myLCS);
+			final double eval = evaluate(th, classificationStrategy);
 			if (eval > bestEvaluation) {
 				bestEvaluation = eval;
 				bestThreshold = th;
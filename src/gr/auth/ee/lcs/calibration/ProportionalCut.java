@@ -24,25 +24,31 @@
  */
 package gr.auth.ee.lcs.calibration;
 
+import java.util.Arrays;
+
 /**
- * A threshold calibration method.
+ * A threshold calibration method. The label cardinality is a step function of
+ * the threshold, changing only at the confidence values, so the threshold is
+ * found exactly by sorting all confidence values and sweeping once over them.
  * 
  * @author Miltos Allamanis
  * 
  */
 public class ProportionalCut {
-	/**
-	 * The threshold.
-	 */
-	private float threshold;
 
 	/**
-	 * The number of refinement steps to be taken.
+	 * The largest threshold that may be returned.
 	 */
-	private static final int STEPS = 15;
+	private static final float MAX_THRESHOLD = (float) .5;
 
 	/**
-	 * Calibrates the threshold.
+	 * Calibrates the threshold. Among the thresholds between 0 and .5, the
+	 * lowest one whose label cardinality is closest to the target is
+	 * returned. Apart from 0, the threshold is placed between two successive
+	 * confidence values, so it activates the same labels whether confidences
+	 * are compared to it strictly or not. A zero threshold activates the
+	 * positive confidences only, as the classification strategies compare
+	 * confidences strictly.
 	 * 
 	 * @param targetLC
 	 *            the target Label Cardinality we are trying to achieve
@@ -52,41 +58,60 @@ public class ProportionalCut {
 	 */
 	public float calibrate(final float targetLC,
 			final float[][] confidenceValues) {
-		threshold = (float) .25;
-		float pCutStep = (float) .25;
-		for (int i = 0; i < STEPS; i++) {
-			calibrateThreshold(confidenceValues, targetLC, pCutStep);
-			pCutStep /= 2;
+		// Only the values between 0 and .5 may separate two thresholds
+		int numberOfPositive = 0;
+		int numberOfCandidates = 0;
+		for (int i = 0; i < confidenceValues.length; i++) {
+			for (int j = 0; j < confidenceValues[i].length; j++) {
+				final float value = confidenceValues[i][j];
+				if (value > 0) {
+					numberOfPositive++;
+					if (value < MAX_THRESHOLD)
+						numberOfCandidates++;
+				}
+			}
 		}
-		return threshold;
-	}
 
-	/**
-	 * Calibrate threshold with a given step for threshold values.
-	 * 
-	 * @param confidenceValues
-	 *            the confidence value array (NxL)
-	 * @param targetLc
-	 *            the target LC (Label Cardinality) we are trying to achieve
-	 * @param pCutStep
-	 *            the step used for the pCut
-	 */
-	private void calibrateThreshold(final float[][] confidenceValues,
-			final float targetLc, final float pCutStep) {
-		float downLimit = this.threshold - pCutStep;
-		if (downLimit < 0)
-			downLimit = 0;
-		float upLimit = this.threshold + pCutStep;
-		if (upLimit > .5)
-			upLimit = (float) .5;
-		float bestDif = Float.MAX_VALUE;
-		for (float th = downLimit; th <= upLimit; th += (pCutStep / 2)) {
-			final float diff = getPcutDiff(confidenceValues, targetLc, th);
+		final float[] sortedValues = new float[numberOfCandidates];
+		int numberOfHigh = 0;
+		int index = 0;
+		for (int i = 0; i < confidenceValues.length; i++) {
+			for (int j = 0; j < confidenceValues[i].length; j++) {
+				final float value = confidenceValues[i][j];
+				if (value >= MAX_THRESHOLD)
+					numberOfHigh++;
+				else if (value > 0)
+					sortedValues[index++] = value;
+			}
+		}
+		Arrays.sort(sortedValues);
+
+		// A zero threshold activates all positive values
+		float threshold = 0;
+		float bestDif = getPcutDiff(numberOfPositive,
+				confidenceValues.length, targetLC);
+
+		// Sweep the intervals between successive distinct values
+		int position = 0;
+		float downLimit = 0;
+		while (true) {
+			final float upLimit = (position < numberOfCandidates) ? sortedValues[position]
+					: MAX_THRESHOLD;
+			final float diff = getPcutDiff(numberOfHigh + numberOfCandidates
+					- position, confidenceValues.length, targetLC);
 			if (diff < bestDif) {
 				bestDif = diff;
-				this.threshold = th;
+				threshold = (downLimit + upLimit) / 2;
 			}
+			if (position == numberOfCandidates)
+				break;
+
+			downLimit = upLimit;
+			while ((position < numberOfCandidates)
+					&& (sortedValues[position] <= downLimit))
+				position++;
 		}
+		return threshold;
 	}
 
 	/**
@@ -111,29 +136,22 @@ public class ProportionalCut {
 
 	/**
 	 * Get the proportional cut difference with a given target label
-	 * cardinality, threshold and instance confidence valies.
+	 * cardinality, for a given number of active labels.
 	 * 
-	 * @param confidenceValues
-	 *            the normalized array of confidence values for all instances
-	 *            and labels
+	 * @param sumOfActive
+	 *            the number of active labels in all instances
+	 * @param numberOfInstances
+	 *            the number of instances
 	 * @param targetLc
 	 *            the target LC (Label Cardinality) that we are trying to
 	 *            achieve.
-	 * @param threshold
-	 *            the threshold
 	 * @return a float indicating the absolute difference
 	 */
-	private float getPcutDiff(final float[][] confidenceValues,
-			final float targetLc, final float threshold) {
-		int sumOfActive = 0;
-		for (int i = 0; i < confidenceValues.length; i++) {
-			sumOfActive += getNumberOfActiveLabels(confidenceValues[i],
-					threshold);
-		}
-
+	private float getPcutDiff(final int sumOfActive,
+			final int numberOfInstances, final float targetLc) {
 		// Compare diff
 		final double diff = Math.abs(((double) sumOfActive)
-				/ ((double) confidenceValues.length) - targetLc);
+				/ ((double) numberOfInstances) - targetLc);
 		return (float) diff;
 	}
 }
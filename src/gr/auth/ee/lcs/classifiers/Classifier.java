@@ -28,6 +28,7 @@ import gr.auth.ee.lcs.utilities.ExtendedBitSet;
 
 import java.io.Serializable;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents a single classifier/ rule. Connects to the representation through
@@ -100,9 +101,33 @@ public final class Classifier extends ExtendedBitSet implements Serializable {
 	private Serializable updateData;
 
 	/**
-	 * A boolean array indicating which dataset instances the rule matches.
+	 * A packed array of two bits per train instance, indicating which dataset
+	 * instances the rule matches (see MatchCacheManager). Volatile, since the
+	 * match set may be generated by many threads. It is set and evicted by the
+	 * MatchCacheManager.
 	 */
-	private transient byte[] matchInstances;
+	private transient volatile long[] matchInstances;
+
+	/**
+	 * The (logical) time the classifier was last matched with a train
+	 * instance. Used for evicting the least recently matched caches. Only
+	 * written when the clock has advanced.
+	 */
+	transient volatile long lastMatched;
+
+	/**
+	 * A bit per train instance, set when the instance has been counted in the
+	 * coverage. Unlike the match cache, it is never evicted, so that an
+	 * instance checked again is not counted twice. Null until the first
+	 * check and once the coverage is complete.
+	 */
+	private transient long[] coverageInstances;
+
+	/**
+	 * True if the coverage is no longer updated, since it has been counted
+	 * (or recorded) for all train instances.
+	 */
+	private transient boolean coverageComplete = false;
 
 	/**
 	 * A float showing the number of instances that the rule has covered. Used
@@ -116,9 +141,12 @@ public final class Classifier extends ExtendedBitSet implements Serializable {
 	private transient int checked = 0;
 
 	/**
-	 * The serial number of last classifier (start from the lowest & increment).
+	 * The serial number of the next classifier (start from the lowest &
+	 * increment). Atomic, since classifiers may be created by concurrent
+	 * training threads.
 	 */
-	private static int currentSerial = Integer.MIN_VALUE;
+	private static final AtomicInteger currentSerial = new AtomicInteger(
+			Integer.MIN_VALUE);
 
 	/**
 	 * The serial number of the classifier.
@@ -146,6 +174,13 @@ public final class Classifier extends ExtendedBitSet implements Serializable {
 	 */
 	public Serializable transformData;
 
+	/**
+	 * Transformation specific data derived from the chromosome (e.g. decoded
+	 * condition bounds) used for fast matching. It is not serialized and it is
+	 * rebuilt by the transform bridge when null.
+	 */
+	private transient volatile Object compiledData;
+
 	/**
 	 * The default constructor. Creates a chromosome of the given size
 	 * 
@@ -178,11 +213,12 @@ public final class Classifier extends ExtendedBitSet implements Serializable {
 	}
 
 	/**
-	 * Build matches vector (with train instances) and initialize it.
+	 * Build matches vector (with train instances) and initialize it. The
+	 * memory is accounted by the MatchCacheManager, which may evict other
+	 * classifiers' caches to stay within budget.
 	 */
-	public void buildMatches() {
-		this.matchInstances = new byte[myLcs.instances.length];
-		Arrays.fill(this.matchInstances, (byte) -1);
+	public synchronized void buildMatches() {
+		MatchCacheManager.allocate(this, myLcs.instances.length);
 	}
 
 	/**
@@ -281,6 +317,15 @@ public final class Classifier extends ExtendedBitSet implements Serializable {
 		return updateStrategy.getComparisonValue(this, mode);
 	}
 
+	/**
+	 * Getter for the data compiled from the chromosome by the bridge.
+	 * 
+	 * @return the compiled data or null if they need to be (re)built
+	 */
+	public Object getCompiledData() {
+		return compiledData;
+	}
+
 	/**
 	 * Returns the classifer's coverage approximation.
 	 * 
@@ -350,26 +395,175 @@ public final class Classifier extends ExtendedBitSet implements Serializable {
 
 	/**
 	 * Checks if Classifier is matches an instance vector. Through caching for
-	 * performance optimization.
+	 * performance optimization. The cache is lazily built and is safe to be
+	 * used by many threads.
 	 * 
 	 * @param instanceIndex
 	 *            the instance index to check for a match
 	 * @return true if the classifier matches the instance of the given index
 	 */
 	public boolean isMatch(final int instanceIndex) {
-		if (this.matchInstances == null) {
-			buildMatches();
+		long[] matches = this.matchInstances;
+		if (matches == null) {
+			synchronized (this) {
+				if (this.matchInstances == null) {
+					buildMatches();
+				}
+				matches = this.matchInstances;
+			}
+		}
+		final long now = MatchCacheManager.getClock();
+		if (lastMatched != now)
+			lastMatched = now;
+
+		// Cached answers never change, so they can be read without locking
+		final int word = instanceIndex >>> 5;
+		final int shift = (instanceIndex & 31) << 1;
+		final int cached = (int) (matches[word] >>> shift) & 3;
+		if (cached != MatchCacheManager.UNKNOWN) {
+			MatchCacheManager.hit();
+			return cached == MatchCacheManager.MATCHED;
 		}
 
 		// if we haven't cached the answer, then answer...
-		if (this.matchInstances[instanceIndex] == -1) {
-			this.matchInstances[instanceIndex] = (byte) ((transformBridge
-					.isMatch(myLcs.instances[instanceIndex], this)) ? 1 : 0);
-			this.checked++;
-			this.covered += this.matchInstances[instanceIndex];
+		synchronized (this) {
+			int answer = (int) (matches[word] >>> shift) & 3;
+			if (answer == MatchCacheManager.UNKNOWN) {
+				final boolean match = transformBridge.isMatch(
+						myLcs.instances[instanceIndex], this);
+				answer = match ? MatchCacheManager.MATCHED
+						: MatchCacheManager.NOT_MATCHED;
+				matches[word] |= ((long) answer) << shift;
+				MatchCacheManager.miss();
+				if (!coverageComplete)
+					countCoverage(instanceIndex, match);
+			}
+			return answer == MatchCacheManager.MATCHED;
 		}
+	}
+
+	/**
+	 * Start matching a vision vector against many classifiers sharing this
+	 * classifier's representation.
+	 * 
+	 * @param visionVector
+	 *            the vision vector to be matched or null for a train instance
+	 * @param instanceIndex
+	 *            the index of the train instance to be matched
+	 * @see ClassifierTransformBridge#beginMatch(double[])
+	 */
+	void beginMatch(final double[] visionVector, final int instanceIndex) {
+		transformBridge.beginMatch((visionVector == null) ? myLcs.instances[instanceIndex]
+				: visionVector);
+	}
 
-		return this.matchInstances[instanceIndex] == 1;
+	/**
+	 * End matching the vision vector given to beginMatch().
+	 * 
+	 * @see ClassifierTransformBridge#endMatch()
+	 */
+	void endMatch() {
+		transformBridge.endMatch();
+	}
+
+	/**
+	 * Evict the match cache, if it is still the given one. Called by the
+	 * MatchCacheManager.
+	 * 
+	 * @param cache
+	 *            the evicted cache
+	 */
+	void evictMatchCache(final long[] cache) {
+		if (matchInstances == cache)
+			matchInstances = null;
+	}
+
+	/**
+	 * Count a checked train instance in the coverage, unless it has already
+	 * been counted. Called while holding the classifier's lock.
+	 * 
+	 * @param instanceIndex
+	 *            the index of the checked instance
+	 * @param match
+	 *            true if the classifier matches the instance
+	 */
+	private void countCoverage(final int instanceIndex, final boolean match) {
+		final int numberOfInstances = myLcs.instances.length;
+		if (coverageInstances == null)
+			coverageInstances = new long[(numberOfInstances + 63) >>> 6];
+		final int word = instanceIndex >>> 6;
+		final long bit = 1L << instanceIndex;
+		if ((coverageInstances[word] & bit) != 0)
+			return;
+		coverageInstances[word] |= bit;
+		this.checked++;
+		this.covered += match ? 1 : 0;
+		if (this.checked >= numberOfInstances) {
+			coverageComplete = true;
+			coverageInstances = null;
+		}
+	}
+
+	/**
+	 * Record the coverage of the classifier, after it has been checked
+	 * against all train instances. The coverage is then no longer updated.
+	 * 
+	 * @param checkedInstances
+	 *            the number of instances checked
+	 * @param coveredInstances
+	 *            the number of instances matched
+	 */
+	synchronized void recordCoverage(final int checkedInstances,
+			final int coveredInstances) {
+		checked = checkedInstances;
+		covered = coveredInstances;
+		coverageComplete = true;
+		coverageInstances = null;
+	}
+
+	/**
+	 * Reset a classifier deleted from its population, so that it can be
+	 * reused as a new classifier. Called by the ClassifierPool. The chromosome
+	 * is left as it is. The match cache is emptied and kept, if it still fits
+	 * the train set.
+	 */
+	synchronized void resetForReuse() {
+		final long[] matches = matchInstances;
+		if ((matches != null) && (myLcs.instances != null)
+				&& (matches.length == ((myLcs.instances.length + 31) >>> 5)))
+			Arrays.fill(matches, 0);
+		else
+			matchInstances = null;
+		coverageComplete = false;
+		coverageInstances = null;
+		covered = 0;
+		checked = 0;
+
+		actionCache = null;
+		compiledData = null;
+		transformData = null;
+		experience = 0;
+		timestamp = 0;
+		subsumes = false;
+		setConstructionData();
+	}
+
+	/**
+	 * Set the match cache. Called by the MatchCacheManager.
+	 * 
+	 * @param cache
+	 *            the new (empty) cache
+	 */
+	void setMatchCache(final long[] cache) {
+		matchInstances = cache;
+	}
+
+	/**
+	 * Discard the data compiled from the chromosome. Must be called whenever
+	 * the chromosome is changed in-place.
+	 */
+	public void invalidateCompiledData() {
+		compiledData = null;
 	}
 
 	/**
@@ -392,6 +586,7 @@ public final class Classifier extends ExtendedBitSet implements Serializable {
 	public void setActionAdvocated(final int action) {
 		transformBridge.setClassification(this, action);
 		actionCache = null;
+		compiledData = null;
 	}
 
 	/**
@@ -406,6 +601,16 @@ public final class Classifier extends ExtendedBitSet implements Serializable {
 		updateStrategy.setComparisonValue(this, mode, comparisonValue);
 	}
 
+	/**
+	 * Setter for the data compiled from the chromosome by the bridge.
+	 * 
+	 * @param data
+	 *            the compiled data
+	 */
+	public void setCompiledData(final Object data) {
+		compiledData = data;
+	}
+
 	/**
 	 * Sets the classifier's LCS
 	 * 
@@ -416,6 +621,7 @@ public final class Classifier extends ExtendedBitSet implements Serializable {
 		myLcs = lcs;
 		updateStrategy = myLcs.getUpdateStrategy();
 		transformBridge = myLcs.getClassifierTransformBridge();
+		compiledData = null;
 	}
 
 	/**
@@ -465,8 +671,7 @@ public final class Classifier extends ExtendedBitSet implements Serializable {
 		if (transformBridge != null)
 			transformBridge.setRepresentationSpecificClassifierData(this);
 
-		this.serial = currentSerial;
-		currentSerial++;
+		this.serial = currentSerial.getAndIncrement();
 	}
 
 }
\ No newline at end of file
@@ -0,0 +1,110 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.classifiers;
+
+import java.util.ArrayList;
+
+/**
+ * A pool of classifier objects that have been deleted from a population, so
+ * that they can be reused for new classifiers instead of allocating new ones.
+ * Deleted classifiers may still be referenced (e.g. by the match set of the
+ * current train instance), so they are first queued and become available only
+ * when the owner of the pool reclaims them at a point where no such
+ * references remain.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public final class ClassifierPool {
+
+	/**
+	 * The maximum number of classifiers the pool holds.
+	 */
+	private final int capacity;
+
+	/**
+	 * The classifiers that may be reused.
+	 */
+	private final ArrayList<Classifier> available = new ArrayList<Classifier>();
+
+	/**
+	 * The deleted classifiers that are not yet safe to reuse.
+	 */
+	private final ArrayList<Classifier> queued = new ArrayList<Classifier>();
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param poolCapacity
+	 *            the maximum number of classifiers to keep for reuse
+	 */
+	public ClassifierPool(final int poolCapacity) {
+		capacity = poolCapacity;
+	}
+
+	/**
+	 * Return a classifier for reuse. The classifier has a new serial number
+	 * and new update data, but its chromosome is the one it had when deleted
+	 * and it must be overwritten by the caller.
+	 * 
+	 * @return a reset classifier or null if the pool is empty
+	 */
+	public synchronized Classifier obtain() {
+		final int size = available.size();
+		if (size == 0)
+			return null;
+		final Classifier recycled = available.remove(size - 1);
+		recycled.resetForReuse();
+		return recycled;
+	}
+
+	/**
+	 * Make the queued classifiers available for reuse. The caller must make
+	 * sure that they are no longer referenced.
+	 */
+	public synchronized void reclaim() {
+		final int size = queued.size();
+		for (int i = 0; (i < size) && (available.size() < capacity); i++)
+			available.add(queued.get(i));
+		queued.clear();
+	}
+
+	/**
+	 * Queue a deleted classifier, to be reused after it is reclaimed.
+	 * 
+	 * @param deleted
+	 *            the classifier deleted from a population
+	 */
+	synchronized void recycle(final Classifier deleted) {
+		if ((available.size() + queued.size()) < capacity)
+			queued.add(deleted);
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return the number of classifiers available for reuse
+	 */
+	public synchronized int size() {
+		return available.size();
+	}
+}
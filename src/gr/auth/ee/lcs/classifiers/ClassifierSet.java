@@ -23,6 +23,7 @@ package gr.auth.ee.lcs.classifiers;
 
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
 import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
+import gr.auth.ee.lcs.utilities.FenwickTree;
 
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
@@ -30,24 +31,154 @@ import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.util.HashMap;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * Implement set of Classifiers, counting numerosity for classifiers. This
  * object is serializable.
  * 
+ * A set can be made concurrent, so that it is shared by several training
+ * threads. Additions and deletions are then queued and applied by a single
+ * writer (whichever thread finds the queue unlocked), so numerosities are only
+ * ever changed by one thread. Readers see a copy-on-write snapshot of the
+ * macroclassifiers, published by the writer after each batch of mutations.
+ * 
  * @author Miltos Allamanis
  * 
  * @has 1 - * Macroclassifier
  * @has 1 - 1 IPopulationControlStrategy
  */
-public class ClassifierSet implements Serializable {
+public class ClassifierSet implements Serializable, IClassifierSetView {
 
 	/**
 	 * Serialization id for versioning.
 	 */
 	private static final long serialVersionUID = 2664983888922912954L;
 
+	/**
+	 * The default number of macroclassifiers above which match sets are
+	 * generated in parallel.
+	 */
+	public static final int DEFAULT_PARALLEL_MATCH_THRESHOLD = 2000;
+
+	/**
+	 * The number of macroclassifiers that each match task checks serially.
+	 */
+	private static final int MATCH_TASK_SIZE = 256;
+
+	/**
+	 * The pool used for parallel match set generation. Created on first use.
+	 */
+	private static ForkJoinPool matchPool;
+
+	/**
+	 * Marks the threads that match serially, because they already run in
+	 * parallel with others (e.g. the workers of a batch).
+	 */
+	private static final ThreadLocal<Boolean> SERIAL_MATCHING = new ThreadLocal<Boolean>();
+
+	/**
+	 * Returns the pool used for matching, creating it if necessary.
+	 * 
+	 * @return the match fork-join pool
+	 */
+	private static synchronized ForkJoinPool getMatchPool() {
+		if (matchPool == null) {
+			matchPool = new ForkJoinPool();
+		}
+		return matchPool;
+	}
+
+	/**
+	 * Sets whether the current thread generates its match sets serially,
+	 * whatever the size of the matched sets. Threads that already match in
+	 * parallel with others should, so that they do not also split each
+	 * match set over the match pool.
+	 * 
+	 * @param serially
+	 *            true to always match serially on the current thread
+	 */
+	public static void setSerialMatching(final boolean serially) {
+		if (serially)
+			SERIAL_MATCHING.set(Boolean.TRUE);
+		else
+			SERIAL_MATCHING.remove();
+	}
+
+	/**
+	 * A mutation waiting to be applied by the writer of a concurrent set.
+	 */
+	private static final class PendingMutation {
+
+		/**
+		 * The macroclassifier to add or null for a deletion.
+		 */
+		private final Macroclassifier added;
+
+		/**
+		 * True if the addition should be thoroughly checked.
+		 */
+		private final boolean thoroughAdd;
+
+		/**
+		 * The classifier to delete or null for an addition.
+		 */
+		private final Classifier deleted;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param macro
+		 *            the macroclassifier to add or null for a deletion
+		 * @param thorough
+		 *            true if the addition should be thoroughly checked
+		 * @param aClassifier
+		 *            the classifier to delete or null for an addition
+		 */
+		private PendingMutation(final Macroclassifier macro,
+				final boolean thorough, final Classifier aClassifier) {
+			added = macro;
+			thoroughAdd = thorough;
+			deleted = aClassifier;
+		}
+	}
+
+	/**
+	 * The positions of the classifiers in a snapshot of a concurrent set,
+	 * keyed by their serial.
+	 */
+	private static final class SnapshotIndex {
+
+		/**
+		 * The indexed snapshot.
+		 */
+		private final Macroclassifier[] macros;
+
+		/**
+		 * The position of each classifier serial in the snapshot.
+		 */
+		private final HashMap<Integer, Integer> positions;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param snapshotMacros
+		 *            the snapshot to index
+		 */
+		private SnapshotIndex(final Macroclassifier[] snapshotMacros) {
+			macros = snapshotMacros;
+			positions = new HashMap<Integer, Integer>(
+					(snapshotMacros.length * 4) / 3 + 1);
+			for (int i = 0; i < snapshotMacros.length; i++)
+				positions.put(snapshotMacros[i].myClassifier.getSerial(), i);
+		}
+	}
+
 	/**
 	 * Open a saved (and serialized) ClassifierSet.
 	 * 
@@ -114,21 +245,103 @@ public class ClassifierSet implements Serializable {
 	}
 
 	/**
-	 * The total numerosity of all classifiers in set.
+	 * The total numerosity of all classifiers in set. Only the writer of a
+	 * concurrent set changes it, but the readers of the set read it.
 	 */
-	private int totalNumerosity = 0;
+	private volatile int totalNumerosity = 0;
 
 	/**
 	 * Macroclassifier vector.
 	 */
 	private final Vector<Macroclassifier> myMacroclassifiers;
 
+	/**
+	 * The index of the macroclassifier of each classifier serial. If the same
+	 * classifier has been added more than once, only the first of its
+	 * macroclassifiers is indexed.
+	 */
+	private transient HashMap<Integer, Integer> serialIndex;
+
+	/**
+	 * The number of macroclassifiers whose classifier serial is already
+	 * indexed by another macroclassifier.
+	 */
+	private transient int duplicateSerials;
+
+	/**
+	 * A Fenwick tree over the macroclassifier numerosities, used to find the
+	 * macroclassifier of a microclassifier. Built on the first lookup and
+	 * maintained from then on, or null if it needs to be rebuilt.
+	 */
+	private transient FenwickTree numerosityTree;
+
 	/**
 	 * An interface for a strategy on deleting classifiers from the set. This
 	 * attribute is transient and therefore not serializable.
 	 */
 	private transient IPopulationControlStrategy myISizeControlStrategy;
 
+	/**
+	 * An optional index used to find the matching macroclassifiers. This
+	 * attribute is transient and therefore not serializable.
+	 */
+	private transient IMatchIndex matchIndex;
+
+	/**
+	 * An optional index used to find the macroclassifier that absorbs an
+	 * added classifier. This attribute is transient and therefore not
+	 * serializable.
+	 */
+	private transient SubsumptionIndex subsumptionIndex;
+
+	/**
+	 * An optional pool receiving the classifiers deleted from the set, so that
+	 * they can be reused. This attribute is transient and therefore not
+	 * serializable.
+	 */
+	private transient ClassifierPool classifierPool;
+
+	/**
+	 * The number of macroclassifiers above which the match sets of this set
+	 * are generated in parallel. This attribute is transient and therefore
+	 * not serializable.
+	 */
+	private transient int parallelMatchThreshold = DEFAULT_PARALLEL_MATCH_THRESHOLD;
+
+	/**
+	 * True while the set is shared by concurrent threads.
+	 */
+	private transient volatile boolean concurrent = false;
+
+	/**
+	 * The lock held by the single writer of a concurrent set.
+	 */
+	private transient ReentrantLock writerLock;
+
+	/**
+	 * The mutations waiting to be applied by the writer of a concurrent set.
+	 */
+	private transient ConcurrentLinkedQueue<PendingMutation> pendingMutations;
+
+	/**
+	 * The latest snapshot of the macroclassifiers, published by the writer of
+	 * a concurrent set.
+	 */
+	private transient volatile Macroclassifier[] snapshot;
+
+	/**
+	 * The snapshot each reader thread of a concurrent set is currently using.
+	 * A thread keeps reading the same snapshot until it generates its next
+	 * match set, so that indices stay valid in between.
+	 */
+	private transient volatile ThreadLocal<Macroclassifier[]> pinnedSnapshots;
+
+	/**
+	 * The index of the latest snapshot looked up by serial, lazily built by
+	 * the first reader that needs it.
+	 */
+	private transient volatile SnapshotIndex snapshotIndex;
+
 	/**
 	 * The default ClassifierSet constructor.
 	 * 
@@ -138,7 +351,7 @@ public class ClassifierSet implements Serializable {
 	public ClassifierSet(final IPopulationControlStrategy sizeControlStrategy) {
 		this.myISizeControlStrategy = sizeControlStrategy;
 		this.myMacroclassifiers = new Vector<Macroclassifier>();
-
+		this.serialIndex = new HashMap<Integer, Integer>();
 	}
 
 	/**
@@ -153,6 +366,11 @@ public class ClassifierSet implements Serializable {
 	 */
 	public final void addClassifier(final Macroclassifier macro,
 			final boolean thoroughAdd) {
+		if (isQueued()) {
+			pendingMutations.add(new PendingMutation(macro, thoroughAdd, null));
+			applyPendingMutations();
+			return;
+		}
 
 		final int numerosity = macro.numerosity;
 		// Add numerosity to the Set
@@ -160,28 +378,25 @@ public class ClassifierSet implements Serializable {
 
 		// Subsume if possible
 		if (thoroughAdd) {
-			final Classifier aClassifier = macro.myClassifier;
-			for (int i = 0; i < myMacroclassifiers.size(); i++) {
-				final Classifier theClassifier = myMacroclassifiers
-						.elementAt(i).myClassifier;
-				if (theClassifier.canSubsume()) {
-					if (theClassifier.isMoreGeneral(aClassifier)) {
-						// Subsume and control size...
-						myMacroclassifiers.elementAt(i).numerosity += numerosity;
-						if (myISizeControlStrategy != null) {
-							myISizeControlStrategy.controlPopulation(this);
-						}
-						return;
-					}
-				} else if (theClassifier.equals(aClassifier)) { // Or it can't
-																// subsume but
-																// it is equal
-					myMacroclassifiers.elementAt(i).numerosity += numerosity;
-					if (myISizeControlStrategy != null) {
-						myISizeControlStrategy.controlPopulation(this);
-					}
-					return;
+			final Macroclassifier absorbing = (subsumptionIndex != null) ? subsumptionIndex
+					.findAbsorbing(macro.myClassifier)
+					: findAbsorbing(macro.myClassifier);
+			if (absorbing != null) {
+				// Subsume (or merge with the equal) and control size...
+				absorbing.numerosity += numerosity;
+				if (numerosityTree != null) {
+					final Integer absorbingIndex = serialIndex
+							.get(absorbing.myClassifier.getSerial());
+					if ((absorbingIndex != null)
+							&& (myMacroclassifiers.elementAt(absorbingIndex) == absorbing))
+						numerosityTree.add(absorbingIndex, numerosity);
+					else
+						numerosityTree = null;
 				}
+				if (myISizeControlStrategy != null) {
+					myISizeControlStrategy.controlPopulation(this);
+				}
+				return;
 			}
 		}
 
@@ -190,6 +405,13 @@ public class ClassifierSet implements Serializable {
 		 * control size...
 		 */
 		this.myMacroclassifiers.add(macro);
+		indexSerial(macro, myMacroclassifiers.size() - 1);
+		if (numerosityTree != null)
+			numerosityTree.append(numerosity);
+		if (matchIndex != null)
+			matchIndex.add(macro);
+		if (subsumptionIndex != null)
+			subsumptionIndex.add(macro);
 		if (myISizeControlStrategy != null) {
 			myISizeControlStrategy.controlPopulation(this);
 		}
@@ -203,35 +425,38 @@ public class ClassifierSet implements Serializable {
 	 *            the classifier to delete
 	 */
 	public final void deleteClassifier(final Classifier aClassifier) {
-
-		int index;
-		final int macroSize = myMacroclassifiers.size();
-		for (index = 0; index < macroSize; index++) {
-			if (myMacroclassifiers.elementAt(index).myClassifier.getSerial() == aClassifier
-					.getSerial())
-				break;
+		if (isQueued()) {
+			pendingMutations.add(new PendingMutation(null, false, aClassifier));
+			applyPendingMutations();
+			return;
 		}
-
-		if (index == macroSize)
+		final Integer index = serialIndex.get(aClassifier.getSerial());
+		if (index == null)
 			return;
 		deleteClassifier(index);
-
 	}
 
 	/**
 	 * Deletes a classifier with the given index. If the macroclassifier at the
 	 * given index contains more than one classifier the numerosity is decreased
-	 * by one.
+	 * by one. Otherwise the macroclassifier is removed and the last
+	 * macroclassifier of the set takes its index.
 	 * 
 	 * @param index
 	 *            the index of the classifier's macroclassifier to delete
 	 */
 	public final void deleteClassifier(final int index) {
+		if (isQueued()) {
+			deleteClassifier(getClassifier(index));
+			return;
+		}
 		this.totalNumerosity--;
 		if (this.myMacroclassifiers.elementAt(index).numerosity > 1) {
 			this.myMacroclassifiers.elementAt(index).numerosity--;
+			if (numerosityTree != null)
+				numerosityTree.add(index, -1);
 		} else {
-			this.myMacroclassifiers.remove(index);
+			swapRemove(index, true);
 		}
 	}
 
@@ -243,15 +468,7 @@ public class ClassifierSet implements Serializable {
 	 * @return a ClassifierSet containing the match set
 	 */
 	public final ClassifierSet generateMatchSet(final double[] dataInstance) {
-		final ClassifierSet matchSet = new ClassifierSet(null);
-		final int populationSize = this.getNumberOfMacroclassifiers();
-		// TODO: Parallelize for performance increase
-		for (int i = 0; i < populationSize; i++) {
-			if (this.getClassifier(i).isMatch(dataInstance)) {
-				matchSet.addClassifier(this.getMacroclassifier(i), false);
-			}
-		}
-		return matchSet;
+		return buildMatchSet(findMatches(dataInstance, -1));
 	}
 
 	/**
@@ -262,13 +479,56 @@ public class ClassifierSet implements Serializable {
 	 * @return the match set
 	 */
 	public final ClassifierSet generateMatchSet(final int dataInstanceIndex) {
-		final ClassifierSet matchSet = new ClassifierSet(null);
-		final int populationSize = this.getNumberOfMacroclassifiers();
-		// TODO: Parallelize for performance increase
-		for (int i = 0; i < populationSize; i++) {
-			if (this.getClassifier(i).isMatch(dataInstanceIndex)) {
-				matchSet.addClassifier(this.getMacroclassifier(i), false);
+		return buildMatchSet(findMatches(null, dataInstanceIndex));
+	}
+
+	/**
+	 * Generate match set from data instance into a reusable view, without
+	 * creating a new set. Unless the set is matched through its match index
+	 * or in parallel, the matching macroclassifiers are appended to the view
+	 * as they are found, without any intermediate arrays.
+	 * 
+	 * @param dataInstanceIndex
+	 *            the index of the instance
+	 * @param matchSet
+	 *            the view to fill with the match set. Any previous contents are
+	 *            discarded
+	 * @return the match set view
+	 */
+	public final MatchSetView generateMatchSet(final int dataInstanceIndex,
+			final MatchSetView matchSet) {
+		matchSet.detach();
+		final Macroclassifier[] view = pinSnapshot();
+		final int size = (view != null) ? view.length : myMacroclassifiers
+				.size();
+		final boolean indexed = (view == null) && (matchIndex != null)
+				&& matchIndex.isPreferable(null);
+		if (indexed || isMatchedInParallel(size)) {
+			final Macroclassifier[] matches = findMatches(null,
+					dataInstanceIndex);
+			final int matchesSize = matches.length;
+			for (int i = 0; i < matchesSize; i++) {
+				matchSet.add(matches[i].myClassifier, matches[i].numerosity);
 			}
+			return matchSet;
+		}
+
+		// Scan the set (or the pinned snapshot) straight into the view
+		MatchCacheManager.tick();
+		if (size == 0)
+			return matchSet;
+		final Classifier first = (view != null) ? view[0].myClassifier
+				: myMacroclassifiers.elementAt(0).myClassifier;
+		first.beginMatch(null, dataInstanceIndex);
+		try {
+			for (int i = 0; i < size; i++) {
+				final Macroclassifier macro = (view != null) ? view[i]
+						: myMacroclassifiers.elementAt(i);
+				if (macro.myClassifier.isMatch(dataInstanceIndex))
+					matchSet.add(macro.myClassifier, macro.numerosity);
+			}
+		} finally {
+			first.endMatch();
 		}
 		return matchSet;
 	}
@@ -281,23 +541,45 @@ public class ClassifierSet implements Serializable {
 	 * @return the classifier at the specified index
 	 */
 	public final Classifier getClassifier(final int index) {
+		final Macroclassifier[] view = getReaderSnapshot();
+		if (view != null)
+			return view[index].myClassifier;
 		return this.myMacroclassifiers.elementAt(index).myClassifier;
 	}
 
 	/**
-	 * Returns a classifier's numerosity (the number of microclassifiers).
+	 * Returns a classifier's numerosity (the number of microclassifiers). The
+	 * readers of a concurrent set look it up in their pinned snapshot.
 	 * 
 	 * @param aClassifier
 	 *            the classifier
 	 * @return the given classifier's numerosity
 	 */
 	public final int getClassifierNumerosity(final Classifier aClassifier) {
-		for (int i = 0; i < myMacroclassifiers.size(); i++) {
-			if (myMacroclassifiers.elementAt(i).myClassifier.getSerial() == aClassifier
-					.getSerial())
-				return this.myMacroclassifiers.elementAt(i).numerosity;
+		final Macroclassifier[] view = getReaderSnapshot();
+		if (view != null) {
+			SnapshotIndex index = snapshotIndex;
+			if ((index == null) || (index.macros != view)) {
+				index = new SnapshotIndex(view);
+				snapshotIndex = index;
+			}
+			final Integer position = index.positions
+					.get(aClassifier.getSerial());
+			if (position == null)
+				return 0;
+			if (view[position].myClassifier == aClassifier)
+				return view[position].numerosity;
+			// Another classifier with the same serial
+			for (int i = 0; i < view.length; i++) {
+				if (view[i].myClassifier == aClassifier)
+					return view[i].numerosity;
+			}
+			return 0;
 		}
-		return 0;
+		final Integer index = serialIndex.get(aClassifier.getSerial());
+		if (index == null)
+			return 0;
+		return this.myMacroclassifiers.elementAt(index).numerosity;
 	}
 
 	/**
@@ -308,9 +590,44 @@ public class ClassifierSet implements Serializable {
 	 * @return the index'th macroclassifier numerosity
 	 */
 	public final int getClassifierNumerosity(final int index) {
+		final Macroclassifier[] view = getReaderSnapshot();
+		if (view != null)
+			return view[index].numerosity;
 		return this.myMacroclassifiers.elementAt(index).numerosity;
 	}
 
+	/**
+	 * Find the macroclassifier containing a microclassifier, in logarithmic
+	 * time.
+	 * 
+	 * @param microclassifierIndex
+	 *            the index of the microclassifier, in [0, total numerosity)
+	 * @return the index of the macroclassifier that the microclassifier
+	 *         belongs to
+	 */
+	public final int getMacroclassifierIndex(final int microclassifierIndex) {
+		final Macroclassifier[] view = getReaderSnapshot();
+		if (view != null) {
+			// The tree belongs to the writer, walk the snapshot
+			int microclassifiers = 0;
+			for (int i = 0; i < view.length; i++) {
+				microclassifiers += view[i].numerosity;
+				if (microclassifiers > microclassifierIndex)
+					return i;
+			}
+			return Math.max(0, view.length - 1);
+		}
+		if (numerosityTree == null) {
+			final int macroSize = myMacroclassifiers.size();
+			final double[] numerosities = new double[macroSize];
+			for (int i = 0; i < macroSize; i++)
+				numerosities[i] = myMacroclassifiers.elementAt(i).numerosity;
+			numerosityTree = new FenwickTree(macroSize);
+			numerosityTree.reset(numerosities, macroSize);
+		}
+		return Math.max(0, numerosityTree.find(microclassifierIndex));
+	}
+
 	/**
 	 * Returns the macroclassifier at the given index.
 	 * 
@@ -319,6 +636,9 @@ public class ClassifierSet implements Serializable {
 	 * @return the macroclassifier at a given index
 	 */
 	public final Macroclassifier getMacroclassifier(final int index) {
+		final Macroclassifier[] view = getReaderSnapshot();
+		if (view != null)
+			return new Macroclassifier(view[index]);
 		return new Macroclassifier(this.myMacroclassifiers.elementAt(index));
 	}
 
@@ -328,9 +648,30 @@ public class ClassifierSet implements Serializable {
 	 * @return the number of macroclassifiers in the set
 	 */
 	public final int getNumberOfMacroclassifiers() {
+		final Macroclassifier[] view = getReaderSnapshot();
+		if (view != null)
+			return view.length;
 		return this.myMacroclassifiers.size();
 	}
 
+	/**
+	 * Getter.
+	 * 
+	 * @return the set's match index or null if the set has none
+	 */
+	public final IMatchIndex getMatchIndex() {
+		return matchIndex;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return the set's subsumption index or null if the set has none
+	 */
+	public final SubsumptionIndex getSubsumptionIndex() {
+		return subsumptionIndex;
+	}
+
 	/**
 	 * Get the set's population control strategy
 	 * 
@@ -350,11 +691,18 @@ public class ClassifierSet implements Serializable {
 		return this.totalNumerosity;
 	}
 
+	/**
+	 * @return true if the set is shared by concurrent threads
+	 */
+	public final boolean isConcurrent() {
+		return concurrent;
+	}
+
 	/**
 	 * @return true if the set is empty
 	 */
 	public final boolean isEmpty() {
-		return this.myMacroclassifiers.isEmpty();
+		return getNumberOfMacroclassifiers() == 0;
 	}
 
 	/**
@@ -363,10 +711,11 @@ public class ClassifierSet implements Serializable {
 	 * @param aSet
 	 *            the set to be merged.
 	 */
-	public final void merge(final ClassifierSet aSet) {
+	public final void merge(final IClassifierSetView aSet) {
 		final int setSize = aSet.getNumberOfMacroclassifiers();
 		for (int i = 0; i < setSize; i++) {
-			final Macroclassifier ml = aSet.getMacroclassifier(i);
+			final Macroclassifier ml = new Macroclassifier(
+					aSet.getClassifier(i), aSet.getClassifierNumerosity(i));
 			this.addClassifier(ml, false);
 		}
 	}
@@ -382,20 +731,571 @@ public class ClassifierSet implements Serializable {
 	 * Remove all set's macroclassifiers.
 	 */
 	public final void removeAllMacroclassifiers() {
+		if (isQueued()) {
+			writerLock.lock();
+			try {
+				removeAllMacroclassifiers();
+				publishSnapshot();
+			} finally {
+				writerLock.unlock();
+			}
+			return;
+		}
 		this.myMacroclassifiers.clear();
+		this.serialIndex.clear();
+		this.duplicateSerials = 0;
+		this.numerosityTree = null;
 		this.totalNumerosity = 0;
+		if (matchIndex != null)
+			matchIndex.clear();
+		if (subsumptionIndex != null)
+			subsumptionIndex.clear();
+	}
+
+	/**
+	 * Set a pool to receive the classifiers that are deleted from the set. A
+	 * classifier is given to the pool when its last macroclassifier is
+	 * removed. Nothing is given to the pool while the set is concurrent, since
+	 * other threads may still read the deleted classifiers.
+	 * 
+	 * @param pool
+	 *            the pool to use or null to leave deleted classifiers to the
+	 *            garbage collector
+	 */
+	public final void setClassifierPool(final ClassifierPool pool) {
+		classifierPool = pool;
+	}
+
+	/**
+	 * Returns the number of macroclassifiers above which the match sets of
+	 * this set are generated in parallel.
+	 * 
+	 * @return the parallel match threshold
+	 */
+	public final int getParallelMatchThreshold() {
+		return parallelMatchThreshold;
+	}
+
+	/**
+	 * Sets the set size (in macroclassifiers) above which the match sets of
+	 * this set are generated in parallel.
+	 * 
+	 * @param threshold
+	 *            the new threshold. Use Integer.MAX_VALUE to always match
+	 *            serially
+	 */
+	public final void setParallelMatchThreshold(final int threshold) {
+		parallelMatchThreshold = threshold;
+	}
+
+	/**
+	 * Make the set concurrent, so that it can be shared by several training
+	 * threads, or make it serial again. When the set stops being concurrent,
+	 * any queued mutations are applied. The caller must make sure that no
+	 * other thread uses the set while switching modes.
+	 * 
+	 * @param isConcurrent
+	 *            true to make the set concurrent
+	 */
+	public final void setConcurrent(final boolean isConcurrent) {
+		if (isConcurrent == concurrent)
+			return;
+		if (isConcurrent) {
+			if (writerLock == null) {
+				writerLock = new ReentrantLock();
+				pendingMutations = new ConcurrentLinkedQueue<PendingMutation>();
+			}
+			// A new thread local, so that no stale snapshot is ever read
+			pinnedSnapshots = new ThreadLocal<Macroclassifier[]>();
+			publishSnapshot();
+			concurrent = true;
+		} else {
+			applyPendingMutations();
+			concurrent = false;
+			snapshot = null;
+			snapshotIndex = null;
+			pinnedSnapshots = null;
+		}
+	}
+
+	/**
+	 * Set an index to be used for finding the matching macroclassifiers. The
+	 * index is filled with the current contents of the set.
+	 * 
+	 * @param index
+	 *            the index to use or null to always check all
+	 *            macroclassifiers
+	 */
+	public final void setMatchIndex(final IMatchIndex index) {
+		matchIndex = index;
+		if (index == null)
+			return;
+		index.clear();
+		final int macroSize = myMacroclassifiers.size();
+		for (int i = 0; i < macroSize; i++)
+			index.add(myMacroclassifiers.elementAt(i));
+	}
+
+	/**
+	 * Set an index to be used for finding the macroclassifier that absorbs an
+	 * added classifier. The index is filled with the current contents of the
+	 * set.
+	 * 
+	 * @param index
+	 *            the index to use or null to always check all
+	 *            macroclassifiers
+	 */
+	public final void setSubsumptionIndex(final SubsumptionIndex index) {
+		subsumptionIndex = index;
+		if (index == null)
+			return;
+		index.clear();
+		final int macroSize = myMacroclassifiers.size();
+		for (int i = 0; i < macroSize; i++)
+			index.add(myMacroclassifiers.elementAt(i));
 	}
 
 	/**
 	 * Self subsume.
 	 */
 	public final void selfSubsume() {
-		for (int i = 0; i < this.getNumberOfMacroclassifiers(); i++) {
-			final Macroclassifier cl = this.getMacroclassifier(0);
-			final int numerosity = cl.numerosity;
-			this.myMacroclassifiers.remove(0);
-			this.totalNumerosity -= numerosity;
-			this.addClassifier(cl, true);
+		if (isQueued()) {
+			writerLock.lock();
+			try {
+				selfSubsume();
+				publishSnapshot();
+			} finally {
+				writerLock.unlock();
+			}
+			return;
+		}
+		// Visit each macroclassifier once, wherever it has been moved to
+		final Macroclassifier[] macros = myMacroclassifiers
+				.toArray(new Macroclassifier[myMacroclassifiers.size()]);
+		for (int i = 0; i < macros.length; i++) {
+			final int index = indexOf(macros[i]);
+			if (index < 0)
+				continue; // Deleted by the population control
+			this.totalNumerosity -= macros[i].numerosity;
+			swapRemove(index, false);
+			this.addClassifier(macros[i], true);
+		}
+	}
+
+	/**
+	 * Apply the queued mutations of a concurrent set, unless another thread
+	 * is already applying them. The queue is checked again after the lock is
+	 * released, so that no mutation is left behind.
+	 */
+	private void applyPendingMutations() {
+		while (!pendingMutations.isEmpty() && writerLock.tryLock()) {
+			try {
+				PendingMutation mutation;
+				while ((mutation = pendingMutations.poll()) != null) {
+					if (mutation.deleted != null)
+						deleteClassifier(mutation.deleted);
+					else
+						addClassifier(mutation.added, mutation.thoroughAdd);
+				}
+				if (concurrent)
+					publishSnapshot();
+			} finally {
+				writerLock.unlock();
+			}
+		}
+	}
+
+	/**
+	 * Get the snapshot read by the calling thread.
+	 * 
+	 * @return the snapshot pinned by the calling thread or null if the thread
+	 *         reads the set itself (the set is not concurrent or the thread
+	 *         is the writer)
+	 */
+	private Macroclassifier[] getReaderSnapshot() {
+		if (!isQueued())
+			return null;
+		final ThreadLocal<Macroclassifier[]> pins = pinnedSnapshots;
+		Macroclassifier[] pinned = pins.get();
+		if (pinned == null) {
+			pinned = snapshot;
+			pins.set(pinned);
+		}
+		return pinned;
+	}
+
+	/**
+	 * Check if the calling thread must queue its mutations.
+	 * 
+	 * @return true if the set is concurrent and the calling thread is not its
+	 *         writer
+	 */
+	private boolean isQueued() {
+		return concurrent && !writerLock.isHeldByCurrentThread();
+	}
+
+	/**
+	 * Pin the latest snapshot for the calling thread.
+	 * 
+	 * @return the latest snapshot or null if the thread reads the set itself
+	 */
+	private Macroclassifier[] pinSnapshot() {
+		if (!isQueued())
+			return null;
+		final Macroclassifier[] latest = snapshot;
+		pinnedSnapshots.set(latest);
+		return latest;
+	}
+
+	/**
+	 * Publish a copy of the macroclassifiers for the readers of a concurrent
+	 * set. The macroclassifiers themselves are copied, since the writer
+	 * changes the numerosities of the set's macroclassifiers in place, so a
+	 * pinned snapshot never changes under its reader.
+	 */
+	private void publishSnapshot() {
+		final int macroSize = myMacroclassifiers.size();
+		final Macroclassifier[] published = new Macroclassifier[macroSize];
+		for (int i = 0; i < macroSize; i++)
+			published[i] = new Macroclassifier(myMacroclassifiers.elementAt(i));
+		snapshot = published;
+	}
+
+	/**
+	 * Find the first macroclassifier of the set that absorbs a classifier: an
+	 * equal classifier that can not subsume or a more general classifier that
+	 * can subsume.
+	 * 
+	 * @param aClassifier
+	 *            the classifier to be absorbed
+	 * @return the absorbing macroclassifier or null if there is none
+	 */
+	private Macroclassifier findAbsorbing(final Classifier aClassifier) {
+		for (int i = 0; i < myMacroclassifiers.size(); i++) {
+			final Classifier theClassifier = myMacroclassifiers.elementAt(i).myClassifier;
+			if (theClassifier.canSubsume()) {
+				if (theClassifier.isMoreGeneral(aClassifier))
+					return myMacroclassifiers.elementAt(i);
+			} else if (theClassifier.equals(aClassifier)) { // Or it can't
+															// subsume but it
+															// is equal
+				return myMacroclassifiers.elementAt(i);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Index the serial of a macroclassifier's classifier.
+	 * 
+	 * @param macro
+	 *            the macroclassifier
+	 * @param index
+	 *            the index of the macroclassifier in the set
+	 */
+	private void indexSerial(final Macroclassifier macro, final int index) {
+		final Integer serial = macro.myClassifier.getSerial();
+		if (serialIndex.containsKey(serial))
+			duplicateSerials++;
+		else
+			serialIndex.put(serial, index);
+	}
+
+	/**
+	 * Rebuild the serial index from the macroclassifiers of the set.
+	 */
+	private void rebuildSerialIndex() {
+		serialIndex = new HashMap<Integer, Integer>();
+		duplicateSerials = 0;
+		final int macroSize = myMacroclassifiers.size();
+		for (int i = 0; i < macroSize; i++)
+			indexSerial(myMacroclassifiers.elementAt(i), i);
+	}
+
+	/**
+	 * Deserialize the set and rebuild its serial index.
+	 * 
+	 * @param in
+	 *            the input stream
+	 * @throws IOException
+	 *             if the set can not be read
+	 * @throws ClassNotFoundException
+	 *             if a class of the set can not be found
+	 */
+	private void readObject(final ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		parallelMatchThreshold = DEFAULT_PARALLEL_MATCH_THRESHOLD;
+		rebuildSerialIndex();
+	}
+
+	/**
+	 * Find the index of a macroclassifier of the set.
+	 * 
+	 * @param macro
+	 *            the macroclassifier
+	 * @return the index of the macroclassifier or -1 if it is not in the set
+	 */
+	private int indexOf(final Macroclassifier macro) {
+		final Integer index = serialIndex.get(macro.myClassifier.getSerial());
+		if (index == null)
+			return -1;
+		if (myMacroclassifiers.elementAt(index) == macro)
+			return index;
+		// Another macroclassifier with the same serial
+		for (int i = 0; i < myMacroclassifiers.size(); i++) {
+			if (myMacroclassifiers.elementAt(i) == macro)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Remove the macroclassifier at an index in constant time, by moving the
+	 * last macroclassifier of the set to its place.
+	 * 
+	 * @param index
+	 *            the index of the macroclassifier to remove
+	 * @param recycle
+	 *            true if the removed classifier may be recycled (false if it
+	 *            is going to be added again)
+	 */
+	private void swapRemove(final int index, final boolean recycle) {
+		final int last = myMacroclassifiers.size() - 1;
+		final Macroclassifier removed = myMacroclassifiers.elementAt(index);
+		final Macroclassifier moved = myMacroclassifiers.elementAt(last);
+		myMacroclassifiers.set(index, moved);
+		myMacroclassifiers.remove(last);
+		if (numerosityTree != null) {
+			numerosityTree.set(index, moved.numerosity);
+			numerosityTree.removeLast();
+		}
+
+		final Integer removedSerial = removed.myClassifier.getSerial();
+		final Integer removedIndex = serialIndex.get(removedSerial);
+		final boolean wasIndexed = (removedIndex != null)
+				&& (removedIndex == index);
+		if (index != last) {
+			final Integer movedSerial = moved.myClassifier.getSerial();
+			final Integer movedIndex = serialIndex.get(movedSerial);
+			if ((movedIndex != null) && (movedIndex == last))
+				serialIndex.put(movedSerial, index);
+		}
+
+		if (!wasIndexed) {
+			duplicateSerials--;
+		} else {
+			serialIndex.remove(removedSerial);
+			if (duplicateSerials > 0) {
+				// Index another macroclassifier of the same classifier
+				for (int i = 0; i < last; i++) {
+					if (myMacroclassifiers.elementAt(i).myClassifier
+							.getSerial() == removedSerial) {
+						serialIndex.put(removedSerial, i);
+						duplicateSerials--;
+						break;
+					}
+				}
+			}
+		}
+
+		if (matchIndex != null)
+			matchIndex.remove(removed);
+		if (subsumptionIndex != null)
+			subsumptionIndex.remove(removed);
+		if (recycle && (classifierPool != null) && !concurrent
+				&& !serialIndex.containsKey(removedSerial))
+			classifierPool.recycle(removed.myClassifier);
+	}
+
+	/**
+	 * Create a match set from the given macroclassifiers.
+	 * 
+	 * @param matches
+	 *            the matching macroclassifiers
+	 * @return the match set
+	 */
+	private ClassifierSet buildMatchSet(final Macroclassifier[] matches) {
+		final ClassifierSet matchSet = new ClassifierSet(null);
+		final int matchesSize = matches.length;
+		for (int i = 0; i < matchesSize; i++) {
+			matchSet.addClassifier(new Macroclassifier(matches[i]), false);
+		}
+		return matchSet;
+	}
+
+	/**
+	 * Checks if a match set of the given number of macroclassifiers is
+	 * generated in parallel. It never is on a thread that matches serially.
+	 * 
+	 * @param size
+	 *            the number of macroclassifiers to check
+	 * @return true if the macroclassifiers are checked in parallel
+	 */
+	private boolean isMatchedInParallel(final int size) {
+		return (size > parallelMatchThreshold)
+				&& (SERIAL_MATCHING.get() == null);
+	}
+
+	/**
+	 * Find the macroclassifiers matching an instance. Readers of a concurrent
+	 * set pin and scan the latest snapshot, since the indices are only safe
+	 * for the writer. Otherwise, if the set has a match index that is cheaper
+	 * than a linear scan, the index is used. Large populations are split into
+	 * ranges that are checked in parallel, unless the current thread matches
+	 * serially. The partial results are joined in
+	 * range order, so the matches are always in the order of the set.
+	 * 
+	 * @param dataInstance
+	 *            the instance to be matched or null to match by index
+	 * @param dataInstanceIndex
+	 *            the index of the train instance to be matched (used when
+	 *            dataInstance is null)
+	 * @return the matching macroclassifiers
+	 */
+	private Macroclassifier[] findMatches(final double[] dataInstance,
+			final int dataInstanceIndex) {
+		if (dataInstance == null)
+			MatchCacheManager.tick();
+		Macroclassifier[] macros = pinSnapshot();
+		if (macros == null) {
+			if ((matchIndex != null) && matchIndex.isPreferable(dataInstance))
+				return matchIndex.findMatches(dataInstance, dataInstanceIndex);
+			macros = myMacroclassifiers
+					.toArray(new Macroclassifier[myMacroclassifiers.size()]);
+		}
+		if (!isMatchedInParallel(macros.length)) {
+			return matchRange(macros, dataInstance, dataInstanceIndex, 0,
+					macros.length);
+		}
+		return getMatchPool().invoke(
+				new MatchTask(macros, dataInstance, dataInstanceIndex, 0,
+						macros.length));
+	}
+
+	/**
+	 * Serially find the matching macroclassifiers in a range.
+	 * 
+	 * @param macros
+	 *            the macroclassifiers to check
+	 * @param dataInstance
+	 *            the instance to be matched or null to match by index
+	 * @param dataInstanceIndex
+	 *            the index of the train instance to be matched
+	 * @param from
+	 *            the first index of the range
+	 * @param to
+	 *            the end (exclusive) of the range
+	 * @return the matching macroclassifiers, in set order
+	 */
+	private static Macroclassifier[] matchRange(
+			final Macroclassifier[] macros, final double[] dataInstance,
+			final int dataInstanceIndex, final int from, final int to) {
+		final Macroclassifier[] buffer = new Macroclassifier[to - from];
+		int found = 0;
+		if (from == to)
+			return buffer;
+		final Classifier first = macros[from].myClassifier;
+		first.beginMatch(dataInstance, dataInstanceIndex);
+		try {
+			for (int i = from; i < to; i++) {
+				final Classifier cl = macros[i].myClassifier;
+				if ((dataInstance == null) ? cl.isMatch(dataInstanceIndex)
+						: cl.isMatch(dataInstance)) {
+					buffer[found] = macros[i];
+					found++;
+				}
+			}
+		} finally {
+			first.endMatch();
+		}
+		final Macroclassifier[] matches = new Macroclassifier[found];
+		System.arraycopy(buffer, 0, matches, 0, found);
+		return matches;
+	}
+
+	/**
+	 * A fork-join task finding the matching macroclassifiers in a range of a
+	 * set.
+	 */
+	private static final class MatchTask extends RecursiveTask<Macroclassifier[]> {
+
+		/**
+		 * Serialization id for versioning.
+		 */
+		private static final long serialVersionUID = -2581398542327315040L;
+
+		/**
+		 * The macroclassifiers of the set.
+		 */
+		private final Macroclassifier[] macros;
+
+		/**
+		 * The instance to match or null to match by index.
+		 */
+		private final double[] instance;
+
+		/**
+		 * The train instance index to match.
+		 */
+		private final int instanceIndex;
+
+		/**
+		 * The first macroclassifier index of the range (inclusive).
+		 */
+		private final int from;
+
+		/**
+		 * The last macroclassifier index of the range (exclusive).
+		 */
+		private final int to;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param setMacros
+		 *            the macroclassifiers of the set
+		 * @param dataInstance
+		 *            the instance to match or null to match by index
+		 * @param dataInstanceIndex
+		 *            the train instance index to match
+		 * @param rangeFrom
+		 *            the first index of the range
+		 * @param rangeTo
+		 *            the end (exclusive) of the range
+		 */
+		MatchTask(final Macroclassifier[] setMacros,
+				final double[] dataInstance, final int dataInstanceIndex,
+				final int rangeFrom, final int rangeTo) {
+			macros = setMacros;
+			instance = dataInstance;
+			instanceIndex = dataInstanceIndex;
+			from = rangeFrom;
+			to = rangeTo;
+		}
+
+		@Override
+		protected Macroclassifier[] compute() {
+			if (to - from <= MATCH_TASK_SIZE) {
+				return matchRange(macros, instance, instanceIndex, from, to);
+			}
+
+			final int middle = (from + to) >>> 1;
+			final MatchTask left = new MatchTask(macros, instance,
+					instanceIndex, from, middle);
+			final MatchTask right = new MatchTask(macros, instance,
+					instanceIndex, middle, to);
+			left.fork();
+			final Macroclassifier[] rightMatches = right.compute();
+			final Macroclassifier[] leftMatches = left.join();
+
+			// Join in range order to keep the match set deterministic
+			final Macroclassifier[] matches = new Macroclassifier[leftMatches.length
+					+ rightMatches.length];
+			System.arraycopy(leftMatches, 0, matches, 0, leftMatches.length);
+			System.arraycopy(rightMatches, 0, matches, leftMatches.length,
+					rightMatches.length);
+			return matches;
 		}
 	}
 
@@ -0,0 +1,92 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.classifiers;
+
+/**
+ * A read-only view of a set of classifiers with their numerosities. Both the
+ * population and the (reusable) match set views expose their contents through
+ * this interface, so that update algorithms, genetic algorithms and selectors
+ * may work on either of them.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public interface IClassifierSetView {
+
+	/**
+	 * Return the classifier at a given index of the set.
+	 * 
+	 * @param index
+	 *            the index of the macroclassifier
+	 * @return the classifier at the specified index
+	 */
+	Classifier getClassifier(int index);
+
+	/**
+	 * Returns a classifier's numerosity (the number of microclassifiers).
+	 * 
+	 * @param aClassifier
+	 *            the classifier
+	 * @return the given classifier's numerosity or 0 if it is not in the set
+	 */
+	int getClassifierNumerosity(Classifier aClassifier);
+
+	/**
+	 * Returns the numerosity of the macroclassifier at the given index.
+	 * 
+	 * @param index
+	 *            the index of the macroclassifier
+	 * @return the index'th macroclassifier numerosity
+	 */
+	int getClassifierNumerosity(int index);
+
+	/**
+	 * Find the macroclassifier containing a microclassifier, counting the
+	 * microclassifiers in the order of the set.
+	 * 
+	 * @param microclassifierIndex
+	 *            the index of the microclassifier, in [0, total numerosity)
+	 * @return the index of the macroclassifier that the microclassifier
+	 *         belongs to
+	 */
+	int getMacroclassifierIndex(int microclassifierIndex);
+
+	/**
+	 * Getter.
+	 * 
+	 * @return the number of macroclassifiers in the set
+	 */
+	int getNumberOfMacroclassifiers();
+
+	/**
+	 * Returns the set's total numerosity (the total number of
+	 * microclassifiers).
+	 * 
+	 * @return the sets total numerosity
+	 */
+	int getTotalNumerosity();
+
+	/**
+	 * @return true if the set is empty
+	 */
+	boolean isEmpty();
+}
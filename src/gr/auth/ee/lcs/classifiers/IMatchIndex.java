@@ -0,0 +1,78 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.classifiers;
+
+/**
+ * An index over the macroclassifiers of a set, used to find the ones matching
+ * an instance without checking the whole set. The set keeps the index up to
+ * date as macroclassifiers are added and removed. Classifiers must not be
+ * modified while they are indexed.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public interface IMatchIndex {
+
+	/**
+	 * Index a macroclassifier.
+	 * 
+	 * @param macro
+	 *            the macroclassifier added to the set
+	 */
+	void add(Macroclassifier macro);
+
+	/**
+	 * Remove all macroclassifiers from the index.
+	 */
+	void clear();
+
+	/**
+	 * Find the macroclassifiers matching an instance.
+	 * 
+	 * @param dataInstance
+	 *            the instance to be matched or null to match by index
+	 * @param dataInstanceIndex
+	 *            the index of the train instance to be matched (used when
+	 *            dataInstance is null)
+	 * @return the matching macroclassifiers
+	 */
+	Macroclassifier[] findMatches(double[] dataInstance, int dataInstanceIndex);
+
+	/**
+	 * Returns true if querying the index is expected to be cheaper than
+	 * checking all macroclassifiers of the set.
+	 * 
+	 * @param dataInstance
+	 *            the instance to be matched or null if a train instance is
+	 *            matched by index
+	 * @return true if the index should be used for matching
+	 */
+	boolean isPreferable(double[] dataInstance);
+
+	/**
+	 * Remove a macroclassifier from the index.
+	 * 
+	 * @param macro
+	 *            the macroclassifier removed from the set
+	 */
+	void remove(Macroclassifier macro);
+}
@@ -0,0 +1,370 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.classifiers;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Manages the memory of the classifiers' match caches. Each cache keeps a
+ * tri-state (unknown, no match, match) entry of two bits per train instance.
+ * If a budget is set, the total memory of the caches is kept under it by
+ * evicting the caches of the least recently matched classifiers.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public final class MatchCacheManager {
+
+	/**
+	 * A cache entry that has not been checked yet.
+	 */
+	static final int UNKNOWN = 0;
+
+	/**
+	 * A cache entry of an instance that the classifier does not match.
+	 */
+	static final int NOT_MATCHED = 1;
+
+	/**
+	 * A cache entry of an instance that the classifier matches.
+	 */
+	static final int MATCHED = 2;
+
+	/**
+	 * The fraction of the budget the caches are reduced to, when the budget
+	 * is exceeded. Evicting a little more than needed avoids evicting on
+	 * every allocation.
+	 */
+	private static final double EVICTION_TARGET = .9;
+
+	/**
+	 * The registered caches.
+	 */
+	private static final ArrayList<CacheEntry> entries = new ArrayList<CacheEntry>();
+
+	/**
+	 * The queue of the caches whose classifiers have been garbage collected.
+	 */
+	private static final ReferenceQueue<Classifier> collected = new ReferenceQueue<Classifier>();
+
+	/**
+	 * The memory budget (in bytes) of all caches. Unlimited by default, i.e.
+	 * no cache is ever evicted.
+	 */
+	private static long budget = Long.MAX_VALUE;
+
+	/**
+	 * The bytes used by all caches.
+	 */
+	private static long bytesUsed = 0;
+
+	/**
+	 * The logical clock used for finding the least recently matched
+	 * classifiers. It advances once per lookup of a train instance's match
+	 * set.
+	 */
+	private static final AtomicLong clock = new AtomicLong();
+
+	/**
+	 * True if the hits and misses are counted.
+	 */
+	private static volatile boolean statisticsEnabled = false;
+
+	/**
+	 * The number of answers found in the caches.
+	 */
+	private static final AtomicLong hits = new AtomicLong();
+
+	/**
+	 * The number of answers that had to be computed.
+	 */
+	private static final AtomicLong misses = new AtomicLong();
+
+	/**
+	 * The number of caches evicted.
+	 */
+	private static long evictions = 0;
+
+	/**
+	 * Allocate a match cache for a classifier and set it on the classifier,
+	 * evicting other caches if the budget is exceeded.
+	 * 
+	 * @param aClassifier
+	 *            the classifier
+	 * @param numberOfInstances
+	 *            the number of train instances
+	 */
+	static synchronized void allocate(final Classifier aClassifier,
+			final int numberOfInstances) {
+		final long[] matches = new long[(numberOfInstances + 31) >>> 5];
+		final long bytes = 8L * matches.length;
+		purgeCollected();
+		if (bytesUsed + bytes > budget)
+			evict((long) (EVICTION_TARGET * budget) - bytes);
+
+		aClassifier.lastMatched = clock.get();
+		aClassifier.setMatchCache(matches);
+		entries.add(new CacheEntry(aClassifier, matches));
+		bytesUsed += bytes;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return the memory budget (in bytes) of all caches
+	 */
+	public static synchronized long getBudget() {
+		return budget;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return the current time of the logical clock
+	 */
+	static long getClock() {
+		return clock.get();
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return the bytes used by all match caches
+	 */
+	public static synchronized long getBytesUsed() {
+		purgeCollected();
+		return bytesUsed;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return the number of match caches evicted to stay in budget
+	 */
+	public static synchronized long getEvictions() {
+		return evictions;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return the number of matches answered by the caches
+	 */
+	public static long getHits() {
+		return hits.get();
+	}
+
+	/**
+	 * Return the fraction of the matches answered by the caches. Hits and
+	 * misses are only counted when statistics are enabled.
+	 * 
+	 * @return the hit rate
+	 */
+	public static double getHitRate() {
+		final long hitCount = hits.get();
+		final long total = hitCount + misses.get();
+		return (total == 0) ? 0 : ((double) hitCount) / ((double) total);
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return the number of matches that had to be computed
+	 */
+	public static long getMisses() {
+		return misses.get();
+	}
+
+	/**
+	 * Reset the hit, miss and eviction counters.
+	 */
+	public static synchronized void resetStatistics() {
+		hits.set(0);
+		misses.set(0);
+		evictions = 0;
+	}
+
+	/**
+	 * Set the memory budget of all caches. Caches are evicted if the new
+	 * budget is exceeded.
+	 * 
+	 * @param bytes
+	 *            the memory budget in bytes
+	 */
+	public static synchronized void setBudget(final long bytes) {
+		budget = bytes;
+		purgeCollected();
+		if (bytesUsed > budget)
+			evict((long) (EVICTION_TARGET * budget));
+	}
+
+	/**
+	 * Enable or disable counting the hits and misses. Counting is disabled
+	 * by default, since every match updates the counters.
+	 * 
+	 * @param enabled
+	 *            true to count hits and misses
+	 */
+	public static void setStatisticsEnabled(final boolean enabled) {
+		statisticsEnabled = enabled;
+	}
+
+	/**
+	 * Advance the logical clock. Called once per lookup of a train instance's
+	 * match set, so that the classifiers matched in the same lookup are
+	 * equally recent.
+	 */
+	static void tick() {
+		clock.incrementAndGet();
+	}
+
+	/**
+	 * Count a cache hit.
+	 */
+	static void hit() {
+		if (statisticsEnabled)
+			hits.incrementAndGet();
+	}
+
+	/**
+	 * Count a cache miss.
+	 */
+	static void miss() {
+		if (statisticsEnabled)
+			misses.incrementAndGet();
+	}
+
+	/**
+	 * Evict the least recently matched caches, until the used bytes are no
+	 * more than a target.
+	 * 
+	 * @param target
+	 *            the bytes that may remain used
+	 */
+	private static void evict(final long target) {
+		final int size = entries.size();
+		final ArrayList<CacheEntry> ordered = new ArrayList<CacheEntry>(size);
+		for (int i = 0; i < size; i++) {
+			final CacheEntry entry = entries.get(i);
+			final Classifier cl = entry.get();
+			if (cl == null)
+				continue;
+			entry.lastMatched = cl.lastMatched;
+			ordered.add(entry);
+		}
+		Collections.sort(ordered, new Comparator<CacheEntry>() {
+			@Override
+			public int compare(final CacheEntry a, final CacheEntry b) {
+				return (a.lastMatched < b.lastMatched) ? -1
+						: ((a.lastMatched == b.lastMatched) ? 0 : 1);
+			}
+		});
+
+		int evicted = 0;
+		while ((bytesUsed > target) && (evicted < ordered.size())) {
+			final CacheEntry entry = ordered.get(evicted);
+			final Classifier cl = entry.get();
+			if (cl != null)
+				cl.evictMatchCache(entry.matches);
+			bytesUsed -= entry.bytes;
+			entry.clear();
+			evictions++;
+			evicted++;
+		}
+
+		entries.clear();
+		entries.addAll(ordered.subList(evicted, ordered.size()));
+	}
+
+	/**
+	 * Release the memory of the caches whose classifiers have been garbage
+	 * collected.
+	 */
+	private static void purgeCollected() {
+		boolean purged = false;
+		CacheEntry entry;
+		while ((entry = (CacheEntry) collected.poll()) != null) {
+			if (entry.released)
+				continue;
+			entry.released = true;
+			bytesUsed -= entry.bytes;
+			purged = true;
+		}
+		if (!purged)
+			return;
+		for (int i = entries.size() - 1; i >= 0; i--) {
+			if (entries.get(i).released)
+				entries.remove(i);
+		}
+	}
+
+	/**
+	 * Private constructor, all methods are static.
+	 */
+	private MatchCacheManager() {
+	}
+
+	/**
+	 * A registered cache, weakly referencing its classifier.
+	 */
+	private static final class CacheEntry extends WeakReference<Classifier> {
+
+		/**
+		 * The cache.
+		 */
+		private final long[] matches;
+
+		/**
+		 * The bytes used by the cache.
+		 */
+		private final long bytes;
+
+		/**
+		 * The last time the classifier matched (copied while evicting).
+		 */
+		private long lastMatched;
+
+		/**
+		 * True if the memory of the cache has been released.
+		 */
+		private boolean released = false;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param aClassifier
+		 *            the classifier of the cache
+		 * @param cache
+		 *            the cache
+		 */
+		CacheEntry(final Classifier aClassifier, final long[] cache) {
+			super(aClassifier, collected);
+			matches = cache;
+			bytes = 8L * cache.length;
+		}
+	}
+}
@@ -0,0 +1,273 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.classifiers;
+
+import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * An instance-major match matrix over the macroclassifiers of a set. Each
+ * macroclassifier is given a slot and is checked once against all train
+ * instances when it enters the set (and its coverage is recorded then).
+ * Every train instance keeps a bitmap (over the slots) of its matching
+ * macroclassifiers, so the match set of a train instance is found without
+ * checking any classifier. The matrix needs a bit per instance and slot, so
+ * it is meant for datasets that fit in memory.
+ * 
+ * The slots mirror the positions of the macroclassifiers in the set: a
+ * macroclassifier added to the set is appended and a removed one is replaced
+ * by the last, as the set does. So the matches are found in set order.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public final class MatchMatrix implements IMatchIndex {
+
+	/**
+	 * The LCS whose train instances are matched.
+	 */
+	private final AbstractLearningClassifierSystem myLcs;
+
+	/**
+	 * The train instances the matrix has been built for.
+	 */
+	private double[][] matrixInstances = null;
+
+	/**
+	 * The slot of each macroclassifier.
+	 */
+	private final IdentityHashMap<Macroclassifier, Integer> slots = new IdentityHashMap<Macroclassifier, Integer>();
+
+	/**
+	 * The macroclassifier of each slot.
+	 */
+	private Macroclassifier[] slotMacros;
+
+	/**
+	 * The number of slots used.
+	 */
+	private int numberOfSlots = 0;
+
+	/**
+	 * The number of words of each bitmap.
+	 */
+	private int words;
+
+	/**
+	 * The bitmap of the matching slots of each train instance.
+	 */
+	private long[][] instanceMatches;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param lcs
+	 *            the LCS whose train instances are matched
+	 */
+	public MatchMatrix(final AbstractLearningClassifierSystem lcs) {
+		myLcs = lcs;
+		clear();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * gr.auth.ee.lcs.classifiers.IMatchIndex#add(gr.auth.ee.lcs.classifiers
+	 * .Macroclassifier)
+	 */
+	@Override
+	public void add(final Macroclassifier macro) {
+		if (slots.containsKey(macro))
+			return;
+		checkInstances();
+		final int slot = allocateSlot();
+		slots.put(macro, slot);
+		slotMacros[slot] = macro;
+		// The classifier has been checked against all train instances
+		macro.myClassifier.recordCoverage(instanceMatches.length,
+				matchColumn(slot));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see gr.auth.ee.lcs.classifiers.IMatchIndex#clear()
+	 */
+	@Override
+	public void clear() {
+		slots.clear();
+		words = 1;
+		slotMacros = new Macroclassifier[64];
+		numberOfSlots = 0;
+		matrixInstances = myLcs.instances;
+		final int numberOfInstances = (matrixInstances == null) ? 0
+				: matrixInstances.length;
+		instanceMatches = new long[numberOfInstances][words];
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see gr.auth.ee.lcs.classifiers.IMatchIndex#findMatches(double[], int)
+	 */
+	@Override
+	public Macroclassifier[] findMatches(final double[] dataInstance,
+			final int dataInstanceIndex) {
+		final Macroclassifier[] buffer = new Macroclassifier[slots.size()];
+		int found = 0;
+		if (dataInstance != null) {
+			// Not a train instance, check all classifiers
+			if (numberOfSlots == 0)
+				return buffer;
+			final Classifier first = slotMacros[0].myClassifier;
+			first.beginMatch(dataInstance, -1);
+			try {
+				for (int slot = 0; slot < numberOfSlots; slot++) {
+					if (slotMacros[slot].myClassifier.isMatch(dataInstance)) {
+						buffer[found] = slotMacros[slot];
+						found++;
+					}
+				}
+			} finally {
+				first.endMatch();
+			}
+			return Arrays.copyOf(buffer, found);
+		}
+
+		checkInstances();
+		final long[] matches = instanceMatches[dataInstanceIndex];
+		for (int w = 0; w < words; w++) {
+			long word = matches[w];
+			while (word != 0) {
+				final int slot = (w << 6) + Long.numberOfTrailingZeros(word);
+				word &= word - 1;
+				buffer[found] = slotMacros[slot];
+				found++;
+			}
+		}
+		return Arrays.copyOf(buffer, found);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see gr.auth.ee.lcs.classifiers.IMatchIndex#isPreferable(double[])
+	 */
+	@Override
+	public boolean isPreferable(final double[] dataInstance) {
+		return dataInstance == null;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * gr.auth.ee.lcs.classifiers.IMatchIndex#remove(gr.auth.ee.lcs.classifiers
+	 * .Macroclassifier)
+	 */
+	@Override
+	public void remove(final Macroclassifier macro) {
+		final Integer removedSlot = slots.remove(macro);
+		if (removedSlot == null)
+			return;
+
+		// Move the last slot to the removed one, as the set does
+		final int slot = removedSlot;
+		final int word = slot >>> 6;
+		final long bit = 1L << slot;
+		final int last = numberOfSlots - 1;
+		final int lastWord = last >>> 6;
+		final long lastBit = 1L << last;
+		for (int i = 0; i < instanceMatches.length; i++) {
+			final long[] matches = instanceMatches[i];
+			if ((matches[lastWord] & lastBit) != 0)
+				matches[word] |= bit;
+			else
+				matches[word] &= ~bit;
+			matches[lastWord] &= ~lastBit;
+		}
+		if (slot != last) {
+			slotMacros[slot] = slotMacros[last];
+			slots.put(slotMacros[slot], slot);
+		}
+		slotMacros[last] = null;
+		numberOfSlots = last;
+	}
+
+	/**
+	 * Return the slot after the last used one, growing the bitmaps if needed.
+	 * 
+	 * @return the slot
+	 */
+	private int allocateSlot() {
+		if (numberOfSlots == slotMacros.length) {
+			final int capacity = 2 * slotMacros.length;
+			words = capacity >>> 6;
+			slotMacros = Arrays.copyOf(slotMacros, capacity);
+			for (int i = 0; i < instanceMatches.length; i++)
+				instanceMatches[i] = Arrays.copyOf(instanceMatches[i], words);
+		}
+		final int slot = numberOfSlots;
+		numberOfSlots++;
+		return slot;
+	}
+
+	/**
+	 * Rebuild the matrix if the train instances of the LCS have changed.
+	 */
+	private void checkInstances() {
+		if (matrixInstances == myLcs.instances)
+			return;
+
+		matrixInstances = myLcs.instances;
+		final int numberOfInstances = (matrixInstances == null) ? 0
+				: matrixInstances.length;
+		instanceMatches = new long[numberOfInstances][words];
+		for (int slot = 0; slot < numberOfSlots; slot++)
+			matchColumn(slot);
+	}
+
+	/**
+	 * Check the classifier of a slot against all train instances and set its
+	 * bit in the instances it matches.
+	 * 
+	 * @param slot
+	 *            the slot
+	 * @return the number of train instances the classifier matches
+	 */
+	private int matchColumn(final int slot) {
+		final Classifier cl = slotMacros[slot].myClassifier;
+		final int word = slot >>> 6;
+		final long bit = 1L << slot;
+		int covered = 0;
+		for (int i = 0; i < instanceMatches.length; i++) {
+			if (cl.isMatch(matrixInstances[i])) {
+				instanceMatches[i][word] |= bit;
+				covered++;
+			}
+		}
+		return covered;
+	}
+}
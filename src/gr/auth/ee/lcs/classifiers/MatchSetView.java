@@ -0,0 +1,336 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.classifiers;
+
+/**
+ * An allocation-free match set. The view keeps references to the matching
+ * classifiers and a snapshot of their numerosities in a reusable buffer that
+ * grows when needed and is never shrunk. Filtered views (such as correct sets
+ * or label match sets) may share the buffer of the view they are filtered
+ * from, occupying the buffer space right after it.
+ * 
+ * Views are not thread-safe and are only valid until their buffer space is
+ * reused.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public final class MatchSetView implements IClassifierSetView {
+
+	/**
+	 * The storage shared between a view and the views filtered from it.
+	 */
+	private static final class Buffer {
+
+		/**
+		 * The initial buffer capacity.
+		 */
+		private static final int INITIAL_CAPACITY = 64;
+
+		/**
+		 * The classifiers of the views.
+		 */
+		private Classifier[] classifiers = new Classifier[INITIAL_CAPACITY];
+
+		/**
+		 * The numerosities of the classifiers at the time they were added.
+		 */
+		private int[] numerosities = new int[INITIAL_CAPACITY];
+
+		/**
+		 * Make sure that the buffer can hold the given number of entries.
+		 * 
+		 * @param capacity
+		 *            the capacity needed
+		 */
+		private void ensureCapacity(final int capacity) {
+			if (capacity <= classifiers.length) {
+				return;
+			}
+			final int newCapacity = Math.max(capacity, 2 * classifiers.length);
+			final Classifier[] newClassifiers = new Classifier[newCapacity];
+			System.arraycopy(classifiers, 0, newClassifiers, 0,
+					classifiers.length);
+			final int[] newNumerosities = new int[newCapacity];
+			System.arraycopy(numerosities, 0, newNumerosities, 0,
+					numerosities.length);
+			classifiers = newClassifiers;
+			numerosities = newNumerosities;
+		}
+	}
+
+	/**
+	 * Prepare a view for holding a subset of the given set. If the source is
+	 * itself a view, the target shares its buffer, otherwise the target uses
+	 * its own buffer.
+	 * 
+	 * @param source
+	 *            the set that the view will be filtered from
+	 * @param target
+	 *            the (reused) view to prepare
+	 * @return the emptied target view
+	 */
+	public static MatchSetView filterOf(final IClassifierSetView source,
+			final MatchSetView target) {
+		if (source instanceof MatchSetView) {
+			return target.attachAfter((MatchSetView) source);
+		}
+		return target.detach();
+	}
+
+	/**
+	 * Create a thread local reusable view, so that objects reusing views can
+	 * be shared by concurrent training threads.
+	 * 
+	 * @return a thread local providing a view for each thread
+	 */
+	public static ThreadLocal<MatchSetView> newThreadLocal() {
+		return new ThreadLocal<MatchSetView>() {
+			@Override
+			protected MatchSetView initialValue() {
+				return new MatchSetView();
+			}
+		};
+	}
+
+	/**
+	 * Create thread local reusable views, so that objects reusing views can
+	 * be shared by concurrent training threads.
+	 * 
+	 * @param views
+	 *            the number of views of each thread
+	 * @return a thread local providing the views of each thread
+	 */
+	public static ThreadLocal<MatchSetView[]> newThreadLocal(final int views) {
+		return new ThreadLocal<MatchSetView[]>() {
+			@Override
+			protected MatchSetView[] initialValue() {
+				final MatchSetView[] threadViews = new MatchSetView[views];
+				for (int i = 0; i < views; i++)
+					threadViews[i] = new MatchSetView();
+				return threadViews;
+			}
+		};
+	}
+
+	/**
+	 * The buffer owned by this view, used when the view is detached.
+	 */
+	private final Buffer ownBuffer = new Buffer();
+
+	/**
+	 * The buffer that the view currently stores its entries in.
+	 */
+	private Buffer buffer = ownBuffer;
+
+	/**
+	 * The buffer position of the view's first entry.
+	 */
+	private int offset = 0;
+
+	/**
+	 * The number of macroclassifiers in the view.
+	 */
+	private int size = 0;
+
+	/**
+	 * The cached total numerosity of the view.
+	 */
+	private int totalNumerosity = 0;
+
+	/**
+	 * The cumulative numerosity at each entry of the view, built on the first
+	 * microclassifier lookup.
+	 */
+	private int[] cumulativeNumerosities = new int[0];
+
+	/**
+	 * True if the cumulative numerosities match the view's entries.
+	 */
+	private boolean cumulativeValid = false;
+
+	/**
+	 * Adds a classifier with the given numerosity at the end of the view. The
+	 * classifier is not checked for duplicates.
+	 * 
+	 * @param aClassifier
+	 *            the classifier to add
+	 * @param numerosity
+	 *            the classifier's numerosity
+	 */
+	public void add(final Classifier aClassifier, final int numerosity) {
+		final int position = offset + size;
+		buffer.ensureCapacity(position + 1);
+		buffer.classifiers[position] = aClassifier;
+		buffer.numerosities[position] = numerosity;
+		size++;
+		totalNumerosity += numerosity;
+		cumulativeValid = false;
+	}
+
+	/**
+	 * Empty this view and place it right after the entries of the given view,
+	 * sharing its buffer. The anchor view must not grow while this view is in
+	 * use.
+	 * 
+	 * @param anchor
+	 *            the view after which this view is placed
+	 * @return this view
+	 */
+	public MatchSetView attachAfter(final MatchSetView anchor) {
+		clear();
+		buffer = anchor.buffer;
+		offset = anchor.offset + anchor.size;
+		return this;
+	}
+
+	/**
+	 * Empty the view. The buffer is kept (along with the stale references in
+	 * it) to be overwritten by the next entries.
+	 */
+	public void clear() {
+		size = 0;
+		totalNumerosity = 0;
+		cumulativeValid = false;
+	}
+
+	/**
+	 * Empty this view and move it back to its own buffer.
+	 * 
+	 * @return this view
+	 */
+	public MatchSetView detach() {
+		clear();
+		buffer = ownBuffer;
+		offset = 0;
+		return this;
+	}
+
+	@Override
+	public Classifier getClassifier(final int index) {
+		return buffer.classifiers[offset + index];
+	}
+
+	@Override
+	public int getClassifierNumerosity(final Classifier aClassifier) {
+		final int serial = aClassifier.getSerial();
+		final int end = offset + size;
+		for (int i = offset; i < end; i++) {
+			if (buffer.classifiers[i].getSerial() == serial)
+				return buffer.numerosities[i];
+		}
+		return 0;
+	}
+
+	@Override
+	public int getClassifierNumerosity(final int index) {
+		return buffer.numerosities[offset + index];
+	}
+
+	@Override
+	public int getMacroclassifierIndex(final int microclassifierIndex) {
+		if (!cumulativeValid) {
+			if (cumulativeNumerosities.length < size)
+				cumulativeNumerosities = new int[Math.max(size,
+						2 * cumulativeNumerosities.length)];
+			int microclassifiers = 0;
+			for (int i = 0; i < size; i++) {
+				microclassifiers += buffer.numerosities[offset + i];
+				cumulativeNumerosities[i] = microclassifiers;
+			}
+			cumulativeValid = true;
+		}
+		// Find the first macroclassifier ending after the microclassifier
+		int low = 0;
+		int high = size - 1;
+		while (low < high) {
+			final int middle = (low + high) >>> 1;
+			if (cumulativeNumerosities[middle] > microclassifierIndex)
+				high = middle;
+			else
+				low = middle + 1;
+		}
+		return Math.max(0, low);
+	}
+
+	@Override
+	public int getNumberOfMacroclassifiers() {
+		return size;
+	}
+
+	@Override
+	public int getTotalNumerosity() {
+		return totalNumerosity;
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Bring a match set generated against an earlier state of a population up
+	 * to date. Classifiers no longer in the population are dropped and the
+	 * numerosities are read again, keeping the order of the view.
+	 * 
+	 * @param population
+	 *            the population the view was generated from
+	 * @return this view
+	 */
+	public MatchSetView refresh(final ClassifierSet population) {
+		final int end = offset + size;
+		int kept = offset;
+		totalNumerosity = 0;
+		for (int i = offset; i < end; i++) {
+			final Classifier cl = buffer.classifiers[i];
+			final int numerosity = population.getClassifierNumerosity(cl);
+			if (numerosity > 0) {
+				buffer.classifiers[kept] = cl;
+				buffer.numerosities[kept] = numerosity;
+				totalNumerosity += numerosity;
+				kept++;
+			}
+		}
+		size = kept - offset;
+		cumulativeValid = false;
+		return this;
+	}
+
+	/**
+	 * Copy the view into a new ClassifierSet.
+	 * 
+	 * @return a new set containing the view's macroclassifiers
+	 */
+	public ClassifierSet toClassifierSet() {
+		final ClassifierSet set = new ClassifierSet(null);
+		for (int i = 0; i < size; i++) {
+			set.addClassifier(new Macroclassifier(getClassifier(i),
+					getClassifierNumerosity(i)), false);
+		}
+		return set;
+	}
+
+	@Override
+	public String toString() {
+		return toClassifierSet().toString();
+	}
+}
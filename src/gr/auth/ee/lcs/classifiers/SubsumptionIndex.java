@@ -0,0 +1,256 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.classifiers;
+
+import gr.auth.ee.lcs.data.ClassifierTransformBridge;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+
+/**
+ * An index over the macroclassifiers of a set, used for finding the
+ * macroclassifier that absorbs a newly added classifier. Macroclassifiers are
+ * hashed by their representation's canonical hash, so that equal classifiers
+ * are found in constant time. They are also grouped by their subsumption
+ * group and specificity, so that only the classifiers that may be more
+ * general than the added one are tested for subsumption.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public final class SubsumptionIndex {
+
+	/**
+	 * An indexed macroclassifier.
+	 */
+	private static final class Entry {
+
+		/**
+		 * The macroclassifier.
+		 */
+		private final Macroclassifier macro;
+
+		/**
+		 * The canonical hash of the classifier.
+		 */
+		private final int hash;
+
+		/**
+		 * The subsumption group of the classifier.
+		 */
+		private final int group;
+
+		/**
+		 * The specificity of the classifier.
+		 */
+		private final int specificity;
+
+		/**
+		 * The position of the entry in its hash bucket.
+		 */
+		private int hashPosition;
+
+		/**
+		 * The position of the entry in its specificity bucket.
+		 */
+		private int groupPosition;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param macroclassifier
+		 *            the macroclassifier
+		 * @param canonicalHash
+		 *            the canonical hash of the classifier
+		 * @param subsumptionGroup
+		 *            the subsumption group of the classifier
+		 * @param numberOfSpecific
+		 *            the specificity of the classifier
+		 */
+		private Entry(final Macroclassifier macroclassifier,
+				final int canonicalHash, final int subsumptionGroup,
+				final int numberOfSpecific) {
+			macro = macroclassifier;
+			hash = canonicalHash;
+			group = subsumptionGroup;
+			specificity = numberOfSpecific;
+		}
+	}
+
+	/**
+	 * The representation used for hashing and grouping the classifiers.
+	 */
+	private final ClassifierTransformBridge bridge;
+
+	/**
+	 * The entry of each indexed macroclassifier.
+	 */
+	private final IdentityHashMap<Macroclassifier, Entry> entries = new IdentityHashMap<Macroclassifier, Entry>();
+
+	/**
+	 * The entries of each canonical hash.
+	 */
+	private final HashMap<Integer, ArrayList<Entry>> hashBuckets = new HashMap<Integer, ArrayList<Entry>>();
+
+	/**
+	 * The entries of each subsumption group, bucketed by specificity.
+	 */
+	private final HashMap<Integer, ArrayList<ArrayList<Entry>>> groups = new HashMap<Integer, ArrayList<ArrayList<Entry>>>();
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param representation
+	 *            the representation used for hashing and grouping the
+	 *            classifiers
+	 */
+	public SubsumptionIndex(final ClassifierTransformBridge representation) {
+		bridge = representation;
+	}
+
+	/**
+	 * Add a macroclassifier to the index.
+	 * 
+	 * @param macro
+	 *            the macroclassifier to add
+	 */
+	public void add(final Macroclassifier macro) {
+		if (entries.containsKey(macro))
+			return;
+		final Classifier cl = macro.myClassifier;
+		final Entry entry = new Entry(macro, bridge.getCanonicalHash(cl),
+				bridge.getSubsumptionGroup(cl), bridge.getSpecificity(cl));
+		entries.put(macro, entry);
+
+		ArrayList<Entry> bucket = hashBuckets.get(entry.hash);
+		if (bucket == null) {
+			bucket = new ArrayList<Entry>();
+			hashBuckets.put(entry.hash, bucket);
+		}
+		entry.hashPosition = bucket.size();
+		bucket.add(entry);
+
+		ArrayList<ArrayList<Entry>> group = groups.get(entry.group);
+		if (group == null) {
+			group = new ArrayList<ArrayList<Entry>>();
+			groups.put(entry.group, group);
+		}
+		while (group.size() <= entry.specificity)
+			group.add(new ArrayList<Entry>());
+		bucket = group.get(entry.specificity);
+		entry.groupPosition = bucket.size();
+		bucket.add(entry);
+	}
+
+	/**
+	 * Remove all macroclassifiers from the index.
+	 */
+	public void clear() {
+		entries.clear();
+		hashBuckets.clear();
+		groups.clear();
+	}
+
+	/**
+	 * Find the macroclassifier that absorbs a classifier: an equal classifier
+	 * that can not subsume or a more general classifier that can subsume.
+	 * Equal classifiers are checked first and then the possible subsumers,
+	 * from the most general to the most specific.
+	 * 
+	 * @param aClassifier
+	 *            the classifier to be absorbed
+	 * @return the absorbing macroclassifier or null if there is none
+	 */
+	public Macroclassifier findAbsorbing(final Classifier aClassifier) {
+		final int hash = bridge.getCanonicalHash(aClassifier);
+		final ArrayList<Entry> bucket = hashBuckets.get(hash);
+		if (bucket != null) {
+			final int bucketSize = bucket.size();
+			for (int i = 0; i < bucketSize; i++) {
+				final Classifier theClassifier = bucket.get(i).macro.myClassifier;
+				if (theClassifier.canSubsume() ? theClassifier
+						.isMoreGeneral(aClassifier) : theClassifier
+						.equals(aClassifier))
+					return bucket.get(i).macro;
+			}
+		}
+
+		final ArrayList<ArrayList<Entry>> group = groups.get(bridge
+				.getSubsumptionGroup(aClassifier));
+		if (group == null)
+			return null;
+		final int maxSpecificity = Math.min(
+				bridge.getSpecificity(aClassifier), group.size() - 1);
+		for (int s = 0; s <= maxSpecificity; s++) {
+			final ArrayList<Entry> specificityBucket = group.get(s);
+			final int bucketSize = specificityBucket.size();
+			for (int i = 0; i < bucketSize; i++) {
+				final Entry entry = specificityBucket.get(i);
+				// Entries with the same hash have already been checked
+				if ((entry.hash != hash) && entry.macro.myClassifier.canSubsume()
+						&& entry.macro.myClassifier.isMoreGeneral(aClassifier))
+					return entry.macro;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Remove a macroclassifier from the index.
+	 * 
+	 * @param macro
+	 *            the macroclassifier to remove
+	 */
+	public void remove(final Macroclassifier macro) {
+		final Entry entry = entries.remove(macro);
+		if (entry == null)
+			return;
+
+		final ArrayList<Entry> bucket = hashBuckets.get(entry.hash);
+		final Entry movedInBucket = bucket.remove(bucket.size() - 1);
+		if (movedInBucket != entry) {
+			bucket.set(entry.hashPosition, movedInBucket);
+			movedInBucket.hashPosition = entry.hashPosition;
+		}
+		if (bucket.isEmpty())
+			hashBuckets.remove(entry.hash);
+
+		final ArrayList<Entry> specificityBucket = groups.get(entry.group).get(
+				entry.specificity);
+		final Entry movedInGroup = specificityBucket.remove(specificityBucket
+				.size() - 1);
+		if (movedInGroup != entry) {
+			specificityBucket.set(entry.groupPosition, movedInGroup);
+			movedInGroup.groupPosition = entry.groupPosition;
+		}
+	}
+
+	/**
+	 * Get the number of indexed macroclassifiers.
+	 * 
+	 * @return the number of indexed macroclassifiers
+	 */
+	public int size() {
+		return entries.size();
+	}
+}
@@ -25,10 +25,14 @@ import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
 import gr.auth.ee.lcs.classifiers.IPopulationControlStrategy;
 import gr.auth.ee.lcs.geneticalgorithm.IRuleSelector;
+import gr.auth.ee.lcs.geneticalgorithm.selectors.FenwickRouletteSelector;
+import gr.auth.ee.lcs.utilities.SettingsLoader;
 
 /**
  * A fixed size control strategy. Classifiers are deleted based on the selector
- * tournaments
+ * tournaments. The population may be allowed to overshoot its size by a slack,
+ * so that the excess microclassifiers are deleted in batches, with a single
+ * selection for the whole batch.
  * 
  * @stereotype ConcreteStrategy
  * 
@@ -48,13 +52,20 @@ public class FixedSizeSetWorstFitnessDeletion implements
 	 */
 	private final int populationSize;
 
+	/**
+	 * The number of microclassifiers the population may exceed its size by,
+	 * before the excess is deleted.
+	 */
+	private final int slack;
+
 	/**
 	 * Removes all zero coverage rules
 	 */
 	private InadequeteClassifierDeletionStrategy zeroCoverageRemoval;
 
 	/**
-	 * Constructor of deletion strategy.
+	 * Constructor of deletion strategy. The slack is read from the
+	 * deletionSlack setting.
 	 * 
 	 * @param maxPopulationSize
 	 *            the size that the population will have
@@ -64,8 +75,28 @@ public class FixedSizeSetWorstFitnessDeletion implements
 	public FixedSizeSetWorstFitnessDeletion(
 			final AbstractLearningClassifierSystem lcs,
 			final int maxPopulationSize, final IRuleSelector selector) {
+		this(lcs, maxPopulationSize, selector, (int) SettingsLoader
+				.getNumericSetting("deletionSlack", 0));
+	}
+
+	/**
+	 * Constructor of deletion strategy.
+	 * 
+	 * @param maxPopulationSize
+	 *            the size that the population will have
+	 * @param selector
+	 *            the selector used for deleting
+	 * @param deletionSlack
+	 *            the number of microclassifiers the population may exceed its
+	 *            size by (0 to delete on every addition)
+	 */
+	public FixedSizeSetWorstFitnessDeletion(
+			final AbstractLearningClassifierSystem lcs,
+			final int maxPopulationSize, final IRuleSelector selector,
+			final int deletionSlack) {
 		this.populationSize = maxPopulationSize;
 		mySelector = selector;
+		slack = Math.max(0, deletionSlack);
 
 		zeroCoverageRemoval = new InadequeteClassifierDeletionStrategy(lcs);
 	}
@@ -77,14 +108,30 @@ public class FixedSizeSetWorstFitnessDeletion implements
 	 */
 	@Override
 	public final void controlPopulation(final ClassifierSet aSet) {
+		if (aSet.getTotalNumerosity() <= (populationSize + slack))
+			return;
+
+		zeroCoverageRemoval.controlPopulation(aSet);
+		if (mySelector instanceof FenwickRouletteSelector) {
+			// Delete the victims one by one, updating the wheel in place
+			((FenwickRouletteSelector) mySelector).delete(
+					aSet.getTotalNumerosity() - populationSize, aSet);
+			return;
+		}
 
 		final ClassifierSet toBeDeleted = new ClassifierSet(null);
-		if (aSet.getTotalNumerosity() > populationSize)
-			zeroCoverageRemoval.controlPopulation(aSet);
 		while (aSet.getTotalNumerosity() > populationSize) {
-			mySelector.select(1, aSet, toBeDeleted);
-			aSet.deleteClassifier(toBeDeleted.getClassifier(0));
-			toBeDeleted.deleteClassifier(0);
+			// Select all victims at once. A classifier may be selected more
+			// times than its numerosity, so repeat for what is left.
+			mySelector.select(aSet.getTotalNumerosity() - populationSize,
+					aSet, toBeDeleted);
+			final int selected = toBeDeleted.getNumberOfMacroclassifiers();
+			if (selected == 0)
+				return;
+			for (int i = 0; (i < selected)
+					&& (aSet.getTotalNumerosity() > populationSize); i++)
+				aSet.deleteClassifier(toBeDeleted.getClassifier(i));
+			toBeDeleted.removeAllMacroclassifiers();
 		}
 	}
 
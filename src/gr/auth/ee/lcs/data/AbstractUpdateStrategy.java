@@ -23,6 +23,7 @@ package gr.auth.ee.lcs.data;
 
 import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
 
 import java.io.Serializable;
 
@@ -115,8 +116,8 @@ public abstract class AbstractUpdateStrategy {
 	 * @param correctSet
 	 *            the correct set
 	 */
-	public abstract void performUpdate(final ClassifierSet matchSet,
-			final ClassifierSet correctSet);
+	public abstract void performUpdate(final IClassifierSetView matchSet,
+			final IClassifierSetView correctSet);
 
 	/**
 	 * Set an update specific comparison value.
@@ -144,5 +145,5 @@ public abstract class AbstractUpdateStrategy {
 	 *            true to update the data and evolve the set
 	 */
 	public abstract void updateSet(ClassifierSet population,
-			ClassifierSet matchSet, int instanceIndex, boolean evolve);
+			IClassifierSetView matchSet, int instanceIndex, boolean evolve);
 }
\ No newline at end of file
@@ -23,6 +23,7 @@ package gr.auth.ee.lcs.data;
 
 import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IMatchIndex;
 import gr.auth.ee.lcs.utilities.ExtendedBitSet;
 
 /**
@@ -48,6 +49,18 @@ public abstract class ClassifierTransformBridge {
 	 */
 	public abstract boolean areEqual(Classifier cl1, Classifier cl2);
 
+	/**
+	 * Start matching a vision vector against many classifiers (e.g. when
+	 * generating a match set), so that any per-vector work is done once. The
+	 * vector must not be modified until endMatch() is called by the same
+	 * thread. The default implementation does nothing.
+	 * 
+	 * @param visionVector
+	 *            the vision vector to be matched
+	 */
+	public void beginMatch(final double[] visionVector) {
+	}
+
 	/**
 	 * @deprecated Unknown if useful
 	 */
@@ -93,6 +106,18 @@ public abstract class ClassifierTransformBridge {
 	public abstract float classifyAbilityLabel(Classifier aClassifier,
 			int instanceIndex, int label);
 
+	/**
+	 * Create an index for finding the classifiers that match an instance. The
+	 * default implementation returns null, since not all representations can
+	 * be indexed.
+	 * 
+	 * @return a new (empty) match index or null if the representation does
+	 *         not support indexing
+	 */
+	public IMatchIndex createMatchIndex() {
+		return null;
+	}
+
 	/**
 	 * Creates a random classifier to cover the visionVector.
 	 * 
@@ -103,6 +128,13 @@ public abstract class ClassifierTransformBridge {
 	public abstract Classifier createRandomCoveringClassifier(
 			double[] visionVector);
 
+	/**
+	 * End matching the vision vector given to beginMatch() by the calling
+	 * thread. The default implementation does nothing.
+	 */
+	public void endMatch() {
+	}
+
 	/**
 	 * Fixes a chromosome bit representation in the correct value range (e.g.
 	 * after mutation or crossover)
@@ -112,6 +144,20 @@ public abstract class ClassifierTransformBridge {
 	 */
 	public abstract void fixChromosome(ExtendedBitSet aChromosome);
 
+	/**
+	 * Get a hash of a classifier that is consistent with
+	 * {@link #areEqual(Classifier, Classifier)}, i.e. equal classifiers have
+	 * the same hash. The default implementation returns the same hash for all
+	 * classifiers.
+	 * 
+	 * @param aClassifier
+	 *            the classifier to hash
+	 * @return the hash of the classifier
+	 */
+	public int getCanonicalHash(final Classifier aClassifier) {
+		return 0;
+	}
+
 	/**
 	 * @return the size of the chromosome (used for the chromosome construction)
 	 */
@@ -149,6 +195,34 @@ public abstract class ClassifierTransformBridge {
 	 */
 	public abstract int getNumberOfAttributes();
 
+	/**
+	 * Get the number of specific genes of a classifier, such that a more
+	 * general classifier never has more specific genes than the classifiers
+	 * it is more general than. The default implementation returns 0 for all
+	 * classifiers.
+	 * 
+	 * @param aClassifier
+	 *            the classifier
+	 * @return the number of specific genes
+	 */
+	public int getSpecificity(final Classifier aClassifier) {
+		return 0;
+	}
+
+	/**
+	 * Get the subsumption group of a classifier, such that a classifier can
+	 * only be more general than the classifiers of its own group (e.g. the
+	 * classifiers advocating the same action). The default implementation
+	 * places all classifiers in the same group.
+	 * 
+	 * @param aClassifier
+	 *            the classifier
+	 * @return the subsumption group of the classifier
+	 */
+	public int getSubsumptionGroup(final Classifier aClassifier) {
+		return 0;
+	}
+
 	/**
 	 * Returns if attribute with the given index is specific. Labels are also
 	 * considered attributes and are indexed after the attributes.
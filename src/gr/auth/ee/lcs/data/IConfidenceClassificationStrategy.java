@@ -0,0 +1,48 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.data;
+
+import gr.auth.ee.lcs.classifiers.ClassifierSet;
+
+/**
+ * A classification strategy that decides on each label by comparing a
+ * confidence value against a threshold. An instance is classified in a label
+ * when the label's confidence is strictly greater than the threshold.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public interface IConfidenceClassificationStrategy extends
+		IClassificationStrategy {
+
+	/**
+	 * Returns the confidence of a set of classifiers for each label of a
+	 * vision vector.
+	 * 
+	 * @param aSet
+	 *            the set of classifiers used at the classification
+	 * @param visionVector
+	 *            the vision vector of the instance to be classified
+	 * @return a float array containing the confidence for each label
+	 */
+	float[] getConfidenceArray(ClassifierSet aSet, double[] visionVector);
+}
@@ -32,6 +32,7 @@ import gr.auth.ee.lcs.data.ClassifierTransformBridge;
 import gr.auth.ee.lcs.geneticalgorithm.IRuleSelector;
 import gr.auth.ee.lcs.geneticalgorithm.selectors.BestClassifierSelector;
 import gr.auth.ee.lcs.utilities.ExtendedBitSet;
+import gr.auth.ee.lcs.utilities.RandomSource;
 
 /**
  * Implements the a simple boolean representation of the chromosomes. Each bit
@@ -180,14 +181,14 @@ public final class SimpleBooleanRepresentation extends
 
 		// Generalize
 		for (int i = 0; i < chromosomeSize; i += 2) {
-			if (Math.random() > this.coverGeneralizationRate)
+			if (RandomSource.nextDouble() > this.coverGeneralizationRate)
 				chromosome.set(i);
 			else
 				chromosome.clear(i);
 		}
 		// coverClassifier.actionAdvocated=advocatingAction;
-		((int[]) (coverClassifier.transformData))[0] = ((Math.random() < .5) ? 1
-				: 0);
+		((int[]) (coverClassifier.transformData))[0] = ((RandomSource
+				.nextDouble() < .5) ? 1 : 0);
 		return coverClassifier;
 	}
 
@@ -203,6 +204,25 @@ public final class SimpleBooleanRepresentation extends
 		return;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * gr.auth.ee.lcs.data.ClassifierTransformBridge#getCanonicalHash(gr.auth
+	 * .ee.lcs.classifiers.Classifier)
+	 */
+	@Override
+	public int getCanonicalHash(final Classifier aClassifier) {
+		int hash = getClassification(aClassifier)[0];
+		for (int i = 0; i < chromosomeSize; i += 2) {
+			// The value of a # gene is ignored
+			hash = (31 * hash)
+					+ (aClassifier.get(i) ? (aClassifier.get(i + 1) ? 2 : 1)
+							: 0);
+		}
+		return hash;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -250,6 +270,34 @@ public final class SimpleBooleanRepresentation extends
 		return chromosomeSize / 2;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * gr.auth.ee.lcs.data.ClassifierTransformBridge#getSpecificity(gr.auth.
+	 * ee.lcs.classifiers.Classifier)
+	 */
+	@Override
+	public int getSpecificity(final Classifier aClassifier) {
+		int specificity = 0;
+		for (int i = 0; i < chromosomeSize; i += 2)
+			if (aClassifier.get(i))
+				specificity++;
+		return specificity;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * gr.auth.ee.lcs.data.ClassifierTransformBridge#getSubsumptionGroup(gr.
+	 * auth.ee.lcs.classifiers.Classifier)
+	 */
+	@Override
+	public int getSubsumptionGroup(final Classifier aClassifier) {
+		return getClassification(aClassifier)[0];
+	}
+
 	@Override
 	public boolean isAttributeSpecific(final Classifier aClassifier,
 			final int attributeIndex) {
@@ -0,0 +1,176 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.data.representations.complex;
+
+/**
+ * The condition part of a complex representation chromosome, decoded once so
+ * that matching does not need to decode the chromosome bits. It holds an
+ * active mask of the specific attributes and the decoded low and high bounds
+ * of each attribute, both as numbers and as the parts stored in the
+ * chromosome. The indices of the specific attributes are also kept as a list,
+ * ordered by the representation so that the attributes most likely to reject
+ * are checked first. The rule consequent (the labels) is decoded as a pair of
+ * label bit masks, so that label level predicates are bit operations.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public final class CompiledConditions {
+
+	/**
+	 * A bit mask with one bit set for each specific (active) attribute.
+	 */
+	final long[] activeMask;
+
+	/**
+	 * The decoded lower bound of each attribute. Boolean attributes store
+	 * their value here.
+	 */
+	final float[] low;
+
+	/**
+	 * The decoded higher bound of each attribute. Boolean attributes store
+	 * their value here.
+	 */
+	final float[] high;
+
+	/**
+	 * The lower bound part (as stored in the chromosome) of each interval
+	 * attribute.
+	 */
+	final int[] lowPart;
+
+	/**
+	 * The high bound part (as stored in the chromosome) of each interval
+	 * attribute.
+	 */
+	final int[] highPart;
+
+	/**
+	 * A bit mask with one bit set for each label the chromosome decides on
+	 * (i.e. the label is not a don't care).
+	 */
+	final long[] labelSpecified;
+
+	/**
+	 * A bit mask with one bit set for each specified label the chromosome
+	 * sets to 1.
+	 */
+	final long[] labelValue;
+
+	/**
+	 * The indices of the specific attributes, in the order they are checked.
+	 * Lazily built by the representation.
+	 */
+	volatile int[] specificAttributes = null;
+
+	/**
+	 * The version of the representation's attribute order used to build the
+	 * specific attributes list.
+	 */
+	volatile int orderVersion = -1;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param numberOfAttributes
+	 *            the number of condition attributes
+	 * @param numberOfLabels
+	 *            the number of labels
+	 */
+	CompiledConditions(final int numberOfAttributes, final int numberOfLabels) {
+		activeMask = new long[(numberOfAttributes + 63) >>> 6];
+		low = new float[numberOfAttributes];
+		high = new float[numberOfAttributes];
+		lowPart = new int[numberOfAttributes];
+		highPart = new int[numberOfAttributes];
+		labelSpecified = new long[(numberOfLabels + 63) >>> 6];
+		labelValue = new long[labelSpecified.length];
+	}
+
+	/**
+	 * Returns true if the given attribute is specific.
+	 * 
+	 * @param attributeIndex
+	 *            the index of the attribute
+	 * @return true if the attribute is active
+	 */
+	public boolean isActive(final int attributeIndex) {
+		return (activeMask[attributeIndex >>> 6] & (1L << attributeIndex)) != 0;
+	}
+
+	/**
+	 * Returns the number of specific attributes.
+	 * 
+	 * @return the number of active attributes
+	 */
+	public int getNumberOfActive() {
+		int active = 0;
+		for (int word = 0; word < activeMask.length; word++)
+			active += Long.bitCount(activeMask[word]);
+		return active;
+	}
+
+	/**
+	 * Returns true if the given label is specified (not a don't care).
+	 * 
+	 * @param label
+	 *            the index of the label
+	 * @return true if the chromosome decides on the label
+	 */
+	public boolean isLabelSpecified(final int label) {
+		return (labelSpecified[label >>> 6] & (1L << label)) != 0;
+	}
+
+	/**
+	 * Returns true if the given label is specified and set to 1.
+	 * 
+	 * @param label
+	 *            the index of the label
+	 * @return true if the chromosome advocates the label
+	 */
+	public boolean isLabelSet(final int label) {
+		return (labelValue[label >>> 6] & (1L << label)) != 0;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @param attributeIndex
+	 *            the index of the attribute
+	 * @return the decoded lower bound of the attribute
+	 */
+	public float getLowBound(final int attributeIndex) {
+		return low[attributeIndex];
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @param attributeIndex
+	 *            the index of the attribute
+	 * @return the decoded higher bound of the attribute
+	 */
+	public float getHighBound(final int attributeIndex) {
+		return high[attributeIndex];
+	}
+}
@@ -24,13 +24,18 @@ package gr.auth.ee.lcs.data.representations.complex;
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
 import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IMatchIndex;
 import gr.auth.ee.lcs.data.ClassifierTransformBridge;
 import gr.auth.ee.lcs.data.IClassificationStrategy;
 import gr.auth.ee.lcs.utilities.ExtendedBitSet;
 import gr.auth.ee.lcs.utilities.InstancesUtility;
+import gr.auth.ee.lcs.utilities.RandomSource;
+import gr.auth.ee.lcs.utilities.SettingsLoader;
 
 import java.io.IOException;
+import java.util.Arrays;
 import java.util.Enumeration;
+import java.util.IdentityHashMap;
 
 import weka.core.Instances;
 
@@ -98,6 +103,52 @@ public abstract class ComplexRepresentation extends ClassifierTransformBridge {
 		public abstract void fixAttributeRepresentation(
 				ExtendedBitSet generatedClassifier);
 
+		/**
+		 * Returns true if the gene can be more general than a gene it is not
+		 * equal to.
+		 * 
+		 * @return true if the gene can be more general
+		 */
+		public boolean canGeneralize() {
+			return true;
+		}
+
+		/**
+		 * Get a hash of the gene that is consistent with
+		 * {@link #isEqual(ExtendedBitSet, ExtendedBitSet)}. The default
+		 * implementation hashes all the bits of the gene.
+		 * 
+		 * @param chromosome
+		 *            the chromosome
+		 * @return the hash of the gene
+		 */
+		public int getCanonicalHash(final ExtendedBitSet chromosome) {
+			int hash = 1;
+			for (int i = 0; i < lengthInBits; i++)
+				hash = (31 * hash) + (chromosome.get(positionInChromosome + i) ? 1 : 0);
+			return hash;
+		}
+
+		/**
+		 * Hash a gene that has an activation bit followed by its value bits.
+		 * The value bits of an inactive gene are ignored.
+		 * 
+		 * @param chromosome
+		 *            the chromosome
+		 * @param valueBits
+		 *            the number of value bits to hash
+		 * @return the hash of the gene
+		 */
+		protected final int getActiveGeneHash(final ExtendedBitSet chromosome,
+				final int valueBits) {
+			if (!chromosome.get(positionInChromosome))
+				return 0;
+			int hash = 1;
+			for (int i = 1; i <= valueBits; i++)
+				hash = (31 * hash) + (chromosome.get(positionInChromosome + i) ? 1 : 0);
+			return hash;
+		}
+
 		/**
 		 * @return the length in bits of the chromosome.
 		 */
@@ -209,6 +260,18 @@ public abstract class ComplexRepresentation extends ClassifierTransformBridge {
 			return;
 		}
 
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * gr.auth.ee.lcs.data.representations.ComplexRepresentation.Attribute
+		 * #getCanonicalHash(gr.auth.ee.lcs.classifiers.ExtendedBitSet)
+		 */
+		@Override
+		public final int getCanonicalHash(final ExtendedBitSet chromosome) {
+			return getActiveGeneHash(chromosome, 1);
+		}
+
 		/*
 		 * (non-Javadoc)
 		 * 
@@ -298,7 +361,7 @@ public abstract class ComplexRepresentation extends ClassifierTransformBridge {
 			else
 				generatedClassifier.set(positionInChromosome + 1);
 
-			if (Math.random() < generalizationRate)
+			if (RandomSource.nextDouble() < generalizationRate)
 				generatedClassifier.clear(positionInChromosome);
 			else
 				generatedClassifier.set(positionInChromosome);
@@ -412,11 +475,20 @@ public abstract class ComplexRepresentation extends ClassifierTransformBridge {
 		 * @return the numeric value of the high bound
 		 */
 		private float getHighBoundValue(final ExtendedBitSet chromosome) {
-			final int part = chromosome.getIntAt(positionInChromosome + 1
-					+ precisionBits, precisionBits);
+			return getPartValue(getHighBoundPart(chromosome));
+		}
 
-			return ((((float) part) / ((float) totalParts)) * (maxValue - minValue))
-					+ minValue;
+		/**
+		 * Return the (quantized) high bound of the interval, as stored in the
+		 * chromosome.
+		 * 
+		 * @param chromosome
+		 *            the chromosome containing the interval
+		 * @return the part of the high bound
+		 */
+		private int getHighBoundPart(final ExtendedBitSet chromosome) {
+			return chromosome.getIntAt(positionInChromosome + 1
+					+ precisionBits, precisionBits);
 		}
 
 		/**
@@ -427,13 +499,97 @@ public abstract class ComplexRepresentation extends ClassifierTransformBridge {
 		 * @return the numeric value of the lower bound
 		 */
 		private float getLowBoundValue(final ExtendedBitSet chromosome) {
-			final int part = chromosome.getIntAt(positionInChromosome + 1,
+			return getPartValue(getLowBoundPart(chromosome));
+		}
+
+		/**
+		 * Return the (quantized) lower bound of the interval, as stored in the
+		 * chromosome.
+		 * 
+		 * @param chromosome
+		 *            the chromosome containing the interval
+		 * @return the part of the lower bound
+		 */
+		private int getLowBoundPart(final ExtendedBitSet chromosome) {
+			return chromosome.getIntAt(positionInChromosome + 1,
 					precisionBits);
+		}
 
+		/**
+		 * Return the numeric value of a bound part.
+		 * 
+		 * @param part
+		 *            the part (from 0 to totalParts)
+		 * @return the numeric value of the part
+		 */
+		private float getPartValue(final int part) {
 			return ((((float) part) / ((float) totalParts)) * (maxValue - minValue))
 					+ minValue;
 		}
 
+		/**
+		 * Quantize a value to the highest part that a lower bound may have
+		 * while still matching the value. The value matches a lower bound
+		 * part, if the part is not greater than the returned one.
+		 * 
+		 * @param value
+		 *            the value to quantize
+		 * @return the highest matching low bound part or -1 if there is none
+		 */
+		private int quantizeForLowBound(final float value) {
+			int from = 0;
+			int to = totalParts;
+			int result = -1;
+			while (from <= to) {
+				final int middle = (from + to) >>> 1;
+				if (getPartValue(middle) <= value) {
+					result = middle;
+					from = middle + 1;
+				} else {
+					to = middle - 1;
+				}
+			}
+			return result;
+		}
+
+		/**
+		 * Quantize a value to the lowest part that a high bound may have while
+		 * still matching the value. The value matches a high bound part, if
+		 * the part is not smaller than the returned one.
+		 * 
+		 * @param value
+		 *            the value to quantize
+		 * @return the lowest matching high bound part or totalParts + 1 if
+		 *         there is none
+		 */
+		private int quantizeForHighBound(final float value) {
+			int from = 0;
+			int to = totalParts;
+			int result = totalParts + 1;
+			while (from <= to) {
+				final int middle = (from + to) >>> 1;
+				if (getPartValue(middle) >= value) {
+					result = middle;
+					to = middle - 1;
+				} else {
+					from = middle + 1;
+				}
+			}
+			return result;
+		}
+
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * gr.auth.ee.lcs.data.representations.ComplexRepresentation.Attribute
+		 * #getCanonicalHash(gr.auth.ee.lcs.classifiers.ExtendedBitSet)
+		 */
+		@Override
+		public final int getCanonicalHash(final ExtendedBitSet chromosome) {
+			return getActiveGeneHash(chromosome, precisionBits);
+		}
+
 		/*
 		 * (non-Javadoc)
 		 * 
@@ -517,14 +673,14 @@ public abstract class ComplexRepresentation extends ClassifierTransformBridge {
 			// First find a random value that is smaller than the attribute
 			// value & convert it to fraction
 			final int newLowBound = (int) Math
-					.floor((((attributeValue - minValue) * Math.random()) / (maxValue - minValue))
+					.floor((((attributeValue - minValue) * RandomSource.nextDouble()) / (maxValue - minValue))
 							* totalParts);
 			final int newMaxBound = (int) Math
-					.ceil((((maxValue - minValue - ((maxValue - attributeValue) * Math
-							.random())) / (maxValue - minValue)) * totalParts));
+					.ceil((((maxValue - minValue - ((maxValue - attributeValue) * RandomSource
+							.nextDouble())) / (maxValue - minValue)) * totalParts));
 
 			// Then set at chromosome
-			if (Math.random() < (1 - generalizationRate))
+			if (RandomSource.nextDouble() < (1 - generalizationRate))
 				generatedClassifier.set(positionInChromosome);
 			else
 				generatedClassifier.clear(positionInChromosome);
@@ -618,6 +774,18 @@ public abstract class ComplexRepresentation extends ClassifierTransformBridge {
 				chromosome.clear(positionInChromosome);
 		}
 
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * gr.auth.ee.lcs.data.representations.ComplexRepresentation.Attribute
+		 * #getCanonicalHash(gr.auth.ee.lcs.classifiers.ExtendedBitSet)
+		 */
+		@Override
+		public final int getCanonicalHash(final ExtendedBitSet chromosome) {
+			return getActiveGeneHash(chromosome, nominalValuesNames.length);
+		}
+
 		/*
 		 * (non-Javadoc)
 		 * 
@@ -704,14 +872,14 @@ public abstract class ComplexRepresentation extends ClassifierTransformBridge {
 				final Classifier myChromosome) {
 			// Clear everything
 			myChromosome.clear(positionInChromosome, this.lengthInBits);
-			if (Math.random() < (1 - generalizationRate))
+			if (RandomSource.nextDouble() < (1 - generalizationRate))
 				myChromosome.set(positionInChromosome);
 			else
 				myChromosome.clear(positionInChromosome);
 
 			// Randomize all bits of gene
 			for (int i = 1; i < lengthInBits; i++) {
-				if (Math.random() < (.5))
+				if (RandomSource.nextDouble() < (.5))
 					myChromosome.set(positionInChromosome + i);
 				else
 					myChromosome.clear(positionInChromosome + i);
@@ -743,6 +911,111 @@ public abstract class ComplexRepresentation extends ClassifierTransformBridge {
 
 	}
 
+	/**
+	 * A vision vector quantized on the grid of the interval attributes, so
+	 * that it can be matched with integer compares against the bound parts
+	 * stored in the chromosomes.
+	 */
+	static final class QuantizedVision {
+
+		/**
+		 * The vision vector that has been quantized.
+		 */
+		final double[] vision;
+
+		/**
+		 * The highest matching lower bound part of each attribute.
+		 */
+		final int[] low;
+
+		/**
+		 * The lowest matching high bound part of each attribute.
+		 */
+		final int[] high;
+
+		/**
+		 * The (float) values of the attributes at the time of quantization.
+		 */
+		final float[] values;
+
+		/**
+		 * Constructor.
+		 * 
+		 * @param visionVector
+		 *            the quantized vision vector
+		 * @param numberOfAttributes
+		 *            the number of condition attributes
+		 */
+		private QuantizedVision(final double[] visionVector,
+				final int numberOfAttributes) {
+			vision = visionVector;
+			low = new int[numberOfAttributes];
+			high = new int[numberOfAttributes];
+			values = new float[numberOfAttributes];
+		}
+
+		/**
+		 * Check if this is still the quantization of a vision vector, i.e. if
+		 * it is the same vector and its interval values have not been
+		 * modified since.
+		 * 
+		 * @param visionVector
+		 *            the vision vector
+		 * @param kinds
+		 *            the attribute kinds of the representation
+		 * @return true if the quantization is still valid
+		 */
+		boolean isQuantizationOf(final double[] visionVector,
+				final byte[] kinds) {
+			if (vision != visionVector)
+				return false;
+			for (int i = 0; i < kinds.length; i++) {
+				if ((kinds[i] == KIND_INTERVAL)
+						&& (Float.floatToIntBits((float) visionVector[i]) != Float
+								.floatToIntBits(values[i])))
+					return false;
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * The matching state of a thread: the vision vector it is matching and
+	 * its own sampled rejection statistics, merged into the representation's
+	 * ones when a match set has been generated.
+	 */
+	private static final class MatchState {
+
+		/**
+		 * The vision vector being matched (between beginMatch() and
+		 * endMatch()) or null. It has been checked once, so it is identified
+		 * by reference only.
+		 */
+		QuantizedVision matched = null;
+
+		/**
+		 * A counter of the matches, used for sampling.
+		 */
+		int matchCounter = 0;
+
+		/**
+		 * The number of sampled matches not yet merged.
+		 */
+		int samples = 0;
+
+		/**
+		 * The number of times each attribute has been checked in the
+		 * sampled matches.
+		 */
+		int[] checks = new int[0];
+
+		/**
+		 * The number of times each attribute has rejected a vision vector in
+		 * the sampled matches.
+		 */
+		int[] rejections = new int[0];
+	}
+
 	/**
 	 * The list of all attributes.
 	 */
@@ -783,6 +1056,99 @@ public abstract class ComplexRepresentation extends ClassifierTransformBridge {
 	 */
 	protected final AbstractLearningClassifierSystem myLcs;
 
+	/**
+	 * Kind of an attribute that is matched through its own isMatch().
+	 */
+	static final byte KIND_GENERIC = 0;
+
+	/**
+	 * Kind of an interval attribute.
+	 */
+	static final byte KIND_INTERVAL = 1;
+
+	/**
+	 * Kind of a boolean attribute.
+	 */
+	static final byte KIND_BOOLEAN = 2;
+
+	/**
+	 * Kind of a nominal attribute.
+	 */
+	static final byte KIND_NOMINAL = 3;
+
+	/**
+	 * The kind of each condition attribute. Lazily built, since attributes
+	 * may be added to the list after construction.
+	 */
+	private volatile byte[] attributeKinds = null;
+
+	/**
+	 * The chromosome position of the first value bit of each condition
+	 * attribute.
+	 */
+	private int[] attributeValuePositions = null;
+
+	/**
+	 * One in every STATISTICS_SAMPLING_PERIOD matches checks all specific
+	 * attributes to collect the rejection statistics. Must be a power of 2.
+	 */
+	private static final int STATISTICS_SAMPLING_PERIOD = 64;
+
+	/**
+	 * The number of sampled matches after which the attributes are
+	 * reordered.
+	 */
+	private static final int REORDER_PERIOD = 1024;
+
+	/**
+	 * The number of times each attribute has been checked in the sampled
+	 * matches of all threads. Guarded by the representation's lock.
+	 */
+	private int[] attributeChecks = null;
+
+	/**
+	 * The number of times each attribute has rejected a vision vector in the
+	 * sampled matches of all threads. Guarded by the representation's lock.
+	 */
+	private int[] attributeRejections = null;
+
+	/**
+	 * The condition attributes, the most likely to reject first.
+	 */
+	private volatile int[] attributeOrder = null;
+
+	/**
+	 * The version of the attribute order. Increased each time the order
+	 * changes, so that the classifiers' lists get rebuilt.
+	 */
+	private volatile int attributeOrderVersion = 0;
+
+	/**
+	 * The train instances that have been quantized.
+	 */
+	private double[][] quantizedInstances = null;
+
+	/**
+	 * The quantized train instances, keyed by the (identity of the) instance.
+	 */
+	private IdentityHashMap<double[], QuantizedVision> quantizedTrainSet = null;
+
+	/**
+	 * The last vision vector quantized by each thread. Match sets check the
+	 * same vector against all classifiers, so it is almost always a hit.
+	 */
+	private final ThreadLocal<QuantizedVision> lastQuantizedVision = new ThreadLocal<QuantizedVision>();
+
+	/**
+	 * The matching state of each thread.
+	 */
+	private final ThreadLocal<MatchState> matchStates = new ThreadLocal<MatchState>() {
+		@Override
+		protected MatchState initialValue() {
+			return new MatchState();
+		}
+	};
+
 	/**
 	 * Constructor.
 	 * 
@@ -963,6 +1329,17 @@ public abstract class ComplexRepresentation extends ClassifierTransformBridge {
 	 */
 	protected abstract void createClassRepresentation(Instances instances);
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see gr.auth.ee.lcs.data.ClassifierTransformBridge#createMatchIndex()
+	 */
+	@Override
+	public IMatchIndex createMatchIndex() {
+		return new MatchIndex(this, SettingsLoader.getNumericSetting(
+				"matchIndexCostFactor", 1));
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -993,9 +1370,447 @@ public abstract class ComplexRepresentation extends ClassifierTransformBridge {
 		for (int i = 0; i < attributeList.length; i++) {
 			attributeList[i].fixAttributeRepresentation(aChromosome);
 		}
+		if (aChromosome instanceof Classifier)
+			((Classifier) aChromosome).invalidateCompiledData();
 
 	}
 
+	/**
+	 * Decode the condition part of a chromosome.
+	 * 
+	 * @param chromosome
+	 *            the chromosome to decode
+	 * @return the compiled conditions of the chromosome
+	 */
+	protected final CompiledConditions compileConditions(
+			final ExtendedBitSet chromosome) {
+		final byte[] kinds = getAttributeKinds();
+		final int numberOfAttributes = kinds.length;
+		final CompiledConditions compiled = new CompiledConditions(
+				numberOfAttributes, numberOfLabels);
+		for (int i = 0; i < numberOfAttributes; i++) {
+			final AbstractAttribute attribute = attributeList[i];
+			if ((kinds[i] != KIND_GENERIC) && !attribute.isSpecific(chromosome))
+				continue;
+
+			compiled.activeMask[i >>> 6] |= 1L << i;
+			if (kinds[i] == KIND_INTERVAL) {
+				final IntervalAttribute interval = (IntervalAttribute) attribute;
+				compiled.lowPart[i] = interval.getLowBoundPart(chromosome);
+				compiled.highPart[i] = interval.getHighBoundPart(chromosome);
+				compiled.low[i] = interval.getPartValue(compiled.lowPart[i]);
+				compiled.high[i] = interval.getPartValue(compiled.highPart[i]);
+			} else if (kinds[i] == KIND_BOOLEAN) {
+				final float value = chromosome
+						.get(attribute.positionInChromosome + 1) ? 1 : 0;
+				compiled.low[i] = value;
+				compiled.high[i] = value;
+			}
+		}
+		compileLabels(chromosome, compiled);
+		return compiled;
+	}
+
+	/**
+	 * Decode the rule consequent (the labels) of a chromosome into the label
+	 * masks of its compiled conditions. Representations that classify by
+	 * labels override this; by default no label is specified.
+	 * 
+	 * @param chromosome
+	 *            the chromosome to decode
+	 * @param compiled
+	 *            the compiled conditions to fill
+	 */
+	protected void compileLabels(final ExtendedBitSet chromosome,
+			final CompiledConditions compiled) {
+	}
+
+	/**
+	 * Freeze a set of rules into an immutable inference model. The conditions
+	 * of the rules are taken from their compiled conditions, their votes are
+	 * given by the classification strategy being frozen. Rules that do not
+	 * vote are left out of the model.
+	 * 
+	 * @param rules
+	 *            the rules to freeze
+	 * @param votes
+	 *            the vote of each rule (macroclassifier) of the set for each
+	 *            label, or null if the rule does not vote
+	 * @param normalization
+	 *            the normalization of the votes (see InferenceModel)
+	 * @param threshold
+	 *            the classification threshold
+	 * @return the inference model
+	 */
+	protected final InferenceModel freeze(final ClassifierSet rules,
+			final double[][] votes, final int normalization,
+			final double threshold) {
+		final byte[] kinds = getAttributeKinds();
+		final int[] nominalValues = new int[kinds.length];
+		for (int i = 0; i < kinds.length; i++) {
+			if (kinds[i] == KIND_GENERIC)
+				throw new IllegalArgumentException("Attribute "
+						+ attributeList[i].nameOfAttribute
+						+ " can not be frozen");
+			if (kinds[i] == KIND_NOMINAL)
+				nominalValues[i] = attributeList[i].lengthInBits - 1;
+		}
+
+		// Count the conditions, nominal values and votes of the voting rules
+		int numberOfRules = 0;
+		int numberOfConditions = 0;
+		int numberOfNominalBits = 0;
+		int numberOfVotes = 0;
+		for (int i = 0; i < votes.length; i++) {
+			final int ruleVotes = getNumberOfVotes(votes[i]);
+			if (ruleVotes == 0)
+				continue;
+			numberOfRules++;
+			numberOfVotes += ruleVotes;
+			final int[] specificAttributes = getSpecificAttributes(getCompiledConditions(rules
+					.getClassifier(i)));
+			numberOfConditions += specificAttributes.length;
+			for (int k = 0; k < specificAttributes.length; k++)
+				numberOfNominalBits += nominalValues[specificAttributes[k]];
+		}
+
+		final int[] conditionStart = new int[numberOfRules + 1];
+		final int[] conditionAttribute = new int[numberOfConditions];
+		final float[] conditionLow = new float[numberOfConditions];
+		final float[] conditionHigh = new float[numberOfConditions];
+		final int[] conditionValuesPosition = new int[numberOfConditions];
+		final long[] nominalMasks = new long[(numberOfNominalBits + 63) >>> 6];
+		final int[] voteStart = new int[numberOfRules + 1];
+		final int[] voteLabel = new int[numberOfVotes];
+		final double[] voteWeight = new double[numberOfVotes];
+
+		int rule = 0;
+		int condition = 0;
+		int nominalBit = 0;
+		int vote = 0;
+		for (int i = 0; i < votes.length; i++) {
+			if (getNumberOfVotes(votes[i]) == 0)
+				continue;
+			final Classifier cl = rules.getClassifier(i);
+			final CompiledConditions compiled = getCompiledConditions(cl);
+			final int[] specificAttributes = getSpecificAttributes(compiled);
+			for (int k = 0; k < specificAttributes.length; k++) {
+				final int attribute = specificAttributes[k];
+				conditionAttribute[condition] = attribute;
+				conditionLow[condition] = compiled.low[attribute];
+				conditionHigh[condition] = compiled.high[attribute];
+				if (kinds[attribute] == KIND_NOMINAL) {
+					conditionValuesPosition[condition] = nominalBit;
+					final int valuePosition = attributeValuePositions[attribute];
+					for (int value = 0; value < nominalValues[attribute]; value++) {
+						if (cl.get(valuePosition + value))
+							nominalMasks[nominalBit >>> 6] |= 1L << nominalBit;
+						nominalBit++;
+					}
+				}
+				condition++;
+			}
+			conditionStart[rule + 1] = condition;
+
+			for (int label = 0; label < votes[i].length; label++) {
+				if (votes[i][label] != 0) {
+					voteLabel[vote] = label;
+					voteWeight[vote] = votes[i][label];
+					vote++;
+				}
+			}
+			voteStart[rule + 1] = vote;
+			rule++;
+		}
+
+		return new InferenceModel(numberOfLabels, kinds.clone(),
+				nominalValues, conditionStart, conditionAttribute,
+				conditionLow, conditionHigh, conditionValuesPosition,
+				nominalMasks, voteStart, voteLabel, voteWeight, normalization,
+				threshold);
+	}
+
+	/**
+	 * Return the kinds of the condition attributes, building them if needed.
+	 * 
+	 * @return the attribute kinds
+	 */
+	final byte[] getAttributeKinds() {
+		byte[] kinds = attributeKinds;
+		if (kinds != null)
+			return kinds;
+
+		final int numberOfAttributes = attributeList.length - numberOfLabels;
+		kinds = new byte[numberOfAttributes];
+		final int[] valuePositions = new int[numberOfAttributes];
+		for (int i = 0; i < numberOfAttributes; i++) {
+			final AbstractAttribute attribute = attributeList[i];
+			valuePositions[i] = attribute.positionInChromosome + 1;
+			if (attribute instanceof IntervalAttribute)
+				kinds[i] = KIND_INTERVAL;
+			else if (attribute instanceof BooleanAttribute)
+				kinds[i] = KIND_BOOLEAN;
+			else if (attribute instanceof NominalAttribute)
+				kinds[i] = KIND_NOMINAL;
+			else
+				kinds[i] = KIND_GENERIC;
+		}
+		final int[] order = new int[numberOfAttributes];
+		for (int i = 0; i < numberOfAttributes; i++)
+			order[i] = i;
+		attributeChecks = new int[numberOfAttributes];
+		attributeRejections = new int[numberOfAttributes];
+		attributeOrder = order;
+		attributeValuePositions = valuePositions;
+		attributeKinds = kinds;
+		return kinds;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * gr.auth.ee.lcs.data.ClassifierTransformBridge#beginMatch(double[])
+	 */
+	@Override
+	public final void beginMatch(final double[] visionVector) {
+		final MatchState state = matchStates.get();
+		state.matched = null;
+		state.matched = getQuantizedVision(visionVector);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see gr.auth.ee.lcs.data.ClassifierTransformBridge#endMatch()
+	 */
+	@Override
+	public final void endMatch() {
+		final MatchState state = matchStates.get();
+		state.matched = null;
+		if (state.samples >= REORDER_PERIOD)
+			reorderAttributes(state);
+	}
+
+	/**
+	 * Return the quantized form of a vision vector. Train instances are
+	 * quantized once (for all of them), any other vector is quantized when
+	 * first seen by the calling thread. Vision vectors are identified by
+	 * reference and their interval values are checked, so a vector that is
+	 * modified in place is quantized again. The vector being matched (see
+	 * beginMatch()) is only checked once, when the matching begins.
+	 * 
+	 * @param visionVector
+	 *            the vision vector
+	 * @return the quantized vision vector
+	 */
+	final QuantizedVision getQuantizedVision(final double[] visionVector) {
+		QuantizedVision quantized = matchStates.get().matched;
+		if ((quantized != null) && (quantized.vision == visionVector))
+			return quantized;
+
+		final byte[] kinds = getAttributeKinds();
+		quantized = lastQuantizedVision.get();
+		if ((quantized != null)
+				&& quantized.isQuantizationOf(visionVector, kinds))
+			return quantized;
+
+		quantized = getQuantizedTrainSet().get(visionVector);
+		if ((quantized == null)
+				|| !quantized.isQuantizationOf(visionVector, kinds))
+			quantized = quantize(visionVector);
+		lastQuantizedVision.set(quantized);
+		return quantized;
+	}
+
+	/**
+	 * Return the quantized train instances of the LCS, (re)building them if
+	 * the train set has changed.
+	 * 
+	 * @return a map from the train instances to their quantized forms
+	 */
+	private synchronized IdentityHashMap<double[], QuantizedVision> getQuantizedTrainSet() {
+		final double[][] instances = (myLcs == null) ? null : myLcs.instances;
+		if ((quantizedTrainSet != null) && (quantizedInstances == instances))
+			return quantizedTrainSet;
+
+		final IdentityHashMap<double[], QuantizedVision> trainSet = new IdentityHashMap<double[], QuantizedVision>();
+		if (instances != null) {
+			for (int i = 0; i < instances.length; i++)
+				trainSet.put(instances[i], quantize(instances[i]));
+		}
+		quantizedInstances = instances;
+		quantizedTrainSet = trainSet;
+		return trainSet;
+	}
+
+	/**
+	 * Quantize a vision vector on the grid of the interval attributes.
+	 * 
+	 * @param visionVector
+	 *            the vision vector to quantize
+	 * @return the quantized vector
+	 */
+	private QuantizedVision quantize(final double[] visionVector) {
+		final byte[] kinds = getAttributeKinds();
+		final QuantizedVision quantized = new QuantizedVision(visionVector,
+				kinds.length);
+		for (int i = 0; i < kinds.length; i++) {
+			if (kinds[i] != KIND_INTERVAL)
+				continue;
+			final IntervalAttribute interval = (IntervalAttribute) attributeList[i];
+			final float value = (float) visionVector[i];
+			quantized.values[i] = value;
+			quantized.low[i] = interval.quantizeForLowBound(value);
+			quantized.high[i] = interval.quantizeForHighBound(value);
+		}
+		return quantized;
+	}
+
+	/**
+	 * Return the number of (non zero) votes of a rule.
+	 * 
+	 * @param ruleVotes
+	 *            the vote of the rule for each label, or null
+	 * @return the number of labels the rule votes for
+	 */
+	private static int getNumberOfVotes(final double[] ruleVotes) {
+		if (ruleVotes == null)
+			return 0;
+		int numberOfVotes = 0;
+		for (int label = 0; label < ruleVotes.length; label++) {
+			if (ruleVotes[label] != 0)
+				numberOfVotes++;
+		}
+		return numberOfVotes;
+	}
+
+	/**
+	 * Return the number of parts (grid points) of an interval attribute.
+	 * 
+	 * @param attributeIndex
+	 *            the index of the interval attribute
+	 * @return the number of distinct bound parts
+	 */
+	final int getIntervalParts(final int attributeIndex) {
+		return ((IntervalAttribute) attributeList[attributeIndex]).totalParts + 1;
+	}
+
+	/**
+	 * Return the chromosome position of the first value bit of a condition
+	 * attribute.
+	 * 
+	 * @param attributeIndex
+	 *            the index of the attribute
+	 * @return the position of the attribute's value
+	 */
+	final int getAttributeValuePosition(final int attributeIndex) {
+		getAttributeKinds();
+		return attributeValuePositions[attributeIndex];
+	}
+
+	/**
+	 * Return the compiled conditions of a classifier, compiling them if the
+	 * classifier has none (or they have been invalidated).
+	 * 
+	 * @param aClassifier
+	 *            the classifier
+	 * @return the classifier's compiled conditions
+	 */
+	protected final CompiledConditions getCompiledConditions(
+			final Classifier aClassifier) {
+		final Object data = aClassifier.getCompiledData();
+		if (data instanceof CompiledConditions)
+			return (CompiledConditions) data;
+
+		final CompiledConditions compiled = compileConditions(aClassifier);
+		aClassifier.setCompiledData(compiled);
+		return compiled;
+	}
+
+	/**
+	 * Check if an instance has a label (i.e. if the label's value is 1).
+	 * 
+	 * @param instance
+	 *            the instance
+	 * @param label
+	 *            the index of the label
+	 * @return true if the instance has the label
+	 */
+	protected final boolean hasInstanceLabel(final double[] instance,
+			final int label) {
+		return instance[(attributeList.length - numberOfLabels) + label] == 1;
+	}
+
+	/**
+	 * Returns a word of the bit mask of an instance's labels (the labels
+	 * whose value is 1).
+	 * 
+	 * @param instance
+	 *            the instance
+	 * @param word
+	 *            the index of the word (each word holds 64 labels)
+	 * @return the word of the instance's label mask
+	 */
+	protected final long getInstanceLabels(final double[] instance,
+			final int word) {
+		final int labelStart = attributeList.length - numberOfLabels;
+		final int first = word << 6;
+		final int last = Math.min(first + 64, numberOfLabels);
+		long labels = 0;
+		for (int i = first; i < last; i++) {
+			if (instance[labelStart + i] == 1)
+				labels |= 1L << i;
+		}
+		return labels;
+	}
+
+	/**
+	 * Create per thread label tables, for the classification strategies to
+	 * vote on without allocating a table per classified instance. Each thread
+	 * gets its own table (with an element per label) on first use; the
+	 * strategy clears it before voting.
+	 * 
+	 * @return the thread local tables
+	 */
+	protected final ThreadLocal<double[]> newLabelTables() {
+		return new ThreadLocal<double[]>() {
+			@Override
+			protected double[] initialValue() {
+				return new double[numberOfLabels];
+			}
+		};
+	}
+
+	/**
+	 * Create per thread (float) label tables. See newLabelTables().
+	 * 
+	 * @return the thread local tables
+	 */
+	protected final ThreadLocal<float[]> newFloatLabelTables() {
+		return new ThreadLocal<float[]>() {
+			@Override
+			protected float[] initialValue() {
+				return new float[numberOfLabels];
+			}
+		};
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * gr.auth.ee.lcs.data.ClassifierTransformBridge#getCanonicalHash(gr.auth
+	 * .ee.lcs.classifiers.Classifier)
+	 */
+	@Override
+	public final int getCanonicalHash(final Classifier aClassifier) {
+		int hash = 1;
+		for (int i = 0; i < attributeList.length; i++)
+			hash = (31 * hash) + attributeList[i].getCanonicalHash(aClassifier);
+		return hash;
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -1015,6 +1830,40 @@ public abstract class ComplexRepresentation extends ClassifierTransformBridge {
 		return attributeList.length - numberOfLabels;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * gr.auth.ee.lcs.data.ClassifierTransformBridge#getSpecificity(gr.auth.
+	 * ee.lcs.classifiers.Classifier)
+	 */
+	@Override
+	public final int getSpecificity(final Classifier aClassifier) {
+		// Only the attributes, since label generality may differ
+		int specificity = 0;
+		for (int i = 0; i < (attributeList.length - numberOfLabels); i++)
+			if (attributeList[i].isSpecific(aClassifier))
+				specificity++;
+		return specificity;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * gr.auth.ee.lcs.data.ClassifierTransformBridge#getSubsumptionGroup(gr.
+	 * auth.ee.lcs.classifiers.Classifier)
+	 */
+	@Override
+	public final int getSubsumptionGroup(final Classifier aClassifier) {
+		int group = 1;
+		for (int i = 0; i < attributeList.length; i++)
+			if (!attributeList[i].canGeneralize())
+				group = (31 * group)
+						+ attributeList[i].getCanonicalHash(aClassifier);
+		return group;
+	}
+
 	@Override
 	public boolean isAttributeSpecific(final Classifier aClassifier,
 			final int attributeIndex) {
@@ -1030,6 +1879,11 @@ public abstract class ComplexRepresentation extends ClassifierTransformBridge {
 	@Override
 	public final boolean isMatch(final double[] visionVector,
 			final ExtendedBitSet chromosome) {
+		if (chromosome instanceof Classifier) {
+			return isMatch(visionVector, chromosome,
+					getCompiledConditions((Classifier) chromosome));
+		}
+
 		for (int i = 0; i < (attributeList.length - numberOfLabels); i++) {
 			if (!attributeList[i].isMatch((float) visionVector[i], chromosome))
 				return false;
@@ -1037,6 +1891,191 @@ public abstract class ComplexRepresentation extends ClassifierTransformBridge {
 		return true;
 	}
 
+	/**
+	 * Match a vision vector using the compiled conditions of a chromosome.
+	 * Only the specific attributes are checked, the ones most likely to
+	 * reject first.
+	 * 
+	 * @param visionVector
+	 *            the vision vector to match
+	 * @param chromosome
+	 *            the chromosome
+	 * @param compiled
+	 *            the chromosome's compiled conditions
+	 * @return true if the chromosome matches the vision vector
+	 */
+	private boolean isMatch(final double[] visionVector,
+			final ExtendedBitSet chromosome, final CompiledConditions compiled) {
+		final MatchState state = matchStates.get();
+		QuantizedVision quantized = state.matched;
+		if ((quantized == null) || (quantized.vision != visionVector))
+			quantized = getQuantizedVision(visionVector);
+		final int[] specificAttributes = getSpecificAttributes(compiled);
+		if ((++state.matchCounter & (STATISTICS_SAMPLING_PERIOD - 1)) == 0)
+			return sampleMatch(visionVector, chromosome, compiled, quantized,
+					specificAttributes, state);
+
+		for (int k = 0; k < specificAttributes.length; k++) {
+			if (!isAttributeMatch(specificAttributes[k], visionVector,
+					chromosome, compiled, quantized))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Match a vision vector checking all specific attributes (with no early
+	 * exit) and collect the rejection statistics of the attributes in the
+	 * calling thread's state.
+	 * 
+	 * @param visionVector
+	 *            the vision vector to match
+	 * @param chromosome
+	 *            the chromosome
+	 * @param compiled
+	 *            the chromosome's compiled conditions
+	 * @param quantized
+	 *            the quantized vision vector
+	 * @param specificAttributes
+	 *            the specific attributes of the chromosome
+	 * @param state
+	 *            the matching state of the calling thread
+	 * @return true if the chromosome matches the vision vector
+	 */
+	private boolean sampleMatch(final double[] visionVector,
+			final ExtendedBitSet chromosome, final CompiledConditions compiled,
+			final QuantizedVision quantized, final int[] specificAttributes,
+			final MatchState state) {
+		final int numberOfAttributes = attributeKinds.length;
+		if (state.checks.length != numberOfAttributes) {
+			state.checks = new int[numberOfAttributes];
+			state.rejections = new int[numberOfAttributes];
+			state.samples = 0;
+		}
+		final int[] checks = state.checks;
+		final int[] rejections = state.rejections;
+		boolean matches = true;
+		for (int k = 0; k < specificAttributes.length; k++) {
+			final int i = specificAttributes[k];
+			checks[i]++;
+			if (!isAttributeMatch(i, visionVector, chromosome, compiled,
+					quantized)) {
+				rejections[i]++;
+				matches = false;
+			}
+		}
+
+		state.samples++;
+		return matches;
+	}
+
+	/**
+	 * Match a single specific attribute.
+	 * 
+	 * @param i
+	 *            the index of the attribute
+	 * @param visionVector
+	 *            the vision vector to match
+	 * @param chromosome
+	 *            the chromosome
+	 * @param compiled
+	 *            the chromosome's compiled conditions
+	 * @param quantized
+	 *            the quantized vision vector
+	 * @return true if the attribute matches the vision vector
+	 */
+	private boolean isAttributeMatch(final int i, final double[] visionVector,
+			final ExtendedBitSet chromosome, final CompiledConditions compiled,
+			final QuantizedVision quantized) {
+		final float vision = (float) visionVector[i];
+		switch (attributeKinds[i]) {
+		case KIND_INTERVAL:
+			return (quantized.low[i] >= compiled.lowPart[i])
+					&& (quantized.high[i] <= compiled.highPart[i]);
+		case KIND_BOOLEAN:
+			return (vision != 0) == (compiled.low[i] != 0);
+		case KIND_NOMINAL:
+			return chromosome.get(attributeValuePositions[i] + (int) vision);
+		default:
+			return attributeList[i].isMatch(vision, chromosome);
+		}
+	}
+
+	/**
+	 * Return the specific attributes of compiled conditions, in the current
+	 * attribute order, rebuilding them if the order has changed.
+	 * 
+	 * @param compiled
+	 *            the compiled conditions
+	 * @return the indices of the specific attributes
+	 */
+	private int[] getSpecificAttributes(final CompiledConditions compiled) {
+		final int version = attributeOrderVersion;
+		final int[] specificAttributes = compiled.specificAttributes;
+		if ((specificAttributes != null) && (compiled.orderVersion == version))
+			return specificAttributes;
+
+		final int[] order = attributeOrder;
+		final int[] rebuilt = new int[compiled.getNumberOfActive()];
+		int k = 0;
+		for (int j = 0; j < order.length; j++) {
+			if (compiled.isActive(order[j]))
+				rebuilt[k++] = order[j];
+		}
+		compiled.specificAttributes = rebuilt;
+		compiled.orderVersion = version;
+		return rebuilt;
+	}
+
+	/**
+	 * Merge the statistics of a thread and sort the attributes by their
+	 * (estimated) rejection rate, so that the most rejecting ones are checked
+	 * first. The statistics are then halved, so that the order follows the
+	 * population as it evolves. Called between match sets, so that a match
+	 * set is checked in a single order by each thread.
+	 * 
+	 * @param state
+	 *            the matching state of the calling thread
+	 */
+	private synchronized void reorderAttributes(final MatchState state) {
+		final int[] checks = attributeChecks;
+		final int[] rejections = attributeRejections;
+		if (state.checks.length == checks.length) {
+			for (int i = 0; i < checks.length; i++) {
+				checks[i] += state.checks[i];
+				rejections[i] += state.rejections[i];
+			}
+		}
+		Arrays.fill(state.checks, 0);
+		Arrays.fill(state.rejections, 0);
+		state.samples = 0;
+
+		final int[] current = attributeOrder;
+		final int[] order = current.clone();
+		final double[] rate = new double[order.length];
+		for (int i = 0; i < order.length; i++) {
+			rate[i] = (rejections[i] + 1.) / (checks[i] + 2.);
+			checks[i] >>= 1;
+			rejections[i] >>= 1;
+		}
+
+		// Insertion sort, the order rarely changes much
+		for (int j = 1; j < order.length; j++) {
+			final int attribute = order[j];
+			int k = j - 1;
+			while ((k >= 0) && (rate[order[k]] < rate[attribute])) {
+				order[k + 1] = order[k];
+				k--;
+			}
+			order[k + 1] = attribute;
+		}
+
+		if (!Arrays.equals(order, current)) {
+			attributeOrder = order;
+			attributeOrderVersion++;
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -30,9 +30,11 @@ import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
 import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
 import gr.auth.ee.lcs.data.IClassificationStrategy;
+import gr.auth.ee.lcs.data.IConfidenceClassificationStrategy;
 import gr.auth.ee.lcs.utilities.ExtendedBitSet;
 import gr.auth.ee.lcs.utilities.ILabelSelector;
 import gr.auth.ee.lcs.utilities.InstancesUtility;
+import gr.auth.ee.lcs.utilities.RandomSource;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -60,38 +62,51 @@ public final class GenericMultiLabelRepresentation extends
 	public final class BestFitnessClassificationStrategy implements
 			IClassificationStrategy {
 
+		/**
+		 * The decision table of each thread.
+		 */
+		private final ThreadLocal<double[]> decisionTables = newLabelTables();
+
+		/**
+		 * The confidence table of each thread.
+		 */
+		private final ThreadLocal<double[]> confidenceTables = newLabelTables();
+
 		@Override
 		public int[] classify(final ClassifierSet aSet,
 				final double[] visionVector) {
-			final double[] decisionTable = new double[numberOfLabels];
-			final double[] confidenceTable = new double[numberOfLabels];
+			final double[] decisionTable = decisionTables.get();
+			final double[] confidenceTable = confidenceTables.get();
 			Arrays.fill(decisionTable, 0);
 			Arrays.fill(confidenceTable, 0);
 
+			final long[] activeLabels = getActiveLabelMask();
 			final ClassifierSet matchSet = aSet.generateMatchSet(visionVector);
 			final int setSize = matchSet.getNumberOfMacroclassifiers();
 			for (int i = 0; i < setSize; i++) {
 				// For each classifier
 				final Classifier currentClassifier = matchSet.getClassifier(i);
+				final CompiledConditions compiled = getCompiledConditions(currentClassifier);
 				final int numerosity = matchSet.getClassifierNumerosity(i);
 				final double fitness = numerosity
 						* currentClassifier
 								.getComparisonValue(AbstractUpdateStrategy.COMPARISON_MODE_EXPLOITATION);
 
-				// For each label
-				for (int label = 0; label < numberOfLabels; label++) {
-
-					if (fitness > confidenceTable[label]) {
-						final String cons = (attributeList[(attributeList.length - numberOfLabels)
-								+ label]).toString(currentClassifier);
-						if (cons.equals("#"))
-							continue;
-						confidenceTable[label] = fitness;
-						if (cons.equals("1"))
-							decisionTable[label] = 1;
-						else
-							decisionTable[label] = 0;
-
+				// For each specified label
+				for (int word = 0; word < activeLabels.length; word++) {
+					long specified = compiled.labelSpecified[word]
+							& activeLabels[word];
+					while (specified != 0) {
+						final int label = (word << 6)
+								+ Long.numberOfTrailingZeros(specified);
+						specified &= specified - 1;
+						if (fitness > confidenceTable[label]) {
+							confidenceTable[label] = fitness;
+							if (compiled.isLabelSet(label))
+								decisionTable[label] = 1;
+							else
+								decisionTable[label] = 0;
+						}
 					}
 				}
 			}
@@ -163,6 +178,7 @@ public final class GenericMultiLabelRepresentation extends
 				return;
 			aClassifier.clear(positionInChromosome);
 			aClassifier.clear(positionInChromosome + 1);
+			aClassifier.invalidateCompiledData();
 		}
 
 		/*
@@ -181,6 +197,20 @@ public final class GenericMultiLabelRepresentation extends
 			generatedClassifier.clear(positionInChromosome);
 		}
 
+		/*
+		 * (non-Javadoc)
+		 * 
+		 * @see
+		 * gr.auth.ee.lcs.data.representations.ComplexRepresentation.Attribute
+		 * #getCanonicalHash(gr.auth.ee.lcs.classifiers.ExtendedBitSet)
+		 */
+		@Override
+		public final int getCanonicalHash(final ExtendedBitSet chromosome) {
+			if (!active)
+				return 0;
+			return getActiveGeneHash(chromosome, 1);
+		}
+
 		/*
 		 * (non-Javadoc)
 		 * 
@@ -280,7 +310,7 @@ public final class GenericMultiLabelRepresentation extends
 			else
 				generatedClassifier.set(positionInChromosome + 1);
 
-			if (Math.random() < labelGeneralizationRate)
+			if (RandomSource.nextDouble() < labelGeneralizationRate)
 				generatedClassifier.clear(positionInChromosome);
 			else
 				generatedClassifier.set(positionInChromosome);
@@ -295,6 +325,16 @@ public final class GenericMultiLabelRepresentation extends
 		 */
 		public final void setActive(final boolean isActive) {
 			active = isActive;
+			activeLabelMask = null;
+		}
+
+		/**
+		 * A getter for the active variable.
+		 * 
+		 * @return true if the label is active
+		 */
+		public final boolean isActive() {
+			return active;
 		}
 
 		/*
@@ -327,7 +367,7 @@ public final class GenericMultiLabelRepresentation extends
 	 * 
 	 */
 	public final class VotingClassificationStrategy implements
-			IClassificationStrategy {
+			IConfidenceClassificationStrategy {
 
 		/**
 		 * The target Label Cardinality we are trying to reach.
@@ -339,6 +379,11 @@ public final class GenericMultiLabelRepresentation extends
 		 */
 		private double voteThreshold;
 
+		/**
+		 * The voting table of each thread.
+		 */
+		private final ThreadLocal<float[]> votingTables = newFloatLabelTables();
+
 		/**
 		 * Constructor.
 		 * 
@@ -353,7 +398,8 @@ public final class GenericMultiLabelRepresentation extends
 		public int[] classify(final ClassifierSet aSet,
 				final double[] visionVector) {
 
-			final float[] votingTable = getConfidenceArray(aSet, visionVector);
+			final float[] votingTable = votingTables.get();
+			vote(aSet, visionVector, votingTable);
 
 			int numberOfActiveLabels = 0;
 			for (int i = 0; i < votingTable.length; i++)
@@ -382,32 +428,57 @@ public final class GenericMultiLabelRepresentation extends
 		 * @return a float array containing the normalized confidence for each
 		 *         label
 		 */
-		private float[] getConfidenceArray(final ClassifierSet aSet,
+		@Override
+		public float[] getConfidenceArray(final ClassifierSet aSet,
 				final double[] visionVector) {
 			final float[] votingTable = new float[numberOfLabels];
+			vote(aSet, visionVector, votingTable);
+			return votingTable;
+		}
+
+		/**
+		 * Fill a voting table with the normalized confidence of each label
+		 * for a vision vector.
+		 * 
+		 * @param aSet
+		 *            the set of rules that vote
+		 * @param visionVector
+		 *            the vision vector
+		 * @param votingTable
+		 *            the table to fill, with an element per label
+		 */
+		private void vote(final ClassifierSet aSet,
+				final double[] visionVector, final float[] votingTable) {
 			Arrays.fill(votingTable, 0);
 
+			final long[] activeLabels = getActiveLabelMask();
 			final ClassifierSet matchSet = aSet.generateMatchSet(visionVector);
 			// Let each classifier vote
 			final int setSize = matchSet.getNumberOfMacroclassifiers();
 			for (int i = 0; i < setSize; i++) {
 				// For each classifier
 				final Classifier currentClassifier = matchSet.getClassifier(i);
+				final CompiledConditions compiled = getCompiledConditions(currentClassifier);
 				final int classifierNumerosity = matchSet
 						.getClassifierNumerosity(i);
 				final double fitness = currentClassifier
 						.getComparisonValue(AbstractUpdateStrategy.COMPARISON_MODE_EXPLOITATION);
 
-				for (int label = 0; label < numberOfLabels; label++) {
-					final String cons = (attributeList[(attributeList.length - numberOfLabels)
-							+ label]).toString(currentClassifier);
-					if (cons.equals("#"))
-						continue;
-					if (cons.equals("1"))
-						votingTable[label] += classifierNumerosity * fitness;
-					else
-						votingTable[label] -= classifierNumerosity * fitness;
-
+				// For each specified label
+				for (int word = 0; word < activeLabels.length; word++) {
+					long specified = compiled.labelSpecified[word]
+							& activeLabels[word];
+					while (specified != 0) {
+						final int label = (word << 6)
+								+ Long.numberOfTrailingZeros(specified);
+						specified &= specified - 1;
+						if (compiled.isLabelSet(label))
+							votingTable[label] += classifierNumerosity
+									* fitness;
+						else
+							votingTable[label] -= classifierNumerosity
+									* fitness;
+					}
 				}
 			}
 
@@ -431,7 +502,42 @@ public final class GenericMultiLabelRepresentation extends
 					votingTable[i] /= sumVote;
 				}
 			}
-			return votingTable;
+		}
+
+		/**
+		 * Freeze a set of rules and this strategy (with its current
+		 * threshold and active labels) into an immutable inference model.
+		 * 
+		 * @param rules
+		 *            the rules to freeze
+		 * @return the inference model
+		 */
+		public InferenceModel freeze(final ClassifierSet rules) {
+			final long[] activeLabels = getActiveLabelMask();
+			final double[][] votes = new double[rules
+					.getNumberOfMacroclassifiers()][];
+			for (int i = 0; i < votes.length; i++) {
+				final Classifier currentClassifier = rules.getClassifier(i);
+				final CompiledConditions compiled = getCompiledConditions(currentClassifier);
+				final double weight = rules.getClassifierNumerosity(i)
+						* currentClassifier
+								.getComparisonValue(AbstractUpdateStrategy.COMPARISON_MODE_EXPLOITATION);
+
+				votes[i] = new double[numberOfLabels];
+				for (int word = 0; word < activeLabels.length; word++) {
+					long specified = compiled.labelSpecified[word]
+							& activeLabels[word];
+					while (specified != 0) {
+						final int label = (word << 6)
+								+ Long.numberOfTrailingZeros(specified);
+						specified &= specified - 1;
+						votes[i][label] = compiled.isLabelSet(label) ? weight
+								: -weight;
+					}
+				}
+			}
+			return GenericMultiLabelRepresentation.this.freeze(rules, votes,
+					InferenceModel.NORMALIZATION_SHIFTED, voteThreshold);
 		}
 
 		/**
@@ -485,6 +591,12 @@ public final class GenericMultiLabelRepresentation extends
 	 */
 	private final double labelGeneralizationRate;
 
+	/**
+	 * A bit mask of the active labels. Lazily built and discarded whenever a
+	 * label is (de)activated.
+	 */
+	private volatile long[] activeLabelMask = null;
+
 	/**
 	 * The exact-match metric.
 	 */
@@ -606,17 +718,14 @@ public final class GenericMultiLabelRepresentation extends
 	@Override
 	public float classifyAbilityLabel(final Classifier aClassifier,
 			final int instanceIndex, final int label) {
-		final int currentLabelIndex = (attributeList.length - numberOfLabels)
-				+ label;
-		if (attributeList[currentLabelIndex].isMatch(
-				(float) myLcs.instances[instanceIndex][currentLabelIndex],
-				aClassifier)) {
-			final String value = attributeList[currentLabelIndex]
-					.toString(aClassifier);
-			if (!value.equals("#"))
-				return 1;
+		final CompiledConditions compiled = getCompiledConditions(aClassifier);
+		final int word = label >>> 6;
+		final long bit = 1L << label;
+		if ((compiled.labelSpecified[word] & getActiveLabelMask()[word] & bit) == 0)
 			return 0;
-		}
+		final boolean value = (compiled.labelValue[word] & bit) != 0;
+		if (value == hasInstanceLabel(myLcs.instances[instanceIndex], label))
+			return 1;
 		return -1;
 	}
 
@@ -632,26 +741,21 @@ public final class GenericMultiLabelRepresentation extends
 	 */
 	public float classifyAbsolute(final Classifier aClassifier,
 			final int instanceIndex) {
-		for (int i = 0; i < numberOfLabels; i++) {
-			final int currentLabelIndex = (attributeList.length - numberOfLabels)
-					+ i;
-			if (!attributeList[currentLabelIndex].isMatch(
-					(float) myLcs.instances[instanceIndex][currentLabelIndex],
-					aClassifier))
+		final CompiledConditions compiled = getCompiledConditions(aClassifier);
+		final long[] activeLabels = getActiveLabelMask();
+		final double[] instance = myLcs.instances[instanceIndex];
+		boolean overgeneral = true;
+		for (int word = 0; word < activeLabels.length; word++) {
+			final long specified = compiled.labelSpecified[word]
+					& activeLabels[word];
+			final long actual = getInstanceLabels(instance, word);
+			if (((compiled.labelValue[word] ^ actual) & specified) != 0)
 				return 0;
+			if (specified != 0)
+				overgeneral = false;
 		}
 
-		// Check for overgeneral
-		for (int i = 0; i < numberOfLabels; i++) {
-			final int currentLabelIndex = (attributeList.length - numberOfLabels)
-					+ i;
-			final String value = attributeList[currentLabelIndex]
-					.toString(aClassifier);
-			if (!value.equals("#"))
-				return 1;
-		}
-
-		return 0;
+		return overgeneral ? 0 : 1;
 	}
 
 	/**
@@ -665,24 +769,20 @@ public final class GenericMultiLabelRepresentation extends
 	 */
 	public float classifyAccuracy(final Classifier aClassifier,
 			final int instanceIndex) {
+		final CompiledConditions compiled = getCompiledConditions(aClassifier);
+		final long[] activeLabels = getActiveLabelMask();
+		final double[] instance = myLcs.instances[instanceIndex];
 		float correct = 0;
 		float wrong = 0;
-		for (int i = 0; i < numberOfLabels; i++) {
-			final int currentLabelIndex = (attributeList.length - numberOfLabels)
-					+ i;
-			final String actualLabel = ((myLcs.instances[instanceIndex][currentLabelIndex] == 1)) ? "1"
-					: "0";
-			final String classifiedLabel = attributeList[currentLabelIndex]
-					.toString(aClassifier);
-			if (classifiedLabel.equals("#")) {
-				if (actualLabel.equals("1"))
-					correct += ACCURACY_DONT_CARE_VALUE;
-			} else if (classifiedLabel.equals(actualLabel)) {
-				if (actualLabel.equals("1"))
-					correct++;
-			} else {
-				wrong++;
-			}
+		for (int word = 0; word < activeLabels.length; word++) {
+			final long specified = compiled.labelSpecified[word]
+					& activeLabels[word];
+			final long actual = getInstanceLabels(instance, word);
+			final long value = compiled.labelValue[word];
+			correct += Long.bitCount(specified & value & actual);
+			correct += ACCURACY_DONT_CARE_VALUE
+					* Long.bitCount(~specified & actual);
+			wrong += Long.bitCount(specified & (value ^ actual));
 		}
 		if ((wrong + correct) > 0)
 			return (correct) / ((wrong + correct));
@@ -701,20 +801,18 @@ public final class GenericMultiLabelRepresentation extends
 	 */
 	public float classifyHamming(final Classifier aClassifier,
 			final int instanceIndex) {
+		final CompiledConditions compiled = getCompiledConditions(aClassifier);
+		final long[] activeLabels = getActiveLabelMask();
+		final double[] instance = myLcs.instances[instanceIndex];
 		float result = 0;
 		float totalClassifications = 0;
-		for (int i = 0; i < numberOfLabels; i++) {
-			final int currentLabelIndex = (attributeList.length - numberOfLabels)
-					+ i;
-			final String value = attributeList[currentLabelIndex]
-					.toString(aClassifier);
-			if (value.equals("#"))
-				continue;
-			totalClassifications++;
-			if (attributeList[currentLabelIndex].isMatch(
-					(float) myLcs.instances[instanceIndex][currentLabelIndex],
-					aClassifier))
-				result++;
+		for (int word = 0; word < activeLabels.length; word++) {
+			final long specified = compiled.labelSpecified[word]
+					& activeLabels[word];
+			final long actual = getInstanceLabels(instance, word);
+			totalClassifications += Long.bitCount(specified);
+			result += Long.bitCount(specified
+					& ~(compiled.labelValue[word] ^ actual));
 		}
 
 		final float hammingWin = (result) / (totalClassifications);
@@ -735,18 +833,52 @@ public final class GenericMultiLabelRepresentation extends
 		}
 	}
 
+	@Override
+	protected void compileLabels(final ExtendedBitSet chromosome,
+			final CompiledConditions compiled) {
+		final int labelStart = attributeList.length - numberOfLabels;
+		for (int i = 0; i < numberOfLabels; i++) {
+			final int position = attributeList[labelStart + i].positionInChromosome;
+			if (!chromosome.get(position))
+				continue;
+			compiled.labelSpecified[i >>> 6] |= 1L << i;
+			if (chromosome.get(position + 1))
+				compiled.labelValue[i >>> 6] |= 1L << i;
+		}
+	}
+
+	/**
+	 * Returns the bit mask of the active labels, building it if needed.
+	 * 
+	 * @return a bit mask with one bit set for each active label
+	 */
+	private long[] getActiveLabelMask() {
+		long[] mask = activeLabelMask;
+		if (mask != null)
+			return mask;
+
+		mask = new long[(numberOfLabels + 63) >>> 6];
+		final int labelStart = attributeList.length - numberOfLabels;
+		for (int i = 0; i < numberOfLabels; i++) {
+			if (((GenericLabel) attributeList[labelStart + i]).isActive())
+				mask[i >>> 6] |= 1L << i;
+		}
+		activeLabelMask = mask;
+		return mask;
+	}
+
 	@Override
 	public int[] getClassification(final Classifier aClassifier) {
+		final CompiledConditions compiled = getCompiledConditions(aClassifier);
+		final long[] activeLabels = getActiveLabelMask();
 		final int[] labels = new int[numberOfLabels];
 		int labelIndex = 0;
-		for (int i = 0; i < numberOfLabels; i++) {
-			final int currentLabelIndex = (attributeList.length - numberOfLabels)
-					+ i;
-			final String value = attributeList[currentLabelIndex]
-					.toString(aClassifier);
-			if (value.equals("1")) {
-				labels[labelIndex] = i;
+		for (int word = 0; word < activeLabels.length; word++) {
+			long set = compiled.labelValue[word] & activeLabels[word];
+			while (set != 0) {
+				labels[labelIndex] = (word << 6) + Long.numberOfTrailingZeros(set);
 				labelIndex++;
+				set &= set - 1;
 			}
 		}
 		final int[] result = new int[labelIndex];
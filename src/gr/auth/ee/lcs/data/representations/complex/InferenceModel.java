@@ -0,0 +1,415 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.data.representations.complex;
+
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+
+/**
+ * An immutable inference model, frozen from a trained set of rules of a
+ * complex representation and one of its voting classification strategies.
+ * The model keeps only what classification needs, in flat arrays: the bounds
+ * (or allowed values) of each rule's specific attributes, the precomputed vote
+ * of each rule for each label (numerosity times exploitation fitness) and the
+ * strategy's normalization and threshold. It does not need an LCS, a
+ * representation or any settings to classify, and may be saved and opened on
+ * its own. Classification is thread-safe and, when the caller provides the
+ * labels array, allocates nothing.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public final class InferenceModel implements Serializable {
+
+	/**
+	 * Serialization id for versioning.
+	 */
+	private static final long serialVersionUID = -6212349573027415406L;
+
+	/**
+	 * The votes are compared to the threshold as they are.
+	 */
+	public static final int NORMALIZATION_NONE = 0;
+
+	/**
+	 * The votes are shifted to be non-negative and normalized to sum to 1.
+	 */
+	public static final int NORMALIZATION_SHIFTED = 1;
+
+	/**
+	 * The votes are normalized to sum to 1.
+	 */
+	public static final int NORMALIZATION_SUM = 2;
+
+	/**
+	 * A static function to open a saved inference model.
+	 * 
+	 * @param path
+	 *            the path of the model to be opened
+	 * @return the opened inference model
+	 */
+	public static InferenceModel openInferenceModel(final String path) {
+		FileInputStream fis = null;
+		ObjectInputStream in = null;
+		InferenceModel opened = null;
+
+		try {
+			fis = new FileInputStream(path);
+			in = new ObjectInputStream(fis);
+			opened = (InferenceModel) in.readObject();
+			in.close();
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		} catch (ClassNotFoundException ex) {
+			ex.printStackTrace();
+		}
+
+		return opened;
+	}
+
+	/**
+	 * A static function to save an inference model.
+	 * 
+	 * @param toSave
+	 *            the model to be saved
+	 * @param filename
+	 *            the path to save the model
+	 */
+	public static void saveInferenceModel(final InferenceModel toSave,
+			final String filename) {
+		FileOutputStream fos = null;
+		ObjectOutputStream out = null;
+
+		try {
+			fos = new FileOutputStream(filename);
+			out = new ObjectOutputStream(fos);
+			out.writeObject(toSave);
+			out.close();
+		} catch (IOException ex) {
+			ex.printStackTrace();
+		}
+	}
+
+	/**
+	 * The number of labels.
+	 */
+	private final int numberOfLabels;
+
+	/**
+	 * The kind of each condition attribute.
+	 */
+	private final byte[] attributeKinds;
+
+	/**
+	 * The number of values of each nominal attribute.
+	 */
+	private final int[] nominalValues;
+
+	/**
+	 * The start of the conditions of each rule in the condition arrays. The
+	 * last element is the total number of conditions.
+	 */
+	private final int[] conditionStart;
+
+	/**
+	 * The attribute of each condition.
+	 */
+	private final int[] conditionAttribute;
+
+	/**
+	 * The lower bound of each interval condition, or the value of each
+	 * boolean condition.
+	 */
+	private final float[] conditionLow;
+
+	/**
+	 * The higher bound of each interval condition.
+	 */
+	private final float[] conditionHigh;
+
+	/**
+	 * The position of the allowed values of each nominal condition in the
+	 * nominal masks.
+	 */
+	private final int[] conditionValuesPosition;
+
+	/**
+	 * The allowed values of all nominal conditions, packed as bits.
+	 */
+	private final long[] nominalMasks;
+
+	/**
+	 * The start of the votes of each rule in the vote arrays. The last
+	 * element is the total number of votes.
+	 */
+	private final int[] voteStart;
+
+	/**
+	 * The label of each vote.
+	 */
+	private final int[] voteLabel;
+
+	/**
+	 * The weight of each vote.
+	 */
+	private final double[] voteWeight;
+
+	/**
+	 * The normalization of the votes (see static int's).
+	 */
+	private final int normalization;
+
+	/**
+	 * The threshold that a label's (normalized) votes must exceed.
+	 */
+	private final double threshold;
+
+	/**
+	 * The voting table of each thread.
+	 */
+	private transient ThreadLocal<float[]> votingTables;
+
+	/**
+	 * Constructor. The arrays are owned by the model from now on.
+	 * 
+	 * @param labels
+	 *            the number of labels
+	 * @param kinds
+	 *            the kind of each condition attribute
+	 * @param values
+	 *            the number of values of each nominal attribute
+	 * @param conditions
+	 *            the start of the conditions of each rule
+	 * @param attributes
+	 *            the attribute of each condition
+	 * @param low
+	 *            the lower bound (or value) of each condition
+	 * @param high
+	 *            the higher bound of each condition
+	 * @param valuesPosition
+	 *            the position of each nominal condition's allowed values
+	 * @param masks
+	 *            the allowed values of the nominal conditions
+	 * @param votes
+	 *            the start of the votes of each rule
+	 * @param labelOfVote
+	 *            the label of each vote
+	 * @param weightOfVote
+	 *            the weight of each vote
+	 * @param voteNormalization
+	 *            the normalization of the votes
+	 * @param voteThreshold
+	 *            the classification threshold
+	 */
+	InferenceModel(final int labels, final byte[] kinds, final int[] values,
+			final int[] conditions, final int[] attributes, final float[] low,
+			final float[] high, final int[] valuesPosition, final long[] masks,
+			final int[] votes, final int[] labelOfVote,
+			final double[] weightOfVote, final int voteNormalization,
+			final double voteThreshold) {
+		numberOfLabels = labels;
+		attributeKinds = kinds;
+		nominalValues = values;
+		conditionStart = conditions;
+		conditionAttribute = attributes;
+		conditionLow = low;
+		conditionHigh = high;
+		conditionValuesPosition = valuesPosition;
+		nominalMasks = masks;
+		voteStart = votes;
+		voteLabel = labelOfVote;
+		voteWeight = weightOfVote;
+		normalization = voteNormalization;
+		threshold = voteThreshold;
+		votingTables = newVotingTables(labels);
+	}
+
+	/**
+	 * Create the per thread voting tables.
+	 * 
+	 * @param labels
+	 *            the number of labels
+	 * @return the thread local voting tables
+	 */
+	private static ThreadLocal<float[]> newVotingTables(final int labels) {
+		return new ThreadLocal<float[]>() {
+			@Override
+			protected float[] initialValue() {
+				return new float[labels];
+			}
+		};
+	}
+
+	/**
+	 * Classify a vision vector.
+	 * 
+	 * @param visionVector
+	 *            the vision vector of the instance to be classified
+	 * @return an integer array containing the labels the instance has been
+	 *         classified in
+	 */
+	public int[] classify(final double[] visionVector) {
+		final int[] labels = new int[numberOfLabels];
+		return Arrays.copyOf(labels, classify(visionVector, labels));
+	}
+
+	/**
+	 * Classify a vision vector, without allocating.
+	 * 
+	 * @param visionVector
+	 *            the vision vector of the instance to be classified
+	 * @param labels
+	 *            an array (of at least as many elements as the labels) to
+	 *            store the labels the instance has been classified in, in
+	 *            ascending order
+	 * @return the number of labels the instance has been classified in
+	 */
+	public int classify(final double[] visionVector, final int[] labels) {
+		final float[] votingTable = votingTables.get();
+		Arrays.fill(votingTable, 0);
+
+		final int numberOfRules = voteStart.length - 1;
+		for (int rule = 0; rule < numberOfRules; rule++) {
+			if (!isMatch(rule, visionVector))
+				continue;
+			for (int vote = voteStart[rule]; vote < voteStart[rule + 1]; vote++)
+				votingTable[voteLabel[vote]] += voteWeight[vote];
+		}
+
+		if (normalization == NORMALIZATION_SHIFTED) {
+			double minVote = 0;
+			for (int i = 0; i < votingTable.length; i++) {
+				if (votingTable[i] < minVote)
+					minVote = votingTable[i];
+			}
+
+			double sumVote = 0;
+			for (int i = 0; i < votingTable.length; i++) {
+				votingTable[i] -= minVote;
+				sumVote += votingTable[i];
+			}
+
+			if (sumVote > 0) {
+				for (int i = 0; i < votingTable.length; i++)
+					votingTable[i] /= sumVote;
+			}
+		} else if (normalization == NORMALIZATION_SUM) {
+			float sum = 0;
+			for (int i = 0; i < votingTable.length; i++)
+				sum += votingTable[i];
+
+			for (int i = 0; i < votingTable.length; i++)
+				votingTable[i] /= sum;
+		}
+
+		int numberOfActiveLabels = 0;
+		for (int i = 0; i < votingTable.length; i++) {
+			if (votingTable[i] > threshold) {
+				labels[numberOfActiveLabels] = i;
+				numberOfActiveLabels++;
+			}
+		}
+		return numberOfActiveLabels;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return the number of labels of the model
+	 */
+	public int getNumberOfLabels() {
+		return numberOfLabels;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return the number of rules of the model
+	 */
+	public int getNumberOfRules() {
+		return voteStart.length - 1;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return the classification threshold of the model
+	 */
+	public double getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Match a vision vector with a rule.
+	 * 
+	 * @param rule
+	 *            the index of the rule
+	 * @param visionVector
+	 *            the vision vector
+	 * @return true if the rule matches the vision vector
+	 */
+	private boolean isMatch(final int rule, final double[] visionVector) {
+		for (int condition = conditionStart[rule]; condition < conditionStart[rule + 1]; condition++) {
+			final int attribute = conditionAttribute[condition];
+			final float vision = (float) visionVector[attribute];
+			switch (attributeKinds[attribute]) {
+			case ComplexRepresentation.KIND_INTERVAL:
+				if (!((vision >= conditionLow[condition]) && (vision <= conditionHigh[condition])))
+					return false;
+				break;
+			case ComplexRepresentation.KIND_BOOLEAN:
+				if ((vision != 0) != (conditionLow[condition] != 0))
+					return false;
+				break;
+			default:
+				final int value = (int) vision;
+				if ((value < 0) || (value >= nominalValues[attribute]))
+					return false;
+				final int bit = conditionValuesPosition[condition] + value;
+				if ((nominalMasks[bit >>> 6] & (1L << bit)) == 0)
+					return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Restore the per thread voting tables after deserialization.
+	 * 
+	 * @param in
+	 *            the input stream
+	 * @throws IOException
+	 *             when the stream cannot be read
+	 * @throws ClassNotFoundException
+	 *             when a class of the stream is not found
+	 */
+	private void readObject(final ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		in.defaultReadObject();
+		votingTables = newVotingTables(numberOfLabels);
+	}
+}
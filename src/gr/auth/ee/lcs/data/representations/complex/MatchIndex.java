@@ -0,0 +1,594 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.data.representations.complex;
+
+import gr.auth.ee.lcs.classifiers.Classifier;
+import gr.auth.ee.lcs.classifiers.IMatchIndex;
+import gr.auth.ee.lcs.classifiers.Macroclassifier;
+import gr.auth.ee.lcs.data.representations.complex.ComplexRepresentation.QuantizedVision;
+import gr.auth.ee.lcs.utilities.ExtendedBitSet;
+
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+
+/**
+ * A match index over the classifiers of a complex representation. Each
+ * indexed macroclassifier is given a slot and each attribute keeps bitmaps
+ * (over the slots) of the classifiers that do not care about it and of the
+ * classifiers that match each of its values. Interval attributes keep their
+ * bitmaps in a segment tree over the bound parts, nominal and boolean
+ * attributes keep one bitmap per value. A query intersects the candidates of
+ * all attributes.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public final class MatchIndex implements IMatchIndex {
+
+	/**
+	 * The representation whose classifiers are indexed.
+	 */
+	private final ComplexRepresentation representation;
+
+	/**
+	 * The relative cost of a bitmap word operation to an attribute check.
+	 */
+	private final double costFactor;
+
+	/**
+	 * The kinds of the condition attributes.
+	 */
+	private final byte[] kinds;
+
+	/**
+	 * The number of points of the segment tree of each interval attribute
+	 * (twice the number of parts minus one) or the number of values of each
+	 * nominal and boolean attribute.
+	 */
+	private final int[] attributePoints;
+
+	/**
+	 * The number of bitmaps OR'ed in a query for each attribute.
+	 */
+	private final int[] queryDepth;
+
+	/**
+	 * True if some attributes can not be indexed, so candidates need to be
+	 * checked.
+	 */
+	private final boolean hasGenericAttributes;
+
+	/**
+	 * The slot of each indexed macroclassifier.
+	 */
+	private final IdentityHashMap<Macroclassifier, Integer> slots = new IdentityHashMap<Macroclassifier, Integer>();
+
+	/**
+	 * The macroclassifier of each slot.
+	 */
+	private Macroclassifier[] slotMacros;
+
+	/**
+	 * The compiled conditions each slot has been indexed with.
+	 */
+	private CompiledConditions[] slotConditions;
+
+	/**
+	 * The slots that have been freed and may be reused.
+	 */
+	private int[] freeSlots;
+
+	/**
+	 * The number of free slots.
+	 */
+	private int numberOfFreeSlots = 0;
+
+	/**
+	 * The number of slots ever used (the free ones included).
+	 */
+	private int numberOfSlots = 0;
+
+	/**
+	 * The number of words of each bitmap.
+	 */
+	private int words;
+
+	/**
+	 * The bitmap of the used slots.
+	 */
+	private long[] occupied;
+
+	/**
+	 * The bitmap of the classifiers that do not care about any attribute.
+	 * These always match and are never checked.
+	 */
+	private long[] allDontCare;
+
+	/**
+	 * The bitmap of the classifiers that do not care about each attribute.
+	 */
+	private final long[][] dontCare;
+
+	/**
+	 * The value bitmaps of each attribute. For interval attributes these are
+	 * the nodes of the segment tree (the root being at 1), for the rest there
+	 * is a bitmap per value. Bitmaps are lazily created.
+	 */
+	private final long[][][] valueBitmaps;
+
+	/**
+	 * The total number of specific attributes of the indexed classifiers.
+	 */
+	private long totalSpecificAttributes = 0;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param complexRepresentation
+	 *            the representation of the indexed classifiers
+	 * @param queryCostFactor
+	 *            the relative cost of a bitmap word operation to an
+	 *            attribute check, used to decide if the index is worth
+	 *            querying
+	 */
+	public MatchIndex(final ComplexRepresentation complexRepresentation,
+			final double queryCostFactor) {
+		representation = complexRepresentation;
+		costFactor = queryCostFactor;
+		kinds = representation.getAttributeKinds();
+		final int numberOfAttributes = kinds.length;
+		attributePoints = new int[numberOfAttributes];
+		queryDepth = new int[numberOfAttributes];
+		dontCare = new long[numberOfAttributes][];
+		valueBitmaps = new long[numberOfAttributes][][];
+
+		boolean generic = false;
+		for (int i = 0; i < numberOfAttributes; i++) {
+			switch (kinds[i]) {
+			case ComplexRepresentation.KIND_INTERVAL:
+				attributePoints[i] = (2 * representation.getIntervalParts(i)) - 1;
+				valueBitmaps[i] = new long[4 * attributePoints[i]][];
+				queryDepth[i] = 33 - Integer
+						.numberOfLeadingZeros(attributePoints[i] - 1);
+				break;
+			case ComplexRepresentation.KIND_BOOLEAN:
+				attributePoints[i] = 2;
+				valueBitmaps[i] = new long[2][];
+				queryDepth[i] = 2;
+				break;
+			case ComplexRepresentation.KIND_NOMINAL:
+				attributePoints[i] = representation.attributeList[i].lengthInBits - 1;
+				valueBitmaps[i] = new long[attributePoints[i]][];
+				queryDepth[i] = 2;
+				break;
+			default:
+				generic = true;
+			}
+		}
+		hasGenericAttributes = generic;
+		clear();
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * gr.auth.ee.lcs.classifiers.IMatchIndex#add(gr.auth.ee.lcs.classifiers
+	 * .Macroclassifier)
+	 */
+	@Override
+	public void add(final Macroclassifier macro) {
+		if (slots.containsKey(macro))
+			return;
+
+		final int slot = allocateSlot();
+		final CompiledConditions compiled = representation
+				.getCompiledConditions(macro.myClassifier);
+		slots.put(macro, slot);
+		slotMacros[slot] = macro;
+		slotConditions[slot] = compiled;
+		setBit(occupied, slot);
+		final int active = compiled.getNumberOfActive();
+		totalSpecificAttributes += active;
+		if (active == 0)
+			setBit(allDontCare, slot);
+		update(slot, compiled, true);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see gr.auth.ee.lcs.classifiers.IMatchIndex#clear()
+	 */
+	@Override
+	public void clear() {
+		slots.clear();
+		words = 1;
+		slotMacros = new Macroclassifier[64];
+		slotConditions = new CompiledConditions[64];
+		freeSlots = new int[64];
+		numberOfFreeSlots = 0;
+		numberOfSlots = 0;
+		occupied = new long[words];
+		allDontCare = new long[words];
+		for (int i = 0; i < kinds.length; i++) {
+			if (kinds[i] == ComplexRepresentation.KIND_GENERIC)
+				continue;
+			dontCare[i] = new long[words];
+			Arrays.fill(valueBitmaps[i], null);
+		}
+		totalSpecificAttributes = 0;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see gr.auth.ee.lcs.classifiers.IMatchIndex#findMatches(double[], int)
+	 */
+	@Override
+	public Macroclassifier[] findMatches(final double[] dataInstance,
+			final int dataInstanceIndex) {
+		final double[] vision = (dataInstance == null) ? representation.myLcs.instances[dataInstanceIndex]
+				: dataInstance;
+		representation.beginMatch(vision);
+		try {
+			return findMatches(vision, dataInstance, dataInstanceIndex);
+		} finally {
+			representation.endMatch();
+		}
+	}
+
+	/**
+	 * Find the matching macroclassifiers of a vision vector, while it is being
+	 * matched.
+	 * 
+	 * @param vision
+	 *            the vision vector to match
+	 * @param dataInstance
+	 *            the instance to match or null to match by index
+	 * @param dataInstanceIndex
+	 *            the index of the train instance to match
+	 * @return the matching macroclassifiers
+	 */
+	private Macroclassifier[] findMatches(final double[] vision,
+			final double[] dataInstance, final int dataInstanceIndex) {
+		final QuantizedVision quantized = representation
+				.getQuantizedVision(vision);
+		final int numberOfWords = words;
+		final long[] candidates = occupied.clone();
+		final long[] attributeCandidates = new long[numberOfWords];
+		boolean check = hasGenericAttributes;
+
+		for (int i = 0; i < kinds.length; i++) {
+			final long[][] bitmaps = valueBitmaps[i];
+			int value;
+			switch (kinds[i]) {
+			case ComplexRepresentation.KIND_INTERVAL:
+				final int low = quantized.low[i];
+				final int high = quantized.high[i];
+				if (high == low) {
+					value = 2 * low;
+				} else if (high == low + 1) {
+					value = (2 * low) + 1;
+				} else {
+					// Equal bound values, do not use the attribute
+					check = true;
+					continue;
+				}
+				System.arraycopy(dontCare[i], 0, attributeCandidates, 0,
+						numberOfWords);
+				if ((value >= 0) && (value < attributePoints[i]))
+					stab(bitmaps, value, attributePoints[i],
+							attributeCandidates);
+				break;
+			case ComplexRepresentation.KIND_BOOLEAN:
+				value = ((float) vision[i] != 0) ? 1 : 0;
+				System.arraycopy(dontCare[i], 0, attributeCandidates, 0,
+						numberOfWords);
+				or(attributeCandidates, bitmaps[value]);
+				break;
+			case ComplexRepresentation.KIND_NOMINAL:
+				value = (int) (float) vision[i];
+				if ((value < 0) || (value >= attributePoints[i])) {
+					check = true;
+					continue;
+				}
+				System.arraycopy(dontCare[i], 0, attributeCandidates, 0,
+						numberOfWords);
+				or(attributeCandidates, bitmaps[value]);
+				break;
+			default:
+				continue;
+			}
+
+			for (int w = 0; w < numberOfWords; w++)
+				candidates[w] &= attributeCandidates[w];
+		}
+
+		final Macroclassifier[] buffer = new Macroclassifier[numberOfSlots];
+		int found = 0;
+		for (int w = 0; w < numberOfWords; w++) {
+			long word = candidates[w];
+			while (word != 0) {
+				final int slot = (w << 6) + Long.numberOfTrailingZeros(word);
+				final long bit = word & -word;
+				word ^= bit;
+				final Classifier cl = slotMacros[slot].myClassifier;
+				if (check && ((allDontCare[w] & bit) == 0)
+						&& !((dataInstance == null) ? cl
+								.isMatch(dataInstanceIndex) : cl
+								.isMatch(dataInstance)))
+					continue;
+				buffer[found] = slotMacros[slot];
+				found++;
+			}
+		}
+		return Arrays.copyOf(buffer, found);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see gr.auth.ee.lcs.classifiers.IMatchIndex#isPreferable(double[])
+	 */
+	@Override
+	public boolean isPreferable(final double[] dataInstance) {
+		long bitmapsPerQuery = 2;
+		for (int i = 0; i < queryDepth.length; i++)
+			bitmapsPerQuery += queryDepth[i];
+		return (costFactor * bitmapsPerQuery * words) < totalSpecificAttributes;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * gr.auth.ee.lcs.classifiers.IMatchIndex#remove(gr.auth.ee.lcs.classifiers
+	 * .Macroclassifier)
+	 */
+	@Override
+	public void remove(final Macroclassifier macro) {
+		final Integer removedSlot = slots.remove(macro);
+		if (removedSlot == null)
+			return;
+
+		final int slot = removedSlot;
+		final CompiledConditions compiled = slotConditions[slot];
+		update(slot, compiled, false);
+		clearBit(occupied, slot);
+		clearBit(allDontCare, slot);
+		totalSpecificAttributes -= compiled.getNumberOfActive();
+		slotMacros[slot] = null;
+		slotConditions[slot] = null;
+		freeSlots[numberOfFreeSlots] = slot;
+		numberOfFreeSlots++;
+	}
+
+	/**
+	 * Return a free slot, growing the bitmaps if needed.
+	 * 
+	 * @return the slot
+	 */
+	private int allocateSlot() {
+		if (numberOfFreeSlots > 0) {
+			numberOfFreeSlots--;
+			return freeSlots[numberOfFreeSlots];
+		}
+
+		if (numberOfSlots == slotMacros.length) {
+			final int capacity = 2 * slotMacros.length;
+			words = capacity >>> 6;
+			slotMacros = Arrays.copyOf(slotMacros, capacity);
+			slotConditions = Arrays.copyOf(slotConditions, capacity);
+			freeSlots = Arrays.copyOf(freeSlots, capacity);
+			occupied = Arrays.copyOf(occupied, words);
+			allDontCare = Arrays.copyOf(allDontCare, words);
+			for (int i = 0; i < kinds.length; i++) {
+				if (kinds[i] == ComplexRepresentation.KIND_GENERIC)
+					continue;
+				dontCare[i] = Arrays.copyOf(dontCare[i], words);
+				final long[][] bitmaps = valueBitmaps[i];
+				for (int b = 0; b < bitmaps.length; b++) {
+					if (bitmaps[b] != null)
+						bitmaps[b] = Arrays.copyOf(bitmaps[b], words);
+				}
+			}
+		}
+		final int slot = numberOfSlots;
+		numberOfSlots++;
+		return slot;
+	}
+
+	/**
+	 * Set or clear the attribute bits of a slot.
+	 * 
+	 * @param slot
+	 *            the slot
+	 * @param compiled
+	 *            the compiled conditions of the slot's classifier
+	 * @param set
+	 *            true to set the bits, false to clear them
+	 */
+	private void update(final int slot, final CompiledConditions compiled,
+			final boolean set) {
+		for (int i = 0; i < kinds.length; i++) {
+			if (kinds[i] == ComplexRepresentation.KIND_GENERIC)
+				continue;
+			if (!compiled.isActive(i)) {
+				updateBit(dontCare, i, slot, set);
+				continue;
+			}
+
+			final long[][] bitmaps = valueBitmaps[i];
+			switch (kinds[i]) {
+			case ComplexRepresentation.KIND_INTERVAL:
+				if (compiled.lowPart[i] <= compiled.highPart[i])
+					updateTree(bitmaps, 1, 0, attributePoints[i] - 1,
+							2 * compiled.lowPart[i],
+							2 * compiled.highPart[i], slot, set);
+				break;
+			case ComplexRepresentation.KIND_BOOLEAN:
+				updateBit(bitmaps, (compiled.low[i] != 0) ? 1 : 0, slot, set);
+				break;
+			default:
+				final ExtendedBitSet chromosome = slotMacros[slot].myClassifier;
+				final int position = representation
+						.getAttributeValuePosition(i);
+				for (int value = 0; value < attributePoints[i]; value++) {
+					if (chromosome.get(position + value))
+						updateBit(bitmaps, value, slot, set);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Set or clear the bit of a slot in the given node of a segment tree, for
+	 * all nodes covering an interval.
+	 * 
+	 * @param tree
+	 *            the segment tree nodes
+	 * @param node
+	 *            the current node
+	 * @param nodeFrom
+	 *            the first point of the node
+	 * @param nodeTo
+	 *            the last point of the node
+	 * @param from
+	 *            the first point of the interval
+	 * @param to
+	 *            the last point of the interval
+	 * @param slot
+	 *            the slot
+	 * @param set
+	 *            true to set the bit, false to clear it
+	 */
+	private void updateTree(final long[][] tree, final int node,
+			final int nodeFrom, final int nodeTo, final int from, final int to,
+			final int slot, final boolean set) {
+		if ((to < nodeFrom) || (from > nodeTo))
+			return;
+		if ((from <= nodeFrom) && (nodeTo <= to)) {
+			updateBit(tree, node, slot, set);
+			return;
+		}
+		final int middle = (nodeFrom + nodeTo) >>> 1;
+		updateTree(tree, 2 * node, nodeFrom, middle, from, to, slot, set);
+		updateTree(tree, (2 * node) + 1, middle + 1, nodeTo, from, to, slot,
+				set);
+	}
+
+	/**
+	 * OR the bitmaps of all segment tree nodes containing a point.
+	 * 
+	 * @param tree
+	 *            the segment tree nodes
+	 * @param point
+	 *            the point
+	 * @param points
+	 *            the number of points of the tree
+	 * @param target
+	 *            the bitmap to OR into
+	 */
+	private static void stab(final long[][] tree, final int point,
+			final int points, final long[] target) {
+		int node = 1;
+		int from = 0;
+		int to = points - 1;
+		while (true) {
+			or(target, tree[node]);
+			if (from == to)
+				return;
+			final int middle = (from + to) >>> 1;
+			if (point <= middle) {
+				node = 2 * node;
+				to = middle;
+			} else {
+				node = (2 * node) + 1;
+				from = middle + 1;
+			}
+		}
+	}
+
+	/**
+	 * Set or clear the bit of a slot in one of the bitmaps, creating it if
+	 * needed.
+	 * 
+	 * @param bitmaps
+	 *            the bitmaps
+	 * @param index
+	 *            the index of the bitmap
+	 * @param slot
+	 *            the slot
+	 * @param set
+	 *            true to set the bit, false to clear it
+	 */
+	private void updateBit(final long[][] bitmaps, final int index,
+			final int slot, final boolean set) {
+		if (set) {
+			if (bitmaps[index] == null)
+				bitmaps[index] = new long[words];
+			setBit(bitmaps[index], slot);
+		} else if (bitmaps[index] != null) {
+			clearBit(bitmaps[index], slot);
+		}
+	}
+
+	/**
+	 * OR a bitmap into another.
+	 * 
+	 * @param target
+	 *            the bitmap to OR into
+	 * @param bitmap
+	 *            the bitmap to OR or null if it is empty
+	 */
+	private static void or(final long[] target, final long[] bitmap) {
+		if (bitmap == null)
+			return;
+		for (int w = 0; w < target.length; w++)
+			target[w] |= bitmap[w];
+	}
+
+	/**
+	 * Set a bit.
+	 * 
+	 * @param bitmap
+	 *            the bitmap
+	 * @param slot
+	 *            the bit to set
+	 */
+	private static void setBit(final long[] bitmap, final int slot) {
+		bitmap[slot >>> 6] |= 1L << slot;
+	}
+
+	/**
+	 * Clear a bit.
+	 * 
+	 * @param bitmap
+	 *            the bitmap
+	 * @param slot
+	 *            the bit to clear
+	 */
+	private static void clearBit(final long[] bitmap, final int slot) {
+		bitmap[slot >>> 6] &= ~(1L << slot);
+	}
+}
@@ -33,6 +33,7 @@ import gr.auth.ee.lcs.geneticalgorithm.IRuleSelector;
 import gr.auth.ee.lcs.geneticalgorithm.selectors.BestClassifierSelector;
 import gr.auth.ee.lcs.utilities.ExtendedBitSet;
 import gr.auth.ee.lcs.utilities.InstancesUtility;
+import gr.auth.ee.lcs.utilities.RandomSource;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -126,7 +127,7 @@ public final class SingleClassRepresentation extends ComplexRepresentation {
 			if (generatedClassifier
 					.getIntAt(positionInChromosome, lengthInBits) >= classes.length) {
 
-				final int randClass = (int) Math.floor(Math.random()
+				final int randClass = (int) Math.floor(RandomSource.nextDouble()
 						* classes.length);
 				generatedClassifier.setIntAt(positionInChromosome,
 						lengthInBits, randClass);
@@ -145,6 +146,11 @@ public final class SingleClassRepresentation extends ComplexRepresentation {
 			return chromosome.getIntAt(positionInChromosome, lengthInBits);
 		}
 
+		@Override
+		public final boolean canGeneralize() {
+			return false;
+		}
+
 		@Override
 		public final boolean isEqual(final ExtendedBitSet baseChromosome,
 				final ExtendedBitSet testChromosome) {
@@ -210,13 +216,23 @@ public final class SingleClassRepresentation extends ComplexRepresentation {
 	public final class VotingClassificationStrategy implements
 			IClassificationStrategy {
 
+		/**
+		 * The voting table (with an element per class) of each thread.
+		 */
+		private final ThreadLocal<double[]> votingTables = new ThreadLocal<double[]>() {
+			@Override
+			protected double[] initialValue() {
+				return new double[((UniLabel) attributeList[attributeList.length - 1]).classes.length];
+			}
+		};
+
 		@Override
 		public int[] classify(final ClassifierSet aSet,
 				final double[] visionVector) {
 
 			// Initialize table
-			final int numOfClasses = ((UniLabel) attributeList[attributeList.length - 1]).classes.length;
-			final double[] votingTable = new double[numOfClasses];
+			final double[] votingTable = votingTables.get();
+			final int numOfClasses = votingTable.length;
 			Arrays.fill(votingTable, 0);
 
 			final ClassifierSet matchSet = aSet.generateMatchSet(visionVector);
@@ -30,6 +30,7 @@ import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
 import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
 import gr.auth.ee.lcs.data.IClassificationStrategy;
+import gr.auth.ee.lcs.data.IConfidenceClassificationStrategy;
 import gr.auth.ee.lcs.utilities.ExtendedBitSet;
 import gr.auth.ee.lcs.utilities.InstancesUtility;
 
@@ -135,6 +136,11 @@ public final class StrictMultiLabelRepresentation extends ComplexRepresentation
 			return chromosome.get(positionInChromosome);
 		}
 
+		@Override
+		public final boolean canGeneralize() {
+			return false;
+		}
+
 		@Override
 		public boolean isEqual(final ExtendedBitSet baseChromosome,
 				final ExtendedBitSet testChromosome) {
@@ -192,11 +198,21 @@ public final class StrictMultiLabelRepresentation extends ComplexRepresentation
 		 */
 		private double threshold = 0.5;
 
+		/**
+		 * The fitness sum table of each thread.
+		 */
+		private final ThreadLocal<double[]> fitnessSums = newLabelTables();
+
+		/**
+		 * The vote sum table of each thread.
+		 */
+		private final ThreadLocal<double[]> voteSums = newLabelTables();
+
 		@Override
 		public int[] classify(final ClassifierSet aSet,
 				final double[] visionVector) {
-			final double[] fitnessSum = new double[numberOfLabels];
-			final double[] voteSum = new double[numberOfLabels];
+			final double[] fitnessSum = fitnessSums.get();
+			final double[] voteSum = voteSums.get();
 			Arrays.fill(fitnessSum, 0);
 			Arrays.fill(voteSum, 0);
 
@@ -205,15 +221,14 @@ public final class StrictMultiLabelRepresentation extends ComplexRepresentation
 
 			for (int i = 0; i < setSize; i++) {
 				// For each classifier
+				final Classifier currentClassifier = matchSet.getClassifier(i);
+				final CompiledConditions compiled = getCompiledConditions(currentClassifier);
+				final int classifierNumerosity = matchSet
+						.getClassifierNumerosity(i);
+				final double fitness = currentClassifier
+						.getComparisonValue(AbstractUpdateStrategy.COMPARISON_MODE_EXPLOITATION);
 				for (int label = 0; label < numberOfLabels; label++) {
-					final Classifier currentClassifier = matchSet
-							.getClassifier(i);
-					final int classifierNumerosity = matchSet
-							.getClassifierNumerosity(i);
-					final double fitness = currentClassifier
-							.getComparisonValue(AbstractUpdateStrategy.COMPARISON_MODE_EXPLOITATION);
-					final boolean labelActivated = ((Label) attributeList[(attributeList.length - numberOfLabels)
-							+ label]).getValue(currentClassifier);
+					final boolean labelActivated = compiled.isLabelSet(label);
 					fitnessSum[label] += classifierNumerosity * fitness;
 					if (labelActivated)
 						voteSum[label] += classifierNumerosity * fitness;
@@ -266,7 +281,7 @@ public final class StrictMultiLabelRepresentation extends ComplexRepresentation
 	 * 
 	 */
 	public final class VotingClassificationStrategy implements
-			IClassificationStrategy {
+			IConfidenceClassificationStrategy {
 
 		/**
 		 * The voting threshold. Used for label bipartition.
@@ -291,11 +306,7 @@ public final class StrictMultiLabelRepresentation extends ComplexRepresentation
 		@Override
 		public int[] classify(final ClassifierSet aSet,
 				final double[] visionVector) {
-			final float[] votingTable;
-
-			final ClassifierSet matchSet = aSet.generateMatchSet(visionVector);
-			// Let each classifier vote
-			votingTable = getConfidenceArray(matchSet, visionVector);
+			final float[] votingTable = getConfidenceArray(aSet, visionVector);
 
 			int numberOfActiveLabels = 0;
 			for (int i = 0; i < votingTable.length; i++) {
@@ -315,31 +326,61 @@ public final class StrictMultiLabelRepresentation extends ComplexRepresentation
 			return result;
 		}
 
+		@Override
+		public float[] getConfidenceArray(final ClassifierSet aSet,
+				final double[] visionVector) {
+			// Let each classifier vote
+			return getVotingTable(aSet.generateMatchSet(visionVector));
+		}
+
+		/**
+		 * Freeze a set of rules and this strategy (with its current
+		 * threshold) into an immutable inference model.
+		 * 
+		 * @param rules
+		 *            the rules to freeze
+		 * @return the inference model
+		 */
+		public InferenceModel freeze(final ClassifierSet rules) {
+			final double[][] votes = new double[rules
+					.getNumberOfMacroclassifiers()][];
+			for (int i = 0; i < votes.length; i++) {
+				final Classifier currentClassifier = rules.getClassifier(i);
+				final CompiledConditions compiled = getCompiledConditions(currentClassifier);
+				final double weight = rules.getClassifierNumerosity(i)
+						* currentClassifier
+								.getComparisonValue(AbstractUpdateStrategy.COMPARISON_MODE_EXPLOITATION);
+
+				votes[i] = new double[numberOfLabels];
+				for (int label = 0; label < numberOfLabels; label++)
+					votes[i][label] = compiled.isLabelSet(label) ? weight
+							: -weight;
+			}
+			return StrictMultiLabelRepresentation.this.freeze(rules, votes,
+					InferenceModel.NORMALIZATION_NONE, threshold);
+		}
+
 		/**
-		 * Create and normalized the confidence array for a vision vector.
+		 * Create the voting table of a set of rules.
 		 * 
 		 * @param aSet
-		 *            the set of rules to be used for confidence output
-		 * @param visionVector
-		 *            the vision vector
-		 * @return a float array containing the normalized confidence for each
-		 *         label
+		 *            the set of rules that vote
+		 * @return a float array containing the votes for each label
 		 */
-		private float[] getConfidenceArray(final ClassifierSet aSet,
-				final double[] visionVector) {
+		private float[] getVotingTable(final ClassifierSet aSet) {
 			final float[] votingTable = new float[numberOfLabels];
 			Arrays.fill(votingTable, 0);
 			final int setSize = aSet.getNumberOfMacroclassifiers();
 			for (int i = 0; i < setSize; i++) {
 				// For each classifier
+				final Classifier currentClassifier = aSet.getClassifier(i);
+				final CompiledConditions compiled = getCompiledConditions(currentClassifier);
+				final int classifierNumerosity = aSet
+						.getClassifierNumerosity(i);
+				final double fitness = currentClassifier
+						.getComparisonValue(AbstractUpdateStrategy.COMPARISON_MODE_EXPLOITATION);
 				for (int label = 0; label < numberOfLabels; label++) {
-					final Classifier currentClassifier = aSet.getClassifier(i);
-					final int classifierNumerosity = aSet
-							.getClassifierNumerosity(i);
-					final double fitness = currentClassifier
-							.getComparisonValue(AbstractUpdateStrategy.COMPARISON_MODE_EXPLOITATION);
-					final boolean labelActivated = ((Label) attributeList[(attributeList.length - numberOfLabels)
-							+ label]).getValue(currentClassifier);
+					final boolean labelActivated = compiled.isLabelSet(label);
 					if (labelActivated)
 						votingTable[label] += classifierNumerosity * fitness;
 					else
@@ -364,7 +405,7 @@ public final class StrictMultiLabelRepresentation extends ComplexRepresentation
 				final ClassifierSet rules) {
 			final float[][] confidenceValues = new float[instances.length][];
 			for (int i = 0; i < instances.length; i++) {
-				confidenceValues[i] = getConfidenceArray(rules, instances[i]);
+				confidenceValues[i] = getVotingTable(rules);
 			}
 
 			final ProportionalCut pCut = new ProportionalCut();
@@ -485,11 +526,9 @@ public final class StrictMultiLabelRepresentation extends ComplexRepresentation
 	@Override
 	public float classifyAbilityLabel(final Classifier aClassifier,
 			final int instanceIndex, final int label) {
-		final int currentLabelIndex = (attributeList.length - numberOfLabels)
-				+ label;
-		if (attributeList[currentLabelIndex].isMatch(
-				(float) myLcs.instances[instanceIndex][currentLabelIndex],
-				aClassifier)) {
+		final long[] labelValue = getCompiledConditions(aClassifier).labelValue;
+		final boolean value = (labelValue[label >>> 6] & (1L << label)) != 0;
+		if (value == hasInstanceLabel(myLcs.instances[instanceIndex], label)) {
 			return 1;
 		}
 		return -1;
@@ -506,19 +545,14 @@ public final class StrictMultiLabelRepresentation extends ComplexRepresentation
 	 */
 	public float classifyAccuracy(final Classifier aClassifier,
 			final int instanceIndex) {
+		final long[] value = getCompiledConditions(aClassifier).labelValue;
+		final double[] instance = myLcs.instances[instanceIndex];
 		float correct = 0;
 		float wrong = 0;
-		for (int i = 0; i < numberOfLabels; i++) {
-			final int currentLabelIndex = (attributeList.length - numberOfLabels)
-					+ i;
-			final String actualLabel = (myLcs.instances[instanceIndex][currentLabelIndex] == 1) ? "1"
-					: "0";
-			final String classifiedLabel = attributeList[currentLabelIndex]
-					.toString(aClassifier);
-			if (!actualLabel.equals(classifiedLabel))
-				wrong++;
-			else if (actualLabel.equals("1"))
-				correct++;
+		for (int word = 0; word < value.length; word++) {
+			final long actual = getInstanceLabels(instance, word);
+			wrong += Long.bitCount(value[word] ^ actual);
+			correct += Long.bitCount(value[word] & actual);
 		}
 
 		if ((wrong + correct) > 0)
@@ -539,12 +573,10 @@ public final class StrictMultiLabelRepresentation extends ComplexRepresentation
 	 */
 	public float classifyExact(final Classifier aClassifier,
 			final int instanceIndex) {
-		for (int i = 0; i < numberOfLabels; i++) {
-			final int currentLabelIndex = (attributeList.length - numberOfLabels)
-					+ i;
-			if (!attributeList[currentLabelIndex].isMatch(
-					(float) myLcs.instances[instanceIndex][currentLabelIndex],
-					aClassifier))
+		final long[] value = getCompiledConditions(aClassifier).labelValue;
+		final double[] instance = myLcs.instances[instanceIndex];
+		for (int word = 0; word < value.length; word++) {
+			if (value[word] != getInstanceLabels(instance, word))
 				return 0;
 		}
 		return 1;
@@ -563,15 +595,12 @@ public final class StrictMultiLabelRepresentation extends ComplexRepresentation
 	 */
 	public float classifyHamming(final Classifier aClassifier,
 			final int instanceIndex) {
-		float result = 0;
-		for (int i = 0; i < numberOfLabels; i++) {
-			final int currentLabelIndex = (attributeList.length - numberOfLabels)
-					+ i;
-			if (attributeList[currentLabelIndex].isMatch(
-					(float) myLcs.instances[instanceIndex][currentLabelIndex],
-					aClassifier))
-				result++;
-		}
+		final long[] value = getCompiledConditions(aClassifier).labelValue;
+		final double[] instance = myLcs.instances[instanceIndex];
+		float result = numberOfLabels;
+		for (int word = 0; word < value.length; word++)
+			result -= Long.bitCount(value[word]
+					^ getInstanceLabels(instance, word));
 		return result / numberOfLabels;
 	}
 
@@ -594,6 +623,25 @@ public final class StrictMultiLabelRepresentation extends ComplexRepresentation
 
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see gr.auth.ee.lcs.data.representations.complex.ComplexRepresentation#
+	 * compileLabels(gr.auth.ee.lcs.utilities.ExtendedBitSet,
+	 * gr.auth.ee.lcs.data.representations.complex.CompiledConditions)
+	 */
+	@Override
+	protected void compileLabels(final ExtendedBitSet chromosome,
+			final CompiledConditions compiled) {
+		final int labelStart = attributeList.length - numberOfLabels;
+		for (int i = 0; i < numberOfLabels; i++) {
+			// All labels are specific
+			compiled.labelSpecified[i >>> 6] |= 1L << i;
+			if (((Label) attributeList[labelStart + i]).getValue(chromosome))
+				compiled.labelValue[i >>> 6] |= 1L << i;
+		}
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -603,14 +651,15 @@ public final class StrictMultiLabelRepresentation extends ComplexRepresentation
 	 */
 	@Override
 	public int[] getClassification(final Classifier aClassifier) {
+		final long[] value = getCompiledConditions(aClassifier).labelValue;
 		final int[] labels = new int[numberOfLabels];
 		int labelIndex = 0;
-		for (int i = 0; i < numberOfLabels; i++) {
-			final int currentLabelIndex = (attributeList.length - numberOfLabels)
-					+ i;
-			if (attributeList[currentLabelIndex].isMatch(1, aClassifier)) {
-				labels[labelIndex] = i;
+		for (int word = 0; word < value.length; word++) {
+			long set = value[word];
+			while (set != 0) {
+				labels[labelIndex] = (word << 6) + Long.numberOfTrailingZeros(set);
 				labelIndex++;
+				set &= set - 1;
 			}
 		}
 		final int[] result = new int[labelIndex];
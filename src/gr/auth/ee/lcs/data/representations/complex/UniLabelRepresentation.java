@@ -30,8 +30,10 @@ import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
 import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
 import gr.auth.ee.lcs.data.IClassificationStrategy;
+import gr.auth.ee.lcs.data.IConfidenceClassificationStrategy;
 import gr.auth.ee.lcs.utilities.ExtendedBitSet;
 import gr.auth.ee.lcs.utilities.InstancesUtility;
+import gr.auth.ee.lcs.utilities.RandomSource;
 
 import java.io.IOException;
 import java.util.Arrays;
@@ -118,7 +120,7 @@ public final class UniLabelRepresentation extends ComplexRepresentation {
 	 * 
 	 */
 	public final class ThresholdClassificationStrategy implements
-			IClassificationStrategy {
+			IConfidenceClassificationStrategy {
 
 		/**
 		 * The pCut method used.
@@ -130,6 +132,11 @@ public final class UniLabelRepresentation extends ComplexRepresentation {
 		 */
 		private double threshold = 0.25;
 
+		/**
+		 * The confidence table of each thread.
+		 */
+		private final ThreadLocal<float[]> confidenceTables = newFloatLabelTables();
+
 		/**
 		 * Constructor.
 		 */
@@ -148,9 +155,28 @@ public final class UniLabelRepresentation extends ComplexRepresentation {
 		 * @return a float array that contains |L| the confidence (of the
 		 *         classifier set) for each label
 		 */
-		private float[] buildConfidence(final ClassifierSet aSet,
+		@Override
+		public float[] getConfidenceArray(final ClassifierSet aSet,
 				final double[] visionVector) {
 			final float[] lblProbs = new float[numberOfLabels];
+			vote(aSet, visionVector, lblProbs);
+			return lblProbs;
+		}
+
+		/**
+		 * Fill a table with the normalized confidence of each label for a
+		 * vision vector.
+		 * 
+		 * @param aSet
+		 *            the set of classifier (rules)
+		 * @param visionVector
+		 *            the instance that the set will produce the confidence
+		 *            levels on
+		 * @param lblProbs
+		 *            the table to fill, with an element per label
+		 */
+		private void vote(final ClassifierSet aSet,
+				final double[] visionVector, final float[] lblProbs) {
 			Arrays.fill(lblProbs, 0);
 
 			final ClassifierSet matchSet = aSet.generateMatchSet(visionVector);
@@ -159,11 +185,16 @@ public final class UniLabelRepresentation extends ComplexRepresentation {
 			for (int i = 0; i < matchSetSize; i++) {
 				final Classifier cl = matchSet.getClassifier(i);
 				final int numerosity = matchSet.getClassifierNumerosity(i);
-
-				final int classification = getClassification(cl)[0];
-
-				lblProbs[classification] += numerosity
-						* cl.getComparisonValue(AbstractUpdateStrategy.COMPARISON_MODE_EXPLOITATION);
+				final long[] value = getCompiledConditions(cl).labelValue;
+
+				for (int word = 0; word < value.length; word++) {
+					if (value[word] == 0)
+						continue;
+					final int classification = (word << 6)
+							+ Long.numberOfTrailingZeros(value[word]);
+					lblProbs[classification] += numerosity
+							* cl.getComparisonValue(AbstractUpdateStrategy.COMPARISON_MODE_EXPLOITATION);
+				}
 
 			}
 
@@ -174,8 +205,6 @@ public final class UniLabelRepresentation extends ComplexRepresentation {
 
 			for (int i = 0; i < lblProbs.length; i++)
 				lblProbs[i] /= sum;
-
-			return lblProbs;
 		}
 
 		/*
@@ -188,10 +217,15 @@ public final class UniLabelRepresentation extends ComplexRepresentation {
 		@Override
 		public int[] classify(final ClassifierSet aSet,
 				final double[] visionVector) {
-			final float[] lblProbs = buildConfidence(aSet, visionVector);
+			final float[] lblProbs = confidenceTables.get();
+			vote(aSet, visionVector, lblProbs);
+
+			int numberOfActiveLabels = 0;
+			for (int i = 0; i < lblProbs.length; i++)
+				if (lblProbs[i] > threshold)
+					numberOfActiveLabels++;
 
-			final int[] result = new int[pCut.getNumberOfActiveLabels(lblProbs,
-					(float) this.threshold)];
+			final int[] result = new int[numberOfActiveLabels];
 
 			int currentIndex = 0;
 			for (int i = 0; i < lblProbs.length; i++) {
@@ -203,6 +237,36 @@ public final class UniLabelRepresentation extends ComplexRepresentation {
 			return result;
 		}
 
+		/**
+		 * Freeze a set of rules and this strategy (with its current
+		 * threshold) into an immutable inference model.
+		 * 
+		 * @param rules
+		 *            the rules to freeze
+		 * @return the inference model
+		 */
+		public InferenceModel freeze(final ClassifierSet rules) {
+			final double[][] votes = new double[rules
+					.getNumberOfMacroclassifiers()][];
+			for (int i = 0; i < votes.length; i++) {
+				final Classifier cl = rules.getClassifier(i);
+				final int numerosity = rules.getClassifierNumerosity(i);
+				final long[] value = getCompiledConditions(cl).labelValue;
+
+				votes[i] = new double[numberOfLabels];
+				for (int word = 0; word < value.length; word++) {
+					if (value[word] == 0)
+						continue;
+					final int classification = (word << 6)
+							+ Long.numberOfTrailingZeros(value[word]);
+					votes[i][classification] += numerosity
+							* cl.getComparisonValue(AbstractUpdateStrategy.COMPARISON_MODE_EXPLOITATION);
+				}
+			}
+			return UniLabelRepresentation.this.freeze(rules, votes,
+					InferenceModel.NORMALIZATION_SUM, threshold);
+		}
+
 		/**
 		 * Perform a proportional Cut (Pcut) on a set of instances to calibrate
 		 * threshold.
@@ -219,7 +283,7 @@ public final class UniLabelRepresentation extends ComplexRepresentation {
 				final ClassifierSet rules, final float targetLc) {
 			final float[][] confidenceValues = new float[instances.length][];
 			for (int i = 0; i < instances.length; i++) {
-				confidenceValues[i] = buildConfidence(rules, instances[i]);
+				confidenceValues[i] = getConfidenceArray(rules, instances[i]);
 			}
 
 			this.threshold = pCut.calibrate(targetLc, confidenceValues);
@@ -271,7 +335,7 @@ public final class UniLabelRepresentation extends ComplexRepresentation {
 			if (generatedClassifier
 					.getIntAt(positionInChromosome, lengthInBits) >= classes.length) {
 
-				final int randClass = (int) Math.floor(Math.random()
+				final int randClass = (int) Math.floor(RandomSource.nextDouble()
 						* classes.length);
 				generatedClassifier.setIntAt(positionInChromosome,
 						lengthInBits, randClass);
@@ -290,6 +354,11 @@ public final class UniLabelRepresentation extends ComplexRepresentation {
 			return chromosome.getIntAt(positionInChromosome, lengthInBits);
 		}
 
+		@Override
+		public final boolean canGeneralize() {
+			return false;
+		}
+
 		@Override
 		public boolean isEqual(final ExtendedBitSet baseChromosome,
 				final ExtendedBitSet testChromosome) {
@@ -319,7 +388,7 @@ public final class UniLabelRepresentation extends ComplexRepresentation {
 		@Override
 		public void randomCoveringValue(final float attributeValue,
 				final Classifier generatedClassifier) {
-			final int coverClass = (int) (Math.random() * classes.length);
+			final int coverClass = RandomSource.nextInt(classes.length);
 			generatedClassifier.setIntAt(positionInChromosome, lengthInBits,
 					coverClass);
 		}
@@ -379,14 +448,13 @@ public final class UniLabelRepresentation extends ComplexRepresentation {
 	@Override
 	public float classifyAbilityAll(final Classifier aClassifier,
 			final int instanceIndex) {
-		final int[] possibleLabels = getDataInstanceLabels(myLcs.instances[instanceIndex]);
-		final int ruleLabel = getClassification(aClassifier)[0];
-
-		if (Arrays.binarySearch(possibleLabels, ruleLabel) < 0) {
-			return 0;
-		} else {
-			return 1;
+		final long[] value = getCompiledConditions(aClassifier).labelValue;
+		final double[] instance = myLcs.instances[instanceIndex];
+		for (int word = 0; word < value.length; word++) {
+			if ((value[word] & getInstanceLabels(instance, word)) != 0)
+				return 1;
 		}
+		return 0;
 	}
 
 	/*
@@ -399,12 +467,31 @@ public final class UniLabelRepresentation extends ComplexRepresentation {
 	@Override
 	public float classifyAbilityLabel(final Classifier aClassifier,
 			final int instanceIndex, final int label) {
-		if (getClassification(aClassifier)[0] == label)
+		if (getCompiledConditions(aClassifier).isLabelSet(label))
 			return 1;
 		else
 			return -1;
 	}
 
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see gr.auth.ee.lcs.data.representations.complex.ComplexRepresentation#
+	 * compileLabels(gr.auth.ee.lcs.utilities.ExtendedBitSet,
+	 * gr.auth.ee.lcs.data.representations.complex.CompiledConditions)
+	 */
+	@Override
+	protected void compileLabels(final ExtendedBitSet chromosome,
+			final CompiledConditions compiled) {
+		// The rule decides on all labels: its label is 1, all others are 0
+		for (int i = 0; i < numberOfLabels; i++)
+			compiled.labelSpecified[i >>> 6] |= 1L << i;
+		final int label = ((UniLabel) attributeList[attributeList.length
+				- numberOfLabels]).getValue(chromosome);
+		if (label < numberOfLabels)
+			compiled.labelValue[label >>> 6] |= 1L << label;
+	}
+
 	@Override
 	protected void createClassRepresentation(final Instances instances) {
 		final String[] ruleConsequents = new String[numberOfLabels];
@@ -475,8 +562,8 @@ public final class UniLabelRepresentation extends ComplexRepresentation {
 	 */
 	@Override
 	public void setClassification(final Classifier aClassifier, final int action) {
-		((UniLabel) attributeList[attributeList.length - 1]).setValue(
-				aClassifier, action);
+		((UniLabel) attributeList[attributeList.length - numberOfLabels])
+				.setValue(aClassifier, action);
 	}
 
 }
@@ -24,6 +24,7 @@ package gr.auth.ee.lcs.data.updateAlgorithms;
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
 import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
 import gr.auth.ee.lcs.geneticalgorithm.IGeneticAlgorithmStrategy;
 
 /**
@@ -109,7 +110,7 @@ public final class ASLCSUpdateAlgorithm extends AbstractSLCSUpdateAlgorithm {
 	 */
 	@Override
 	public void updateFitness(final Classifier aClassifier,
-			final int numerosity, final ClassifierSet correctSet) {
+			final int numerosity, final IClassifierSetView correctSet) {
 		final SLCSClassifierData data = ((SLCSClassifierData) aClassifier
 				.getUpdateDataObject());
 		if (correctSet.getClassifierNumerosity(aClassifier) > 0)
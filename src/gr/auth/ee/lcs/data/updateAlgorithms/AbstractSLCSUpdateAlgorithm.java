@@ -24,9 +24,12 @@ package gr.auth.ee.lcs.data.updateAlgorithms;
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
 import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
 import gr.auth.ee.lcs.classifiers.Macroclassifier;
+import gr.auth.ee.lcs.classifiers.MatchSetView;
 import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
 import gr.auth.ee.lcs.geneticalgorithm.IGeneticAlgorithmStrategy;
+import gr.auth.ee.lcs.utilities.RandomSource;
 
 import java.io.Serializable;
 
@@ -102,6 +105,12 @@ public abstract class AbstractSLCSUpdateAlgorithm extends
 	 */
 	private final AbstractLearningClassifierSystem myLCS;
 
+	/**
+	 * The (reused) correct set view of each training thread.
+	 */
+	private final ThreadLocal<MatchSetView> correctSetView = MatchSetView
+			.newThreadLocal();
+
 	/**
 	 * The experience threshold for subsumption.
 	 */
@@ -189,8 +198,8 @@ public abstract class AbstractSLCSUpdateAlgorithm extends
 	}
 
 	@Override
-	public final void performUpdate(final ClassifierSet matchSet,
-			final ClassifierSet correctSet) {
+	public final void performUpdate(final IClassifierSetView matchSet,
+			final IClassifierSetView correctSet) {
 		final int matchSetSize = matchSet.getNumberOfMacroclassifiers();
 		final int correctSetNumerosity = correctSet.getTotalNumerosity();
 		for (int i = 0; i < matchSetSize; i++) {
@@ -234,14 +243,14 @@ public abstract class AbstractSLCSUpdateAlgorithm extends
 	 *            the correct set, used at updating the fitness
 	 */
 	public abstract void updateFitness(Classifier aClassifier, int numerosity,
-			ClassifierSet correctSet);
+			IClassifierSetView correctSet);
 
 	@Override
 	public final void updateSet(final ClassifierSet population,
-			final ClassifierSet matchSet, final int instanceIndex,
+			final IClassifierSetView matchSet, final int instanceIndex,
 			final boolean evolve) {
 
-		final ClassifierSet correctSet = generateCorrectSet(matchSet,
+		final MatchSetView correctSet = generateCorrectSet(matchSet,
 				instanceIndex);
 
 		/*
@@ -260,7 +269,7 @@ public abstract class AbstractSLCSUpdateAlgorithm extends
 		/*
 		 * Run GA
 		 */
-		if (Math.random() < matchSetRunProbability)
+		if (RandomSource.nextDouble() < matchSetRunProbability)
 			ga.evolveSet(matchSet, population);
 		else
 			ga.evolveSet(correctSet, population);
@@ -276,14 +285,16 @@ public abstract class AbstractSLCSUpdateAlgorithm extends
 	 *            the global instance index
 	 * @return the correct set
 	 */
-	private ClassifierSet generateCorrectSet(final ClassifierSet matchSet,
+	private MatchSetView generateCorrectSet(
+			final IClassifierSetView matchSet,
 			final int instanceIndex) {
-		final ClassifierSet correctSet = new ClassifierSet(null);
+		final MatchSetView correctSet = MatchSetView.filterOf(matchSet,
+				correctSetView.get());
 		final int matchSetSize = matchSet.getNumberOfMacroclassifiers();
 		for (int i = 0; i < matchSetSize; i++) {
-			Macroclassifier cl = matchSet.getMacroclassifier(i);
-			if (cl.myClassifier.classifyCorrectly(instanceIndex) == 1)
-				correctSet.addClassifier(cl, false);
+			final Classifier cl = matchSet.getClassifier(i);
+			if (cl.classifyCorrectly(instanceIndex) == 1)
+				correctSet.add(cl, matchSet.getClassifierNumerosity(i));
 		}
 		return correctSet;
 	}
@@ -27,7 +27,9 @@ package gr.auth.ee.lcs.data.updateAlgorithms;
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
 import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
 import gr.auth.ee.lcs.classifiers.Macroclassifier;
+import gr.auth.ee.lcs.classifiers.MatchSetView;
 import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
 import gr.auth.ee.lcs.geneticalgorithm.IGeneticAlgorithmStrategy;
 import gr.auth.ee.lcs.utilities.SettingsLoader;
@@ -113,6 +115,16 @@ public class MlASLCS2UpdateAlgorithm extends AbstractUpdateStrategy {
 	 */
 	private final double n;
 
+	/**
+	 * The (reused) per label correct set views of each training thread.
+	 */
+	private final ThreadLocal<MatchSetView[]> labelCorrectSetViews;
+
+	/**
+	 * The (reused) per-label evaluation of each training thread.
+	 */
+	private final ThreadLocal<MultiLabelEvaluation> labelEvaluations;
+
 	/**
 	 * Constructor.
 	 * 
@@ -139,6 +151,8 @@ public class MlASLCS2UpdateAlgorithm extends AbstractUpdateStrategy {
 		numberOfLabels = labels;
 		n = nParameter;
 		ga = geneticAlgorithm;
+		labelCorrectSetViews = MatchSetView.newThreadLocal(labels);
+		labelEvaluations = MultiLabelEvaluation.newThreadLocal(labels);
 	}
 
 	/*
@@ -230,7 +244,8 @@ public class MlASLCS2UpdateAlgorithm extends AbstractUpdateStrategy {
 	 * .classifiers.ClassifierSet, gr.auth.ee.lcs.classifiers.ClassifierSet)
 	 */
 	@Override
-	public void performUpdate(ClassifierSet matchSet, ClassifierSet correctSet) {
+	public void performUpdate(IClassifierSetView matchSet,
+			IClassifierSetView correctSet) {
 		// Nothing here!
 	}
 
@@ -258,38 +273,36 @@ public class MlASLCS2UpdateAlgorithm extends AbstractUpdateStrategy {
 	 * boolean)
 	 */
 	@Override
-	public void updateSet(ClassifierSet population, ClassifierSet matchSet,
-			int instanceIndex, boolean evolve) {
+	public void updateSet(ClassifierSet population,
+			IClassifierSetView matchSet, int instanceIndex, boolean evolve) {
+
+		final MultiLabelEvaluation evaluation = labelEvaluations.get()
+				.evaluate(matchSet, instanceIndex);
 
 		// Create all label correct sets
-		final ClassifierSet[] labelCorrectSets = new ClassifierSet[numberOfLabels];
+		final MatchSetView[] labelCorrectSets = labelCorrectSetViews.get();
 
 		for (int i = 0; i < numberOfLabels; i++)
-			labelCorrectSets[i] = generateLabelCorrectSet(matchSet,
-					instanceIndex, i);
+			generateLabelCorrectSet(matchSet, evaluation, i);
 
-		final int matchSetSize = matchSet.getNumberOfMacroclassifiers();
+		final int matchSetSize = evaluation.size();
 		// For each classifier in the matchset
 		for (int i = 0; i < matchSetSize; i++) {
-			final Macroclassifier cl = matchSet.getMacroclassifier(i);
+			final Classifier cl = evaluation.getClassifier(i);
 
 			int minCurrentNs = Integer.MAX_VALUE;
 
-			final MlASLCSClassifierData data = (MlASLCSClassifierData) cl.myClassifier
+			final MlASLCSClassifierData data = (MlASLCSClassifierData) cl
 					.getUpdateDataObject();
 
 			for (int l = 0; l < numberOfLabels; l++) {
-				// Get classification ability for label l
-				final float classificationAbility = cl.myClassifier
-						.classifyLabelCorrectly(instanceIndex, l);
-
-				if (classificationAbility == 0)
+				if (!evaluation.isActive(i, l))
 					continue;
 
-				if (classificationAbility > 0) {
+				if (evaluation.isCorrect(i, l)) {
 					data.tp += 1;
-					final int labelNs = labelCorrectSets[l]
-							.getTotalNumerosity();
+					final int labelNs = evaluation
+							.getLabelCorrectNumerosity(l);
 
 					if (minCurrentNs > labelNs) {
 						minCurrentNs = labelNs;
@@ -299,12 +312,12 @@ public class MlASLCS2UpdateAlgorithm extends AbstractUpdateStrategy {
 
 			}
 
-			cl.myClassifier.experience++;
+			cl.experience++;
 			if (minCurrentNs != Integer.MAX_VALUE)
 				data.ns += .1 * (minCurrentNs - data.ns);
 			data.fitness = Math.pow(((double) (data.tp)) / (double) (data.msa),
 					n);
-			updateSubsumption(cl.myClassifier);
+			updateSubsumption(cl);
 		}
 
 		if (evolve) {
@@ -324,21 +337,26 @@ public class MlASLCS2UpdateAlgorithm extends AbstractUpdateStrategy {
 	 * 
 	 * @param matchSet
 	 *            the match set
-	 * @param instanceIndex
-	 *            the global instance index
+	 * @param evaluation
+	 *            the per-label evaluation of the match set
 	 * @param labelIndex
 	 *            the label index
 	 * @return the correct set
 	 */
-	private ClassifierSet generateLabelCorrectSet(final ClassifierSet matchSet,
-			final int instanceIndex, final int labelIndex) {
-		final ClassifierSet correctSet = new ClassifierSet(null);
-		final int matchSetSize = matchSet.getNumberOfMacroclassifiers();
+	private MatchSetView generateLabelCorrectSet(
+			final IClassifierSetView matchSet,
+			final MultiLabelEvaluation evaluation, final int labelIndex) {
+		// Each label's correct set is placed after the previous label's set
+		final MatchSetView[] labelCorrectSets = labelCorrectSetViews.get();
+		final MatchSetView correctSet = MatchSetView.filterOf(
+				(labelIndex == 0) ? matchSet
+						: labelCorrectSets[labelIndex - 1],
+				labelCorrectSets[labelIndex]);
+		final int matchSetSize = evaluation.size();
 		for (int i = 0; i < matchSetSize; i++) {
-			final Macroclassifier cl = matchSet.getMacroclassifier(i);
-			if (cl.myClassifier.classifyLabelCorrectly(instanceIndex,
-					labelIndex) > 0)
-				correctSet.addClassifier(cl, false);
+			if (evaluation.isCorrect(i, labelIndex))
+				correctSet.add(evaluation.getClassifier(i),
+						evaluation.getNumerosity(i));
 		}
 		return correctSet;
 	}
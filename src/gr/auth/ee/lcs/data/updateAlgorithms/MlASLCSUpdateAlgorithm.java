@@ -27,9 +27,12 @@ package gr.auth.ee.lcs.data.updateAlgorithms;
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
 import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
 import gr.auth.ee.lcs.classifiers.Macroclassifier;
+import gr.auth.ee.lcs.classifiers.MatchSetView;
 import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
 import gr.auth.ee.lcs.geneticalgorithm.IGeneticAlgorithmStrategy;
+import gr.auth.ee.lcs.utilities.RandomSource;
 
 import java.io.Serializable;
 import java.util.Arrays;
@@ -124,6 +127,17 @@ public final class MlASLCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 */
 	private final AbstractLearningClassifierSystem myLcs;
 
+	/**
+	 * The (reused) correct set view of each training thread.
+	 */
+	private final ThreadLocal<MatchSetView> correctSetView = MatchSetView
+			.newThreadLocal();
+
+	/**
+	 * The (reused) per-label evaluation of each training thread.
+	 */
+	private final ThreadLocal<MultiLabelEvaluation> labelEvaluations;
+
 	/**
 	 * Object's Constructor.
 	 * 
@@ -154,6 +168,7 @@ public final class MlASLCSUpdateAlgorithm extends AbstractUpdateStrategy {
 		this.n = nParameter;
 		numOfLabels = labels;
 		myLcs = lcs;
+		labelEvaluations = MultiLabelEvaluation.newThreadLocal(labels);
 	}
 
 	/**
@@ -242,8 +257,8 @@ public final class MlASLCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	}
 
 	@Override
-	public void performUpdate(final ClassifierSet matchSet,
-			final ClassifierSet correctSet) {
+	public void performUpdate(final IClassifierSetView matchSet,
+			final IClassifierSetView correctSet) {
 		return; // Not used!
 	}
 
@@ -253,28 +268,48 @@ public final class MlASLCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 * @param matchSet
 	 *            the match set [M]
 	 * @param correctSet
-	 *            the correct set
+	 *            the correct set of the match set (the classifiers that
+	 *            classify the instance correctly)
 	 * @param instanceIndex
 	 *            the instance index
 	 */
-	public void performUpdate(final ClassifierSet matchSet,
-			final ClassifierSet correctSet, final int instanceIndex) {
-		final int matchSetSize = matchSet.getNumberOfMacroclassifiers();
+	public void performUpdate(final IClassifierSetView matchSet,
+			final IClassifierSetView correctSet, final int instanceIndex) {
+		final MultiLabelEvaluation evaluation = labelEvaluations.get()
+				.evaluate(matchSet, instanceIndex);
+		final boolean[] inCorrectSet = new boolean[evaluation.size()];
+		for (int i = 0; i < inCorrectSet.length; i++)
+			inCorrectSet[i] = correctSet.getClassifierNumerosity(evaluation
+					.getClassifier(i)) > 0;
+		performUpdate(evaluation, inCorrectSet);
+	}
 
-		final int[] niches = calculateLabelNiches(correctSet, instanceIndex);
+	/**
+	 * Perform an update on an evaluated match set.
+	 * 
+	 * @param evaluation
+	 *            the per-label evaluation of the match set
+	 * @param inCorrectSet
+	 *            whether each classifier of the match set belongs to the
+	 *            correct set
+	 */
+	private void performUpdate(final MultiLabelEvaluation evaluation,
+			final boolean[] inCorrectSet) {
+		final int matchSetSize = evaluation.size();
+		final int[] niches = calculateLabelNiches(evaluation, inCorrectSet);
 
 		for (int i = 0; i < matchSetSize; i++) {
-			Classifier cl = matchSet.getClassifier(i);
+			Classifier cl = evaluation.getClassifier(i);
 
 			SLCSClassifierData data = ((SLCSClassifierData) cl
 					.getUpdateDataObject());
 
 			data.msa++;
 
-			if (correctSet.getClassifierNumerosity(cl) > 0) {
+			if (inCorrectSet[i]) {
 				data.tp += 1; // aClassifier at the correctSet
-				data.ns = ((data.msa * data.ns) + getClassifierNicheSize(cl,
-						instanceIndex, niches)) / (data.msa + 1); // TODO:
+				data.ns = ((data.msa * data.ns) + getClassifierNicheSize(
+						evaluation, i, niches)) / (data.msa + 1); // TODO:
 																	// Correct?
 			} else {
 				data.fp += 1;
@@ -306,13 +341,18 @@ public final class MlASLCSUpdateAlgorithm extends AbstractUpdateStrategy {
 
 	@Override
 	public void updateSet(final ClassifierSet population,
-			final ClassifierSet matchSet, final int instanceIndex,
+			final IClassifierSetView matchSet, final int instanceIndex,
 			final boolean evolve) {
 
-		final ClassifierSet correctSet = generateCorrectSet(matchSet,
-				instanceIndex);
+		final MultiLabelEvaluation evaluation = labelEvaluations.get()
+				.evaluate(matchSet, instanceIndex);
+		final boolean[] inCorrectSet = new boolean[evaluation.size()];
+		for (int i = 0; i < inCorrectSet.length; i++)
+			inCorrectSet[i] = evaluation.classifyCorrectly(i) == 1;
+		final MatchSetView correctSet = generateCorrectSet(matchSet,
+				evaluation, inCorrectSet);
 
-		final int[] niches = calculateLabelNiches(correctSet, instanceIndex);
+		final int[] niches = calculateLabelNiches(evaluation, inCorrectSet);
 		boolean emptyLabel = false;
 		for (int i = 0; i < niches.length; i++) {
 			if (niches[i] == 0)
@@ -331,13 +371,13 @@ public final class MlASLCSUpdateAlgorithm extends AbstractUpdateStrategy {
 			}
 		}
 
-		performUpdate(matchSet, correctSet, instanceIndex);
+		performUpdate(evaluation, inCorrectSet);
 
 		/*
 		 * Run GA
 		 */
 		if (evolve) {
-			if (Math.random() < matchSetRunProbability)
+			if (RandomSource.nextDouble() < matchSetRunProbability)
 				ga.evolveSet(matchSet, population);
 			else
 				ga.evolveSet(correctSet, population);
@@ -346,24 +386,27 @@ public final class MlASLCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	}
 
 	/**
-	 * Calculates the label niches.
+	 * Calculates the label niches, i.e. the number of correct set
+	 * macroclassifiers that classify each label correctly.
 	 * 
-	 * @param correctSet
-	 *            the correct set
-	 * @param instanceIndex
-	 *            the index instance
+	 * @param evaluation
+	 *            the per-label evaluation of the match set
+	 * @param inCorrectSet
+	 *            whether each classifier of the match set belongs to the
+	 *            correct set
 	 * @return the label niche set size per label
 	 */
-	private int[] calculateLabelNiches(final ClassifierSet correctSet,
-			final int instanceIndex) {
+	private int[] calculateLabelNiches(final MultiLabelEvaluation evaluation,
+			final boolean[] inCorrectSet) {
 		final int[] niches = new int[numOfLabels];
 		Arrays.fill(niches, 0);
 
-		final int correctSetSize = correctSet.getNumberOfMacroclassifiers();
-		for (int i = 0; i < correctSetSize; i++) {
-			final Classifier cl = correctSet.getClassifier(i);
+		final int matchSetSize = evaluation.size();
+		for (int i = 0; i < matchSetSize; i++) {
+			if (!inCorrectSet[i])
+				continue;
 			for (int label = 0; label < numOfLabels; label++) {
-				if (cl.classifyLabelCorrectly(instanceIndex, label) > 0) {
+				if (evaluation.isCorrect(i, label)) {
 					niches[label]++;
 				}
 			}
@@ -376,18 +419,23 @@ public final class MlASLCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 * 
 	 * @param matchSet
 	 *            the match set
-	 * @param instanceIndex
-	 *            the global instance index
+	 * @param evaluation
+	 *            the per-label evaluation of the match set
+	 * @param inCorrectSet
+	 *            whether each classifier of the match set belongs to the
+	 *            correct set
 	 * @return the correct set
 	 */
-	private ClassifierSet generateCorrectSet(final ClassifierSet matchSet,
-			final int instanceIndex) {
-		final ClassifierSet correctSet = new ClassifierSet(null);
-		final int matchSetSize = matchSet.getNumberOfMacroclassifiers();
+	private MatchSetView generateCorrectSet(
+			final IClassifierSetView matchSet,
+			final MultiLabelEvaluation evaluation, final boolean[] inCorrectSet) {
+		final MatchSetView correctSet = MatchSetView.filterOf(matchSet,
+				correctSetView.get());
+		final int matchSetSize = evaluation.size();
 		for (int i = 0; i < matchSetSize; i++) {
-			Macroclassifier cl = matchSet.getMacroclassifier(i);
-			if (cl.myClassifier.classifyCorrectly(instanceIndex) == 1)
-				correctSet.addClassifier(cl, false);
+			if (inCorrectSet[i])
+				correctSet.add(evaluation.getClassifier(i),
+						evaluation.getNumerosity(i));
 		}
 		return correctSet;
 	}
@@ -395,26 +443,24 @@ public final class MlASLCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	/**
 	 * Returns classifier's niche size per label.
 	 * 
-	 * @param aClassifier
-	 *            the classifier to return
-	 * @param instanceIndex
-	 *            the index of the instance to b
+	 * @param evaluation
+	 *            the per-label evaluation of the match set
+	 * @param index
+	 *            the index of the classifier in the match set
 	 * @param niches
-	 *            the
-	 * @return
+	 *            the label niche set size per label
+	 * @return the smallest niche of the labels the classifier classifies
+	 *         correctly
 	 */
-	private double getClassifierNicheSize(final Classifier aClassifier,
-			final int instanceIndex, final int[] niches) {
+	private double getClassifierNicheSize(
+			final MultiLabelEvaluation evaluation, final int index,
+			final int[] niches) {
 		// TODO: Does this even make sense?
-		int mean = 0;
-		int active = 0;
 		int minNiche = Integer.MAX_VALUE;
 		for (int label = 0; label < numOfLabels; label++) {
-			if (aClassifier.classifyLabelCorrectly(instanceIndex, label) > 0) {
+			if (evaluation.isCorrect(index, label)) {
 				if (niches[label] < minNiche)
 					minNiche = niches[label];
-				mean += niches[label];
-				active++;
 			}
 		}
 		return minNiche;
@@ -27,6 +27,7 @@ package gr.auth.ee.lcs.data.updateAlgorithms;
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
 import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
 import gr.auth.ee.lcs.classifiers.Macroclassifier;
 import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
 import gr.auth.ee.lcs.geneticalgorithm.IGeneticAlgorithmStrategy;
@@ -132,6 +133,11 @@ public final class MlSSLCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 */
 	private final AbstractLearningClassifierSystem myLcs;
 
+	/**
+	 * The (reused) per-label evaluation of each training thread.
+	 */
+	private final ThreadLocal<MultiLabelEvaluation> labelEvaluations;
+
 	/**
 	 * Constructor.
 	 * 
@@ -162,6 +168,7 @@ public final class MlSSLCSUpdateAlgorithm extends AbstractUpdateStrategy {
 		subsumptionExperienceThreshold = subsumptionExperience;
 		subsumptionAccuracyThreshold = subsumptionAccuracy;
 		myLcs = lcs;
+		labelEvaluations = MultiLabelEvaluation.newThreadLocal(labels);
 	}
 
 	/*
@@ -263,8 +270,8 @@ public final class MlSSLCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 * gr.auth.ee.lcs.classifiers.ClassifierSet)
 	 */
 	@Override
-	public void performUpdate(final ClassifierSet matchSet,
-			final ClassifierSet correctSet) {
+	public void performUpdate(final IClassifierSetView matchSet,
+			final IClassifierSetView correctSet) {
 		return;
 	}
 
@@ -294,34 +301,30 @@ public final class MlSSLCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 */
 	@Override
 	public void updateSet(final ClassifierSet population,
-			final ClassifierSet matchSet, final int instanceIndex,
+			final IClassifierSetView matchSet, final int instanceIndex,
 			final boolean evolve) {
-		final int matchSetSize = matchSet.getNumberOfMacroclassifiers();
+		final MultiLabelEvaluation evaluation = labelEvaluations.get()
+				.evaluate(matchSet, instanceIndex);
+		final int matchSetSize = evaluation.size();
 
 		for (int lbl = 0; lbl < numberOfLabels; lbl++) {
-			int totalCorrectRules = 0;
+			final int totalCorrectRules = evaluation
+					.getLabelCorrectNumerosity(lbl);
 
 			for (int i = 0; i < matchSetSize; i++) {
-				if (matchSet.getClassifier(i).classifyLabelCorrectly(
-						instanceIndex, lbl) == 1)
-					totalCorrectRules += matchSet.getClassifierNumerosity(i);
-			}
+				if (!evaluation.isActive(i, lbl))
+					continue;
+				final MlSSLCSClassifierData data = ((MlSSLCSClassifierData) evaluation
+						.getClassifier(i).getUpdateDataObject());
 
-			for (int i = 0; i < matchSetSize; i++) {
-				final Classifier currentClassifier = matchSet.getClassifier(i);
-				final MlSSLCSClassifierData data = ((MlSSLCSClassifierData) currentClassifier
-						.getUpdateDataObject());
-				final float classificationAbility = currentClassifier
-						.classifyLabelCorrectly(instanceIndex, lbl);
-
-				if ((classificationAbility > 0) && (totalCorrectRules > 0)) {
+				if (evaluation.isCorrect(i, lbl) && (totalCorrectRules > 0)) {
 					data.str += (strengthReward) / (totalCorrectRules);
 					if (Double.isInfinite(data.str))
 						data.str = 10;
 					data.tp += 1;
 					data.msa += 1;
 					data.ns[lbl] += .1 * (data.ns[lbl] - totalCorrectRules);
-				} else if (classificationAbility < 0) {
+				} else if (!evaluation.isCorrect(i, lbl)) {
 					data.str -= (penalty * (strengthReward)) / (data.ns[lbl]);
 					data.fp += 1;
 					data.msa += 1;
@@ -334,16 +337,10 @@ public final class MlSSLCSUpdateAlgorithm extends AbstractUpdateStrategy {
 		}
 
 		for (int i = 0; i < matchSetSize; i++) {
-			final Classifier currentClassifier = matchSet.getClassifier(i);
+			final Classifier currentClassifier = evaluation.getClassifier(i);
 			final MlSSLCSClassifierData data = ((MlSSLCSClassifierData) currentClassifier
 					.getUpdateDataObject());
-			data.activeLabels = 0;
-			for (int lbl = 0; lbl < numberOfLabels; lbl++) {
-				final float classificationAbility = currentClassifier
-						.classifyLabelCorrectly(instanceIndex, lbl);
-				if (classificationAbility != 0)
-					data.activeLabels += 1;
-			}
+			data.activeLabels = evaluation.getActiveLabels(i);
 
 			if (data.msa > 0) {
 				currentClassifier.experience++;
@@ -27,9 +27,11 @@ package gr.auth.ee.lcs.data.updateAlgorithms;
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
 import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
 import gr.auth.ee.lcs.classifiers.Macroclassifier;
 import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
 import gr.auth.ee.lcs.geneticalgorithm.IGeneticAlgorithmStrategy;
+import gr.auth.ee.lcs.utilities.RandomSource;
 
 import java.io.Serializable;
 import java.util.Arrays;
@@ -157,6 +159,11 @@ public final class MlUCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 */
 	private final AbstractLearningClassifierSystem myLcs;
 
+	/**
+	 * The (reused) per-label evaluation of each training thread.
+	 */
+	private final ThreadLocal<MultiLabelEvaluation> labelEvaluations;
+
 	/**
 	 * The constructor.
 	 * 
@@ -179,6 +186,7 @@ public final class MlUCSUpdateAlgorithm extends AbstractUpdateStrategy {
 		myLcs = lcs;
 		acc0 = ucsAcc0;
 		n = ucsN;
+		labelEvaluations = MultiLabelEvaluation.newThreadLocal(numberOfLabels);
 	}
 
 	/**
@@ -267,8 +275,8 @@ public final class MlUCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	}
 
 	@Override
-	public void performUpdate(final ClassifierSet matchSet,
-			final ClassifierSet correctSet) {
+	public void performUpdate(final IClassifierSetView matchSet,
+			final IClassifierSetView correctSet) {
 		return;
 	}
 
@@ -281,7 +289,7 @@ public final class MlUCSUpdateAlgorithm extends AbstractUpdateStrategy {
 
 	@Override
 	public void updateSet(final ClassifierSet population,
-			final ClassifierSet matchSet, final int instanceIndex,
+			final IClassifierSetView matchSet, final int instanceIndex,
 			final boolean evolve) {
 		final int matchSetSize = matchSet.getNumberOfMacroclassifiers();
 
@@ -333,7 +341,7 @@ public final class MlUCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 * @param matchSet
 	 *            the set of the classifiers that have been updated
 	 */
-	private void gatherResults(final ClassifierSet matchSet) {
+	private void gatherResults(final IClassifierSetView matchSet) {
 		final int matchSetSize = matchSet.getNumberOfMacroclassifiers();
 		for (int i = 0; i < matchSetSize; i++) {
 			final Classifier cl = matchSet.getClassifier(i);
@@ -392,55 +400,10 @@ public final class MlUCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	}
 
 	/**
-	 * Generates the correct set.
-	 * 
-	 * @param matchSet
-	 *            the match set
-	 * @param instanceIndex
-	 *            the global instance index
-	 * @param labelIndex
-	 *            the label index
-	 * @return the correct set
-	 */
-	private ClassifierSet generateCorrectSet(final ClassifierSet matchSet,
-			final int instanceIndex, final int labelIndex) {
-		final ClassifierSet correctSet = new ClassifierSet(null);
-		final int matchSetSize = matchSet.getNumberOfMacroclassifiers();
-		for (int i = 0; i < matchSetSize; i++) {
-			Macroclassifier cl = matchSet.getMacroclassifier(i);
-			if (cl.myClassifier.classifyCorrectly(instanceIndex) > 0)
-				correctSet.addClassifier(cl, false);
-		}
-		return correctSet;
-	}
-
-	/**
-	 * Generates the set of classifier that advocate clearly against or for the
-	 * label at the given index.
-	 * 
-	 * @param matchSet
-	 *            the matchSet
-	 * @param instanceIndex
-	 *            the instance we are trying to match
-	 * @param labelIndex
-	 *            the label index we are trying to match
-	 * @return
-	 */
-	private ClassifierSet generateLabelMatchSet(final ClassifierSet matchSet,
-			final int instanceIndex, final int labelIndex) {
-		final ClassifierSet labelMatchSet = new ClassifierSet(null);
-		final int matchSetSize = matchSet.getNumberOfMacroclassifiers();
-		for (int i = 0; i < matchSetSize; i++) {
-			Macroclassifier cl = matchSet.getMacroclassifier(i);
-			if (cl.myClassifier.classifyLabelCorrectly(instanceIndex,
-					labelIndex) != 0)
-				labelMatchSet.addClassifier(cl, false);
-		}
-		return labelMatchSet;
-	}
-
-	/**
-	 * Update set per label.
+	 * Update set per label. The match set is evaluated once for all labels
+	 * and each label is then updated from the evaluation. The label match set
+	 * of a label contains the classifiers that are active on it and its
+	 * correct set the ones of them that classify the instance correctly.
 	 * 
 	 * @param population
 	 *            the population of rules to add any new rules
@@ -452,7 +415,7 @@ public final class MlUCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 *            true to run cover and GA operators
 	 */
 	private void updatePerLabel(final ClassifierSet population,
-			final ClassifierSet matchSet, final int instanceIndex,
+			final IClassifierSetView matchSet, final int instanceIndex,
 			final boolean evolve) {
 
 		// Generate random labels
@@ -462,7 +425,7 @@ public final class MlUCSUpdateAlgorithm extends AbstractUpdateStrategy {
 		}
 
 		// Shuffle
-		final Random rgen = new Random();
+		final Random rgen = RandomSource.current();
 		for (int i = 0; i < numberOfLabels; i++) {
 			final int randomPosition = rgen.nextInt(numberOfLabels);
 			final int temp = labelSequence[i];
@@ -470,15 +433,18 @@ public final class MlUCSUpdateAlgorithm extends AbstractUpdateStrategy {
 			labelSequence[randomPosition] = temp;
 		}
 
+		final MultiLabelEvaluation evaluation = labelEvaluations.get()
+				.evaluate(matchSet, instanceIndex);
+		final int matchSetSize = evaluation.size();
+
 		for (int j = 0; j < numberOfLabels; j++) {
 			int label = labelSequence[j];
-			ClassifierSet labelMatchSet = generateLabelMatchSet(matchSet,
-					instanceIndex, label);
-			ClassifierSet labelCorrectSet = generateCorrectSet(labelMatchSet,
-					instanceIndex, label);
-			final int matchSetSize = labelMatchSet
-					.getNumberOfMacroclassifiers();
-			final int correctSetSize = labelCorrectSet.getTotalNumerosity();
+			int correctSetSize = 0;
+			for (int i = 0; i < matchSetSize; i++) {
+				if (evaluation.isActive(i, label)
+						&& (evaluation.classifyCorrectly(i) > 0))
+					correctSetSize += evaluation.getNumerosity(i);
+			}
 
 			if ((correctSetSize == 0) && evolve) {
 				cover(population, instanceIndex);
@@ -487,12 +453,11 @@ public final class MlUCSUpdateAlgorithm extends AbstractUpdateStrategy {
 
 			float fitnessSum = 0;
 			for (int i = 0; i < matchSetSize; i++) {
-				final Classifier cl = labelMatchSet.getClassifier(i);
-				final MlUCSClassifierData data = ((MlUCSClassifierData) cl
-						.getUpdateDataObject());
-				final int numerosity = labelMatchSet
-						.getClassifierNumerosity(cl);
-				if (cl.classifyLabelCorrectly(instanceIndex, label) > 0) {
+				if (!evaluation.isActive(i, label))
+					continue;
+				final MlUCSClassifierData data = ((MlUCSClassifierData) evaluation
+						.getClassifier(i).getUpdateDataObject());
+				if (evaluation.isCorrect(i, label)) {
 					data.tp[label] += 1;
 					if (Double.isInfinite(data.cs[label]))
 						System.out.println("in " + data.cs[label]);
@@ -506,7 +471,8 @@ public final class MlUCSUpdateAlgorithm extends AbstractUpdateStrategy {
 					} else {
 						data.fitness0[label] = (float) Math.pow(acc / acc0, n);
 					}
-					fitnessSum += data.fitness0[label] * numerosity;
+					fitnessSum += data.fitness0[label]
+							* evaluation.getNumerosity(i);
 				} else {
 					data.fp[label] += 1;
 					data.fitness0[label] = 0;
@@ -514,9 +480,10 @@ public final class MlUCSUpdateAlgorithm extends AbstractUpdateStrategy {
 			}
 
 			for (int i = 0; i < matchSetSize; i++) {
-				final Classifier cl = labelMatchSet.getClassifier(i);
-				final MlUCSClassifierData data = ((MlUCSClassifierData) cl
-						.getUpdateDataObject());
+				if (!evaluation.isActive(i, label))
+					continue;
+				final MlUCSClassifierData data = ((MlUCSClassifierData) evaluation
+						.getClassifier(i).getUpdateDataObject());
 
 				data.labelFitness[label] += b
 						* ((data.fitness0[label] / fitnessSum) - data.labelFitness[label]);
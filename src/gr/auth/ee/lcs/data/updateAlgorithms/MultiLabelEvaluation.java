@@ -0,0 +1,291 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.data.updateAlgorithms;
+
+import gr.auth.ee.lcs.classifiers.Classifier;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
+
+import java.util.Arrays;
+
+/**
+ * The per-label classification ability of the classifiers of a match set for
+ * a train instance. Each classifier is evaluated once for all labels and the
+ * results are kept in bitmasks (two bits per label: whether the classifier
+ * advocates for or against the label and whether it is correct), along with
+ * the classifier's numerosity. The multi-label update algorithms then perform
+ * their per-label updates on these arrays, instead of building a label match
+ * set and a label correct set for each label.
+ * 
+ * Evaluations are reused objects, one per training thread (see
+ * {@link #newThreadLocal(int)}).
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+final class MultiLabelEvaluation {
+
+	/**
+	 * Create thread local reusable evaluations, so that the update algorithms
+	 * can be shared by concurrent training threads.
+	 * 
+	 * @param numberOfLabels
+	 *            the number of labels of the problem
+	 * @return a thread local providing the evaluation of each thread
+	 */
+	static ThreadLocal<MultiLabelEvaluation> newThreadLocal(
+			final int numberOfLabels) {
+		return new ThreadLocal<MultiLabelEvaluation>() {
+			@Override
+			protected MultiLabelEvaluation initialValue() {
+				return new MultiLabelEvaluation(numberOfLabels);
+			}
+		};
+	}
+
+	/**
+	 * The number of labels.
+	 */
+	private final int numberOfLabels;
+
+	/**
+	 * The number of long words used for the labels of each classifier.
+	 */
+	private final int words;
+
+	/**
+	 * The number of evaluated classifiers.
+	 */
+	private int size = 0;
+
+	/**
+	 * The index of the evaluated instance.
+	 */
+	private int instanceIndex;
+
+	/**
+	 * The evaluated classifiers.
+	 */
+	private Classifier[] classifiers = new Classifier[16];
+
+	/**
+	 * The numerosities of the evaluated classifiers in the match set.
+	 */
+	private int[] numerosities = new int[16];
+
+	/**
+	 * The labels each classifier advocates for or against (its ability is not
+	 * zero). The words of classifier i start at i * words.
+	 */
+	private long[] active;
+
+	/**
+	 * The labels each classifier classifies correctly (its ability is
+	 * positive). The words of classifier i start at i * words.
+	 */
+	private long[] correct;
+
+	/**
+	 * The (lazily computed) ability of each classifier to classify all labels
+	 * correctly, NaN if not computed yet.
+	 */
+	private float[] overallAbility = new float[16];
+
+	/**
+	 * The total numerosity of the classifiers that classify each label
+	 * correctly.
+	 */
+	private final int[] labelCorrectNumerosity;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param labels
+	 *            the number of labels
+	 */
+	MultiLabelEvaluation(final int labels) {
+		numberOfLabels = labels;
+		words = (labels + 63) >>> 6;
+		labelCorrectNumerosity = new int[labels];
+		active = new long[16 * words];
+		correct = new long[16 * words];
+	}
+
+	/**
+	 * Evaluate all classifiers of a match set on an instance.
+	 * 
+	 * @param matchSet
+	 *            the match set
+	 * @param instance
+	 *            the index of the train instance
+	 * @return this evaluation
+	 */
+	MultiLabelEvaluation evaluate(final IClassifierSetView matchSet,
+			final int instance) {
+		size = matchSet.getNumberOfMacroclassifiers();
+		instanceIndex = instance;
+		ensureCapacity(size);
+		Arrays.fill(active, 0, size * words, 0);
+		Arrays.fill(correct, 0, size * words, 0);
+		Arrays.fill(overallAbility, 0, size, Float.NaN);
+		Arrays.fill(labelCorrectNumerosity, 0);
+
+		for (int i = 0; i < size; i++) {
+			final Classifier cl = matchSet.getClassifier(i);
+			final int numerosity = matchSet.getClassifierNumerosity(i);
+			classifiers[i] = cl;
+			numerosities[i] = numerosity;
+			final int base = i * words;
+			for (int label = 0; label < numberOfLabels; label++) {
+				final float ability = cl.classifyLabelCorrectly(instance,
+						label);
+				if (ability == 0)
+					continue;
+				final long bit = 1L << label;
+				active[base + (label >>> 6)] |= bit;
+				if (ability > 0) {
+					correct[base + (label >>> 6)] |= bit;
+					labelCorrectNumerosity[label] += numerosity;
+				}
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Return the ability of a classifier to classify all labels of the
+	 * instance correctly, computing it on first use.
+	 * 
+	 * @param index
+	 *            the index of the classifier in the match set
+	 * @return the classifier's ability (see Classifier.classifyCorrectly())
+	 */
+	float classifyCorrectly(final int index) {
+		float ability = overallAbility[index];
+		if (Float.isNaN(ability)) {
+			ability = classifiers[index].classifyCorrectly(instanceIndex);
+			overallAbility[index] = ability;
+		}
+		return ability;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @param index
+	 *            the index of the classifier in the match set
+	 * @return the classifier at the index
+	 */
+	Classifier getClassifier(final int index) {
+		return classifiers[index];
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @param index
+	 *            the index of the classifier in the match set
+	 * @return the numerosity of the classifier at the index
+	 */
+	int getNumerosity(final int index) {
+		return numerosities[index];
+	}
+
+	/**
+	 * Return the total numerosity of the classifiers that classify a label
+	 * correctly, i.e. the numerosity of the label's correct set.
+	 * 
+	 * @param label
+	 *            the label index
+	 * @return the label correct set numerosity
+	 */
+	int getLabelCorrectNumerosity(final int label) {
+		return labelCorrectNumerosity[label];
+	}
+
+	/**
+	 * Return the number of labels a classifier advocates for or against.
+	 * 
+	 * @param index
+	 *            the index of the classifier in the match set
+	 * @return the number of labels with non-zero ability
+	 */
+	int getActiveLabels(final int index) {
+		int count = 0;
+		final int base = index * words;
+		for (int w = 0; w < words; w++)
+			count += Long.bitCount(active[base + w]);
+		return count;
+	}
+
+	/**
+	 * Check if a classifier advocates for or against a label.
+	 * 
+	 * @param index
+	 *            the index of the classifier in the match set
+	 * @param label
+	 *            the label index
+	 * @return true if the classifier's ability for the label is not zero
+	 */
+	boolean isActive(final int index, final int label) {
+		return (active[(index * words) + (label >>> 6)] & (1L << label)) != 0;
+	}
+
+	/**
+	 * Check if a classifier classifies a label correctly.
+	 * 
+	 * @param index
+	 *            the index of the classifier in the match set
+	 * @param label
+	 *            the label index
+	 * @return true if the classifier's ability for the label is positive
+	 */
+	boolean isCorrect(final int index, final int label) {
+		return (correct[(index * words) + (label >>> 6)] & (1L << label)) != 0;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return the number of evaluated classifiers
+	 */
+	int size() {
+		return size;
+	}
+
+	/**
+	 * Make sure that the arrays can hold a number of classifiers.
+	 * 
+	 * @param capacity
+	 *            the number of classifiers
+	 */
+	private void ensureCapacity(final int capacity) {
+		if (capacity <= classifiers.length) {
+			return;
+		}
+		final int newCapacity = Math.max(capacity, 2 * classifiers.length);
+		classifiers = new Classifier[newCapacity];
+		numerosities = new int[newCapacity];
+		overallAbility = new float[newCapacity];
+		active = new long[newCapacity * words];
+		correct = new long[newCapacity * words];
+	}
+}
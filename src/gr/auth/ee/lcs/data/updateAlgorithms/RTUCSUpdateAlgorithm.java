@@ -27,9 +27,12 @@ package gr.auth.ee.lcs.data.updateAlgorithms;
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
 import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
 import gr.auth.ee.lcs.classifiers.Macroclassifier;
+import gr.auth.ee.lcs.classifiers.MatchSetView;
 import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
 import gr.auth.ee.lcs.geneticalgorithm.IGeneticAlgorithmStrategy;
+import gr.auth.ee.lcs.utilities.RandomSource;
 
 import java.io.Serializable;
 
@@ -129,6 +132,18 @@ public final class RTUCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 */
 	private final AbstractLearningClassifierSystem myLcs;
 
+	/**
+	 * The (reused) per label correct set views of each training thread.
+	 */
+	private final ThreadLocal<MatchSetView[]> correctSetViews = MatchSetView
+			.newThreadLocal(0);
+
+	/**
+	 * The (reused) wrong set view of each training thread.
+	 */
+	private final ThreadLocal<MatchSetView> wrongSetView = MatchSetView
+			.newThreadLocal();
+
 	/**
 	 * Default constructor.
 	 * 
@@ -268,8 +283,8 @@ public final class RTUCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 *            the correct set used for the update
 	 */
 	@Override
-	public void performUpdate(final ClassifierSet matchSet,
-			final ClassifierSet correctSet) {
+	public void performUpdate(final IClassifierSetView matchSet,
+			final IClassifierSetView correctSet) {
 		// Do nothing
 	}
 
@@ -292,17 +307,23 @@ public final class RTUCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 */
 	@Override
 	public void updateSet(final ClassifierSet population,
-			final ClassifierSet matchSet, final int instanceIndex,
+			final IClassifierSetView matchSet, final int instanceIndex,
 			final boolean evolve) {
 
 		final int[] classifications = myLcs.getClassifierTransformBridge()
 				.getDataInstanceLabels(myLcs.instances[instanceIndex]);
 		final int numOfCorrectSets = classifications.length;
-		final ClassifierSet[] correctSets = new ClassifierSet[numOfCorrectSets];
+		MatchSetView[] correctSets = correctSetViews.get();
+		if (correctSets.length < numOfCorrectSets) {
+			correctSets = new MatchSetView[numOfCorrectSets];
+			for (int i = 0; i < numOfCorrectSets; i++)
+				correctSets[i] = new MatchSetView();
+			correctSetViews.set(correctSets);
+		}
 		for (int i = 0; i < numOfCorrectSets; i++)
-			correctSets[i] = new ClassifierSet(null);
+			correctSets[i].detach();
 
-		final ClassifierSet wrongSet = new ClassifierSet(null);
+		final MatchSetView wrongSet = wrongSetView.get().detach();
 
 		final int matchSetSize = matchSet.getNumberOfMacroclassifiers();
 		for (int i = 0; i < matchSetSize; i++) {
@@ -310,13 +331,12 @@ public final class RTUCSUpdateAlgorithm extends AbstractUpdateStrategy {
 			boolean added = false;
 			for (int j = 0; j < numOfCorrectSets; j++) {
 				if (cl.classifyLabelCorrectly(instanceIndex, classifications[j]) > 0) {
-					correctSets[j].addClassifier(
-							matchSet.getMacroclassifier(i), false);
+					correctSets[j].add(cl, matchSet.getClassifierNumerosity(i));
 					added = true;
 				}
 			}
 			if (!added)
-				wrongSet.addClassifier(matchSet.getMacroclassifier(i), false);
+				wrongSet.add(cl, matchSet.getClassifierNumerosity(i));
 		}
 
 		/*
@@ -340,7 +360,7 @@ public final class RTUCSUpdateAlgorithm extends AbstractUpdateStrategy {
 		 * Run GA
 		 */
 		if (evolve) {
-			if (Math.random() < matchSetRunProbability) {
+			if (RandomSource.nextDouble() < matchSetRunProbability) {
 				ga.evolveSet(matchSet, population);
 			} else {
 				for (int i = 0; i < numOfCorrectSets; i++)
@@ -359,7 +379,7 @@ public final class RTUCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 * @param fitnessToShare
 	 *            the numeric value of the fitness to share
 	 */
-	private void shareFitness(final ClassifierSet set,
+	private void shareFitness(final IClassifierSetView set,
 			final double fitnessToShare) {
 		double strengthSum = 0;
 		final int setSize = set.getNumberOfMacroclassifiers();
@@ -406,7 +426,7 @@ public final class RTUCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 * @param set
 	 *            the [!C] set
 	 */
-	private void updateWrongSet(final ClassifierSet set) {
+	private void updateWrongSet(final IClassifierSetView set) {
 		final int setSize = set.getNumberOfMacroclassifiers();
 		for (int i = 0; i < setSize; i++) {
 			Classifier cl = set.getClassifier(i);
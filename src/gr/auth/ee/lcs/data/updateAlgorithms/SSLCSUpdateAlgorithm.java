@@ -24,6 +24,7 @@ package gr.auth.ee.lcs.data.updateAlgorithms;
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
 import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
 import gr.auth.ee.lcs.geneticalgorithm.IGeneticAlgorithmStrategy;
 
 /**
@@ -108,7 +109,7 @@ public class SSLCSUpdateAlgorithm extends AbstractSLCSUpdateAlgorithm {
 	 */
 	@Override
 	public final void updateFitness(final Classifier aClassifier,
-			final int numerosity, final ClassifierSet correctSet) {
+			final int numerosity, final IClassifierSetView correctSet) {
 		final SLCSClassifierData data = ((SLCSClassifierData) aClassifier
 				.getUpdateDataObject());
 		if (Double.isNaN(data.str) || Double.isInfinite(data.str))
@@ -26,9 +26,11 @@ package gr.auth.ee.lcs.data.updateAlgorithms;
 
 import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
-import gr.auth.ee.lcs.classifiers.Macroclassifier;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
+import gr.auth.ee.lcs.classifiers.MatchSetView;
 import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
 import gr.auth.ee.lcs.geneticalgorithm.IGeneticAlgorithmStrategy;
+import gr.auth.ee.lcs.utilities.RandomSource;
 
 import java.io.Serializable;
 import java.util.Random;
@@ -54,6 +56,18 @@ public class SequentialMlUpdateAlgorithm extends AbstractUpdateStrategy {
 	 */
 	private final int numberOfLabels;
 
+	/**
+	 * The (reused) label match set view of each training thread.
+	 */
+	private final ThreadLocal<MatchSetView> labelMatchSetView = MatchSetView
+			.newThreadLocal();
+
+	/**
+	 * The (reused) correct set view of each training thread.
+	 */
+	private final ThreadLocal<MatchSetView> correctSetView = MatchSetView
+			.newThreadLocal();
+
 	/**
 	 * Constructor.
 	 * 
@@ -130,8 +144,8 @@ public class SequentialMlUpdateAlgorithm extends AbstractUpdateStrategy {
 	 * @param correctSet
 	 */
 	@Override
-	public void performUpdate(final ClassifierSet matchSet,
-			final ClassifierSet correctSet) {
+	public void performUpdate(final IClassifierSetView matchSet,
+			final IClassifierSetView correctSet) {
 
 		strategy.performUpdate(matchSet, correctSet);
 
@@ -152,7 +166,7 @@ public class SequentialMlUpdateAlgorithm extends AbstractUpdateStrategy {
 
 	@Override
 	public final void updateSet(final ClassifierSet population,
-			final ClassifierSet matchSet, final int instanceIndex,
+			final IClassifierSetView matchSet, final int instanceIndex,
 			final boolean evolve) {
 		// Generate random labels
 		final int[] labelSequence = new int[numberOfLabels];
@@ -161,7 +175,7 @@ public class SequentialMlUpdateAlgorithm extends AbstractUpdateStrategy {
 		}
 
 		// Shuffle
-		final Random rgen = new Random();
+		final Random rgen = RandomSource.current();
 		for (int i = 0; i < numberOfLabels; i++) {
 			final int randomPosition = rgen.nextInt(numberOfLabels);
 			final int temp = labelSequence[i];
@@ -174,13 +188,13 @@ public class SequentialMlUpdateAlgorithm extends AbstractUpdateStrategy {
 			/*
 			 * Generate label set
 			 */
-			final ClassifierSet labelSet = generateLabelMatchSet(matchSet,
+			final MatchSetView labelSet = generateLabelMatchSet(matchSet,
 					instanceIndex, label);
 
 			/*
 			 * Generate correct set
 			 */
-			final ClassifierSet correctSet = generateCorrectSet(labelSet,
+			final MatchSetView correctSet = generateCorrectSet(labelSet,
 					instanceIndex, label);
 
 			/*
@@ -229,15 +243,17 @@ public class SequentialMlUpdateAlgorithm extends AbstractUpdateStrategy {
 	 *            the label index
 	 * @return the correct set
 	 */
-	private ClassifierSet generateCorrectSet(final ClassifierSet matchSet,
+	private MatchSetView generateCorrectSet(
+			final IClassifierSetView matchSet,
 			final int instanceIndex, final int labelIndex) {
-		final ClassifierSet correctSet = new ClassifierSet(null);
+		final MatchSetView correctSet = MatchSetView.filterOf(matchSet,
+				correctSetView.get());
 		final int matchSetSize = matchSet.getNumberOfMacroclassifiers();
 		for (int i = 0; i < matchSetSize; i++) {
-			Macroclassifier cl = matchSet.getMacroclassifier(i);
-			if (cl.myClassifier.classifyLabelCorrectly(instanceIndex,
+			final Classifier cl = matchSet.getClassifier(i);
+			if (cl.classifyLabelCorrectly(instanceIndex,
 					labelIndex) > 0)
-				correctSet.addClassifier(cl, false);
+				correctSet.add(cl, matchSet.getClassifierNumerosity(i));
 		}
 		return correctSet;
 	}
@@ -255,15 +271,17 @@ public class SequentialMlUpdateAlgorithm extends AbstractUpdateStrategy {
 	 * @return a classifier set containing the LabelMatchSet of the given
 	 *         matchset
 	 */
-	private ClassifierSet generateLabelMatchSet(final ClassifierSet matchSet,
+	private MatchSetView generateLabelMatchSet(
+			final IClassifierSetView matchSet,
 			final int instanceIndex, final int labelIndex) {
-		final ClassifierSet labelMatchSet = new ClassifierSet(null);
+		final MatchSetView labelMatchSet = MatchSetView.filterOf(matchSet,
+				labelMatchSetView.get());
 		final int matchSetSize = matchSet.getNumberOfMacroclassifiers();
 		for (int i = 0; i < matchSetSize; i++) {
-			Macroclassifier cl = matchSet.getMacroclassifier(i);
-			if (cl.myClassifier.classifyLabelCorrectly(instanceIndex,
+			final Classifier cl = matchSet.getClassifier(i);
+			if (cl.classifyLabelCorrectly(instanceIndex,
 					labelIndex) != 0)
-				labelMatchSet.addClassifier(cl, false);
+				labelMatchSet.add(cl, matchSet.getClassifierNumerosity(i));
 		}
 		return labelMatchSet;
 	}
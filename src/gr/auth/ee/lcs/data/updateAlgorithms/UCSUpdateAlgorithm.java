@@ -27,9 +27,12 @@ package gr.auth.ee.lcs.data.updateAlgorithms;
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
 import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
 import gr.auth.ee.lcs.classifiers.Macroclassifier;
+import gr.auth.ee.lcs.classifiers.MatchSetView;
 import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
 import gr.auth.ee.lcs.geneticalgorithm.IGeneticAlgorithmStrategy;
+import gr.auth.ee.lcs.utilities.RandomSource;
 
 import java.io.Serializable;
 
@@ -132,6 +135,12 @@ public final class UCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 */
 	private final AbstractLearningClassifierSystem myLcs;
 
+	/**
+	 * The (reused) correct set view of each training thread.
+	 */
+	private final ThreadLocal<MatchSetView> correctSetView = MatchSetView
+			.newThreadLocal();
+
 	/**
 	 * The mean population fitness of the population being updated.
 	 */
@@ -281,8 +290,8 @@ public final class UCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 *            the correct set used for the update
 	 */
 	@Override
-	public void performUpdate(final ClassifierSet matchSet,
-			final ClassifierSet correctSet) {
+	public void performUpdate(final IClassifierSetView matchSet,
+			final IClassifierSetView correctSet) {
 		double strengthSum = 0;
 		final int matchSetMacroclassifiers = matchSet
 				.getNumberOfMacroclassifiers();
@@ -357,14 +366,14 @@ public final class UCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 */
 	@Override
 	public void updateSet(final ClassifierSet population,
-			final ClassifierSet matchSet, final int instanceIndex,
+			final IClassifierSetView matchSet, final int instanceIndex,
 			final boolean evolve) {
 		updateMeanPopulationFitness(population);
 
 		/*
 		 * Generate correct set
 		 */
-		final ClassifierSet correctSet = generateCorrectSet(matchSet,
+		final MatchSetView correctSet = generateCorrectSet(matchSet,
 				instanceIndex);
 
 		/*
@@ -386,7 +395,7 @@ public final class UCSUpdateAlgorithm extends AbstractUpdateStrategy {
 		 * Run GA
 		 */
 		if (evolve) {
-			if (Math.random() < matchSetRunProbability) {
+			if (RandomSource.nextDouble() < matchSetRunProbability) {
 				ga.evolveSet(matchSet, population);
 			} else {
 				ga.evolveSet(correctSet, population);
@@ -404,14 +413,16 @@ public final class UCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 *            the global instance index
 	 * @return the correct set
 	 */
-	private ClassifierSet generateCorrectSet(final ClassifierSet matchSet,
+	private MatchSetView generateCorrectSet(
+			final IClassifierSetView matchSet,
 			final int instanceIndex) {
-		final ClassifierSet correctSet = new ClassifierSet(null);
+		final MatchSetView correctSet = MatchSetView.filterOf(matchSet,
+				correctSetView.get());
 		final int matchSetSize = matchSet.getNumberOfMacroclassifiers();
 		for (int i = 0; i < matchSetSize; i++) {
-			Macroclassifier cl = matchSet.getMacroclassifier(i);
-			if (cl.myClassifier.classifyCorrectly(instanceIndex) >= correctSetThreshold)
-				correctSet.addClassifier(cl, false);
+			final Classifier cl = matchSet.getClassifier(i);
+			if (cl.classifyCorrectly(instanceIndex) >= correctSetThreshold)
+				correctSet.add(cl, matchSet.getClassifierNumerosity(i));
 		}
 		return correctSet;
 	}
@@ -423,17 +434,18 @@ public final class UCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 *            a set representing the population.
 	 */
 	private void updateMeanPopulationFitness(final ClassifierSet population) {
-		meanPopulationFitness = 0;
+		// Sum locally, so that concurrent threads never read a partial sum
+		double fitnessSum = 0;
 		final int populationSize = population.getNumberOfMacroclassifiers();
 		for (int i = 0; i < populationSize; i++) {
 			final int clNumerosity = population.getClassifierNumerosity(i);
 			final Classifier cl = population.getClassifier(i);
 			final double fitness = ((UCSClassifierData) cl
 					.getUpdateDataObject()).fitness;
-			meanPopulationFitness += fitness * clNumerosity;
+			fitnessSum += fitness * clNumerosity;
 		}
 
-		meanPopulationFitness /= population.getTotalNumerosity();
+		meanPopulationFitness = fitnessSum / population.getTotalNumerosity();
 	}
 
 }
@@ -24,9 +24,12 @@ package gr.auth.ee.lcs.data.updateAlgorithms;
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
 import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
 import gr.auth.ee.lcs.classifiers.Macroclassifier;
+import gr.auth.ee.lcs.classifiers.MatchSetView;
 import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
 import gr.auth.ee.lcs.geneticalgorithm.IGeneticAlgorithmStrategy;
+import gr.auth.ee.lcs.utilities.RandomSource;
 
 import java.io.Serializable;
 
@@ -126,6 +129,12 @@ public final class XCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 */
 	private final AbstractLearningClassifierSystem myLcs;
 
+	/**
+	 * The (reused) correct set view of each training thread.
+	 */
+	private final ThreadLocal<MatchSetView> correctSetView = MatchSetView
+			.newThreadLocal();
+
 	/**
 	 * Constructor.
 	 * 
@@ -261,8 +270,8 @@ public final class XCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 *            the correct set
 	 */
 	@Override
-	public void performUpdate(final ClassifierSet actionSet,
-			final ClassifierSet correctSet) {
+	public void performUpdate(final IClassifierSetView actionSet,
+			final IClassifierSetView correctSet) {
 		double accuracySum = 0;
 
 		for (int i = 0; i < actionSet.getNumberOfMacroclassifiers(); i++) {
@@ -351,12 +360,12 @@ public final class XCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 */
 	@Override
 	public void updateSet(final ClassifierSet population,
-			final ClassifierSet matchSet, final int instanceIndex,
+			final IClassifierSetView matchSet, final int instanceIndex,
 			final boolean evolve) {
 		/*
 		 * Generate correct set
 		 */
-		final ClassifierSet correctSet = generateCorrectSet(matchSet,
+		final MatchSetView correctSet = generateCorrectSet(matchSet,
 				instanceIndex);
 
 		/*
@@ -377,7 +386,7 @@ public final class XCSUpdateAlgorithm extends AbstractUpdateStrategy {
 		 * Run GA
 		 */
 		if (evolve) {
-			if (Math.random() < matchSetRunProbability)
+			if (RandomSource.nextDouble() < matchSetRunProbability)
 				ga.evolveSet(matchSet, population);
 			else
 				ga.evolveSet(correctSet, population);
@@ -394,14 +403,16 @@ public final class XCSUpdateAlgorithm extends AbstractUpdateStrategy {
 	 *            the global instance index
 	 * @return the correct set
 	 */
-	private ClassifierSet generateCorrectSet(final ClassifierSet matchSet,
+	private MatchSetView generateCorrectSet(
+			final IClassifierSetView matchSet,
 			final int instanceIndex) {
-		final ClassifierSet correctSet = new ClassifierSet(null);
+		final MatchSetView correctSet = MatchSetView.filterOf(matchSet,
+				correctSetView.get());
 		final int matchSetSize = matchSet.getNumberOfMacroclassifiers();
 		for (int i = 0; i < matchSetSize; i++) {
-			Macroclassifier cl = matchSet.getMacroclassifier(i);
-			if (cl.myClassifier.classifyCorrectly(instanceIndex) == 1)
-				correctSet.addClassifier(cl, false);
+			final Classifier cl = matchSet.getClassifier(i);
+			if (cl.classifyCorrectly(instanceIndex) == 1)
+				correctSet.add(cl, matchSet.getClassifierNumerosity(i));
 		}
 		return correctSet;
 	}
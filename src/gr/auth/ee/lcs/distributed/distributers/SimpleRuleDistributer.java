@@ -5,6 +5,7 @@ package gr.auth.ee.lcs.distributed.distributers;
 
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
 import gr.auth.ee.lcs.distributed.AbstractRuleDistributer;
 import gr.auth.ee.lcs.distributed.IRuleRouter;
 import gr.auth.ee.lcs.geneticalgorithm.IRuleSelector;
@@ -22,8 +23,8 @@ public class SimpleRuleDistributer extends AbstractRuleDistributer {
 	 */
 	static IRuleSelector selector = new IRuleSelector() {
 		@Override
-		public void select(int howManyToSelect, ClassifierSet fromPopulation,
-				ClassifierSet toPopulation) {
+		public void select(int howManyToSelect,
+				IClassifierSetView fromPopulation, ClassifierSet toPopulation) {
 			toPopulation.merge(fromPopulation);
 		}
 
@@ -25,6 +25,7 @@
 package gr.auth.ee.lcs.evaluators;
 
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.BatchClassification;
 import gr.auth.ee.lcs.data.ClassifierTransformBridge;
 import gr.auth.ee.lcs.data.ILCSMetric;
 import gr.auth.ee.lcs.utilities.InstancesUtility;
@@ -62,6 +63,11 @@ public class AccuracyRecallEvaluator implements ILCSMetric {
 	 */
 	private final double[][] instances;
 
+	/**
+	 * The (sorted) labels of each instance.
+	 */
+	private int[][] instanceLabels = null;
+
 	/**
 	 * A boolean indicating if the evaluator is going to print the results.
 	 */
@@ -148,8 +154,19 @@ public class AccuracyRecallEvaluator implements ILCSMetric {
 	 */
 	@Override
 	public final double getMetric(final AbstractLearningClassifierSystem lcs) {
-		final ClassifierTransformBridge bridge = myLcs
-				.getClassifierTransformBridge();
+		return getMetric(myLcs.classifyInstances(instances));
+	}
+
+	/**
+	 * Evaluate a given classification of the instances.
+	 * 
+	 * @param classified
+	 *            the classification of the evaluator's instances, in the same
+	 *            order
+	 * @return the metric of the classification
+	 */
+	public final double getMetric(final BatchClassification classified) {
+		final int[][] actualLabels = getInstanceLabels();
 
 		double sumOfAccuracies = 0;
 		double sumOfRecall = 0;
@@ -160,15 +177,13 @@ public class AccuracyRecallEvaluator implements ILCSMetric {
 			int unionOfLabels = 0;
 			int intersectionOfLabels = 0;
 
-			final int[] classes = lcs.classifyInstance(instances[i]);
-			final int[] classification = bridge
-					.getDataInstanceLabels(instances[i]);
+			final int numberOfClasses = classified.getNumberOfLabels(i);
+			final int[] classification = actualLabels[i];
 
 			// Find symmetric differences
-			Arrays.sort(classes);
-			Arrays.sort(classification);
-			for (int j = 0; j < classes.length; j++) {
-				if (Arrays.binarySearch(classification, classes[j]) < 0) {
+			for (int j = 0; j < numberOfClasses; j++) {
+				if (Arrays.binarySearch(classification,
+						classified.getLabel(i, j)) < 0) {
 					unionOfLabels++;
 				} else {
 					intersectionOfLabels++;
@@ -176,7 +191,7 @@ public class AccuracyRecallEvaluator implements ILCSMetric {
 				}
 			}
 			for (int j = 0; j < classification.length; j++) {
-				if (Arrays.binarySearch(classes, classification[j]) < 0)
+				if (!classified.isClassifiedAs(i, classification[j]))
 					unionOfLabels++;
 			}
 			final double instanceAccuracy = ((double) intersectionOfLabels)
@@ -205,6 +220,34 @@ public class AccuracyRecallEvaluator implements ILCSMetric {
 			return recall;
 	}
 
+	/**
+	 * Returns the instances the evaluator evaluates on.
+	 * 
+	 * @return the instances
+	 */
+	public final double[][] getInstances() {
+		return instances;
+	}
+
+	/**
+	 * Returns the (sorted) labels of the instances, finding them if needed.
+	 * 
+	 * @return the labels of each instance
+	 */
+	private int[][] getInstanceLabels() {
+		if (instanceLabels == null) {
+			final ClassifierTransformBridge bridge = myLcs
+					.getClassifierTransformBridge();
+			final int[][] labels = new int[instances.length][];
+			for (int i = 0; i < instances.length; i++) {
+				labels[i] = bridge.getDataInstanceLabels(instances[i]);
+				Arrays.sort(labels[i]);
+			}
+			instanceLabels = labels;
+		}
+		return instanceLabels;
+	}
+
 	public String getMetricName() {
 		if (currentType == TYPE_ACCURACY) {
 			return "Accuracy";
@@ -25,6 +25,7 @@
 package gr.auth.ee.lcs.evaluators;
 
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.BatchClassification;
 import gr.auth.ee.lcs.data.ClassifierTransformBridge;
 import gr.auth.ee.lcs.data.ILCSMetric;
 import gr.auth.ee.lcs.utilities.InstancesUtility;
@@ -120,14 +121,14 @@ public class ExactMatchEvalutor implements ILCSMetric {
 				.getClassifierTransformBridge();
 
 		int tp = 0, fp = 0;
+		final BatchClassification classified = myLcs
+				.classifyInstances(instances);
 		for (int i = 0; i < instances.length; i++) {
-			final int[] classes = myLcs.classifyInstance(instances[i]);
 			final int[] classification = bridge
 					.getDataInstanceLabels(instances[i]);
-			Arrays.sort(classes);
 			Arrays.sort(classification);
 
-			if (Arrays.equals(classes, classification))
+			if (classified.isClassifiedExactlyAs(i, classification))
 				tp++;
 			else
 				fp++;
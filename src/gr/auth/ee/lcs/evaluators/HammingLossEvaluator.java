@@ -25,6 +25,7 @@
 package gr.auth.ee.lcs.evaluators;
 
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.BatchClassification;
 import gr.auth.ee.lcs.data.ClassifierTransformBridge;
 import gr.auth.ee.lcs.data.ILCSMetric;
 import gr.auth.ee.lcs.utilities.InstancesUtility;
@@ -141,22 +142,24 @@ public class HammingLossEvaluator implements ILCSMetric {
 		final ClassifierTransformBridge bridge = myLcs
 				.getClassifierTransformBridge();
 		int numberOfSymmetricDifferences = 0;
+		final BatchClassification classified = myLcs
+				.classifyInstances(instances);
 		for (int i = 0; i < instances.length; i++) {
 
-			final int[] classes = myLcs.classifyInstance(instances[i]);
+			final int numberOfClasses = classified.getNumberOfLabels(i);
 			final int[] classification = bridge
 					.getDataInstanceLabels(instances[i]);
 
 			// Find symmetric differences
-			Arrays.sort(classes);
 			Arrays.sort(classification);
 
-			for (int j = 0; j < classes.length; j++) {
-				if (Arrays.binarySearch(classification, classes[j]) < 0)
+			for (int j = 0; j < numberOfClasses; j++) {
+				if (Arrays.binarySearch(classification,
+						classified.getLabel(i, j)) < 0)
 					numberOfSymmetricDifferences++;
 			}
 			for (int j = 0; j < classification.length; j++) {
-				if (Arrays.binarySearch(classes, classification[j]) < 0)
+				if (!classified.isClassifiedAs(i, classification[j]))
 					numberOfSymmetricDifferences++;
 			}
 		}
@@ -0,0 +1,247 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.evaluators;
+
+import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.BatchClassification;
+import gr.auth.ee.lcs.data.ClassifierTransformBridge;
+import gr.auth.ee.lcs.data.ILCSMetric;
+import gr.auth.ee.lcs.utilities.InstancesUtility;
+
+import java.util.Arrays;
+
+import weka.core.Instances;
+
+/**
+ * An evaluator computing the accuracy, the recall, the Hamming loss and the
+ * exact match of an LCS at once. Each instance is classified once and all
+ * metrics are accumulated from that classification. As a single metric, the
+ * evaluator reports the accuracy.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public class MultiLabelMetricsEvaluator implements ILCSMetric {
+
+	/**
+	 * The index of the accuracy in the metrics array.
+	 */
+	public static final int ACCURACY = 0;
+
+	/**
+	 * The index of the recall in the metrics array.
+	 */
+	public static final int RECALL = 1;
+
+	/**
+	 * The index of the Hamming loss in the metrics array.
+	 */
+	public static final int HAMMING_LOSS = 2;
+
+	/**
+	 * The index of the exact match in the metrics array.
+	 */
+	public static final int EXACT_MATCH = 3;
+
+	/**
+	 * The number of metrics computed.
+	 */
+	public static final int NUMBER_OF_METRICS = 4;
+
+	/**
+	 * The set of instances to evaluate on.
+	 */
+	private final double[][] instances;
+
+	/**
+	 * The (sorted) labels of each instance.
+	 */
+	private int[][] instanceLabels = null;
+
+	/**
+	 * The number of labels used.
+	 */
+	private final int numberOfLabels;
+
+	/**
+	 * The LCS instance being used.
+	 */
+	private final AbstractLearningClassifierSystem myLcs;
+
+	/**
+	 * Constructor using double[][] of instances.
+	 * 
+	 * @param instances
+	 *            the instances
+	 * @param numOfLabels
+	 *            the number of labels
+	 * @param lcs
+	 *            the LCS instance used
+	 */
+	public MultiLabelMetricsEvaluator(final double[][] instances,
+			final int numOfLabels, final AbstractLearningClassifierSystem lcs) {
+		this.instances = instances;
+		numberOfLabels = numOfLabels;
+		myLcs = lcs;
+	}
+
+	/**
+	 * Constructor using a Weka instance set. The set is converted once.
+	 * 
+	 * @param instances
+	 *            the set of Weka instances
+	 * @param numOfLabels
+	 *            the number of labels
+	 * @param lcs
+	 *            the LCS instance used
+	 */
+	public MultiLabelMetricsEvaluator(final Instances instances,
+			final int numOfLabels, final AbstractLearningClassifierSystem lcs) {
+		this(InstancesUtility.convertIntancesToDouble(instances), numOfLabels,
+				lcs);
+	}
+
+	/**
+	 * Evaluate an LCS, classifying each instance once.
+	 * 
+	 * @param lcs
+	 *            the LCS to evaluate
+	 * @param results
+	 *            the array to store the metrics in (in the order of the
+	 *            metric indices)
+	 * @param offset
+	 *            the position in results to store the first metric
+	 */
+	public void evaluate(final AbstractLearningClassifierSystem lcs,
+			final double[] results, final int offset) {
+		final int[][] actualLabels = getInstanceLabels();
+		final BatchClassification classified = lcs
+				.classifyInstances(instances);
+
+		double sumOfAccuracies = 0;
+		double sumOfRecall = 0;
+		int emptySamples = 0;
+		int numberOfSymmetricDifferences = 0;
+		int exactMatches = 0;
+
+		for (int i = 0; i < instances.length; i++) {
+			final int[] classification = actualLabels[i];
+			final int numberOfClasses = classified.getNumberOfLabels(i);
+
+			int intersectionOfLabels = 0;
+			for (int j = 0; j < numberOfClasses; j++) {
+				if (Arrays.binarySearch(classification,
+						classified.getLabel(i, j)) >= 0)
+					intersectionOfLabels++;
+			}
+			final int symmetricDifferences = (numberOfClasses - intersectionOfLabels)
+					+ (classification.length - intersectionOfLabels);
+			final int unionOfLabels = intersectionOfLabels
+					+ symmetricDifferences;
+
+			final double instanceAccuracy = ((double) intersectionOfLabels)
+					/ ((double) unionOfLabels);
+			sumOfAccuracies += Double.isNaN(instanceAccuracy) ? 0
+					: instanceAccuracy;
+
+			final double instanceRecall = ((double) intersectionOfLabels)
+					/ ((double) classification.length);
+			sumOfRecall += Double.isNaN(instanceRecall) ? 0 : instanceRecall;
+
+			if (unionOfLabels == 0)
+				emptySamples++;
+
+			numberOfSymmetricDifferences += symmetricDifferences;
+			if (symmetricDifferences == 0)
+				exactMatches++;
+		}
+
+		results[offset + ACCURACY] = sumOfAccuracies
+				/ (instances.length - emptySamples);
+		results[offset + RECALL] = sumOfRecall
+				/ (instances.length - emptySamples);
+		results[offset + HAMMING_LOSS] = ((double) numberOfSymmetricDifferences)
+				/ ((double) (instances.length * numberOfLabels));
+		results[offset + EXACT_MATCH] = ((double) exactMatches)
+				/ ((double) instances.length);
+	}
+
+	/**
+	 * Returns the (sorted) labels of the instances, finding them if needed.
+	 * 
+	 * @return the labels of each instance
+	 */
+	private int[][] getInstanceLabels() {
+		if (instanceLabels == null) {
+			final ClassifierTransformBridge bridge = myLcs
+					.getClassifierTransformBridge();
+			final int[][] labels = new int[instances.length][];
+			for (int i = 0; i < instances.length; i++) {
+				labels[i] = bridge.getDataInstanceLabels(instances[i]);
+				Arrays.sort(labels[i]);
+			}
+			instanceLabels = labels;
+		}
+		return instanceLabels;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see
+	 * gr.auth.ee.lcs.data.ILCSMetric#getMetric(gr.auth.ee.lcs.
+	 * AbstractLearningClassifierSystem)
+	 */
+	@Override
+	public double getMetric(final AbstractLearningClassifierSystem lcs) {
+		return getMetrics(lcs)[ACCURACY];
+	}
+
+	@Override
+	public String getMetricName() {
+		return "Accuracy";
+	}
+
+	/**
+	 * Returns the names of the metrics, in the order of the metric indices.
+	 * 
+	 * @return a String array of the metric names
+	 */
+	public String[] getMetricNames() {
+		final String[] names = { "Accuracy", "Recall", "Hamming Loss",
+				"Exact Match" };
+		return names;
+	}
+
+	/**
+	 * Evaluate an LCS, classifying each instance once.
+	 * 
+	 * @param lcs
+	 *            the LCS to evaluate
+	 * @return an array of the metrics (in the order of the metric indices)
+	 */
+	public double[] getMetrics(final AbstractLearningClassifierSystem lcs) {
+		final double[] results = new double[NUMBER_OF_METRICS];
+		evaluate(lcs, results, 0);
+		return results;
+	}
+}
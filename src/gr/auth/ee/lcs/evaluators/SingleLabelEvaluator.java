@@ -25,6 +25,7 @@
 package gr.auth.ee.lcs.evaluators;
 
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.BatchClassification;
 import gr.auth.ee.lcs.data.ClassifierTransformBridge;
 import gr.auth.ee.lcs.data.ILCSMetric;
 import gr.auth.ee.lcs.utilities.InstancesUtility;
@@ -80,17 +81,16 @@ public class SingleLabelEvaluator implements ILCSMetric {
 		final double[][] instances = InstancesUtility
 				.convertIntancesToDouble(instanceSet);
 
+		final BatchClassification classified = myLcs
+				.classifyInstances(instances);
 		for (int i = 0; i < instances.length; i++) {
 
-			final int[] classes = lcs.classifyInstance(instances[i]);
-			Arrays.sort(classes);
-
 			final int[] classification = bridge
 					.getDataInstanceLabels(instances[i]);
 			Arrays.sort(classification);
 
-			final boolean classifiedToLabel = Arrays.binarySearch(classes,
-					label) >= 0;
+			final boolean classifiedToLabel = classified.isClassifiedAs(i,
+					label);
 			final boolean belongsToLabel = Arrays.binarySearch(classification,
 					label) >= 0;
 			if (!(classifiedToLabel ^ belongsToLabel))
@@ -25,13 +25,13 @@
 package gr.auth.ee.lcs.evaluators;
 
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.BatchClassification;
 import gr.auth.ee.lcs.utilities.InstancesUtility;
 import gr.auth.ee.lcs.utilities.LabelRepresentationConverter;
 
 import java.io.BufferedWriter;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.Arrays;
 
 /**
  * TestFileEvaluator classifies the data in a test files and output the
@@ -115,9 +115,10 @@ public class TestFileClassification {
 
 		final StringBuffer response = new StringBuffer();
 
+		final BatchClassification classified = mLcs
+				.classifyInstances(mInstances);
 		for (int i = 0; i < mInstances.length; i++) {
-			final int[] classes = mLcs.classifyInstance(mInstances[i]);
-			Arrays.sort(classes);
+			final int[] classes = classified.getLabels(i);
 			response.append(LabelRepresentationConverter.activeLabelsToString(
 					classes, mNumOfLabels, ",")
 					+ System.getProperty("line.separator"));
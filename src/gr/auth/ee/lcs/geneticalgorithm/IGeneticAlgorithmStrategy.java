@@ -22,6 +22,7 @@
 package gr.auth.ee.lcs.geneticalgorithm;
 
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
 
 /**
  * An interface for evolving a set.
@@ -39,6 +40,6 @@ public interface IGeneticAlgorithmStrategy {
 	 * @param population
 	 *            The population to add new classifiers
 	 */
-	void evolveSet(ClassifierSet evolveSet, ClassifierSet population);
+	void evolveSet(IClassifierSetView evolveSet, ClassifierSet population);
 
 }
\ No newline at end of file
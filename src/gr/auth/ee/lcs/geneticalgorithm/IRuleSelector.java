@@ -22,6 +22,7 @@
 package gr.auth.ee.lcs.geneticalgorithm;
 
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
 
 /**
  * A generic interface for a selection strategy.
@@ -41,7 +42,7 @@ public interface IRuleSelector {
 	 * @param toPopulation
 	 *            the ClassifierSet to copy the selected classifiers
 	 */
-	void select(int howManyToSelect, ClassifierSet fromPopulation,
+	void select(int howManyToSelect, IClassifierSetView fromPopulation,
 			ClassifierSet toPopulation);
 
 }
\ No newline at end of file
@@ -24,11 +24,13 @@ package gr.auth.ee.lcs.geneticalgorithm.algorithms;
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
 import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
 import gr.auth.ee.lcs.classifiers.Macroclassifier;
 import gr.auth.ee.lcs.geneticalgorithm.IBinaryGeneticOperator;
 import gr.auth.ee.lcs.geneticalgorithm.IGeneticAlgorithmStrategy;
 import gr.auth.ee.lcs.geneticalgorithm.IRuleSelector;
 import gr.auth.ee.lcs.geneticalgorithm.IUnaryGeneticOperator;
+import gr.auth.ee.lcs.utilities.RandomSource;
 
 /**
  * A steady-stage GA that selects two individuals from a set (with probability
@@ -81,6 +83,17 @@ public class SteadyStateGeneticAlgorithm implements IGeneticAlgorithmStrategy {
 	 */
 	private final AbstractLearningClassifierSystem myLcs;
 
+	/**
+	 * The (reused) set holding the selected parents, one for each training
+	 * thread.
+	 */
+	private final ThreadLocal<ClassifierSet> parentSets = new ThreadLocal<ClassifierSet>() {
+		@Override
+		protected ClassifierSet initialValue() {
+			return new ClassifierSet(null);
+		}
+	};
+
 	/**
 	 * Default constructor.
 	 * 
@@ -121,7 +134,7 @@ public class SteadyStateGeneticAlgorithm implements IGeneticAlgorithmStrategy {
 	 * gr.auth.ee.lcs.classifiers.ClassifierSet)
 	 */
 	@Override
-	public final void evolveSet(final ClassifierSet evolveSet,
+	public final void evolveSet(final IClassifierSetView evolveSet,
 			final ClassifierSet population) {
 
 		timestamp++;
@@ -135,9 +148,9 @@ public class SteadyStateGeneticAlgorithm implements IGeneticAlgorithmStrategy {
 			evolveSet.getClassifier(i).timestamp = timestamp;
 		}
 
-		final ClassifierSet parents = new ClassifierSet(null);
-
 		// Select parents
+		final ClassifierSet parents = parentSets.get();
+		parents.removeAllMacroclassifiers();
 		gaSelector.select(1, evolveSet, parents);
 		final Classifier parentA = parents.getClassifier(0);
 		parents.deleteClassifier(0);
@@ -149,11 +162,12 @@ public class SteadyStateGeneticAlgorithm implements IGeneticAlgorithmStrategy {
 		for (int i = 0; i < CHILDREN_PER_GENERATION; i++) {
 			Classifier child;
 			// produce a child
-			if ((Math.random() < crossoverRate) && (parentA != parentB)) {
+			if ((RandomSource.nextDouble() < crossoverRate)
+					&& (parentA != parentB)) {
 				child = crossoverOp.operate((i == 0) ? parentB : parentA,
 						(i == 0) ? parentA : parentB);
 			} else {
-				child = (Classifier) ((i == 0) ? parentA : parentB).clone();
+				child = myLcs.getNewClassifier((i == 0) ? parentA : parentB);
 			}
 
 			child = mutationOp.operate(child);
@@ -182,7 +196,7 @@ public class SteadyStateGeneticAlgorithm implements IGeneticAlgorithmStrategy {
 	 *            the set of classifiers to find the mean age
 	 * @return an int representing the set's mean age (rounded)
 	 */
-	private int getMeanAge(final ClassifierSet set) {
+	private int getMeanAge(final IClassifierSetView set) {
 		int meanAge = 0;
 		// Cache value for optimization
 		final int evolveSetSize = set.getNumberOfMacroclassifiers();
@@ -0,0 +1,113 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.geneticalgorithm.operators;
+
+import gr.auth.ee.lcs.classifiers.Classifier;
+import gr.auth.ee.lcs.geneticalgorithm.IUnaryGeneticOperator;
+import gr.auth.ee.lcs.utilities.RandomSource;
+
+/**
+ * Implements a mutation operator equivalent to the uniform bit mutation. Instead
+ * of drawing a random number for each bit, the gaps between the mutated bits
+ * are drawn from a geometric distribution and the flips are applied a whole
+ * unit (64 bits) at a time. The cost is proportional to the number of flipped
+ * bits rather than to the size of the chromosome.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public class GeometricBitMutation implements IUnaryGeneticOperator {
+
+	/**
+	 * The number of bits in each unit of the chromosome.
+	 */
+	private static final int BITS_IN_UNIT = Long.SIZE;
+
+	/**
+	 * The rate at which the mutation happens.
+	 */
+	private final double mutationRate;
+
+	/**
+	 * The logarithm of the probability that a bit is not mutated. Zero when
+	 * the rate is too small to be represented (and no bits are mutated).
+	 */
+	private final double logKeepRate;
+
+	/**
+	 * The default constructor.
+	 * 
+	 * @param rate
+	 *            the probability that a bit will be flipped
+	 */
+	public GeometricBitMutation(final double rate) {
+		this.mutationRate = rate;
+		this.logKeepRate = Math.log(1 - rate);
+	}
+
+	/**
+	 * Return the number of bits to skip before the next mutated bit.
+	 * 
+	 * @return the gap to the next mutated bit
+	 */
+	private int nextGap() {
+		// 1 - U is in (0, 1], so the logarithm is finite
+		final double gap = Math.floor(Math.log(1 - RandomSource.nextDouble())
+				/ logKeepRate);
+		return (gap < Integer.MAX_VALUE) ? (int) gap : Integer.MAX_VALUE;
+	}
+
+	/**
+	 * operates on the given classifier by mutating its bits.
+	 * 
+	 * @param aClassifier
+	 *            the classifier to operate on
+	 * @return the mutated classifier
+	 */
+	@Override
+	public final Classifier operate(final Classifier aClassifier) {
+		final int chromosomeSize = aClassifier.size();
+
+		if (mutationRate >= 1) {
+			aClassifier.invert(0, chromosomeSize);
+		} else if ((mutationRate > 0) && (logKeepRate < 0)) {
+			int unit = -1;
+			long mask = 0;
+			for (long i = nextGap(); i < chromosomeSize; i += nextGap() + 1L) {
+				final int bitUnit = (int) (i / BITS_IN_UNIT);
+				if (bitUnit != unit) {
+					if (mask != 0)
+						aClassifier.xorUnit(unit, mask);
+					unit = bitUnit;
+					mask = 0;
+				}
+				mask |= 1L << (i % BITS_IN_UNIT);
+			}
+			if (mask != 0)
+				aClassifier.xorUnit(unit, mask);
+		}
+
+		aClassifier.invalidateCompiledData();
+		return aClassifier;
+	}
+
+}
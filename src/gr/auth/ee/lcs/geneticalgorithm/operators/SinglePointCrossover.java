@@ -25,6 +25,7 @@ import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
 import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.geneticalgorithm.IBinaryGeneticOperator;
 import gr.auth.ee.lcs.utilities.ExtendedBitSet;
+import gr.auth.ee.lcs.utilities.RandomSource;
 
 /**
  * A binary genetic operator that performs gene crossover at a single point.
@@ -57,14 +58,16 @@ public class SinglePointCrossover implements IBinaryGeneticOperator {
 	public final Classifier operate(final Classifier classifierA,
 			final Classifier classifierB) {
 		final int chromosomeSize = classifierB.size();
-		final Classifier child;
 		/*
 		 * The point at which the crossover will occur
 		 */
 		final int mutationPoint = (int) Math
-				.round((Math.random() * chromosomeSize) - 1);
-		child = myLcs.getNewClassifier(performCrossover(classifierA,
-				classifierB, mutationPoint));
+				.round((RandomSource.nextDouble() * chromosomeSize) - 1);
+		final Classifier child = myLcs.getClassifierShell();
+		// A crossover before the first bit leaves the child a copy of A
+		child.splice(classifierA, classifierB,
+				(mutationPoint < 0) ? chromosomeSize : mutationPoint,
+				chromosomeSize);
 
 		return child;
 	}
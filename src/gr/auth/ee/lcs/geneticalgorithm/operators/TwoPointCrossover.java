@@ -0,0 +1,71 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.geneticalgorithm.operators;
+
+import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.classifiers.Classifier;
+import gr.auth.ee.lcs.geneticalgorithm.IBinaryGeneticOperator;
+import gr.auth.ee.lcs.utilities.RandomSource;
+
+/**
+ * A binary genetic operator that performs gene crossover at two points. The
+ * child takes the genes between the two points from the second parent and the
+ * rest from the first one.
+ * 
+ * @author Miltos Allamanis
+ */
+public class TwoPointCrossover implements IBinaryGeneticOperator {
+
+	/**
+	 * The LCS instance being used.
+	 */
+	final AbstractLearningClassifierSystem myLcs;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param lcs
+	 *            the lcs to be used for creating new classifiers
+	 */
+	public TwoPointCrossover(final AbstractLearningClassifierSystem lcs) {
+		myLcs = lcs;
+	}
+
+	/**
+	 * The implementation of the abstract method.
+	 * 
+	 * @see gr.auth.ee.lcs.geneticalgorithm.IBinaryGeneticOperator
+	 */
+	@Override
+	public final Classifier operate(final Classifier classifierA,
+			final Classifier classifierB) {
+		final int chromosomeSize = classifierB.size();
+		final int pointA = RandomSource.nextInt(chromosomeSize + 1);
+		final int pointB = RandomSource.nextInt(chromosomeSize + 1);
+
+		final Classifier child = myLcs.getClassifierShell();
+		child.splice(classifierA, classifierB, Math.min(pointA, pointB),
+				Math.max(pointA, pointB));
+		return child;
+	}
+
+}
@@ -23,6 +23,7 @@ package gr.auth.ee.lcs.geneticalgorithm.operators;
 
 import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.geneticalgorithm.IUnaryGeneticOperator;
+import gr.auth.ee.lcs.utilities.RandomSource;
 
 /**
  * Implements a mutation operator. Bits of a chromosome are mutated by following
@@ -61,9 +62,10 @@ public class UniformBitMutation implements IUnaryGeneticOperator {
 		final int chromosomeSize = aClassifier.size();
 
 		for (int i = 0; i < chromosomeSize; i++) {
-			if (Math.random() < mutationRate)
+			if (RandomSource.nextDouble() < mutationRate)
 				aClassifier.invert(i);
 		}
+		aClassifier.invalidateCompiledData();
 		return aClassifier;
 	}
 
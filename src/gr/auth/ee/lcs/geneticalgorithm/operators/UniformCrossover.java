@@ -0,0 +1,65 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.geneticalgorithm.operators;
+
+import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.classifiers.Classifier;
+import gr.auth.ee.lcs.geneticalgorithm.IBinaryGeneticOperator;
+import gr.auth.ee.lcs.utilities.RandomSource;
+
+/**
+ * A binary genetic operator that performs uniform crossover. Each gene of the
+ * child is taken from either parent with equal probability.
+ * 
+ * @author Miltos Allamanis
+ */
+public class UniformCrossover implements IBinaryGeneticOperator {
+
+	/**
+	 * The LCS instance being used.
+	 */
+	final AbstractLearningClassifierSystem myLcs;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param lcs
+	 *            the lcs to be used for creating new classifiers
+	 */
+	public UniformCrossover(final AbstractLearningClassifierSystem lcs) {
+		myLcs = lcs;
+	}
+
+	/**
+	 * The implementation of the abstract method.
+	 * 
+	 * @see gr.auth.ee.lcs.geneticalgorithm.IBinaryGeneticOperator
+	 */
+	@Override
+	public final Classifier operate(final Classifier classifierA,
+			final Classifier classifierB) {
+		final Classifier child = myLcs.getClassifierShell();
+		child.blend(classifierA, classifierB, RandomSource.current());
+		return child;
+	}
+
+}
@@ -22,6 +22,7 @@
 package gr.auth.ee.lcs.geneticalgorithm.selectors;
 
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
 import gr.auth.ee.lcs.classifiers.Macroclassifier;
 import gr.auth.ee.lcs.geneticalgorithm.IRuleSelector;
 
@@ -66,7 +67,7 @@ public final class BestClassifierSelector implements IRuleSelector {
 	 *            the population to select from
 	 * @return the index of the best classiifer in the set
 	 */
-	private int select(final ClassifierSet fromPopulation) {
+	private int select(final IClassifierSetView fromPopulation) {
 		// Search for the best classifier
 		double bestFitness = max ? Double.NEGATIVE_INFINITY
 				: Double.POSITIVE_INFINITY;
@@ -104,7 +105,8 @@ public final class BestClassifierSelector implements IRuleSelector {
 	 */
 	@Override
 	public void select(final int howManyToSelect,
-			final ClassifierSet fromPopulation, final ClassifierSet toPopulation) {
+			final IClassifierSetView fromPopulation,
+			final ClassifierSet toPopulation) {
 		// Add it toPopulation
 		final int bestIndex = select(fromPopulation);
 		if (bestIndex == -1)
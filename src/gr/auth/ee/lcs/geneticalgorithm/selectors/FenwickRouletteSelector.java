@@ -0,0 +1,212 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.geneticalgorithm.selectors;
+
+import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
+import gr.auth.ee.lcs.classifiers.Macroclassifier;
+import gr.auth.ee.lcs.geneticalgorithm.IRuleSelector;
+import gr.auth.ee.lcs.utilities.FenwickTree;
+import gr.auth.ee.lcs.utilities.RandomSource;
+
+/**
+ * A roulette wheel selector backed by a Fenwick tree over the numerosity
+ * weighted comparison values. The comparison value of each classifier is
+ * computed once per call and every draw takes logarithmic time, so drawing
+ * many classifiers at once is much cheaper than with the
+ * RouletteWheelSelector. The selection probabilities are the same.
+ * 
+ * When deleting, the tree is kept in step with the set: after each deleted
+ * microclassifier only the weight of the affected macroclassifier is updated
+ * (and the last one is moved to its index, as the set does).
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public class FenwickRouletteSelector implements IRuleSelector {
+
+	/**
+	 * The comparison mode used for fitness selecting.
+	 */
+	private final int mode;
+
+	/**
+	 * Private variable for selecting maximum or minimum selection.
+	 */
+	private final boolean max;
+
+	/**
+	 * The weights buffer of each selecting thread.
+	 */
+	private final ThreadLocal<double[]> weightBuffers = new ThreadLocal<double[]>() {
+		@Override
+		protected double[] initialValue() {
+			return new double[0];
+		}
+	};
+
+	/**
+	 * The comparison value of each macroclassifier, for each selecting thread.
+	 */
+	private final ThreadLocal<double[]> valueBuffers = new ThreadLocal<double[]>() {
+		@Override
+		protected double[] initialValue() {
+			return new double[0];
+		}
+	};
+
+	/**
+	 * The tree of each selecting thread.
+	 */
+	private final ThreadLocal<FenwickTree> trees = new ThreadLocal<FenwickTree>() {
+		@Override
+		protected FenwickTree initialValue() {
+			return new FenwickTree(0);
+		}
+	};
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param comparisonMode
+	 *            the comparison mode
+	 * @param max
+	 *            whether the selector selects min or max fitness (when max,
+	 *            max=true)
+	 */
+	public FenwickRouletteSelector(final int comparisonMode, final boolean max) {
+		mode = comparisonMode;
+		this.max = max;
+	}
+
+	/**
+	 * Roulette wheel deletion. The victims are drawn one at a time and each
+	 * draw deletes a microclassifier, so a classifier is never drawn more
+	 * times than its numerosity. The tree is built once and then updated in
+	 * logarithmic time after each deletion. The comparison values are
+	 * assumed not to change while deleting.
+	 * 
+	 * @param howManyToDelete
+	 *            the number of microclassifiers to delete
+	 * @param fromPopulation
+	 *            the set to delete the microclassifiers from
+	 */
+	public final void delete(final int howManyToDelete,
+			final ClassifierSet fromPopulation) {
+		final FenwickTree tree = buildTree(fromPopulation);
+		final double[] values = valueBuffers.get();
+
+		for (int i = 0; (i < howManyToDelete) && (tree.size() > 0); i++) {
+			final int index = Math.max(0,
+					tree.find(RandomSource.nextDouble() * tree.total()));
+			fromPopulation.deleteClassifier(index);
+
+			final int last = tree.size() - 1;
+			if (fromPopulation.getNumberOfMacroclassifiers() == last) {
+				// The last macroclassifier has taken the deleted one's index
+				values[index] = values[last];
+				tree.set(index, tree.get(last));
+				tree.removeLast();
+			}
+			if (index < tree.size())
+				tree.set(index, getWeight(
+						fromPopulation.getClassifierNumerosity(index),
+						values[index]));
+		}
+	}
+
+	/**
+	 * Roulette Wheel selection strategy.
+	 * 
+	 * @param howManyToSelect
+	 *            the number of draws.
+	 * @param fromPopulation
+	 *            the ClassifierSet from which the selection will take place
+	 * @param toPopulation
+	 *            the ClassifierSet to which the selected Classifiers will be
+	 *            added
+	 */
+	@Override
+	public final void select(final int howManyToSelect,
+			final IClassifierSetView fromPopulation,
+			final ClassifierSet toPopulation) {
+		final FenwickTree tree = buildTree(fromPopulation);
+		final double fitnessSum = tree.total();
+
+		if (tree.size() == 0)
+			return;
+
+		for (int i = 0; i < howManyToSelect; i++) {
+			// Without any weight, select the first (as the roulette does)
+			final int selectedIndex = Math.max(0,
+					tree.find(RandomSource.nextDouble() * fitnessSum));
+			toPopulation.addClassifier(
+					new Macroclassifier(fromPopulation
+							.getClassifier(selectedIndex), 1), false);
+		}
+	}
+
+	/**
+	 * Build the calling thread's tree for a set.
+	 * 
+	 * @param fromPopulation
+	 *            the set to select from
+	 * @return the tree, holding the roulette weight of each macroclassifier
+	 */
+	private FenwickTree buildTree(final IClassifierSetView fromPopulation) {
+		final int numberOfMacroclassifiers = fromPopulation
+				.getNumberOfMacroclassifiers();
+		double[] weights = weightBuffers.get();
+		double[] values = valueBuffers.get();
+		if (weights.length < numberOfMacroclassifiers) {
+			weights = new double[numberOfMacroclassifiers];
+			weightBuffers.set(weights);
+			values = new double[numberOfMacroclassifiers];
+			valueBuffers.set(values);
+		}
+
+		for (int i = 0; i < numberOfMacroclassifiers; i++) {
+			values[i] = fromPopulation.getClassifier(i).getComparisonValue(
+					mode);
+			weights[i] = getWeight(fromPopulation.getClassifierNumerosity(i),
+					values[i]);
+		}
+
+		final FenwickTree tree = trees.get();
+		tree.reset(weights, numberOfMacroclassifiers);
+		return tree;
+	}
+
+	/**
+	 * Return the roulette weight of a macroclassifier.
+	 * 
+	 * @param numerosity
+	 *            the numerosity of the macroclassifier
+	 * @param value
+	 *            the comparison value of its classifier
+	 * @return the weight
+	 */
+	private double getWeight(final int numerosity, final double value) {
+		final double fitnessValue = numerosity * value;
+		return max ? fitnessValue : 1 / (fitnessValue + Double.MIN_NORMAL);
+	}
+}
@@ -22,8 +22,12 @@
 package gr.auth.ee.lcs.geneticalgorithm.selectors;
 
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
 import gr.auth.ee.lcs.classifiers.Macroclassifier;
 import gr.auth.ee.lcs.geneticalgorithm.IRuleSelector;
+import gr.auth.ee.lcs.utilities.RandomSource;
+
+import java.util.Arrays;
 
 /**
  * A Natural Selection operator performing a weighted roulette wheel selection.
@@ -61,7 +65,8 @@ public class RouletteWheelSelector implements IRuleSelector {
 	}
 
 	/**
-	 * Roulette Wheel selection strategy.
+	 * Roulette Wheel selection strategy. All spins are sorted, so that the
+	 * wheel is walked only once, however many classifiers are selected.
 	 * 
 	 * @param howManyToSelect
 	 *            the number of draws.
@@ -73,7 +78,8 @@ public class RouletteWheelSelector implements IRuleSelector {
 	 */
 	@Override
 	public final void select(final int howManyToSelect,
-			final ClassifierSet fromPopulation, final ClassifierSet toPopulation) {
+			final IClassifierSetView fromPopulation,
+			final ClassifierSet toPopulation) {
 		// Find total sum
 		double fitnessSum = 0;
 		final int numberOfMacroclassifiers = fromPopulation
@@ -87,13 +93,18 @@ public class RouletteWheelSelector implements IRuleSelector {
 					: 1 / (fitnessValue + Double.MIN_NORMAL);
 		}
 
-		// Repeat roulette for howManyToSelect times
+		// Spin the roulette howManyToSelect times and walk it once in order
+		final double[] spins = new double[howManyToSelect];
+		for (int i = 0; i < howManyToSelect; i++)
+			spins[i] = RandomSource.nextDouble() * fitnessSum;
+		Arrays.sort(spins);
+
+		double tempSum = 0;
+		int selectedIndex = -1;
 		for (int i = 0; i < howManyToSelect; i++) {
-			// Roulette
-			final double rand = Math.random() * fitnessSum;
-			double tempSum = 0;
-			int selectedIndex = -1;
-			do {
+			// Fitness may change under concurrent training, so never overrun
+			while (((selectedIndex < 0) || (tempSum < spins[i]))
+					&& (selectedIndex < (numberOfMacroclassifiers - 1))) {
 				selectedIndex++;
 				final double tempValue = fromPopulation
 						.getClassifierNumerosity(selectedIndex)
@@ -101,12 +112,12 @@ public class RouletteWheelSelector implements IRuleSelector {
 								.getComparisonValue(mode);
 				tempSum += max ? tempValue
 						: 1 / (tempValue + Double.MIN_NORMAL);
-			} while (tempSum < rand);
+			}
 			// Add selectedIndex
 			toPopulation.addClassifier(
 					new Macroclassifier(fromPopulation
 							.getClassifier(selectedIndex), 1), false);
-		} // next roulette
+		} // next spin
 
 	}
 }
\ No newline at end of file
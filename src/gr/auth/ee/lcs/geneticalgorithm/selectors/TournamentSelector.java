@@ -25,10 +25,10 @@
 package gr.auth.ee.lcs.geneticalgorithm.selectors;
 
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
 import gr.auth.ee.lcs.classifiers.Macroclassifier;
 import gr.auth.ee.lcs.geneticalgorithm.IRuleSelector;
-
-import java.util.Arrays;
+import gr.auth.ee.lcs.utilities.RandomSource;
 
 /**
  * A tournament selecting the best fitness classifier.
@@ -104,7 +104,7 @@ public class TournamentSelector implements IRuleSelector {
 	 *            the population to select from
 	 * @return the index of the selected classifier in the fromPopulation
 	 */
-	private int select(final ClassifierSet fromPopulation) {
+	private int select(final IClassifierSetView fromPopulation) {
 		int size;
 		if (tournamentSize == 0) {
 			size = (int) Math.floor(fromPopulation.getTotalNumerosity()
@@ -116,8 +116,8 @@ public class TournamentSelector implements IRuleSelector {
 		final int[] participants = new int[size];
 		// Create random participants
 		for (int j = 0; j < participants.length; j++) {
-			participants[j] = (int) Math.floor((Math.random() * fromPopulation
-					.getTotalNumerosity()));
+			participants[j] = RandomSource.nextInt(fromPopulation
+					.getTotalNumerosity());
 		}
 		return this.tournament(fromPopulation, participants);
 
@@ -132,7 +132,8 @@ public class TournamentSelector implements IRuleSelector {
 	 */
 	@Override
 	public final void select(final int howManyToSelect,
-			final ClassifierSet fromPopulation, final ClassifierSet toPopulation) {
+			final IClassifierSetView fromPopulation,
+			final ClassifierSet toPopulation) {
 
 		for (int i = 0; i < howManyToSelect; i++) {
 
@@ -155,46 +156,32 @@ public class TournamentSelector implements IRuleSelector {
 	 *            the int[] of indexes of participants
 	 * @return the index of the tournament winner
 	 */
-	public final int tournament(final ClassifierSet fromPopulation,
+	public final int tournament(final IClassifierSetView fromPopulation,
 			final int[] participants) {
 
-		// Sort by order
-		Arrays.sort(participants);
-
 		// Best fitness found in tournament
 		double bestFitness = max ? Double.NEGATIVE_INFINITY
 				: Double.POSITIVE_INFINITY;
 
-		// the index in the participants array of the current competitor
-		int currentBestParticipantIndex = -1;
-
 		// The current best participant
 		int bestMacroclassifierParticipant = -1;
 
-		// the index of the actual classifier (counting numerosity)
-		int currentClassifierIndex = 0;
-
-		// The index of the macroclassifier being used
-		int currentMacroclassifierIndex = 0;
-		// Run tournament
-		do {
-			currentBestParticipantIndex += fromPopulation
-					.getClassifierNumerosity(currentMacroclassifierIndex);
-			while ((currentClassifierIndex < participants.length)
-					&& (participants[currentClassifierIndex] <= currentBestParticipantIndex)) {
-
-				// currentParicipant is in this macroclassifier
-				final double fitness = fromPopulation.getClassifier(
-						currentMacroclassifierIndex).getComparisonValue(mode);
-
-				if ((max ? 1. : -1.) * (fitness - bestFitness) > 0) {
-					bestMacroclassifierParticipant = currentMacroclassifierIndex;
-					bestFitness = fitness;
-				}
-				currentClassifierIndex++; // Next!
+		// Run tournament, finding each participant's macroclassifier
+		for (int i = 0; i < participants.length; i++) {
+			final int macroclassifierIndex = fromPopulation
+					.getMacroclassifierIndex(participants[i]);
+			final double fitness = fromPopulation.getClassifier(
+					macroclassifierIndex).getComparisonValue(mode);
+
+			// Ties go to the first macroclassifier of the set
+			final double improvement = (max ? 1. : -1.)
+					* (fitness - bestFitness);
+			if ((improvement > 0)
+					|| ((improvement == 0) && (macroclassifierIndex < bestMacroclassifierParticipant))) {
+				bestMacroclassifierParticipant = macroclassifierIndex;
+				bestFitness = fitness;
 			}
-			currentMacroclassifierIndex++;
-		} while (currentClassifierIndex < participants.length);
+		}
 
 		if (bestMacroclassifierParticipant >= 0)
 			return bestMacroclassifierParticipant;
@@ -25,10 +25,10 @@
 package gr.auth.ee.lcs.geneticalgorithm.selectors;
 
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
 import gr.auth.ee.lcs.classifiers.Macroclassifier;
 import gr.auth.ee.lcs.geneticalgorithm.IRuleSelector;
-
-import java.util.Arrays;
+import gr.auth.ee.lcs.utilities.RandomSource;
 
 /**
  * A tournament selecting the best fitness classifier.
@@ -96,25 +96,6 @@ public class TournamentSelector2 implements IRuleSelector {
 		percentSize = 0;
 	}
 
-	/**
-	 * Convert micro-classifier index to macro-classifier indices.
-	 * 
-	 * @param microIndex
-	 *            the microclassifier index.
-	 * @param cumulativeNumerosity
-	 *            the cummulative numerosity array
-	 * @return the macro-classifier index
-	 */
-	private int getMacroIndex(int microIndex, int[] cumulativeNumerosity) {
-		int macroIndex = 0;
-		for (int i = 0; i < cumulativeNumerosity.length; i++) {
-			if (cumulativeNumerosity[i] > microIndex)
-				break;
-			macroIndex++;
-		}
-		return macroIndex;
-	}
-
 	/**
 	 * Select from a set using a tournament.
 	 * 
@@ -122,7 +103,7 @@ public class TournamentSelector2 implements IRuleSelector {
 	 *            the population to select from
 	 * @return the index of the individual selected in the given set
 	 */
-	private int select(ClassifierSet fromPopulation) {
+	private int select(IClassifierSetView fromPopulation) {
 		int size;
 		if (tournamentSize == 0)
 			size = (int) Math.floor(fromPopulation.getTotalNumerosity()
@@ -133,8 +114,8 @@ public class TournamentSelector2 implements IRuleSelector {
 		final int[] participants = new int[size];
 		// Create random participants
 		for (int j = 0; j < participants.length; j++) {
-			participants[j] = (int) Math.floor((Math.random() * fromPopulation
-					.getTotalNumerosity()));
+			participants[j] = RandomSource.nextInt(fromPopulation
+					.getTotalNumerosity());
 		}
 		return this.tournament(fromPopulation, participants);
 
@@ -149,7 +130,8 @@ public class TournamentSelector2 implements IRuleSelector {
 	 */
 	@Override
 	public final void select(final int howManyToSelect,
-			final ClassifierSet fromPopulation, final ClassifierSet toPopulation) {
+			final IClassifierSetView fromPopulation,
+			final ClassifierSet toPopulation) {
 
 		for (int i = 0; i < howManyToSelect; i++) {
 
@@ -172,30 +154,30 @@ public class TournamentSelector2 implements IRuleSelector {
 	 *            the int[] of indexes of participants
 	 * @return the index of the tournament winner
 	 */
-	public final int tournament(final ClassifierSet fromPopulation,
+	public final int tournament(final IClassifierSetView fromPopulation,
 			final int[] participants) {
 
-		// Sort by order
-		Arrays.sort(participants);
-
-		// Construct cumulative numerosity
-		final int populationSize = fromPopulation.getNumberOfMacroclassifiers();
-		final int[] cumulativeNum = new int[populationSize];
-		cumulativeNum[0] = fromPopulation.getClassifierNumerosity(0);
-		for (int i = 1; i < populationSize; i++)
-			cumulativeNum[i] = cumulativeNum[i - 1]
-					+ fromPopulation.getClassifierNumerosity(i);
+		// The first participant in set order starts as the winner
+		int first = 0;
+		for (int i = 1; i < participants.length; i++) {
+			if (participants[i] < participants[first])
+				first = i;
+		}
 
-		int bestMacroclassifierParticipant = 0;
+		int bestMacroclassifierParticipant = fromPopulation
+				.getMacroclassifierIndex(participants[first]);
 		double winnerFitness = fromPopulation.getClassifier(
-				getMacroIndex(participants[0], cumulativeNum))
-				.getComparisonValue(mode);
-		for (int i = 1; i < participants.length; i++) {
-			final int currentMacro = getMacroIndex(participants[i],
-					cumulativeNum);
+				bestMacroclassifierParticipant).getComparisonValue(mode);
+		for (int i = 0; i < participants.length; i++) {
+			final int currentMacro = fromPopulation
+					.getMacroclassifierIndex(participants[i]);
 			final double currentFitness = fromPopulation.getClassifier(
 					currentMacro).getComparisonValue(mode);
-			if (((currentFitness - winnerFitness) * (max ? 1 : -1)) > 0) {
+			// Ties go to the first macroclassifier of the set
+			final double improvement = (currentFitness - winnerFitness)
+					* (max ? 1 : -1);
+			if ((improvement > 0)
+					|| ((improvement == 0) && (currentMacro < bestMacroclassifierParticipant))) {
 				winnerFitness = currentFitness;
 				bestMacroclassifierParticipant = currentMacro;
 			}
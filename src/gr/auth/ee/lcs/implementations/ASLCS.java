@@ -36,6 +36,7 @@ import gr.auth.ee.lcs.geneticalgorithm.IGeneticAlgorithmStrategy;
 import gr.auth.ee.lcs.geneticalgorithm.algorithms.SteadyStateGeneticAlgorithm;
 import gr.auth.ee.lcs.geneticalgorithm.operators.SinglePointCrossover;
 import gr.auth.ee.lcs.geneticalgorithm.operators.UniformBitMutation;
+import gr.auth.ee.lcs.geneticalgorithm.selectors.FenwickRouletteSelector;
 import gr.auth.ee.lcs.geneticalgorithm.selectors.RouletteWheelSelector;
 import gr.auth.ee.lcs.utilities.SettingsLoader;
 
@@ -177,7 +178,7 @@ public final class ASLCS extends AbstractLearningClassifierSystem {
 				new FixedSizeSetWorstFitnessDeletion(
 						this,
 						populationSize,
-						new RouletteWheelSelector(
+						new FenwickRouletteSelector(
 								AbstractUpdateStrategy.COMPARISON_MODE_DELETION,
 								true)));
 	}
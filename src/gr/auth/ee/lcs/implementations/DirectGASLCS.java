@@ -33,12 +33,12 @@ import gr.auth.ee.lcs.data.representations.complex.GenericMultiLabelRepresentati
 import gr.auth.ee.lcs.data.representations.complex.GenericMultiLabelRepresentation.VotingClassificationStrategy;
 import gr.auth.ee.lcs.data.updateAlgorithms.ASLCSUpdateAlgorithm;
 import gr.auth.ee.lcs.evaluators.AccuracyRecallEvaluator;
-import gr.auth.ee.lcs.evaluators.ExactMatchEvalutor;
-import gr.auth.ee.lcs.evaluators.HammingLossEvaluator;
+import gr.auth.ee.lcs.evaluators.MultiLabelMetricsEvaluator;
 import gr.auth.ee.lcs.geneticalgorithm.IGeneticAlgorithmStrategy;
 import gr.auth.ee.lcs.geneticalgorithm.algorithms.SteadyStateGeneticAlgorithm;
 import gr.auth.ee.lcs.geneticalgorithm.operators.SinglePointCrossover;
 import gr.auth.ee.lcs.geneticalgorithm.operators.UniformBitMutation;
+import gr.auth.ee.lcs.geneticalgorithm.selectors.FenwickRouletteSelector;
 import gr.auth.ee.lcs.geneticalgorithm.selectors.RouletteWheelSelector;
 import gr.auth.ee.lcs.utilities.SettingsLoader;
 
@@ -176,7 +176,7 @@ public class DirectGASLCS extends AbstractLearningClassifierSystem {
 				new FixedSizeSetWorstFitnessDeletion(
 						this,
 						populationSize,
-						new RouletteWheelSelector(
+						new FenwickRouletteSelector(
 								AbstractUpdateStrategy.COMPARISON_MODE_DELETION,
 								true)));
 	}
@@ -220,21 +220,9 @@ public class DirectGASLCS extends AbstractLearningClassifierSystem {
 
 		str.proportionalCutCalibration(this.instances, rulePopulation);
 
-		final AccuracyRecallEvaluator accEval = new AccuracyRecallEvaluator(
-				testSet, false, this, AccuracyRecallEvaluator.TYPE_ACCURACY);
-		results[0] = accEval.getMetric(this);
-
-		final AccuracyRecallEvaluator recEval = new AccuracyRecallEvaluator(
-				testSet, false, this, AccuracyRecallEvaluator.TYPE_RECALL);
-		results[1] = recEval.getMetric(this);
-
-		final HammingLossEvaluator hamEval = new HammingLossEvaluator(testSet,
-				false, numberOfLabels, this);
-		results[2] = hamEval.getMetric(this);
-
-		final ExactMatchEvalutor testEval = new ExactMatchEvalutor(testSet,
-				false, this);
-		results[3] = testEval.getMetric(this);
+		final MultiLabelMetricsEvaluator testEval = new MultiLabelMetricsEvaluator(
+				testSet, numberOfLabels, this);
+		testEval.evaluate(this, results, 0);
 
 		final AccuracyRecallEvaluator selfAcc = new AccuracyRecallEvaluator(
 				instances, false, this, AccuracyRecallEvaluator.TYPE_ACCURACY);
@@ -242,17 +230,11 @@ public class DirectGASLCS extends AbstractLearningClassifierSystem {
 				selfAcc);
 		ival.calibrate(15);
 
-		results[4] = accEval.getMetric(this);
-		results[5] = recEval.getMetric(this);
-		results[6] = hamEval.getMetric(this);
-		results[7] = testEval.getMetric(this);
+		testEval.evaluate(this, results, 4);
 
 		rep.setClassificationStrategy(rep.new BestFitnessClassificationStrategy());
 
-		results[8] = accEval.getMetric(this);
-		results[9] = recEval.getMetric(this);
-		results[10] = hamEval.getMetric(this);
-		results[11] = testEval.getMetric(this);
+		testEval.evaluate(this, results, 8);
 
 		return results;
 	}
@@ -4,12 +4,14 @@
 package gr.auth.ee.lcs.implementations.parallel;
 
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.BatchClassification;
 import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
 import gr.auth.ee.lcs.distributed.distributers.SimpleRuleDistributer;
 import gr.auth.ee.lcs.distributed.routers.All2AllRouter;
 import gr.auth.ee.lcs.distributed.sockets.LocalHubbedRuleSocket;
 import gr.auth.ee.lcs.geneticalgorithm.selectors.RouletteWheelSelector;
 import gr.auth.ee.lcs.geneticalgorithm.selectors.TournamentSelector;
+import gr.auth.ee.lcs.utilities.RandomSource;
 import gr.auth.ee.lcs.utilities.SettingsLoader;
 import weka.core.Instances;
 
@@ -97,6 +99,12 @@ public class P2Plcs extends AbstractLearningClassifierSystem {
 		return nodes[0].classifyInstance(instance);
 	}
 
+	@Override
+	public BatchClassification classifyInstances(
+			final double[][] instancesToClassify) {
+		return nodes[0].classifyInstances(instancesToClassify);
+	}
+
 	@Override
 	public AbstractLearningClassifierSystem createNew() {
 
@@ -128,9 +136,12 @@ public class P2Plcs extends AbstractLearningClassifierSystem {
 		for (int i = 0; i < nodes.length; i++) {
 			final int num = i;
 			nodes[num].instances = this.instances; //TODO: Alternative training method with subsampling?
+			// Drawn by this thread, so that the run stays reproducible
+			final long nodeSeed = RandomSource.nextLong();
 			threads[i] = new Thread() {
 				@Override
 				public void run() {
+					RandomSource.setThreadSeed(nodeSeed);
 					nodes[num].train();
 				}
 			};
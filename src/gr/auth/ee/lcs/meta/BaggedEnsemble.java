@@ -25,6 +25,8 @@
 package gr.auth.ee.lcs.meta;
 
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.BatchClassification;
+import gr.auth.ee.lcs.utilities.RandomSource;
 
 import java.util.Arrays;
 
@@ -86,6 +88,51 @@ public abstract class BaggedEnsemble extends AbstractLearningClassifierSystem {
 		return result;
 	}
 
+	/**
+	 * Classify a batch of instances. Each member of the ensemble classifies
+	 * the whole batch (in parallel) and then the members vote as in
+	 * classifyInstance().
+	 * 
+	 * @param instancesToClassify
+	 *            the instances to classify
+	 * @return the labels each instance is classified in
+	 */
+	@Override
+	public BatchClassification classifyInstances(
+			final double[][] instancesToClassify) {
+		final BatchClassification[] memberClassifications = new BatchClassification[ensemble.length];
+		for (int i = 0; i < ensemble.length; i++)
+			memberClassifications[i] = ensemble[i]
+					.classifyInstances(instancesToClassify);
+
+		final int[][] result = new int[instancesToClassify.length][];
+		final int[] classifications = new int[numberOfLabels];
+		for (int k = 0; k < instancesToClassify.length; k++) {
+			Arrays.fill(classifications, -ensemble.length);
+			for (int i = 0; i < ensemble.length; i++) {
+				final int memberLabels = memberClassifications[i]
+						.getNumberOfLabels(k);
+				for (int j = 0; j < memberLabels; j++)
+					classifications[memberClassifications[i].getLabel(k, j)] += 2;
+			}
+
+			int activeLabels = 0;
+			for (int i = 0; i < classifications.length; i++) {
+				if (classifications[i] > 0)
+					activeLabels++;
+			}
+			result[k] = new int[activeLabels];
+			int currentPosition = 0;
+			for (int i = 0; i < classifications.length; i++) {
+				if (classifications[i] > 0) {
+					result[k][currentPosition] = i;
+					currentPosition++;
+				}
+			}
+		}
+		return new BatchClassification(result);
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -115,7 +162,7 @@ public abstract class BaggedEnsemble extends AbstractLearningClassifierSystem {
 	private double[][] sampleTrainInstances() {
 		final double[][] sample = new double[this.instances.length][];
 		for (int i = 0; i < sample.length; i++) {
-			int pos = (int) Math.floor(Math.random() * this.instances.length);
+			int pos = RandomSource.nextInt(this.instances.length);
 
 			sample[i] = this.instances[pos];
 		}
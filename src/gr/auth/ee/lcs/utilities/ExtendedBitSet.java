@@ -95,8 +95,6 @@ public class ExtendedBitSet implements Cloneable, Serializable {
 	protected static final int BITSININT = Integer.SIZE;
 	protected static final int BITSINLONG = Long.SIZE;
 
-	private static Random random = new Random();
-
 	private static final boolean compileTest = false;
 
 	/**
@@ -198,13 +196,10 @@ public class ExtendedBitSet implements Cloneable, Serializable {
 		this(length);
 
 		// Assign random values
-		synchronized (random) {
-			if (randomSeed != 0) {
-				random.setSeed(randomSeed);
-			}
-			for (int i = 0; i < bitUnits.length; ++i) {
-				bitUnits[i] = random.nextLong();
-			}
+		final Random random = (randomSeed != 0) ? new SplitMixRandom(
+				randomSeed) : RandomSource.current();
+		for (int i = 0; i < bitUnits.length; ++i) {
+			bitUnits[i] = random.nextLong();
 		}
 
 		// Set unused bits at the top of the last long to zero
@@ -305,6 +300,33 @@ public class ExtendedBitSet implements Cloneable, Serializable {
 		return this;
 	}
 
+	/**
+	 * Set this bit set to a uniform crossover of two bit sets of the same
+	 * length. Each bit is taken from <code>chromosomeA</code> or from
+	 * <code>chromosomeB</code> with equal probability, by blending whole units
+	 * through random masks.
+	 * 
+	 * @param chromosomeA
+	 *            the first bit set
+	 * @param chromosomeB
+	 *            the second bit set
+	 * @param random
+	 *            the generator of the masks
+	 * @return this
+	 */
+	public final ExtendedBitSet blend(final ExtendedBitSet chromosomeA,
+			final ExtendedBitSet chromosomeB, final Random random) {
+		copy(chromosomeA);
+		final int length = Math.min(lenBits, chromosomeB.lenBits);
+		final int units = ((length - 1) / BITSINLONG) + 1;
+		for (int unit = 0; unit < units; unit++) {
+			final long mask = random.nextLong();
+			bitUnits[unit] = (bitUnits[unit] & ~mask)
+					| (chromosomeB.bitUnits[unit] & mask);
+		}
+		return this;
+	}
+
 	/**
 	 * Returns the value of the bit set as a byte (truncating it if it is longer
 	 * than eight bits).
@@ -1493,6 +1515,44 @@ public class ExtendedBitSet implements Cloneable, Serializable {
 		return lenBits;
 	}
 
+	/**
+	 * Set this bit set to a crossover of two bit sets of the same length. The
+	 * bits from <code>from</code> (inclusive) to <code>to</code> (exclusive)
+	 * are taken from <code>chromosomeB</code> and the rest from
+	 * <code>chromosomeA</code>. The bits are spliced a whole unit at a time,
+	 * masking the units at the ends of the range.
+	 * 
+	 * @param chromosomeA
+	 *            the bit set outside the range
+	 * @param chromosomeB
+	 *            the bit set inside the range
+	 * @param from
+	 *            the start of the range
+	 * @param to
+	 *            the end of the range
+	 * @return this
+	 */
+	public final ExtendedBitSet splice(final ExtendedBitSet chromosomeA,
+			final ExtendedBitSet chromosomeB, final int from, int to) {
+		copy(chromosomeA);
+		to = Math.min(to, Math.min(lenBits, chromosomeB.lenBits));
+		if (from >= to)
+			return this;
+
+		final int firstUnit = from / BITSINLONG;
+		final int lastUnit = (to - 1) / BITSINLONG;
+		for (int unit = firstUnit; unit <= lastUnit; unit++) {
+			long mask = -1L;
+			if (unit == firstUnit)
+				mask &= -1L << (from % BITSINLONG);
+			if (unit == lastUnit)
+				mask &= -1L >>> (BITSINLONG - 1 - ((to - 1) % BITSINLONG));
+			bitUnits[unit] = (bitUnits[unit] & ~mask)
+					| (chromosomeB.bitUnits[unit] & mask);
+		}
+		return this;
+	}
+
 	/**
 	 * Swaps the value of a subset of bits with another bit set.
 	 * <code>length</code> bits at offset <code>offset</code> in each bit set
@@ -1585,4 +1645,25 @@ public class ExtendedBitSet implements Cloneable, Serializable {
 		}
 		return this;
 	}
+
+	/**
+	 * Logically XORs a whole unit (of sixtyfour bits) of this bit set with a
+	 * mask. Bit 0 of <code>mask</code> is bit <code>unit * 64</code> of the
+	 * set. Bits of the mask beyond the length of the set are ignored.
+	 * 
+	 * @param unit
+	 *            the index of the unit to XOR
+	 * @param mask
+	 *            the bits to flip
+	 * @return this
+	 */
+	public final ExtendedBitSet xorUnit(final int unit, long mask) {
+		final int remainingBits = lenBits - (unit * BITSINLONG);
+		if (remainingBits <= 0)
+			return this;
+		if (remainingBits < BITSINLONG)
+			mask &= -1L >>> (BITSINLONG - remainingBits);
+		bitUnits[unit] ^= mask;
+		return this;
+	}
 }
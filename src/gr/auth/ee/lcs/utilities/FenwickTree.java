@@ -0,0 +1,226 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.utilities;
+
+import java.util.Arrays;
+
+/**
+ * A Fenwick (binary indexed) tree of non-negative weights, supporting point
+ * updates, prefix sums and weighted sampling in logarithmic time.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public final class FenwickTree {
+
+	/**
+	 * The tree nodes. Node i (1-based) holds the sum of the weights in
+	 * (i - lowbit(i), i].
+	 */
+	private double[] tree;
+
+	/**
+	 * The weight of each position.
+	 */
+	private double[] weights;
+
+	/**
+	 * The number of positions in use.
+	 */
+	private int size;
+
+	/**
+	 * The highest power of two not greater than the size.
+	 */
+	private int topBit;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param capacity
+	 *            the initial number of positions the tree can hold
+	 */
+	public FenwickTree(final int capacity) {
+		tree = new double[capacity + 1];
+		weights = new double[capacity];
+	}
+
+	/**
+	 * Add to the weight of a position.
+	 * 
+	 * @param index
+	 *            the position
+	 * @param delta
+	 *            the weight to add
+	 */
+	public void add(final int index, final double delta) {
+		weights[index] += delta;
+		for (int i = index + 1; i <= size; i += i & -i)
+			tree[i] += delta;
+	}
+
+	/**
+	 * Add a position at the end of the tree, growing it if needed.
+	 * 
+	 * @param weight
+	 *            the weight of the new position
+	 */
+	public void append(final double weight) {
+		if (size == weights.length) {
+			final int capacity = Math.max(4, 2 * size);
+			tree = Arrays.copyOf(tree, capacity + 1);
+			weights = Arrays.copyOf(weights, capacity);
+		}
+		final int node = size + 1;
+		weights[size] = weight;
+		// The node covers (node - lowbit(node), node]
+		tree[node] = (weight + prefixSum(size))
+				- prefixSum(node - (node & -node));
+		size++;
+		topBit = Integer.highestOneBit(size);
+	}
+
+	/**
+	 * Remove all positions.
+	 */
+	public void clear() {
+		size = 0;
+		topBit = 0;
+	}
+
+	/**
+	 * Find the position where a cumulative weight falls, that is the first
+	 * position whose prefix sum exceeds the given value. Positions with zero
+	 * weight are never returned, unless the value is not less than the total
+	 * weight (then the last position with weight is returned).
+	 * 
+	 * @param value
+	 *            the cumulative weight
+	 * @return the position or -1 if the tree has no weight
+	 */
+	public int find(final double value) {
+		int position = 0;
+		double remaining = value;
+		for (int step = topBit; step > 0; step >>= 1) {
+			final int next = position + step;
+			if ((next <= size) && (tree[next] <= remaining)) {
+				position = next;
+				remaining -= tree[next];
+			}
+		}
+		if (position < size)
+			return position;
+		// Rounding pushed the value past the end
+		for (int i = size - 1; i >= 0; i--) {
+			if (weights[i] > 0)
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @param index
+	 *            the position
+	 * @return the weight of the position
+	 */
+	public double get(final int index) {
+		return weights[index];
+	}
+
+	/**
+	 * Sum the weights of the first positions.
+	 * 
+	 * @param count
+	 *            the number of positions to sum
+	 * @return the sum of the weights of positions 0..count-1
+	 */
+	public double prefixSum(final int count) {
+		double sum = 0;
+		for (int i = count; i > 0; i -= i & -i)
+			sum += tree[i];
+		return sum;
+	}
+
+	/**
+	 * Remove the last position of the tree.
+	 */
+	public void removeLast() {
+		size--;
+		topBit = (size == 0) ? 0 : Integer.highestOneBit(size);
+	}
+
+	/**
+	 * Reset the tree to the given weights in linear time.
+	 * 
+	 * @param newWeights
+	 *            the weights of the positions (copied)
+	 * @param count
+	 *            the number of weights to use
+	 */
+	public void reset(final double[] newWeights, final int count) {
+		if (count > weights.length) {
+			tree = new double[count + 1];
+			weights = new double[count];
+		}
+		size = count;
+		topBit = (count == 0) ? 0 : Integer.highestOneBit(count);
+		System.arraycopy(newWeights, 0, weights, 0, count);
+		System.arraycopy(newWeights, 0, tree, 1, count);
+		for (int i = 1; i <= count; i++) {
+			final int parent = i + (i & -i);
+			if (parent <= count)
+				tree[parent] += tree[i];
+		}
+	}
+
+	/**
+	 * Set the weight of a position.
+	 * 
+	 * @param index
+	 *            the position
+	 * @param weight
+	 *            the new weight
+	 */
+	public void set(final int index, final double weight) {
+		add(index, weight - weights[index]);
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return the number of positions
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return the sum of all weights
+	 */
+	public double total() {
+		return prefixSum(size);
+	}
+}
@@ -0,0 +1,180 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.utilities;
+
+/**
+ * The source of randomness for the LCSs, replacing Math.random(). Every thread
+ * draws from its own SplitMixRandom, so that threads never contend for a
+ * shared generator. All generators derive from a single run seed: a thread's
+ * generator is split from the run's root generator when the thread first
+ * draws, or seeded explicitly with a seed derived from the run seed (as fold
+ * evaluation does), so that parallel runs are reproducible.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public final class RandomSource {
+
+	/**
+	 * The seed of the run or 0 if the run has not been seeded yet.
+	 */
+	private static long runSeed = 0;
+
+	/**
+	 * The root generator, that the thread generators are split from.
+	 */
+	private static SplitMixRandom root = null;
+
+	/**
+	 * The generator of each thread.
+	 */
+	private static final ThreadLocal<SplitMixRandom> THREAD_RANDOM = new ThreadLocal<SplitMixRandom>() {
+		@Override
+		protected SplitMixRandom initialValue() {
+			return splitRoot();
+		}
+	};
+
+	/**
+	 * Get the calling thread's generator, for code needing a
+	 * java.util.Random. The generator must not be passed to other threads.
+	 * 
+	 * @return the thread's generator
+	 */
+	public static SplitMixRandom current() {
+		return THREAD_RANDOM.get();
+	}
+
+	/**
+	 * Derive the seed of a numbered stream of the run (e.g. of a fold), that
+	 * does not depend on the order that the streams are used in.
+	 * 
+	 * @param stream
+	 *            the number of the stream
+	 * @return the stream's seed
+	 */
+	public static long deriveSeed(final long stream) {
+		return SplitMixRandom.mix(getRunSeed() + SplitMixRandom.mix(stream + 1));
+	}
+
+	/**
+	 * Getter.
+	 * 
+	 * @return the seed of the run
+	 */
+	public static synchronized long getRunSeed() {
+		if (root == null)
+			seedRoot(0);
+		return runSeed;
+	}
+
+	/**
+	 * Seed the run, unless it has already been seeded.
+	 * 
+	 * @param seed
+	 *            the run seed or 0 for a time based seed
+	 */
+	public static synchronized void initialize(final long seed) {
+		if (root == null)
+			seedRoot(seed);
+	}
+
+	/**
+	 * Draw a double uniformly from [0, 1) using the thread's generator.
+	 * 
+	 * @return the random double
+	 */
+	public static double nextDouble() {
+		return THREAD_RANDOM.get().nextDouble();
+	}
+
+	/**
+	 * Draw an int uniformly from [0, bound) using the thread's generator.
+	 * 
+	 * @param bound
+	 *            the (exclusive) upper bound
+	 * @return the random int
+	 */
+	public static int nextInt(final int bound) {
+		return THREAD_RANDOM.get().nextInt(bound);
+	}
+
+	/**
+	 * Draw a long using the thread's generator (e.g. to seed a new thread).
+	 * 
+	 * @return the random long
+	 */
+	public static long nextLong() {
+		return THREAD_RANDOM.get().nextLong();
+	}
+
+	/**
+	 * Seed the run. The calling thread's generator is split again from the
+	 * new root, while other threads keep their generators.
+	 * 
+	 * @param seed
+	 *            the run seed or 0 for a time based seed
+	 */
+	public static void setRunSeed(final long seed) {
+		seedRoot(seed);
+		THREAD_RANDOM.set(splitRoot());
+	}
+
+	/**
+	 * Seed the calling thread's generator.
+	 * 
+	 * @param seed
+	 *            the seed (usually derived from the run seed)
+	 */
+	public static void setThreadSeed(final long seed) {
+		THREAD_RANDOM.set(new SplitMixRandom(seed));
+	}
+
+	/**
+	 * Split a new generator from the root.
+	 * 
+	 * @return the new generator
+	 */
+	private static synchronized SplitMixRandom splitRoot() {
+		if (root == null)
+			seedRoot(0);
+		return root.split();
+	}
+
+	/**
+	 * Create the root generator.
+	 * 
+	 * @param seed
+	 *            the run seed or 0 for a time based seed
+	 */
+	private static synchronized void seedRoot(final long seed) {
+		runSeed = (seed != 0) ? seed : SplitMixRandom.mix(System.nanoTime()
+				^ System.currentTimeMillis());
+		root = new SplitMixRandom(runSeed);
+	}
+
+	/**
+	 * Private constructor, the class only has static members.
+	 */
+	private RandomSource() {
+	}
+}
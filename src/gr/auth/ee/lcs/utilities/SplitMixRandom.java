@@ -0,0 +1,127 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.utilities;
+
+import java.util.Random;
+
+/**
+ * A fast, unsynchronized and splittable pseudo-random generator (SplitMix64).
+ * Unlike java.util.Random, it is not safe to share between threads; instead
+ * each thread should use its own generator, split from a common one, so that
+ * all the generators derive from a single seed.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public final class SplitMixRandom extends Random {
+
+	/**
+	 * Serialization id.
+	 */
+	private static final long serialVersionUID = -1838214523578211307L;
+
+	/**
+	 * The odd increment of the generator state (the golden ratio).
+	 */
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	/**
+	 * Scramble a value, so that nearby values give unrelated results.
+	 * 
+	 * @param value
+	 *            the value to scramble
+	 * @return the scrambled value
+	 */
+	public static long mix(final long value) {
+		long z = value;
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	/**
+	 * The generator state.
+	 */
+	private long state;
+
+	/**
+	 * Constructor.
+	 * 
+	 * @param seed
+	 *            the seed of the generator
+	 */
+	public SplitMixRandom(final long seed) {
+		super(seed);
+		state = seed;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Random#next(int)
+	 */
+	@Override
+	protected int next(final int bits) {
+		return (int) (nextLong() >>> (64 - bits));
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Random#nextDouble()
+	 */
+	@Override
+	public double nextDouble() {
+		return (nextLong() >>> 11) * 0x1.0p-53;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Random#nextLong()
+	 */
+	@Override
+	public long nextLong() {
+		state += GOLDEN_GAMMA;
+		return mix(state);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 * 
+	 * @see java.util.Random#setSeed(long)
+	 */
+	@Override
+	public void setSeed(final long seed) {
+		state = seed;
+	}
+
+	/**
+	 * Create a new generator, seeded from this one. The new generator's
+	 * sequence is unrelated to this generator's.
+	 * 
+	 * @return the new generator
+	 */
+	public SplitMixRandom split() {
+		return new SplitMixRandom(mix(nextLong() ^ GOLDEN_GAMMA));
+	}
+}
@@ -13,11 +13,23 @@ import static org.easymock.EasyMock.replay;
 import static org.easymock.EasyMock.reset;
 import static org.easymock.EasyMock.verify;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import gr.auth.ee.lcs.classifiers.Classifier;
 import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.IClassifierSetView;
+import gr.auth.ee.lcs.classifiers.Macroclassifier;
 import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
 import gr.auth.ee.lcs.data.ClassifierTransformBridge;
 import gr.auth.ee.lcs.data.ILCSMetric;
+import gr.auth.ee.lcs.data.representations.SimpleBooleanRepresentation;
+import gr.auth.ee.lcs.utilities.ExtendedBitSet;
+import gr.auth.ee.lcs.utilities.RandomSource;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 import org.junit.After;
 import org.junit.Before;
@@ -259,4 +271,194 @@ public class AbstractLearningClassifierSystemTest {
 		verify(mockUpdate);
 	}
 
+	/**
+	 * An update strategy recording the match set of every update, covering
+	 * the instances with empty match sets and deleting experienced
+	 * classifiers, so that training changes the population deterministically.
+	 */
+	private static final class TraceUpdate extends AbstractUpdateStrategy {
+
+		private final AbstractLearningClassifierSystem myLcs;
+
+		private final List<String> trace = new ArrayList<String>();
+
+		private TraceUpdate(final AbstractLearningClassifierSystem lcs) {
+			myLcs = lcs;
+		}
+
+		/**
+		 * Add a classifier with some attributes of an instance specific.
+		 * 
+		 * @param population
+		 *            the population to add the classifier to
+		 * @param instanceIndex
+		 *            the instance
+		 * @param specific
+		 *            a bit for each attribute, set if it is specific
+		 * @param numerosity
+		 *            the numerosity of the classifier
+		 */
+		private void add(final ClassifierSet population,
+				final int instanceIndex, final int specific,
+				final int numerosity) {
+			final ExtendedBitSet chromosome = new ExtendedBitSet(8);
+			for (int i = 0; i < 4; i++) {
+				if (((specific >> i) & 1) == 0)
+					continue;
+				chromosome.set(2 * i);
+				if (myLcs.instances[instanceIndex][i] == 1)
+					chromosome.set((2 * i) + 1);
+			}
+			population.addClassifier(new Macroclassifier(myLcs
+					.getNewClassifier(chromosome), numerosity), true);
+		}
+
+		@Override
+		public void cover(final ClassifierSet population,
+				final int instanceIndex) {
+			add(population, instanceIndex, 15, 1);
+		}
+
+		@Override
+		public Serializable createStateClassifierObject() {
+			return null;
+		}
+
+		@Override
+		public double getComparisonValue(final Classifier aClassifier,
+				final int mode) {
+			return aClassifier.experience;
+		}
+
+		@Override
+		public String getData(final Classifier aClassifier) {
+			return "";
+		}
+
+		@Override
+		public void inheritParentParameters(final Classifier parentA,
+				final Classifier parentB, final Classifier child) {
+		}
+
+		@Override
+		public void performUpdate(final IClassifierSetView matchSet,
+				final IClassifierSetView correctSet) {
+		}
+
+		@Override
+		public void setComparisonValue(final Classifier aClassifier,
+				final int mode, final double comparisonValue) {
+		}
+
+		@Override
+		public void updateSet(final ClassifierSet population,
+				final IClassifierSetView matchSet, final int instanceIndex,
+				final boolean evolve) {
+			final StringBuilder entry = new StringBuilder();
+			entry.append(instanceIndex).append(':');
+			final int matchSetSize = matchSet.getNumberOfMacroclassifiers();
+			for (int i = 0; i < matchSetSize; i++) {
+				final Classifier cl = matchSet.getClassifier(i);
+				entry.append(' ').append(cl.getSubSet(0, 8)).append('x')
+						.append(matchSet.getClassifierNumerosity(i));
+				cl.experience++;
+			}
+			trace.add(entry.toString());
+
+			if (matchSetSize == 0)
+				cover(population, instanceIndex);
+			for (int i = 0; i < matchSetSize; i++) {
+				final Classifier cl = matchSet.getClassifier(i);
+				if ((cl.experience % 3) == 0)
+					population.deleteClassifier(cl);
+			}
+			if ((instanceIndex % 4) == 0)
+				add(population, instanceIndex, 1 << ((instanceIndex / 4) % 4),
+						2);
+		}
+	}
+
+	/**
+	 * Train a new LCS on some boolean instances.
+	 * 
+	 * @param instances
+	 *            the train instances
+	 * @param trained
+	 *            the population to train
+	 * @param threads
+	 *            the number of train threads
+	 * @param batchSize
+	 *            the train batch size
+	 * @return the update strategy of the LCS, holding the trace of the
+	 *         updates
+	 */
+	private static TraceUpdate train(final double[][] instances,
+			final ClassifierSet trained, final int threads,
+			final int batchSize) {
+		final AbstractLearningClassifierSystem trainLcs = createMockBuilder(
+				AbstractLearningClassifierSystem.class).withConstructor()
+				.createMock();
+		final TraceUpdate update = new TraceUpdate(trainLcs);
+		trainLcs.setElements(new SimpleBooleanRepresentation(0.5, 4,
+				trainLcs), update);
+		trainLcs.instances = instances;
+		trainLcs.setTrainThreads(threads);
+		trainLcs.setTrainBatchSize(batchSize);
+		RandomSource.initialize(17);
+		trainLcs.trainSet(6, trained, true);
+		return update;
+	}
+
+	/**
+	 * Describe the macroclassifiers of a set, in order.
+	 * 
+	 * @param aSet
+	 *            the set
+	 * @return the chromosome and numerosity of each macroclassifier
+	 */
+	private static List<String> describe(final ClassifierSet aSet) {
+		final List<String> macros = new ArrayList<String>();
+		for (int i = 0; i < aSet.getNumberOfMacroclassifiers(); i++)
+			macros.add(aSet.getClassifier(i).getSubSet(0, 8) + "x"
+					+ aSet.getClassifierNumerosity(i));
+		return macros;
+	}
+
+	/**
+	 * Test that mini-batch training keeps the population consistent and that
+	 * single instance batches train exactly as serial training does.
+	 */
+	@Test
+	public void testTrainSetInBatches() {
+		final Random random = new Random(9);
+		final double[][] instances = new double[23][4];
+		for (int k = 0; k < instances.length; k++)
+			for (int i = 0; i < 4; i++)
+				instances[k][i] = random.nextInt(2);
+
+		final ClassifierSet serial = new ClassifierSet(null);
+		final TraceUpdate serialUpdate = train(instances, serial, 1, 0);
+		final ClassifierSet singleBatches = new ClassifierSet(null);
+		final TraceUpdate singleBatchesUpdate = train(instances,
+				singleBatches, 4, 1);
+		assertEquals(singleBatchesUpdate.trace, serialUpdate.trace);
+		assertEquals(describe(singleBatches), describe(serial));
+		assertTrue(serial.getNumberOfMacroclassifiers() > 0);
+
+		final ClassifierSet batches = new ClassifierSet(null);
+		final TraceUpdate batchesUpdate = train(instances, batches, 3, 5);
+		assertFalse(batches.isConcurrent());
+		assertEquals(batchesUpdate.trace.size(), serialUpdate.trace.size());
+		int sum = 0;
+		for (int i = 0; i < batches.getNumberOfMacroclassifiers(); i++) {
+			final int numerosity = batches.getClassifierNumerosity(i);
+			assertTrue(numerosity > 0);
+			assertEquals(
+					batches.getClassifierNumerosity(batches.getClassifier(i)),
+					numerosity);
+			sum += numerosity;
+		}
+		assertEquals(batches.getTotalNumerosity(), sum);
+	}
+
 }
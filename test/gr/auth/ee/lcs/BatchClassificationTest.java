@@ -0,0 +1,148 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import gr.auth.ee.lcs.classifiers.Classifier;
+import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.Macroclassifier;
+import gr.auth.ee.lcs.data.representations.SimpleBooleanRepresentation;
+import gr.auth.ee.lcs.utilities.ExtendedBitSet;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+import weka.core.Instances;
+
+/**
+ * @author Miltos Allamanis
+ *
+ */
+public class BatchClassificationTest {
+
+	/**
+	 * An LCS classifying an instance in the serials of the classifiers that
+	 * match it, so that a classification shows the whole match set.
+	 */
+	private static final class MatchSetLcs extends
+			AbstractLearningClassifierSystem {
+
+		@Override
+		public int[] classifyInstance(final double[] instance) {
+			final ClassifierSet matchSet = getRulePopulation()
+					.generateMatchSet(instance);
+			final int[] serials = new int[matchSet
+					.getNumberOfMacroclassifiers()];
+			for (int i = 0; i < serials.length; i++)
+				serials[i] = matchSet.getClassifier(i).getSerial();
+			return serials;
+		}
+
+		@Override
+		public AbstractLearningClassifierSystem createNew() {
+			return new MatchSetLcs();
+		}
+
+		@Override
+		public String[] getEvaluationNames() {
+			return new String[0];
+		}
+
+		@Override
+		public double[] getEvaluations(final Instances testSet) {
+			return new double[0];
+		}
+
+		@Override
+		public void train() {
+		}
+	}
+
+	@Test
+	public void testLabels() {
+		final int[][] classifications = { { 3, 1, 2 }, {}, { 0 }, { 5, 4 } };
+		final BatchClassification batch = new BatchClassification(
+				classifications);
+
+		assertEquals(batch.size(), 4);
+		assertArrayEquals(batch.getLabels(0), new int[] { 1, 2, 3 });
+		assertEquals(batch.getNumberOfLabels(1), 0);
+		assertEquals(batch.getLabels(1).length, 0);
+		assertEquals(batch.getLabel(3, 0), 4);
+		assertEquals(batch.getLabel(3, 1), 5);
+
+		assertTrue(batch.isClassifiedAs(0, 3));
+		assertFalse(batch.isClassifiedAs(0, 0));
+		assertFalse(batch.isClassifiedAs(1, 0));
+		assertTrue(batch.isClassifiedAs(2, 0));
+		assertFalse(batch.isClassifiedAs(2, 1));
+
+		assertTrue(batch.isClassifiedExactlyAs(0, new int[] { 1, 2, 3 }));
+		assertFalse(batch.isClassifiedExactlyAs(0, new int[] { 1, 2 }));
+		assertTrue(batch.isClassifiedExactlyAs(1, new int[0]));
+		assertFalse(batch.isClassifiedExactlyAs(3, new int[] { 4, 6 }));
+	}
+
+	@Test
+	public void testParallelClassifyInstances() {
+		final MatchSetLcs lcs = new MatchSetLcs();
+		lcs.setElements(new SimpleBooleanRepresentation(0.5, 10, lcs), null);
+		final Random random = new Random(11);
+		final ClassifierSet population = new ClassifierSet(null);
+		while (population.getNumberOfMacroclassifiers() < 500) {
+			final ExtendedBitSet chromosome = new ExtendedBitSet(20);
+			for (int bit = 0; bit < 20; bit++)
+				if (random.nextInt(3) == 0)
+					chromosome.set(bit);
+			final Classifier cl = lcs.getNewClassifier(chromosome);
+			cl.setActionAdvocated(random.nextInt(2));
+			population.addClassifier(new Macroclassifier(cl, 1), false);
+		}
+		lcs.setRulePopulation(population);
+
+		final double[][] instances = new double[101][10];
+		for (int k = 0; k < instances.length; k++)
+			for (int i = 0; i < instances[k].length; i++)
+				instances[k][i] = random.nextInt(2);
+
+		final BatchClassification serial = lcs.classifyInstances(instances, 1);
+		final BatchClassification parallel = lcs.classifyInstances(instances,
+				4);
+		assertFalse(population.isConcurrent());
+
+		assertEquals(serial.size(), instances.length);
+		assertEquals(parallel.size(), instances.length);
+		int matched = 0;
+		for (int k = 0; k < instances.length; k++) {
+			assertArrayEquals(parallel.getLabels(k), serial.getLabels(k));
+			assertArrayEquals(serial.getLabels(k), new BatchClassification(
+					new int[][] { lcs.classifyInstance(instances[k]) })
+					.getLabels(0));
+			matched += serial.getNumberOfLabels(k);
+		}
+		assertTrue(matched > 0);
+	}
+}
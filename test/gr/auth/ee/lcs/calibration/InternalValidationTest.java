@@ -1,12 +1,34 @@
 package gr.auth.ee.lcs.calibration;
 
+import static org.easymock.EasyMock.anyInt;
+import static org.easymock.EasyMock.anyObject;
 import static org.easymock.EasyMock.capture;
 import static org.easymock.EasyMock.expect;
 import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.classifiers.Classifier;
+import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.Macroclassifier;
+import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
+import gr.auth.ee.lcs.data.ClassifierTransformBridge;
 import gr.auth.ee.lcs.data.IClassificationStrategy;
+import gr.auth.ee.lcs.data.IConfidenceClassificationStrategy;
 import gr.auth.ee.lcs.data.ILCSMetric;
+import gr.auth.ee.lcs.data.representations.complex.GenericMultiLabelRepresentation;
+import gr.auth.ee.lcs.data.representations.complex.StrictMultiLabelRepresentation;
+import gr.auth.ee.lcs.data.representations.complex.UniLabelRepresentation;
+import gr.auth.ee.lcs.evaluators.AccuracyRecallEvaluator;
+import gr.auth.ee.lcs.utilities.InstancesUtility;
+import gr.auth.ee.lcs.utilities.RandomSource;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
 
 import org.easymock.Capture;
 import org.easymock.EasyMockSupport;
@@ -14,6 +36,8 @@ import org.easymock.IAnswer;
 import org.junit.Before;
 import org.junit.Test;
 
+import weka.core.Instances;
+
 public class InternalValidationTest extends EasyMockSupport {
 
 	InternalValidation ival;
@@ -65,4 +89,202 @@ public class InternalValidationTest extends EasyMockSupport {
 		verifyAll();
 	}
 
+	/**
+	 * An LCS classifying with a given strategy and its rule population.
+	 */
+	private static final class StrategyLcs extends
+			AbstractLearningClassifierSystem {
+
+		private IClassificationStrategy strategy;
+
+		@Override
+		public int[] classifyInstance(final double[] instance) {
+			return strategy.classify(getRulePopulation(), instance);
+		}
+
+		@Override
+		public AbstractLearningClassifierSystem createNew() {
+			return new StrategyLcs();
+		}
+
+		@Override
+		public String[] getEvaluationNames() {
+			return new String[0];
+		}
+
+		@Override
+		public double[] getEvaluations(final Instances testSet) {
+			return new double[0];
+		}
+
+		@Override
+		public void train() {
+		}
+	}
+
+	/**
+	 * A confidence strategy recording the threshold set on it.
+	 */
+	private static final class RecordingStrategy implements
+			IConfidenceClassificationStrategy {
+
+		private final IConfidenceClassificationStrategy strategy;
+
+		private double threshold = Double.NaN;
+
+		private RecordingStrategy(
+				final IConfidenceClassificationStrategy recordedStrategy) {
+			strategy = recordedStrategy;
+		}
+
+		@Override
+		public int[] classify(final ClassifierSet aSet,
+				final double[] visionVector) {
+			return strategy.classify(aSet, visionVector);
+		}
+
+		@Override
+		public float[] getConfidenceArray(final ClassifierSet aSet,
+				final double[] visionVector) {
+			return strategy.getConfidenceArray(aSet, visionVector);
+		}
+
+		@Override
+		public void setThreshold(final double newThreshold) {
+			threshold = newThreshold;
+			strategy.setThreshold(newThreshold);
+		}
+	}
+
+	/**
+	 * Write a multi-label dataset with four nominal attributes and three
+	 * labels. Every instance has at least one label.
+	 * 
+	 * @return the dataset file
+	 * @throws IOException
+	 *             if the file can not be written
+	 */
+	private static File writeDataset() throws IOException {
+		final File arff = File.createTempFile("validation", ".arff");
+		arff.deleteOnExit();
+		final FileWriter writer = new FileWriter(arff);
+		writer.write("@relation validation\n");
+		for (int i = 0; i < 4; i++)
+			writer.write("@attribute a" + i + " {x,y}\n");
+		for (int i = 0; i < 3; i++)
+			writer.write("@attribute l" + i + " {0,1}\n");
+		writer.write("@data\n");
+		final Random random = new Random(21);
+		for (int k = 0; k < 40; k++) {
+			for (int i = 0; i < 4; i++)
+				writer.write(random.nextBoolean() ? "x," : "y,");
+			final int labels = 1 + random.nextInt(7);
+			writer.write(((labels & 1) != 0 ? "1," : "0,")
+					+ ((labels & 2) != 0 ? "1," : "0,")
+					+ ((labels & 4) != 0 ? "1" : "0") + "\n");
+		}
+		writer.close();
+		return arff;
+	}
+
+	/**
+	 * Calibrate a strategy on cached confidences and by classifying the
+	 * instances for every threshold, and check that both pick the same
+	 * threshold.
+	 * 
+	 * @param lcs
+	 *            the LCS, with its representation set
+	 * @param instances
+	 *            the instances to calibrate on
+	 * @param confidenceStrategy
+	 *            the strategy to calibrate
+	 */
+	private void assertSameCalibration(final StrategyLcs lcs,
+			final double[][] instances,
+			final IConfidenceClassificationStrategy confidenceStrategy) {
+		final ClassifierTransformBridge bridge = lcs
+				.getClassifierTransformBridge();
+		final ClassifierSet rules = new ClassifierSet(null);
+		RandomSource.initialize(5);
+		for (int i = 0; i < instances.length; i++)
+			for (int k = 0; k < 3; k++)
+				rules.addClassifier(
+						new Macroclassifier(bridge
+								.createRandomCoveringClassifier(instances[i]),
+								1 + k), false);
+		lcs.setRulePopulation(rules);
+
+		final RecordingStrategy strategy = new RecordingStrategy(
+				confidenceStrategy);
+		lcs.strategy = strategy;
+		final AccuracyRecallEvaluator accuracy = new AccuracyRecallEvaluator(
+				instances, false, lcs, AccuracyRecallEvaluator.TYPE_ACCURACY);
+
+		// The evaluator is recognized, so the confidences are cached
+		new InternalValidation(lcs, strategy, accuracy).calibrate(8);
+		final double cached = strategy.threshold;
+		final double cachedAccuracy = accuracy.getMetric(lcs);
+
+		// Hidden behind another metric, so the instances are classified
+		final ILCSMetric hidden = new ILCSMetric() {
+			@Override
+			public double getMetric(final AbstractLearningClassifierSystem lcs) {
+				return accuracy.getMetric(lcs);
+			}
+
+			@Override
+			public String getMetricName() {
+				return accuracy.getMetricName();
+			}
+		};
+		strategy.setThreshold(Double.NaN);
+		new InternalValidation(lcs, strategy, hidden).calibrate(8);
+
+		assertEquals(strategy.threshold, cached, 0);
+		assertEquals(accuracy.getMetric(lcs), cachedAccuracy, 0);
+		assertTrue(cachedAccuracy > 0);
+	}
+
+	@Test
+	public void testCachedCalibration() throws IOException {
+		final File arff = writeDataset();
+		final double[][] instances = InstancesUtility
+				.convertIntancesToDouble(InstancesUtility.openInstance(arff
+						.getPath()));
+		final AbstractUpdateStrategy update = createMock(AbstractUpdateStrategy.class);
+		expect(update.createStateClassifierObject()).andReturn(null)
+				.anyTimes();
+		expect(update.getComparisonValue(anyObject(Classifier.class), anyInt()))
+				.andAnswer(new IAnswer<Double>() {
+					public Double answer() {
+						final Classifier cl = (Classifier) getCurrentArguments()[0];
+						return (1 + (cl.getSerial() % 5)) / 5.;
+					}
+				}).anyTimes();
+		replay(update);
+
+		final StrategyLcs strictLcs = new StrategyLcs();
+		final StrictMultiLabelRepresentation strict = new StrictMultiLabelRepresentation(
+				arff.getPath(), 4, 3, StrictMultiLabelRepresentation.EXACT_MATCH,
+				.3, strictLcs);
+		strictLcs.setElements(strict, update);
+		assertSameCalibration(strictLcs, instances,
+				strict.new VotingClassificationStrategy(1.5f));
+
+		final StrategyLcs genericLcs = new StrategyLcs();
+		final GenericMultiLabelRepresentation generic = new GenericMultiLabelRepresentation(
+				arff.getPath(), 4, 3, GenericMultiLabelRepresentation.EXACT_MATCH,
+				.3, .3, genericLcs);
+		genericLcs.setElements(generic, update);
+		assertSameCalibration(genericLcs, instances,
+				generic.new VotingClassificationStrategy(1.5f));
+
+		final StrategyLcs uniLcs = new StrategyLcs();
+		final UniLabelRepresentation uni = new UniLabelRepresentation(
+				arff.getPath(), 4, 3, .3, uniLcs);
+		uniLcs.setElements(uni, update);
+		assertSameCalibration(uniLcs, instances,
+				uni.new ThresholdClassificationStrategy());
+	}
+
 }
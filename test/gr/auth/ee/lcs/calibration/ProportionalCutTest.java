@@ -59,6 +59,38 @@ public class ProportionalCutTest {
 		assertEquals(a.getNumberOfActiveLabels(confValues[1], (float) .2), 2);
 	}
 
+	/**
+	 * 
+	 */
+	@Test
+	public void exactCut() {
+		final float[][] confValues = { { (float) .2, (float) .200001 },
+				{ (float) .2, (float) .200001 } };
+		final ProportionalCut a = new ProportionalCut();
+		final float threshold = a.calibrate(1, confValues);
+		assertTrue(threshold > .2f);
+		assertTrue(threshold < .200001f);
+		assertEquals(a.getNumberOfActiveLabels(confValues[0], threshold), 1);
+	}
+
+	/**
+	 * Zero confidences are not activated by a zero threshold, as the
+	 * strategies compare confidences strictly.
+	 */
+	@Test
+	public void zeroThreshold() {
+		final ProportionalCut a = new ProportionalCut();
+
+		final float[][] zeroValues = { { 0, 0 }, { 0, 0 } };
+		assertEquals(0, a.calibrate(0, zeroValues), 0);
+
+		final float[][] confValues = { { 0, (float) .3 }, { 0, (float) .3 } };
+		assertEquals(0, a.calibrate(1, confValues), 0);
+		assertEquals(0, a.calibrate(2, confValues), 0);
+		final float threshold = a.calibrate((float) .4, confValues);
+		assertTrue(threshold > .3);
+	}
+
 	/**
 	 * @throws java.lang.Exception
 	 */
@@ -0,0 +1,182 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.classifiers;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.easymock.EasyMock.reset;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
+import gr.auth.ee.lcs.data.representations.SimpleBooleanRepresentation;
+import gr.auth.ee.lcs.utilities.ExtendedBitSet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the reuse of deleted classifiers.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public final class ClassifierPoolTest {
+
+	private AbstractLearningClassifierSystem lcs;
+
+	private AbstractUpdateStrategy mockUpdate;
+
+	@Before
+	public void setUp() throws Exception {
+		lcs = createMock(AbstractLearningClassifierSystem.class);
+		mockUpdate = createMock(AbstractUpdateStrategy.class);
+		lcs.setElements(new SimpleBooleanRepresentation(0.5, 4, lcs),
+				mockUpdate);
+		lcs.instances = new double[][] { { 0, 0, 1, 1 }, { 1, 1, 0, 0 },
+				{ 1, 0, 1, 0 } };
+	}
+
+	/**
+	 * Create a classifier, with the given update data.
+	 * 
+	 * @param updateData
+	 *            the update data the update strategy creates
+	 * @return the classifier
+	 */
+	private Classifier newClassifier(final String updateData) {
+		expect(mockUpdate.createStateClassifierObject()).andReturn(updateData);
+		replay(mockUpdate);
+		final Classifier cl = lcs.getNewClassifier(new ExtendedBitSet(
+				"10001010"));
+		reset(mockUpdate);
+		return cl;
+	}
+
+	@Test
+	public void testCapacity() {
+		final ClassifierPool pool = new ClassifierPool(2);
+		pool.recycle(newClassifier("a"));
+		pool.recycle(newClassifier("b"));
+		pool.recycle(newClassifier("c"));
+		pool.reclaim();
+		assertEquals(pool.size(), 2);
+
+		// The pool is full, so more deleted classifiers are dropped
+		pool.recycle(newClassifier("d"));
+		pool.reclaim();
+		assertEquals(pool.size(), 2);
+
+		expect(mockUpdate.createStateClassifierObject()).andReturn("e");
+		replay(mockUpdate);
+		assertTrue(pool.obtain() != null);
+		reset(mockUpdate);
+		pool.recycle(newClassifier("f"));
+		pool.recycle(newClassifier("g"));
+		pool.reclaim();
+		assertEquals(pool.size(), 2);
+	}
+
+	@Test
+	public void testDeletedFromSet() {
+		final ClassifierPool pool = new ClassifierPool(10);
+		final ClassifierSet population = new ClassifierSet(null);
+		population.setClassifierPool(pool);
+		final Classifier deleted = newClassifier("a");
+		population.addClassifier(new Macroclassifier(deleted, 2), false);
+		population.addClassifier(new Macroclassifier(newClassifier("b"), 1),
+				false);
+
+		// A macroclassifier with numerosity left is not recycled
+		population.deleteClassifier(0);
+		pool.reclaim();
+		assertEquals(pool.size(), 0);
+
+		population.deleteClassifier(deleted);
+		assertEquals(population.getNumberOfMacroclassifiers(), 1);
+		assertEquals(pool.size(), 0);
+		pool.reclaim();
+		assertEquals(pool.size(), 1);
+
+		expect(mockUpdate.createStateClassifierObject()).andReturn("c");
+		replay(mockUpdate);
+		assertTrue(pool.obtain() == deleted);
+	}
+
+	@Test
+	public void testObtainEmpty() {
+		final ClassifierPool pool = new ClassifierPool(2);
+		assertEquals(pool.size(), 0);
+		assertNull(pool.obtain());
+	}
+
+	@Test
+	public void testRecycleAndReclaim() {
+		final ClassifierPool pool = new ClassifierPool(2);
+		final Classifier deleted = newClassifier("a");
+		pool.recycle(deleted);
+
+		// Still queued, may be referenced
+		assertEquals(pool.size(), 0);
+		assertNull(pool.obtain());
+
+		pool.reclaim();
+		assertEquals(pool.size(), 1);
+		expect(mockUpdate.createStateClassifierObject()).andReturn("b");
+		replay(mockUpdate);
+		assertTrue(pool.obtain() == deleted);
+		assertEquals(pool.size(), 0);
+		assertNull(pool.obtain());
+	}
+
+	@Test
+	public void testResetForReuse() {
+		final ClassifierPool pool = new ClassifierPool(2);
+		final Classifier deleted = newClassifier("old");
+		final int oldSerial = deleted.getSerial();
+		deleted.experience = 5;
+		deleted.setSubsumptionAbility(true);
+		deleted.recordCoverage(3, 2);
+		assertEquals(deleted.getCheckedInstances(), 3);
+		assertEquals(deleted.getUpdateDataObject(), "old");
+
+		pool.recycle(deleted);
+		pool.reclaim();
+		expect(mockUpdate.createStateClassifierObject()).andReturn("new");
+		replay(mockUpdate);
+		final Classifier recycled = pool.obtain();
+
+		assertTrue(recycled == deleted);
+		assertTrue(recycled.getSerial() != oldSerial);
+		assertTrue(recycled.getSerial() > oldSerial);
+		assertEquals(recycled.getUpdateDataObject(), "new");
+		assertEquals(recycled.experience, 0);
+		assertFalse(recycled.canSubsume());
+		assertEquals(recycled.getCheckedInstances(), 0);
+		assertEquals(recycled.getCoverage(), .5, 0);
+		// The chromosome is kept, to be overwritten by the caller
+		assertEquals(recycled.getSubSet(0, 8).toString(), "10001010");
+	}
+}
@@ -36,7 +36,19 @@ import gr.auth.ee.lcs.data.ClassifierTransformBridge;
 import gr.auth.ee.lcs.data.representations.SimpleBooleanRepresentation;
 import gr.auth.ee.lcs.utilities.ExtendedBitSet;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.easymock.EasyMockSupport;
+import org.easymock.IAnswer;
 import org.junit.Before;
 import org.junit.Test;
 
@@ -240,6 +252,10 @@ public final class ClassifierSetTest extends EasyMockSupport {
 						anyObject(Classifier.class))).andReturn(false);
 		expect(mockClassifier1.isMatch(instance)).andReturn(false);
 		expect(mockClassifier2.isMatch(instance)).andReturn(true);
+		mockBridge.beginMatch(instance);
+		expectLastCall().anyTimes();
+		mockBridge.endMatch();
+		expectLastCall().anyTimes();
 
 		replayAll();
 
@@ -257,6 +273,229 @@ public final class ClassifierSetTest extends EasyMockSupport {
 
 	}
 
+	/**
+	 * Check that several threads can add and delete classifiers of a
+	 * concurrent set while reading it: the pinned snapshots never change
+	 * under their readers and the set is consistent once serial again.
+	 */
+	@Test
+	public void testConcurrentMutations() throws Exception {
+		final SimpleBooleanRepresentation wide = new SimpleBooleanRepresentation(
+				0.5, 10, lcs);
+		lcs.setElements(wide, null);
+		final Random random = new Random(3);
+		final int threads = 4;
+		final int perThread = 50;
+		final Classifier[] initial = new Classifier[threads * perThread];
+		final Classifier[] added = new Classifier[threads * perThread];
+		final ClassifierSet population = new ClassifierSet(null);
+		for (int i = 0; i < initial.length; i++) {
+			initial[i] = lcs.getNewClassifier(new ExtendedBitSet(20));
+			population.addClassifier(new Macroclassifier(initial[i], 2), false);
+			final ExtendedBitSet chromosome = new ExtendedBitSet(20);
+			for (int bit = 0; bit < 20; bit++)
+				if (random.nextInt(3) == 0)
+					chromosome.set(bit);
+			added[i] = lcs.getNewClassifier(chromosome);
+		}
+
+		final List<Callable<Object>> tasks = new ArrayList<Callable<Object>>();
+		for (int t = 0; t < threads; t++) {
+			final int first = t * perThread;
+			tasks.add(new Callable<Object>() {
+				@Override
+				public Object call() {
+					final double[] instance = new double[10];
+					for (int i = first; i < (first + perThread); i++) {
+						population.addClassifier(new Macroclassifier(added[i],
+								2), false);
+						population.generateMatchSet(instance);
+						int sum = 0;
+						for (int j = 0; j < population
+								.getNumberOfMacroclassifiers(); j++)
+							sum += population.getClassifierNumerosity(j);
+						population.deleteClassifier(added[i]);
+						population.deleteClassifier(initial[i]);
+						assertTrue(population.getTotalNumerosity() > 0);
+						// The pinned snapshot is not changed by the writer
+						int resum = 0;
+						for (int j = 0; j < population
+								.getNumberOfMacroclassifiers(); j++)
+							resum += population.getClassifierNumerosity(j);
+						assertEquals(resum, sum);
+					}
+					return null;
+				}
+			});
+		}
+
+		final ExecutorService threadPool = Executors
+				.newFixedThreadPool(threads);
+		population.setConcurrent(true);
+		try {
+			for (final Future<Object> result : threadPool.invokeAll(tasks))
+				result.get();
+		} finally {
+			population.setConcurrent(false);
+			threadPool.shutdown();
+		}
+
+		assertEquals(population.getNumberOfMacroclassifiers(),
+				initial.length + added.length);
+		assertEquals(population.getTotalNumerosity(), initial.length
+				+ added.length);
+		assertConsistent(population);
+		for (int i = 0; i < initial.length; i++) {
+			assertEquals(population.getClassifierNumerosity(initial[i]), 1);
+			assertEquals(population.getClassifierNumerosity(added[i]), 1);
+		}
+	}
+
+	@Test
+	public void testGenerateMatchSetView() {
+		final SimpleBooleanRepresentation wide = new SimpleBooleanRepresentation(
+				0.5, 10, lcs);
+		lcs.setElements(wide, null);
+		final Random random = new Random(5);
+		lcs.instances = new double[30][10];
+		for (int k = 0; k < lcs.instances.length; k++)
+			for (int i = 0; i < 10; i++)
+				lcs.instances[k][i] = random.nextInt(2);
+		final ClassifierSet population = new ClassifierSet(null);
+		while (population.getNumberOfMacroclassifiers() < 300) {
+			final ExtendedBitSet chromosome = new ExtendedBitSet(20);
+			for (int bit = 0; bit < 20; bit++)
+				if (random.nextInt(3) == 0)
+					chromosome.set(bit);
+			final Classifier cl = lcs.getNewClassifier(chromosome);
+			cl.setActionAdvocated(random.nextInt(2));
+			population.addClassifier(new Macroclassifier(cl,
+					1 + random.nextInt(3)), false);
+		}
+
+		final MatchSetView view = new MatchSetView();
+		for (int pass = 0; pass < 2; pass++) {
+			// The second pass matches the snapshot of a concurrent set
+			population.setConcurrent(pass == 1);
+			int matched = 0;
+			for (int k = 0; k < lcs.instances.length; k++) {
+				final ClassifierSet matchSet = population.generateMatchSet(k);
+				population.generateMatchSet(k, view);
+				assertEquals(view.getNumberOfMacroclassifiers(),
+						matchSet.getNumberOfMacroclassifiers());
+				assertEquals(view.getTotalNumerosity(),
+						matchSet.getTotalNumerosity());
+				for (int i = 0; i < view.getNumberOfMacroclassifiers(); i++) {
+					assertTrue(view.getClassifier(i) == matchSet
+							.getClassifier(i));
+					assertEquals(view.getClassifierNumerosity(i),
+							matchSet.getClassifierNumerosity(i));
+				}
+				matched += view.getNumberOfMacroclassifiers();
+			}
+			assertTrue(matched > 0);
+		}
+		population.setConcurrent(false);
+	}
+
+	@Test
+	public void testParallelGenerateMatchSet() {
+		final SimpleBooleanRepresentation wide = new SimpleBooleanRepresentation(
+				0.5, 10, lcs);
+		lcs.setElements(wide, null);
+		final Random random = new Random(7);
+		final ClassifierSet population = new ClassifierSet(null);
+		// Enough macroclassifiers for several match tasks
+		while (population.getNumberOfMacroclassifiers() < 1500) {
+			final ExtendedBitSet chromosome = new ExtendedBitSet(20);
+			for (int bit = 0; bit < 20; bit++)
+				if (random.nextInt(3) == 0)
+					chromosome.set(bit);
+			final Classifier cl = lcs.getNewClassifier(chromosome);
+			cl.setActionAdvocated(random.nextInt(2));
+			population.addClassifier(new Macroclassifier(cl,
+					1 + random.nextInt(3)), false);
+		}
+
+		for (int k = 0; k < 20; k++) {
+			final double[] instance = new double[10];
+			for (int i = 0; i < instance.length; i++)
+				instance[i] = random.nextInt(2);
+
+			final ClassifierSet sequential = population
+					.generateMatchSet(instance);
+			population.setParallelMatchThreshold(0);
+			final ClassifierSet parallel = population
+					.generateMatchSet(instance);
+			population
+					.setParallelMatchThreshold(ClassifierSet.DEFAULT_PARALLEL_MATCH_THRESHOLD);
+
+			assertTrue(sequential.getNumberOfMacroclassifiers() > 0);
+			assertEquals(parallel.getNumberOfMacroclassifiers(),
+					sequential.getNumberOfMacroclassifiers());
+			assertEquals(parallel.getTotalNumerosity(),
+					sequential.getTotalNumerosity());
+			for (int i = 0; i < sequential.getNumberOfMacroclassifiers(); i++) {
+				assertTrue(parallel.getClassifier(i) == sequential
+						.getClassifier(i));
+				assertEquals(parallel.getClassifierNumerosity(i),
+						sequential.getClassifierNumerosity(i));
+			}
+		}
+	}
+
+	/**
+	 * Check that the threads matching serially never split their match sets
+	 * over the match pool.
+	 */
+	@Test
+	public void testSerialMatching() {
+		final ClassifierSet population = new ClassifierSet(null);
+		final double[] instance = { 0, 1, 0, 1 };
+		final Set<Thread> matchingThreads = Collections
+				.synchronizedSet(new HashSet<Thread>());
+
+		mockBridge
+				.setRepresentationSpecificClassifierData(anyObject(Classifier.class));
+		expectLastCall().anyTimes();
+		mockBridge.beginMatch(anyObject(double[].class));
+		expectLastCall().anyTimes();
+		mockBridge.endMatch();
+		expectLastCall().anyTimes();
+		expect(
+				mockBridge.isMatch(anyObject(double[].class),
+						anyObject(ExtendedBitSet.class))).andAnswer(
+				new IAnswer<Boolean>() {
+					@Override
+					public Boolean answer() {
+						matchingThreads.add(Thread.currentThread());
+						return true;
+					}
+				}).anyTimes();
+		replayAll();
+
+		for (int i = 0; i < 1000; i++)
+			population.addClassifier(new Macroclassifier(lcs
+					.getNewClassifier(new ExtendedBitSet("10010110")), 1),
+					false);
+		population.setParallelMatchThreshold(0);
+		assertEquals(population.getParallelMatchThreshold(), 0);
+
+		ClassifierSet.setSerialMatching(true);
+		try {
+			assertEquals(population.generateMatchSet(instance)
+					.getNumberOfMacroclassifiers(), 1000);
+		} finally {
+			ClassifierSet.setSerialMatching(false);
+		}
+		assertEquals(matchingThreads.size(), 1);
+		assertTrue(matchingThreads.contains(Thread.currentThread()));
+
+		assertEquals(population.generateMatchSet(instance)
+				.getNumberOfMacroclassifiers(), 1000);
+		verifyAll();
+	}
+
 	@Test
 	public void testRemoveAll() {
 		resetAll();
@@ -301,6 +540,119 @@ public final class ClassifierSetTest extends EasyMockSupport {
 
 	}
 
+	/**
+	 * Check that every macroclassifier of a set is found by its classifier
+	 * and by its microclassifiers.
+	 * 
+	 * @param aSet
+	 *            the set to check
+	 */
+	private static void assertConsistent(final ClassifierSet aSet) {
+		int microIndex = 0;
+		int sum = 0;
+		for (int i = 0; i < aSet.getNumberOfMacroclassifiers(); i++) {
+			final int numerosity = aSet.getClassifierNumerosity(i);
+			assertEquals(aSet.getClassifierNumerosity(aSet.getClassifier(i)),
+					numerosity);
+			for (int j = 0; j < numerosity; j++) {
+				assertEquals(aSet.getMacroclassifierIndex(microIndex), i);
+				microIndex++;
+			}
+			sum += numerosity;
+		}
+		assertEquals(aSet.getTotalNumerosity(), sum);
+	}
+
+	/**
+	 * Create a classifier of the (real) boolean representation, with all
+	 * four attributes specific.
+	 * 
+	 * @param value
+	 *            the value of the attributes, one bit per attribute
+	 * @param action
+	 *            the advocated action
+	 * @return the new classifier
+	 */
+	private Classifier createSpecificClassifier(final int value,
+			final int action) {
+		final ExtendedBitSet chromosome = new ExtendedBitSet(8);
+		for (int i = 0; i < 4; i++) {
+			chromosome.set(2 * i);
+			if (((value >> i) & 1) != 0)
+				chromosome.set((2 * i) + 1);
+		}
+		final Classifier cl = lcs.getNewClassifier(chromosome);
+		cl.setActionAdvocated(action);
+		return cl;
+	}
+
+	/**
+	 * Check that the serial index stays consistent when macroclassifiers are
+	 * swap-removed from the middle, the start and the end of the set.
+	 */
+	@Test
+	public void testSwapRemoveSerialIndex() {
+		lcs.setElements(test, null);
+		final ClassifierSet testSet = new ClassifierSet(null);
+		final Classifier[] classifiers = new Classifier[16];
+		for (int i = 0; i < classifiers.length; i++) {
+			classifiers[i] = createSpecificClassifier(i, 0);
+			testSet.addClassifier(new Macroclassifier(classifiers[i],
+					1 + (i % 3)), false);
+		}
+		testSet.getMacroclassifierIndex(0); // Build the numerosity tree
+		assertConsistent(testSet);
+
+		final int[] deleted = { 7, 0, 15, 3, 14, 8 };
+		for (int k = 0; k < deleted.length; k++) {
+			final Classifier cl = classifiers[deleted[k]];
+			while (testSet.getClassifierNumerosity(cl) > 0)
+				testSet.deleteClassifier(cl);
+			assertEquals(testSet.getClassifierNumerosity(cl), 0);
+			assertEquals(testSet.getNumberOfMacroclassifiers(), 15 - k);
+			assertConsistent(testSet);
+		}
+
+		for (int i = 0; i < classifiers.length; i++) {
+			boolean wasDeleted = false;
+			for (int k = 0; k < deleted.length; k++)
+				wasDeleted |= deleted[k] == i;
+			assertEquals(testSet.getClassifierNumerosity(classifiers[i]),
+					wasDeleted ? 0 : 1 + (i % 3));
+		}
+	}
+
+	/**
+	 * Check that self subsumption merges equal macroclassifiers and keeps the
+	 * serial index and numerosities consistent.
+	 */
+	@Test
+	public void testSelfSubsume() {
+		lcs.setElements(test, null);
+		final ClassifierSet testSet = new ClassifierSet(null);
+		final Classifier[] classifiers = new Classifier[30];
+		for (int i = 0; i < classifiers.length; i++) {
+			// Every value twice, except the last ones
+			classifiers[i] = createSpecificClassifier(i % 13, 1);
+			testSet.addClassifier(new Macroclassifier(classifiers[i], 2),
+					false);
+		}
+		testSet.getMacroclassifierIndex(0); // Build the numerosity tree
+		assertEquals(testSet.getNumberOfMacroclassifiers(), 30);
+
+		testSet.selfSubsume();
+
+		assertEquals(testSet.getNumberOfMacroclassifiers(), 13);
+		assertEquals(testSet.getTotalNumerosity(), 60);
+		assertConsistent(testSet);
+		for (int value = 0; value < 13; value++) {
+			int numerosity = 0;
+			for (int i = value; i < classifiers.length; i += 13)
+				numerosity += testSet.getClassifierNumerosity(classifiers[i]);
+			assertEquals(numerosity, (value < 4) ? 6 : 4);
+		}
+	}
+
 	/**
 	 * Test method for
 	 * {@link gr.auth.ee.lcs.classifiers.ClassifierSet#addFromClassifierSet(gr.auth.ee.lcs.classifiers.ClassifierSet, int)}
@@ -0,0 +1,189 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.classifiers;
+
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
+import gr.auth.ee.lcs.data.representations.SimpleBooleanRepresentation;
+import gr.auth.ee.lcs.utilities.ExtendedBitSet;
+
+import java.util.Random;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test the accounting and eviction of the classifiers' match caches.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public final class MatchCacheManagerTest {
+
+	/**
+	 * The bytes of the cache of a classifier, two longs for 64 instances.
+	 */
+	private static final long CACHE_BYTES = 16;
+
+	private AbstractLearningClassifierSystem lcs;
+
+	@Before
+	public void setUp() {
+		lcs = createMock(AbstractLearningClassifierSystem.class);
+		final AbstractUpdateStrategy update = createMock(AbstractUpdateStrategy.class);
+		expect(update.createStateClassifierObject()).andReturn(null)
+				.anyTimes();
+		replay(update);
+		lcs.setElements(new SimpleBooleanRepresentation(0.5, 4, lcs), update);
+		final Random random = new Random(13);
+		lcs.instances = new double[64][4];
+		for (int k = 0; k < lcs.instances.length; k++)
+			for (int i = 0; i < 4; i++)
+				lcs.instances[k][i] = random.nextInt(2);
+
+		// Drop the caches of other tests, so that only ours are counted
+		MatchCacheManager.setBudget(0);
+		MatchCacheManager.setBudget(Long.MAX_VALUE);
+		MatchCacheManager.resetStatistics();
+		MatchCacheManager.setStatisticsEnabled(true);
+	}
+
+	@After
+	public void tearDown() {
+		MatchCacheManager.setStatisticsEnabled(false);
+		MatchCacheManager.setBudget(Long.MAX_VALUE);
+		MatchCacheManager.resetStatistics();
+	}
+
+	/**
+	 * Create a classifier checking the first two attributes.
+	 * 
+	 * @return the classifier
+	 */
+	private Classifier newClassifier() {
+		return lcs.getNewClassifier(new ExtendedBitSet("00001011"));
+	}
+
+	@Test
+	public void testCounters() {
+		assertEquals(MatchCacheManager.getBytesUsed(), 0);
+		final Classifier cl = newClassifier();
+		assertEquals(MatchCacheManager.getBytesUsed(), 0);
+
+		for (int i = 0; i < lcs.instances.length; i++)
+			cl.isMatch(i);
+		assertEquals(MatchCacheManager.getBytesUsed(), CACHE_BYTES);
+		assertEquals(MatchCacheManager.getMisses(), lcs.instances.length);
+		assertEquals(MatchCacheManager.getHits(), 0);
+
+		for (int i = 0; i < lcs.instances.length; i++)
+			assertEquals(cl.isMatch(i), cl.isMatch(lcs.instances[i]));
+		assertEquals(MatchCacheManager.getMisses(), lcs.instances.length);
+		assertEquals(MatchCacheManager.getHits(), lcs.instances.length);
+		assertEquals(MatchCacheManager.getHitRate(), .5, 0);
+
+		// Not counted when disabled
+		MatchCacheManager.setStatisticsEnabled(false);
+		cl.isMatch(0);
+		assertEquals(MatchCacheManager.getHits(), lcs.instances.length);
+
+		MatchCacheManager.resetStatistics();
+		assertEquals(MatchCacheManager.getHits(), 0);
+		assertEquals(MatchCacheManager.getMisses(), 0);
+		assertEquals(MatchCacheManager.getHitRate(), 0, 0);
+		assertEquals(MatchCacheManager.getEvictions(), 0);
+		assertEquals(MatchCacheManager.getBytesUsed(), CACHE_BYTES);
+	}
+
+	@Test
+	public void testEviction() {
+		final long budget = 10 * CACHE_BYTES;
+		MatchCacheManager.setBudget(budget);
+		final Classifier[] classifiers = new Classifier[10];
+		for (int i = 0; i < classifiers.length; i++) {
+			classifiers[i] = newClassifier();
+			MatchCacheManager.tick();
+			classifiers[i].isMatch(0);
+		}
+		assertEquals(MatchCacheManager.getBytesUsed(), budget);
+		assertEquals(MatchCacheManager.getEvictions(), 0);
+
+		// The two least recently matched caches make room down to 90%
+		MatchCacheManager.tick();
+		classifiers[0] = newClassifier();
+		classifiers[0].isMatch(0);
+		assertEquals(MatchCacheManager.getEvictions(), 2);
+		assertEquals(MatchCacheManager.getBytesUsed(), 9 * CACHE_BYTES);
+		assertTrue(MatchCacheManager.getBytesUsed() <= (.9 * budget));
+
+		final long misses = MatchCacheManager.getMisses();
+		classifiers[2].isMatch(0);
+		assertEquals(MatchCacheManager.getMisses(), misses);
+		classifiers[1].isMatch(0); // Evicted, so checked again
+		assertEquals(MatchCacheManager.getMisses(), misses + 1);
+		assertEquals(MatchCacheManager.getBytesUsed(), budget);
+
+		// A lower budget evicts down to 90% of it
+		MatchCacheManager.setBudget(5 * CACHE_BYTES);
+		assertEquals(MatchCacheManager.getBytesUsed(), 4 * CACHE_BYTES);
+		assertEquals(MatchCacheManager.getEvictions(), 8);
+		assertEquals(MatchCacheManager.getBudget(), 5 * CACHE_BYTES);
+	}
+
+	@Test
+	public void testCoverageAfterEviction() {
+		final Classifier cl = newClassifier();
+		int covered = 0;
+		for (int i = 0; i < lcs.instances.length; i++) {
+			if (cl.isMatch(lcs.instances[i]))
+				covered++;
+		}
+		assertTrue(covered > 0);
+
+		for (int i = 0; i < (lcs.instances.length / 2); i++)
+			cl.isMatch(i);
+		assertEquals(cl.getCheckedInstances(), lcs.instances.length / 2);
+
+		// Evicting the cache must not count the checked instances again
+		MatchCacheManager.setBudget(0);
+		assertEquals(MatchCacheManager.getBytesUsed(), 0);
+		MatchCacheManager.setBudget(Long.MAX_VALUE);
+		for (int i = 0; i < lcs.instances.length; i++)
+			cl.isMatch(i);
+		assertEquals(cl.getCheckedInstances(), lcs.instances.length);
+		assertEquals(cl.getCoverage(), ((double) covered)
+				/ lcs.instances.length, 0);
+
+		MatchCacheManager.setBudget(0);
+		for (int i = 0; i < lcs.instances.length; i++)
+			cl.isMatch(i);
+		assertEquals(cl.getCheckedInstances(), lcs.instances.length);
+		assertEquals(cl.getCoverage(), ((double) covered)
+				/ lcs.instances.length, 0);
+	}
+}
@@ -0,0 +1,136 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.classifiers;
+
+import static org.easymock.EasyMock.createMock;
+import static org.junit.Assert.assertEquals;
+import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.data.representations.complex.ComplexRepresentation.AbstractAttribute;
+import gr.auth.ee.lcs.data.representations.complex.SingleClassRepresentation;
+import gr.auth.ee.lcs.data.updateAlgorithms.UCSUpdateAlgorithm;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test that the match matrix finds the same match sets, in the same order, as
+ * a linear scan.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public final class MatchMatrixTest {
+
+	/**
+	 * A single class representation instance.
+	 */
+	private SingleClassRepresentation rep;
+
+	private AbstractLearningClassifierSystem lcs;
+
+	/**
+	 * Return the classifiers of a set in order.
+	 * 
+	 * @param set
+	 *            the set
+	 * @return the set's classifiers
+	 */
+	private List<Classifier> classifiersOf(final ClassifierSet set) {
+		final List<Classifier> classifiers = new ArrayList<Classifier>();
+		for (int i = 0; i < set.getNumberOfMacroclassifiers(); i++)
+			classifiers.add(set.getClassifier(i));
+		return classifiers;
+	}
+
+	/**
+	 * Return a random instance.
+	 * 
+	 * @param random
+	 *            the random generator to use
+	 * @return the instance
+	 */
+	private double[] randomInstance(final Random random) {
+		final double[] instance = { random.nextInt(2), random.nextDouble(),
+				random.nextInt(2), 0 };
+		return instance;
+	}
+
+	@Before
+	public void setUp() {
+		lcs = createMock(AbstractLearningClassifierSystem.class);
+		final SingleClassRepresentation.AbstractAttribute list[] = new AbstractAttribute[4];
+		final String[] names = { "Good", "Mediocre", "Bad" };
+		rep = new SingleClassRepresentation(list, names, .7, lcs);
+		final String[] attribute = { "A", "B" };
+		list[0] = rep.new NominalAttribute(rep.getChromosomeSize(), "nom",
+				attribute, 0);
+		list[1] = rep.new IntervalAttribute(rep.getChromosomeSize(), "int",
+				0, 1, 2, 0);
+		list[2] = rep.new BooleanAttribute(rep.getChromosomeSize(), "bool", 0);
+		list[3] = rep.new UniLabel(rep.getChromosomeSize(), "class", names);
+		final UCSUpdateAlgorithm update = new UCSUpdateAlgorithm(0, 0, 0, 0, 0,
+				0, null, 0, 0, lcs);
+		lcs.setElements(rep, update);
+	}
+
+	@Test
+	public void testMatrixMatchSets() {
+		final Random random = new Random(1);
+		lcs.instances = new double[40][];
+		for (int i = 0; i < lcs.instances.length; i++)
+			lcs.instances[i] = randomInstance(random);
+
+		final ClassifierSet plain = new ClassifierSet(null);
+		final ClassifierSet indexed = new ClassifierSet(null);
+		indexed.setMatchIndex(new MatchMatrix(lcs));
+
+		// Enough classifiers to span several words of the bitmaps
+		for (int i = 0; i < 3000; i++) {
+			if ((random.nextInt(3) > 0)
+					|| (plain.getNumberOfMacroclassifiers() < 10)) {
+				final Classifier cl = rep
+						.createRandomCoveringClassifier(randomInstance(random));
+				plain.addClassifier(new Macroclassifier(cl, 1), false);
+				indexed.addClassifier(new Macroclassifier(cl, 1), false);
+			} else {
+				final int index = random.nextInt(plain
+						.getNumberOfMacroclassifiers());
+				plain.deleteClassifier(index);
+				indexed.deleteClassifier(index);
+			}
+
+			final int instance = random.nextInt(lcs.instances.length);
+			assertEquals(classifiersOf(plain.generateMatchSet(instance)),
+					classifiersOf(indexed.generateMatchSet(instance)));
+		}
+		assertEquals(classifiersOf(plain), classifiersOf(indexed));
+
+		final double[] vision = randomInstance(random);
+		assertEquals(classifiersOf(plain.generateMatchSet(vision)),
+				classifiersOf(indexed.generateMatchSet(vision)));
+	}
+
+}
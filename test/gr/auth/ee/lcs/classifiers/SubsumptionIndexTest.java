@@ -0,0 +1,127 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.classifiers;
+
+import static org.easymock.EasyMock.createMock;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.data.representations.complex.ComplexRepresentation.AbstractAttribute;
+import gr.auth.ee.lcs.data.representations.complex.SingleClassRepresentation;
+import gr.auth.ee.lcs.data.updateAlgorithms.UCSUpdateAlgorithm;
+import gr.auth.ee.lcs.utilities.ExtendedBitSet;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test that the subsumption index absorbs exactly the classifiers a linear
+ * scan would absorb.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public final class SubsumptionIndexTest {
+
+	/**
+	 * A single class representation instance.
+	 */
+	private SingleClassRepresentation rep;
+
+	private AbstractLearningClassifierSystem lcs;
+
+	/**
+	 * Check if a classifier absorbs another.
+	 * 
+	 * @param theClassifier
+	 *            the classifier of the set
+	 * @param aClassifier
+	 *            the added classifier
+	 * @return true if the classifier absorbs the added one
+	 */
+	private boolean absorbs(final Classifier theClassifier,
+			final Classifier aClassifier) {
+		return theClassifier.canSubsume() ? theClassifier
+				.isMoreGeneral(aClassifier) : theClassifier.equals(aClassifier);
+	}
+
+	@Before
+	public void setUp() {
+		lcs = createMock(AbstractLearningClassifierSystem.class);
+		final SingleClassRepresentation.AbstractAttribute list[] = new AbstractAttribute[4];
+		final String[] names = { "Good", "Mediocre", "Bad" };
+		rep = new SingleClassRepresentation(list, names, .7, lcs);
+		final String[] attribute = { "A", "B" };
+		list[0] = rep.new NominalAttribute(rep.getChromosomeSize(), "nom",
+				attribute, 0);
+		list[1] = rep.new IntervalAttribute(rep.getChromosomeSize(), "int",
+				0, 1, 2, 0);
+		list[2] = rep.new BooleanAttribute(rep.getChromosomeSize(), "bool", 0);
+		list[3] = rep.new UniLabel(rep.getChromosomeSize(), "class", names);
+		final UCSUpdateAlgorithm update = new UCSUpdateAlgorithm(0, 0, 0, 0, 0,
+				0, null, 0, 0, lcs);
+		lcs.setElements(rep, update);
+	}
+
+	@Test
+	public void testIndexedAbsorption() {
+		final Random random = new Random(1);
+		final ClassifierSet set = new ClassifierSet(null);
+		set.setSubsumptionIndex(new SubsumptionIndex(rep));
+
+		for (int i = 0; i < 3000; i++) {
+			if ((random.nextInt(4) == 0)
+					&& (set.getNumberOfMacroclassifiers() > 0)) {
+				set.deleteClassifier(random.nextInt(set
+						.getNumberOfMacroclassifiers()));
+				continue;
+			}
+			final ExtendedBitSet chromosome = new ExtendedBitSet(
+					rep.getChromosomeSize());
+			for (int bit = 0; bit < rep.getChromosomeSize(); bit++)
+				if (random.nextInt(3) == 0)
+					chromosome.set(bit);
+			rep.fixChromosome(chromosome);
+			final Classifier cl = lcs.getNewClassifier(chromosome);
+			cl.setSubsumptionAbility(random.nextBoolean());
+
+			boolean absorbed = false;
+			for (int j = 0; j < set.getNumberOfMacroclassifiers(); j++)
+				absorbed |= absorbs(set.getClassifier(j), cl);
+			final Macroclassifier absorbing = set.getSubsumptionIndex()
+					.findAbsorbing(cl);
+			assertEquals(absorbed, absorbing != null);
+			if (absorbing != null)
+				assertTrue(absorbs(absorbing.myClassifier, cl));
+
+			final int macroclassifiers = set.getNumberOfMacroclassifiers();
+			set.addClassifier(new Macroclassifier(cl, 1), true);
+			assertEquals(absorbed ? macroclassifiers : macroclassifiers + 1,
+					set.getNumberOfMacroclassifiers());
+			assertEquals(set.getNumberOfMacroclassifiers(), set
+					.getSubsumptionIndex().size());
+		}
+	}
+
+}
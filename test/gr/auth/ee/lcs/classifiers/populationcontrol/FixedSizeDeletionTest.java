@@ -34,6 +34,7 @@ import gr.auth.ee.lcs.classifiers.Macroclassifier;
 import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
 import gr.auth.ee.lcs.data.representations.SimpleBooleanRepresentation;
 import gr.auth.ee.lcs.data.updateAlgorithms.ASLCSUpdateAlgorithm;
+import gr.auth.ee.lcs.geneticalgorithm.selectors.FenwickRouletteSelector;
 import gr.auth.ee.lcs.geneticalgorithm.selectors.RouletteWheelSelector;
 import gr.auth.ee.lcs.utilities.SettingsLoader;
 
@@ -115,4 +116,70 @@ public class FixedSizeDeletionTest {
 		}
 	}
 
+	/**
+	 * Test method for
+	 * {@link gr.auth.ee.lcs.classifiers.populationcontrol.FixedSizeSetWorstFitnessDeletion#controlPopulation(gr.auth.ee.lcs.classifiers.ClassifierSet)}
+	 * with a deletion slack.
+	 */
+	@Test
+	public void testBatchControlPopulation() {
+		population = new ClassifierSet(new FixedSizeSetWorstFitnessDeletion(
+				lcs, 3, new RouletteWheelSelector(
+						AbstractUpdateStrategy.COMPARISON_MODE_DELETION, true),
+				4));
+		int batches = 0;
+		for (int i = 0; i < 200; i++) {
+			Classifier aClassifier = lcs.getNewClassifier();
+			aClassifier.setComparisonValue(
+					AbstractUpdateStrategy.COMPARISON_MODE_EXPLOITATION, i + 1);
+			aClassifier.setActionAdvocated(i);
+			aClassifier.experience = 100;
+			final int before = population.getTotalNumerosity();
+			population.addClassifier(new Macroclassifier(aClassifier,
+					1 + (i % 2)), false);
+
+			assertTrue(population.getTotalNumerosity() <= 7);
+			if (population.getTotalNumerosity() <= before) {
+				// The whole excess is deleted at once
+				assertEquals(population.getTotalNumerosity(), 3);
+				batches++;
+			}
+		}
+		assertTrue(batches > 0);
+		assertTrue(batches < 200);
+	}
+
+	/**
+	 * Test method for
+	 * {@link gr.auth.ee.lcs.classifiers.populationcontrol.FixedSizeSetWorstFitnessDeletion#controlPopulation(gr.auth.ee.lcs.classifiers.ClassifierSet)}
+	 * with a Fenwick roulette selector, that deletes in place.
+	 */
+	@Test
+	public void testFenwickControlPopulation() {
+		population = new ClassifierSet(new FixedSizeSetWorstFitnessDeletion(
+				lcs, 3, new FenwickRouletteSelector(
+						AbstractUpdateStrategy.COMPARISON_MODE_DELETION, true),
+				4));
+		for (int i = 0; i < 200; i++) {
+			Classifier aClassifier = lcs.getNewClassifier();
+			aClassifier.setComparisonValue(
+					AbstractUpdateStrategy.COMPARISON_MODE_EXPLOITATION, i + 1);
+			aClassifier.setActionAdvocated(i);
+			aClassifier.experience = 100;
+			final int before = population.getTotalNumerosity();
+			population.addClassifier(new Macroclassifier(aClassifier,
+					1 + (i % 3)), false);
+
+			assertTrue(population.getTotalNumerosity() <= 7);
+			if (population.getTotalNumerosity() <= before)
+				assertEquals(population.getTotalNumerosity(), 3);
+			int total = 0;
+			for (int j = 0; j < population.getNumberOfMacroclassifiers(); j++) {
+				assertTrue(population.getClassifierNumerosity(j) > 0);
+				total += population.getClassifierNumerosity(j);
+			}
+			assertEquals(population.getTotalNumerosity(), total);
+		}
+	}
+
 }
@@ -35,6 +35,7 @@ import gr.auth.ee.lcs.utilities.ExtendedBitSet;
 import gr.auth.ee.lcs.utilities.ILabelSelector;
 
 import java.util.Arrays;
+import java.util.Random;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -312,6 +313,74 @@ public class GenericMlRepresentationTest {
 		assertTrue(rep.classifyAbilityLabel(ex1, 0, 2) == -1);
 	}
 
+	/**
+	 * Assert that the compiled label masks of a classifier decode to the
+	 * same labels as the labels' strings.
+	 * 
+	 * @param cl
+	 *            the classifier to check
+	 */
+	private void assertCompiledLabels(final Classifier cl) {
+		final CompiledConditions compiled = rep.getCompiledConditions(cl);
+		for (int i = 0; i < 3; i++) {
+			final GenericMultiLabelRepresentation.GenericLabel label = (GenericMultiLabelRepresentation.GenericLabel) rep.attributeList[2 + i];
+			final String value = label.toString(cl);
+
+			// Consumers drop the inactive labels from the specified mask
+			final boolean specified = compiled.isLabelSpecified(i)
+					&& label.isActive();
+			assertEquals(specified, !value.equals("#"));
+			if (specified)
+				assertEquals(compiled.isLabelSet(i), value.equals("1"));
+		}
+	}
+
+	@Test
+	public void testCompiledLabels() {
+		final Random random = new Random(5);
+		for (int k = 0; k < 200; k++) {
+			final ExtendedBitSet set = new ExtendedBitSet(14);
+			for (int bit = 0; bit < 14; bit++)
+				if (random.nextBoolean())
+					set.set(bit);
+			final Classifier cl = lcs.getNewClassifier(set);
+			assertCompiledLabels(cl);
+
+			// The masks already compiled must not outlive the new action
+			cl.setActionAdvocated(random.nextInt(3));
+			assertCompiledLabels(cl);
+		}
+	}
+
+	@Test
+	public void testCompiledLabelsDeactivation() {
+		final GenericMultiLabelRepresentation.GenericLabel mediocre = (GenericMultiLabelRepresentation.GenericLabel) rep.attributeList[3];
+		final Classifier cl = lcs.getNewClassifier(new ExtendedBitSet(
+				"11011100111011"));
+		assertTrue(rep.getCompiledConditions(cl).isLabelSpecified(1));
+		assertFalse(rep.getCompiledConditions(cl).isLabelSet(1));
+		assertCompiledLabels(cl);
+
+		mediocre.setActive(false);
+		assertEquals(mediocre.toString(cl), "#");
+		assertCompiledLabels(cl);
+
+		mediocre.enforceDeactivation(cl);
+		assertFalse(rep.getCompiledConditions(cl).isLabelSpecified(1));
+		assertTrue(rep.getCompiledConditions(cl).isLabelSpecified(0));
+		assertTrue(rep.getCompiledConditions(cl).isLabelSpecified(2));
+		assertCompiledLabels(cl);
+
+		// An inactive label is not specified by a new action either
+		cl.setActionAdvocated(1);
+		assertFalse(rep.getCompiledConditions(cl).isLabelSpecified(1));
+		assertCompiledLabels(cl);
+
+		mediocre.setActive(true);
+		assertEquals(mediocre.toString(cl), "#");
+		assertCompiledLabels(cl);
+	}
+
 	@Test
 	public void testEquals() {
 		ExtendedBitSet set1 = new ExtendedBitSet("11011100111011");
@@ -0,0 +1,140 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.data.representations.complex;
+
+import static org.easymock.EasyMock.createMock;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.classifiers.Classifier;
+import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.Macroclassifier;
+import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
+import gr.auth.ee.lcs.data.representations.complex.ComplexRepresentation.AbstractAttribute;
+import gr.auth.ee.lcs.data.updateAlgorithms.UCSUpdateAlgorithm;
+import gr.auth.ee.lcs.utilities.ExtendedBitSet;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test that a frozen inference model classifies as the rules and strategy it
+ * was frozen from.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public class InferenceModelTest {
+
+	/**
+	 * The representation.
+	 */
+	private GenericMultiLabelRepresentation rep;
+
+	private AbstractLearningClassifierSystem lcs;
+
+	/**
+	 * The rules to freeze.
+	 */
+	private ClassifierSet rules;
+
+	@Before
+	public void setUp() {
+		lcs = createMock(AbstractLearningClassifierSystem.class);
+
+		final GenericMultiLabelRepresentation.AbstractAttribute list[] = new AbstractAttribute[6];
+		final String[] names = { "Good", "Mediocre", "Bad" };
+		rep = new GenericMultiLabelRepresentation(list, names, 3,
+				GenericMultiLabelRepresentation.EXACT_MATCH, .33, .7, lcs);
+
+		final String[] attribute = { "A", "B", "A+" };
+		list[0] = rep.new NominalAttribute(rep.getChromosomeSize(), "nom",
+				attribute, 0);
+		list[1] = rep.new IntervalAttribute(rep.getChromosomeSize(), "int",
+				(float) -2.3, (float) 5.785, 4, 0);
+		list[2] = rep.new BooleanAttribute(rep.getChromosomeSize(), "b", 0);
+		list[3] = rep.new GenericLabel(rep.getChromosomeSize(), "Good", .33);
+		list[4] = rep.new GenericLabel(rep.getChromosomeSize(), "Mediocre", .33);
+		list[5] = rep.new GenericLabel(rep.getChromosomeSize(), "Bad", .33);
+
+		lcs.setElements(rep, new UCSUpdateAlgorithm(0, 0, 0, 0, 0, 0, null,
+				0, 0, lcs));
+
+		final Random random = new Random(7);
+		rules = new ClassifierSet(null);
+		for (int i = 0; i < 50; i++) {
+			final ExtendedBitSet chromosome = new ExtendedBitSet(
+					rep.getChromosomeSize());
+			for (int bit = 0; bit < rep.getChromosomeSize(); bit++) {
+				if (random.nextInt(3) > 0)
+					chromosome.set(bit);
+			}
+			rep.fixChromosome(chromosome);
+			final Classifier cl = lcs.getNewClassifier(chromosome);
+			cl.setComparisonValue(
+					AbstractUpdateStrategy.COMPARISON_MODE_EXPLOITATION,
+					random.nextDouble());
+			rules.addClassifier(new Macroclassifier(cl, 1 + random.nextInt(3)),
+					false);
+		}
+	}
+
+	@Test
+	public void testFrozenVoting() {
+		final GenericMultiLabelRepresentation.VotingClassificationStrategy strategy = rep.new VotingClassificationStrategy(
+				1);
+		final Random random = new Random(11);
+		final double[] thresholds = { 0, .1, .2 };
+		for (int t = 0; t < thresholds.length; t++) {
+			strategy.setThreshold(thresholds[t]);
+			final InferenceModel model = strategy.freeze(rules);
+			assertEquals(model.getNumberOfLabels(), 3);
+			assertEquals(model.getThreshold(), thresholds[t], 0);
+
+			for (int i = 0; i < 500; i++) {
+				final double[] visionVector = { random.nextInt(3),
+						-2.3 + (random.nextDouble() * 8.085),
+						random.nextInt(2), 0, 0, 0 };
+				assertArrayEquals(rep.classify(rules, visionVector, strategy),
+						model.classify(visionVector));
+			}
+		}
+	}
+
+	@Test
+	public void testNoAllocationClassify() {
+		final GenericMultiLabelRepresentation.VotingClassificationStrategy strategy = rep.new VotingClassificationStrategy(
+				1);
+		strategy.setThreshold(.1);
+		final InferenceModel model = strategy.freeze(rules);
+
+		final double[] visionVector = { 1, .5, 1, 0, 0, 0 };
+		final int[] labels = new int[model.getNumberOfLabels()];
+		final int numberOfLabels = model.classify(visionVector, labels);
+		final int[] expected = rep.classify(rules, visionVector, strategy);
+		assertEquals(numberOfLabels, expected.length);
+		for (int i = 0; i < numberOfLabels; i++)
+			assertEquals(labels[i], expected[i]);
+	}
+}
@@ -25,6 +25,7 @@
 package gr.auth.ee.lcs.data.representations.complex;
 
 import static org.easymock.EasyMock.createMock;
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
@@ -33,6 +34,7 @@ import gr.auth.ee.lcs.data.representations.complex.ComplexRepresentation.Abstrac
 import gr.auth.ee.lcs.utilities.ExtendedBitSet;
 
 import java.util.Arrays;
+import java.util.Random;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -83,6 +85,41 @@ public class StrictMlRepresentationTest {
 		assertTrue(rep.classifyAccuracy(ex, 0) == 0);
 	}
 
+	/**
+	 * Assert that the compiled label masks of a classifier decode to the
+	 * same labels as the labels' strings.
+	 * 
+	 * @param cl
+	 *            the classifier to check
+	 */
+	private void assertCompiledLabels(final Classifier cl) {
+		final CompiledConditions compiled = rep.getCompiledConditions(cl);
+		for (int i = 0; i < 3; i++) {
+			final String value = rep.attributeList[2 + i].toString(cl);
+			assertTrue(compiled.isLabelSpecified(i));
+			assertEquals(compiled.isLabelSet(i), value.equals("1"));
+		}
+	}
+
+	@Test
+	public void testCompiledLabels() {
+		final Random random = new Random(5);
+		for (int k = 0; k < 200; k++) {
+			final ExtendedBitSet set = new ExtendedBitSet(11);
+			for (int bit = 0; bit < 11; bit++)
+				if (random.nextBoolean())
+					set.set(bit);
+			final Classifier cl = lcs.getNewClassifier(set);
+			assertCompiledLabels(cl);
+
+			// The masks already compiled must not outlive the new action
+			final int action = random.nextInt(3);
+			cl.setActionAdvocated(action);
+			assertTrue(rep.getCompiledConditions(cl).isLabelSet(action));
+			assertCompiledLabels(cl);
+		}
+	}
+
 	/**
 	 * @throws java.lang.Exception
 	 */
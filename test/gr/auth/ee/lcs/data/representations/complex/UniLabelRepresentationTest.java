@@ -0,0 +1,158 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.data.representations.complex;
+
+import static org.easymock.EasyMock.anyInt;
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.createMock;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.replay;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.classifiers.Classifier;
+import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.Macroclassifier;
+import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
+import gr.auth.ee.lcs.data.representations.complex.UniLabelRepresentation.ThresholdClassificationStrategy;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * A unilabel representation test.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public class UniLabelRepresentationTest {
+
+	/**
+	 * The representation.
+	 */
+	private UniLabelRepresentation rep;
+
+	private AbstractLearningClassifierSystem lcs;
+
+	private ClassifierSet rules;
+
+	/**
+	 * Create a rule advocating a label and matching all instances.
+	 * 
+	 * @param label
+	 *            the label advocated
+	 * @param numerosity
+	 *            the numerosity of the rule
+	 */
+	private void addRule(final int label, final int numerosity) {
+		final Classifier cl = lcs.getNewClassifier();
+		((UniLabelRepresentation.UniLabel) rep.attributeList[rep
+				.getNumberOfAttributes()]).setValue(cl, label);
+		cl.invalidateCompiledData();
+		rules.addClassifier(new Macroclassifier(cl, numerosity), false);
+	}
+
+	@Before
+	public void setUp() throws IOException {
+		final File arff = File.createTempFile("unilabel", ".arff");
+		arff.deleteOnExit();
+		final FileWriter writer = new FileWriter(arff);
+		writer.write("@relation unilabel\n" + "@attribute a {x,y}\n"
+				+ "@attribute b {x,y}\n" + "@attribute l0 {0,1}\n"
+				+ "@attribute l1 {0,1}\n" + "@attribute l2 {0,1}\n"
+				+ "@data\n" + "x,y,1,0,0\n" + "y,x,0,1,1\n");
+		writer.close();
+
+		lcs = createMock(AbstractLearningClassifierSystem.class);
+		final AbstractUpdateStrategy update = createMock(AbstractUpdateStrategy.class);
+		expect(update.createStateClassifierObject()).andReturn(null)
+				.anyTimes();
+		expect(update.getComparisonValue(anyObject(Classifier.class), anyInt()))
+				.andReturn(1.).anyTimes();
+		replay(update);
+
+		rep = new UniLabelRepresentation(arff.getPath(), 4, 3, 0, lcs);
+		lcs.setElements(rep, update);
+		rules = new ClassifierSet(null);
+	}
+
+	@Test
+	public void testCompiledLabels() {
+		final UniLabelRepresentation.UniLabel label = (UniLabelRepresentation.UniLabel) rep.attributeList[rep
+				.getNumberOfAttributes()];
+		final Classifier cl = lcs.getNewClassifier();
+		final int[] actions = { 2, 0, 1, 1, 0 };
+		for (final int action : actions) {
+			// The masks already compiled must not outlive the new action
+			cl.setActionAdvocated(action);
+			final int value = Integer.parseInt(label.toString(cl));
+			assertEquals(value, action);
+
+			final CompiledConditions compiled = rep.getCompiledConditions(cl);
+			for (int i = 0; i < 3; i++) {
+				assertTrue(compiled.isLabelSpecified(i));
+				assertEquals(compiled.isLabelSet(i), i == value);
+			}
+		}
+	}
+
+	@Test
+	public void testThresholdClassification() {
+		addRule(2, 3);
+		addRule(1, 1);
+		final ThresholdClassificationStrategy strategy = rep.new ThresholdClassificationStrategy();
+		final double[] instance = { 0, 1, 1, 0, 0 };
+
+		final float[] confidence = strategy.getConfidenceArray(rules, instance);
+		assertEquals(confidence[0], 0, 0);
+		assertEquals(confidence[1], .25, 1e-6);
+		assertEquals(confidence[2], .75, 1e-6);
+
+		strategy.setThreshold(.5);
+		assertArrayEquals(strategy.classify(rules, instance), new int[] { 2 });
+		strategy.setThreshold(.25);
+		assertArrayEquals(strategy.classify(rules, instance), new int[] { 2 });
+		strategy.setThreshold(.1);
+		assertArrayEquals(strategy.classify(rules, instance),
+				new int[] { 1, 2 });
+	}
+
+	@Test
+	public void testZeroThreshold() {
+		addRule(1, 2);
+		final ThresholdClassificationStrategy strategy = rep.new ThresholdClassificationStrategy();
+		strategy.setThreshold(0);
+		final double[] instance = { 1, 0, 0, 1, 0 };
+
+		// The labels without votes have a zero confidence and are not active
+		assertArrayEquals(strategy.classify(rules, instance), new int[] { 1 });
+
+		addRule(0, 1);
+		assertArrayEquals(strategy.classify(rules, instance),
+				new int[] { 0, 1 });
+	}
+}
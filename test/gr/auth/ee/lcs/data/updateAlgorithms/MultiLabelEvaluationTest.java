@@ -0,0 +1,178 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.data.updateAlgorithms;
+
+import static org.easymock.EasyMock.createMock;
+import static org.junit.Assert.assertEquals;
+import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.classifiers.Classifier;
+import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.Macroclassifier;
+import gr.auth.ee.lcs.data.representations.complex.ComplexRepresentation.AbstractAttribute;
+import gr.auth.ee.lcs.data.representations.complex.GenericMultiLabelRepresentation;
+
+import java.util.Random;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test that the multi-label evaluation of a match set agrees with the per
+ * label abilities of its classifiers.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public class MultiLabelEvaluationTest {
+
+	/**
+	 * The number of labels, more than a word of the masks.
+	 */
+	private static final int LABELS = 70;
+
+	/**
+	 * The representation.
+	 */
+	private GenericMultiLabelRepresentation rep;
+
+	private AbstractLearningClassifierSystem lcs;
+
+	/**
+	 * The update algorithm.
+	 */
+	private MlASLCSUpdateAlgorithm update;
+
+	/**
+	 * Create a match set of classifiers covering random instances, with
+	 * random numerosities.
+	 * 
+	 * @param random
+	 *            the random generator to use
+	 * @param size
+	 *            the number of classifiers
+	 * @return the match set
+	 */
+	private ClassifierSet createMatchSet(final Random random, final int size) {
+		final ClassifierSet matchSet = new ClassifierSet(null);
+		for (int i = 0; i < size; i++) {
+			final Classifier cl = rep.createRandomCoveringClassifier(lcs.instances[random
+					.nextInt(lcs.instances.length)]);
+			matchSet.addClassifier(
+					new Macroclassifier(cl, 1 + random.nextInt(4)), false);
+		}
+		return matchSet;
+	}
+
+	@Before
+	public void setUp() {
+		lcs = createMock(AbstractLearningClassifierSystem.class);
+
+		final AbstractAttribute list[] = new AbstractAttribute[LABELS + 1];
+		final String[] names = new String[LABELS];
+		for (int label = 0; label < LABELS; label++)
+			names[label] = "label" + label;
+		rep = new GenericMultiLabelRepresentation(list, names, LABELS,
+				GenericMultiLabelRepresentation.EXACT_MATCH, .33, .7, lcs);
+
+		final String[] attribute = { "A", "B", "A+" };
+		list[0] = rep.new NominalAttribute(rep.getChromosomeSize(), "nom",
+				attribute, 0);
+		for (int label = 0; label < LABELS; label++)
+			list[label + 1] = rep.new GenericLabel(rep.getChromosomeSize(),
+					names[label], .33);
+
+		update = new MlASLCSUpdateAlgorithm(10, .99, 50, 0, null, LABELS, lcs);
+		lcs.setElements(rep, update);
+
+		final Random random = new Random(3);
+		lcs.instances = new double[20][LABELS + 1];
+		for (int i = 0; i < lcs.instances.length; i++) {
+			lcs.instances[i][0] = random.nextInt(3);
+			for (int label = 0; label < LABELS; label++)
+				lcs.instances[i][label + 1] = random.nextInt(2);
+		}
+	}
+
+	@Test
+	public void testEvaluate() {
+		final Random random = new Random(5);
+		final MultiLabelEvaluation evaluation = new MultiLabelEvaluation(
+				LABELS);
+
+		// Reuse the evaluation for growing and shrinking match sets
+		final int[] sizes = { 3, 40, 7, 0, 25 };
+		for (int k = 0; k < sizes.length; k++) {
+			final ClassifierSet matchSet = createMatchSet(random, sizes[k]);
+			final int instance = random.nextInt(lcs.instances.length);
+			evaluation.evaluate(matchSet, instance);
+
+			assertEquals(matchSet.getNumberOfMacroclassifiers(),
+					evaluation.size());
+			final int[] labelCorrectNumerosity = new int[LABELS];
+			for (int i = 0; i < evaluation.size(); i++) {
+				final Classifier cl = matchSet.getClassifier(i);
+				assertEquals(cl, evaluation.getClassifier(i));
+				assertEquals(matchSet.getClassifierNumerosity(i),
+						evaluation.getNumerosity(i));
+				int activeLabels = 0;
+				for (int label = 0; label < LABELS; label++) {
+					final float ability = cl.classifyLabelCorrectly(instance,
+							label);
+					assertEquals(ability != 0, evaluation.isActive(i, label));
+					assertEquals(ability > 0, evaluation.isCorrect(i, label));
+					if (ability != 0)
+						activeLabels++;
+					if (ability > 0)
+						labelCorrectNumerosity[label] += matchSet
+								.getClassifierNumerosity(i);
+				}
+				assertEquals(activeLabels, evaluation.getActiveLabels(i));
+				assertEquals(cl.classifyCorrectly(instance),
+						evaluation.classifyCorrectly(i), 0);
+			}
+			for (int label = 0; label < LABELS; label++)
+				assertEquals(labelCorrectNumerosity[label],
+						evaluation.getLabelCorrectNumerosity(label));
+		}
+	}
+
+	@Test
+	public void testPerformUpdateWithCorrectSet() {
+		final Random random = new Random(7);
+		final ClassifierSet matchSet = createMatchSet(random, 10);
+		final ClassifierSet correctSet = new ClassifierSet(null);
+		for (int i = 0; i < matchSet.getNumberOfMacroclassifiers(); i += 2)
+			correctSet.addClassifier(
+					new Macroclassifier(matchSet.getClassifier(i), 1), false);
+
+		// The given correct set is rewarded, whatever the classifiers' ability
+		update.performUpdate(matchSet, correctSet, 0);
+		for (int i = 0; i < matchSet.getNumberOfMacroclassifiers(); i++) {
+			final MlASLCSUpdateAlgorithm.SLCSClassifierData data = (MlASLCSUpdateAlgorithm.SLCSClassifierData) matchSet
+					.getClassifier(i).getUpdateDataObject();
+			assertEquals(1, data.msa);
+			assertEquals((i % 2) == 0 ? 1 : 0, data.tp);
+			assertEquals((i % 2) == 0 ? 0 : 1, data.fp);
+		}
+	}
+
+}
@@ -24,6 +24,7 @@ package gr.auth.ee.lcs.evaluators;
 import static org.easymock.EasyMock.expect;
 import static org.junit.Assert.assertEquals;
 import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.BatchClassification;
 import gr.auth.ee.lcs.data.ClassifierTransformBridge;
 
 import org.easymock.EasyMockSupport;
@@ -77,29 +78,25 @@ public final class AccuracyEvaluatorTest extends EasyMockSupport {
 		mockLcs.setElements(mockBridge, null);
 
 		int[] resp0 = { 1 };
-		expect(mockLcs.classifyInstance(testSet[0])).andReturn(resp0)
-				.anyTimes();
 		expect(mockBridge.getDataInstanceLabels(testSet[0])).andReturn(resp0)
 				.anyTimes();
 
 		int[] resp1 = { 1 };
-		expect(mockLcs.classifyInstance(testSet[1])).andReturn(resp1)
-				.anyTimes();
 		expect(mockBridge.getDataInstanceLabels(testSet[1])).andReturn(resp1)
 				.anyTimes();
 
 		int[] resp2 = { 0 };
-		expect(mockLcs.classifyInstance(testSet[2])).andReturn(resp2)
-				.anyTimes();
 		expect(mockBridge.getDataInstanceLabels(testSet[2])).andReturn(resp2)
 				.anyTimes();
 
 		int[] resp3 = { 0, 1, 2 };
-		expect(mockLcs.classifyInstance(testSet[3])).andReturn(resp3)
-				.anyTimes();
 		expect(mockBridge.getDataInstanceLabels(testSet[3])).andReturn(resp3)
 				.anyTimes();
 
+		int[][] classified = { resp0, resp1, resp2, resp3 };
+		expect(mockLcs.classifyInstances(testSet)).andReturn(
+				new BatchClassification(classified)).anyTimes();
+
 		replayAll();
 		assertEquals(Double.compare(test.getMetric(mockLcs), 1), 0);
 		verifyAll();
@@ -117,30 +114,26 @@ public final class AccuracyEvaluatorTest extends EasyMockSupport {
 		mockLcs.setElements(mockBridge, null);
 
 		int[] resp0 = { 1 };
-		expect(mockLcs.classifyInstance(testSet[0])).andReturn(resp0)
-				.anyTimes();
 		expect(mockBridge.getDataInstanceLabels(testSet[0])).andReturn(resp0)
 				.anyTimes();
 
 		int[] resp1 = { 1 };
-		expect(mockLcs.classifyInstance(testSet[1])).andReturn(resp1)
-				.anyTimes();
 		expect(mockBridge.getDataInstanceLabels(testSet[1])).andReturn(resp1)
 				.anyTimes();
 
 		int[] resp2 = { 0 };
 		int[] resp2b = { 1 };
-		expect(mockLcs.classifyInstance(testSet[2])).andReturn(resp2b)
-				.anyTimes();
 		expect(mockBridge.getDataInstanceLabels(testSet[2])).andReturn(resp2)
 				.anyTimes();
 
 		int[] resp3 = { 0, 1, 2 };
-		expect(mockLcs.classifyInstance(testSet[3])).andReturn(resp3)
-				.anyTimes();
 		expect(mockBridge.getDataInstanceLabels(testSet[3])).andReturn(resp3)
 				.anyTimes();
 
+		int[][] classified = { resp0, resp1, resp2b, resp3 };
+		expect(mockLcs.classifyInstances(testSet)).andReturn(
+				new BatchClassification(classified)).anyTimes();
+
 		replayAll();
 		assertEquals(Double.compare(test.getMetric(mockLcs), .75), 0);
 		verifyAll();
@@ -159,32 +152,28 @@ public final class AccuracyEvaluatorTest extends EasyMockSupport {
 
 		int[] resp0 = { 1 };
 		int[] resp0b = {};
-		expect(mockLcs.classifyInstance(testSet[0])).andReturn(resp0b)
-				.anyTimes();
 		expect(mockBridge.getDataInstanceLabels(testSet[0])).andReturn(resp0)
 				.anyTimes();
 
 		int[] resp1 = { 1 };
 		int[] resp1b = { 2 };
-		expect(mockLcs.classifyInstance(testSet[1])).andReturn(resp1b)
-				.anyTimes();
 		expect(mockBridge.getDataInstanceLabels(testSet[1])).andReturn(resp1)
 				.anyTimes();
 
 		int[] resp2 = { 0 };
 		int[] resp2b = { 1 };
-		expect(mockLcs.classifyInstance(testSet[2])).andReturn(resp2b)
-				.anyTimes();
 		expect(mockBridge.getDataInstanceLabels(testSet[2])).andReturn(resp2)
 				.anyTimes();
 
 		int[] resp3 = { 0, 1, 2 };
 		int[] resp3b = { 0, 1 };
-		expect(mockLcs.classifyInstance(testSet[3])).andReturn(resp3b)
-				.anyTimes();
 		expect(mockBridge.getDataInstanceLabels(testSet[3])).andReturn(resp3)
 				.anyTimes();
 
+		int[][] classified = { resp0b, resp1b, resp2b, resp3b };
+		expect(mockLcs.classifyInstances(testSet)).andReturn(
+				new BatchClassification(classified)).anyTimes();
+
 		replayAll();
 		assertEquals(Double.compare(test.getMetric(mockLcs), 1. / 6.), 0);
 		verifyAll();
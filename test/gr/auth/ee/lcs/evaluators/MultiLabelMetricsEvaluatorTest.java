@@ -0,0 +1,110 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.evaluators;
+
+import static org.easymock.EasyMock.expect;
+import static org.junit.Assert.assertEquals;
+import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.BatchClassification;
+import gr.auth.ee.lcs.data.ClassifierTransformBridge;
+
+import org.easymock.EasyMockSupport;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test that the combined multi-label evaluator agrees with the single metric
+ * evaluators.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public class MultiLabelMetricsEvaluatorTest extends EasyMockSupport {
+
+	AbstractLearningClassifierSystem mockLcs;
+
+	ClassifierTransformBridge mockBridge;
+
+	double[][] testSet;
+
+	@Before
+	public void setUp() throws Exception {
+		mockLcs = createMock(AbstractLearningClassifierSystem.class);
+		mockBridge = createMock(ClassifierTransformBridge.class);
+
+		double[][] set = { { 0, 0, 0, 1, 0 }, { 1, 0, 0, 1, 0 },
+				{ 0, 0, 1, 0, 0 }, { 1, 1, 1, 1, 1 }, { 0, 1, 0, 0, 0 },
+				{ 1, 1, 0, 0, 0 }, { 0, 1, 1, 0, 1 } };
+		testSet = set;
+	}
+
+	@Test
+	public void testSameAsSingleMetrics() {
+		mockLcs.setElements(mockBridge, null);
+
+		// The labels of each instance, including instances without labels
+		final int[][] actual = { { 1 }, { 1 }, { 0 }, { 0, 1, 2 }, {}, {},
+				{ 2, 0 } };
+		// The classifications, including empty ones
+		final int[][] classified = { { 1 }, {}, { 1, 2 }, { 0, 1 }, {}, { 2 },
+				{ 0, 2 } };
+		for (int i = 0; i < testSet.length; i++)
+			expect(mockBridge.getDataInstanceLabels(testSet[i])).andReturn(
+					actual[i].clone()).anyTimes();
+		expect(mockLcs.classifyInstances(testSet)).andReturn(
+				new BatchClassification(classified)).anyTimes();
+		replayAll();
+
+		final MultiLabelMetricsEvaluator combined = new MultiLabelMetricsEvaluator(
+				testSet, 3, mockLcs);
+		final double[] metrics = combined.getMetrics(mockLcs);
+
+		assertEquals(metrics[MultiLabelMetricsEvaluator.ACCURACY],
+				new AccuracyRecallEvaluator(testSet, false, mockLcs,
+						AccuracyRecallEvaluator.TYPE_ACCURACY)
+						.getMetric(mockLcs), 1e-12);
+		assertEquals(metrics[MultiLabelMetricsEvaluator.RECALL],
+				new AccuracyRecallEvaluator(testSet, false, mockLcs,
+						AccuracyRecallEvaluator.TYPE_RECALL)
+						.getMetric(mockLcs), 1e-12);
+		assertEquals(metrics[MultiLabelMetricsEvaluator.HAMMING_LOSS],
+				new HammingLossEvaluator(testSet, false, 3, mockLcs)
+						.getMetric(mockLcs), 1e-12);
+		assertEquals(metrics[MultiLabelMetricsEvaluator.EXACT_MATCH],
+				new ExactMatchEvalutor(testSet, false, mockLcs)
+						.getMetric(mockLcs), 1e-12);
+
+		assertEquals(metrics[MultiLabelMetricsEvaluator.EXACT_MATCH], 3. / 7.,
+				1e-12);
+		assertEquals(metrics[MultiLabelMetricsEvaluator.HAMMING_LOSS],
+				6. / 21., 1e-12);
+		assertEquals(combined.getMetric(mockLcs),
+				metrics[MultiLabelMetricsEvaluator.ACCURACY], 0);
+
+		// The metrics can be stored at an offset
+		final double[] results = new double[MultiLabelMetricsEvaluator.NUMBER_OF_METRICS + 2];
+		combined.evaluate(mockLcs, results, 2);
+		for (int i = 0; i < MultiLabelMetricsEvaluator.NUMBER_OF_METRICS; i++)
+			assertEquals(results[i + 2], metrics[i], 0);
+		verifyAll();
+	}
+}
@@ -0,0 +1,135 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.geneticalgorithm.operators;
+
+import static org.easymock.EasyMock.createMock;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.classifiers.Classifier;
+import gr.auth.ee.lcs.utilities.ExtendedBitSet;
+
+import org.junit.Test;
+
+/**
+ * Test the geometric skip bit mutation.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public class GeometricBitMutationTest {
+
+	private static final AbstractLearningClassifierSystem lcs = createMock(AbstractLearningClassifierSystem.class);
+
+	/**
+	 * Count the set bits of a classifier.
+	 * 
+	 * @param cl
+	 *            the classifier
+	 * @return the number of set bits
+	 */
+	private static int countSetBits(final Classifier cl) {
+		int count = 0;
+		for (int i = 0; i < cl.size(); i++) {
+			if (cl.get(i))
+				count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Test method for
+	 * {@link gr.auth.ee.lcs.geneticalgorithm.operators.GeometricBitMutation#operate(gr.auth.ee.lcs.classifiers.Classifier)}
+	 * .
+	 */
+	@Test
+	public void testOperate() {
+		Classifier cl = Classifier.createNewClassifier(lcs, new ExtendedBitSet(
+				"0000000"));
+		GeometricBitMutation mut = new GeometricBitMutation(1);
+		assertEquals(mut.operate(cl).getSubSet(0, 7).toString(), "1111111");
+
+		cl = Classifier.createNewClassifier(lcs, new ExtendedBitSet("0000000"));
+		mut = new GeometricBitMutation(0);
+		assertEquals(mut.operate(cl).getSubSet(0, 7).toString(), "0000000");
+	}
+
+	/**
+	 * Check rates whose gaps overflow an int or whose logarithm cannot be
+	 * represented.
+	 */
+	@Test
+	public void testExtremeRates() {
+		final double[] tinyRates = { Double.MIN_VALUE, 1e-300, 1e-17, 1e-12 };
+		for (int i = 0; i < tinyRates.length; i++) {
+			final GeometricBitMutation mut = new GeometricBitMutation(
+					tinyRates[i]);
+			for (int j = 0; j < 100; j++) {
+				final Classifier cl = Classifier.createNewClassifier(lcs,
+						new ExtendedBitSet(1000));
+				mut.operate(cl);
+				assertEquals(cl.size(), 1000);
+				assertEquals(countSetBits(cl), 0);
+			}
+		}
+
+		final GeometricBitMutation mut = new GeometricBitMutation(1 - 1e-16);
+		final Classifier cl = Classifier.createNewClassifier(lcs,
+				new ExtendedBitSet(1000));
+		mut.operate(cl);
+		assertEquals(cl.size(), 1000);
+		assertEquals(countSetBits(cl), 1000);
+	}
+
+	/**
+	 * Check that each bit of a long chromosome is flipped at the mutation
+	 * rate.
+	 */
+	@Test
+	public void testRate() {
+		final int size = 1000;
+		final int repetitions = 400;
+		final GeometricBitMutation mut = new GeometricBitMutation(.1);
+		final int[] flips = new int[size];
+		int total = 0;
+
+		for (int i = 0; i < repetitions; i++) {
+			final Classifier cl = Classifier.createNewClassifier(lcs,
+					new ExtendedBitSet(size));
+			mut.operate(cl);
+			assertEquals(cl.size(), size);
+			for (int j = 0; j < size; j++) {
+				if (cl.get(j)) {
+					flips[j]++;
+					total++;
+				}
+			}
+		}
+
+		// Expected 40000 flips, with a standard deviation of 190
+		assertTrue(Math.abs(total - 40000) < 2000);
+		// Expected 40 flips per bit, with a standard deviation of 6
+		for (int j = 0; j < size; j++)
+			assertTrue(flips[j] < 100);
+	}
+
+}
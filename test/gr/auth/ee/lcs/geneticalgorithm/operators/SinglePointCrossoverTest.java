@@ -83,7 +83,16 @@ public class SinglePointCrossoverTest extends SinglePointCrossover {
 				anyInt(), anyDouble());
 		expectLastCall().anyTimes();
 
+		// The children are created as shells of the chromosome size
+		expect(lcs.getClassifierTransformBridge().getChromosomeSize())
+				.andReturn(7).anyTimes();
+		lcs.getClassifierTransformBridge()
+				.setRepresentationSpecificClassifierData(
+						anyObject(Classifier.class));
+		expectLastCall().anyTimes();
+
 		replay(lcs.getUpdateStrategy());
+		replay(lcs.getClassifierTransformBridge());
 		final Classifier cl1 = Classifier.createNewClassifier(lcs, chromosome1);
 		final Classifier cl2 = Classifier.createNewClassifier(lcs, chromosome2);
 
@@ -130,6 +139,7 @@ public class SinglePointCrossoverTest extends SinglePointCrossover {
 			assertTrue("This test might fail with probabilty (.125)^500",
 					atLeastOnce[i]);
 		verify(lcs.getUpdateStrategy());
+		verify(lcs.getClassifierTransformBridge());
 	}
 
 	/**
@@ -0,0 +1,187 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.geneticalgorithm.selectors;
+
+import static org.easymock.EasyMock.createMock;
+import static org.junit.Assert.assertEquals;
+import gr.auth.ee.lcs.AbstractLearningClassifierSystem;
+import gr.auth.ee.lcs.classifiers.Classifier;
+import gr.auth.ee.lcs.classifiers.ClassifierSet;
+import gr.auth.ee.lcs.classifiers.Macroclassifier;
+import gr.auth.ee.lcs.data.AbstractUpdateStrategy;
+import gr.auth.ee.lcs.data.representations.SimpleBooleanRepresentation;
+import gr.auth.ee.lcs.data.updateAlgorithms.ASLCSUpdateAlgorithm;
+import gr.auth.ee.lcs.geneticalgorithm.IRuleSelector;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * Test that the Fenwick roulette selector selects (and deletes) with the
+ * probabilities of the roulette wheel selector.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public class FenwickRouletteSelectorTest {
+
+	/**
+	 * The number of draws of each test.
+	 */
+	private static final int DRAWS = 20000;
+
+	/**
+	 * The mock lcs.
+	 */
+	private AbstractLearningClassifierSystem lcs;
+
+	/**
+	 * The classifiers of the population.
+	 */
+	private Classifier[] classifiers;
+
+	/**
+	 * Create a population with the classifiers. The i-th classifier has
+	 * fitness i+1 and numerosity i+1.
+	 * 
+	 * @return the population
+	 */
+	private ClassifierSet createPopulation() {
+		final ClassifierSet population = new ClassifierSet(null);
+		for (int i = 0; i < classifiers.length; i++)
+			population.addClassifier(new Macroclassifier(classifiers[i], i + 1),
+					false);
+		return population;
+	}
+
+	/**
+	 * Return the frequency each classifier is selected with.
+	 * 
+	 * @param selector
+	 *            the selector to use
+	 * @return the frequencies
+	 */
+	private double[] selectionFrequencies(final IRuleSelector selector) {
+		final ClassifierSet selected = new ClassifierSet(null);
+		selector.select(DRAWS, createPopulation(), selected);
+		final double[] frequencies = new double[classifiers.length];
+		for (int j = 0; j < selected.getNumberOfMacroclassifiers(); j++) {
+			for (int i = 0; i < classifiers.length; i++) {
+				if (selected.getClassifier(j) == classifiers[i])
+					frequencies[i] += ((double) selected
+							.getClassifierNumerosity(j)) / DRAWS;
+			}
+		}
+		return frequencies;
+	}
+
+	/**
+	 * Check the frequencies against the roulette wheel selector and the
+	 * expected probabilities.
+	 * 
+	 * @param max
+	 *            whether the selectors select max fitness
+	 * @param weights
+	 *            the expected (unnormalized) weight of each classifier
+	 */
+	private void assertSameDistribution(final boolean max,
+			final double[] weights) {
+		final double[] fenwick = selectionFrequencies(new FenwickRouletteSelector(
+				AbstractUpdateStrategy.COMPARISON_MODE_EXPLORATION, max));
+		final double[] roulette = selectionFrequencies(new RouletteWheelSelector(
+				AbstractUpdateStrategy.COMPARISON_MODE_EXPLORATION, max));
+		double sum = 0;
+		for (int i = 0; i < weights.length; i++)
+			sum += weights[i];
+		for (int i = 0; i < weights.length; i++) {
+			// Several standard deviations of DRAWS draws
+			assertEquals(weights[i] / sum, fenwick[i], .02);
+			assertEquals(roulette[i], fenwick[i], .02);
+		}
+	}
+
+	@Before
+	public void setUp() {
+		lcs = createMock(AbstractLearningClassifierSystem.class);
+		final SimpleBooleanRepresentation rep = new SimpleBooleanRepresentation(
+				.33, 2, lcs);
+		final ASLCSUpdateAlgorithm update = new ASLCSUpdateAlgorithm(5, .99,
+				50, 0.01, null, lcs);
+		lcs.setElements(rep, update);
+
+		classifiers = new Classifier[3];
+		for (int i = 0; i < classifiers.length; i++) {
+			classifiers[i] = lcs.getNewClassifier();
+			classifiers[i].setComparisonValue(
+					AbstractUpdateStrategy.COMPARISON_MODE_EXPLOITATION, i + 1);
+			classifiers[i].setActionAdvocated(i);
+			classifiers[i].experience = 100;
+		}
+	}
+
+	@Test
+	public void testDelete() {
+		final FenwickRouletteSelector selector = new FenwickRouletteSelector(
+				AbstractUpdateStrategy.COMPARISON_MODE_EXPLORATION, true);
+
+		// The first victim is drawn as the roulette would draw it
+		final int[] deleted = new int[classifiers.length];
+		for (int draw = 0; draw < DRAWS; draw++) {
+			final ClassifierSet population = createPopulation();
+			selector.delete(1, population);
+			assertEquals(5, population.getTotalNumerosity());
+			for (int i = 0; i < classifiers.length; i++)
+				deleted[i] += (i + 1)
+						- population.getClassifierNumerosity(classifiers[i]);
+		}
+		final double[] weights = { 1, 4, 9 };
+		for (int i = 0; i < weights.length; i++)
+			assertEquals(weights[i] / 14, ((double) deleted[i]) / DRAWS, .02);
+
+		// No classifier is deleted more times than its numerosity
+		for (int k = 0; k <= 6; k++) {
+			final ClassifierSet population = createPopulation();
+			selector.delete(k, population);
+			assertEquals(6 - k, population.getTotalNumerosity());
+			int total = 0;
+			for (int i = 0; i < population.getNumberOfMacroclassifiers(); i++) {
+				assertEquals(population.getClassifierNumerosity(i), population
+						.getClassifierNumerosity(population.getClassifier(i)));
+				total += population.getClassifierNumerosity(i);
+			}
+			assertEquals(6 - k, total);
+		}
+	}
+
+	@Test
+	public void testSelect() {
+		final double[] weights = { 1, 4, 9 };
+		assertSameDistribution(true, weights);
+	}
+
+	@Test
+	public void testSelectMin() {
+		final double[] weights = { 1, 1. / 4, 1. / 9 };
+		assertSameDistribution(false, weights);
+	}
+
+}
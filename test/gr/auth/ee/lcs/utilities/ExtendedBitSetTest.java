@@ -27,6 +27,8 @@ package gr.auth.ee.lcs.utilities;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.util.Random;
+
 import org.junit.Test;
 
 /**
@@ -374,4 +376,62 @@ public class ExtendedBitSetTest {
 		assertTrue(testC.toString().equals("001100111"));
 	}
 
+	@Test
+	public void testBlend() {
+		final ExtendedBitSet testA = new ExtendedBitSet(100);
+		final ExtendedBitSet testB = new ExtendedBitSet(100);
+		testB.set(0, 100);
+		final ExtendedBitSet child = new ExtendedBitSet(1);
+		child.blend(testA, testB, new Random(1));
+		assertTrue(child.size() == 100);
+
+		// The same masks give the same child
+		final ExtendedBitSet other = new ExtendedBitSet(100);
+		other.blend(testA, testB, new Random(1));
+		assertTrue(other.equals(child));
+
+		// Both units take bits from both parents
+		assertTrue(child.getLongAt(0, 64) != 0);
+		assertTrue(child.getLongAt(0, 64) != -1L);
+		assertTrue(child.getLongAt(64, 36) != 0);
+		assertTrue(child.getLongAt(64, 36) != 0xFFFFFFFFFL);
+	}
+
+	@Test
+	public void testSplice() {
+		final ExtendedBitSet testA = new ExtendedBitSet("100100111");
+		final ExtendedBitSet testB = new ExtendedBitSet("011011000");
+		final ExtendedBitSet child = new ExtendedBitSet(9);
+		assertTrue(child.splice(testA, testB, 2, 6).toString()
+				.equals("100011011"));
+		assertTrue(child.splice(testA, testB, 0, 9).toString()
+				.equals("011011000"));
+		assertTrue(child.splice(testA, testB, 4, 4).toString()
+				.equals("100100111"));
+
+		// Ranges crossing the units of long sets
+		final ExtendedBitSet longA = new ExtendedBitSet(200);
+		final ExtendedBitSet longB = new ExtendedBitSet(200);
+		longB.set(0, 200);
+		final ExtendedBitSet longChild = new ExtendedBitSet(200);
+		longChild.splice(longA, longB, 60, 130);
+		for (int i = 0; i < 200; i++)
+			assertTrue(longChild.get(i) == ((i >= 60) && (i < 130)));
+	}
+
+	@Test
+	public void testXorUnit() {
+		final ExtendedBitSet test = new ExtendedBitSet(70);
+		test.xorUnit(0, 0x8000000000000001L);
+		assertTrue(test.get(0));
+		assertTrue(test.get(63));
+		assertTrue(test.getLongAt(1, 62) == 0);
+
+		// Bits beyond the length of the set are ignored
+		test.xorUnit(1, -1L);
+		assertTrue(test.getSubSet(64, 6).toString().equals("111111"));
+		assertTrue(test.size() == 70);
+		assertTrue(test.getLongAt(64, 64) == 0x3FL);
+	}
+
 }
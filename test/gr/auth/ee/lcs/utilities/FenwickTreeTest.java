@@ -0,0 +1,135 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.utilities;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * A test for the Fenwick tree.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public class FenwickTreeTest {
+
+	@Test
+	public void testAppendAndRemoveLast() {
+		final Random random = new Random(2);
+		final FenwickTree tree = new FenwickTree(0);
+		final double[] weights = new double[100];
+		int size = 0;
+		for (int step = 0; step < 2000; step++) {
+			if ((size > 0) && (random.nextInt(3) == 0)) {
+				tree.removeLast();
+				size--;
+			} else if (size < weights.length) {
+				weights[size] = random.nextInt(5);
+				tree.append(weights[size]);
+				size++;
+			}
+			assertEquals(size, tree.size());
+			double sum = 0;
+			for (int i = 0; i < size; i++) {
+				assertEquals(sum, tree.prefixSum(i), 1e-9);
+				sum += weights[i];
+			}
+			assertEquals(sum, tree.total(), 1e-9);
+		}
+	}
+
+	@Test
+	public void testFind() {
+		final FenwickTree tree = new FenwickTree(5);
+		tree.reset(new double[] { 1, 0, 2, 0, 3 }, 5);
+		assertEquals(6, tree.total(), 0);
+		assertEquals(0, tree.find(0));
+		assertEquals(0, tree.find(.99));
+		assertEquals(2, tree.find(1));
+		assertEquals(2, tree.find(2.5));
+		assertEquals(4, tree.find(3));
+		assertEquals(4, tree.find(5.99));
+		assertEquals(4, tree.find(6));
+	}
+
+	@Test
+	public void testFindEmpty() {
+		final FenwickTree tree = new FenwickTree(3);
+		tree.reset(new double[] { 0, 0, 0 }, 3);
+		assertEquals(-1, tree.find(0));
+		tree.reset(new double[0], 0);
+		assertEquals(-1, tree.find(0));
+	}
+
+	@Test
+	public void testRandomAgainstLinear() {
+		final Random random = new Random(1);
+		final FenwickTree tree = new FenwickTree(2);
+		for (int round = 0; round < 50; round++) {
+			final int size = 1 + random.nextInt(40);
+			final double[] weights = new double[size];
+			for (int i = 0; i < size; i++)
+				weights[i] = (random.nextInt(3) == 0) ? 0 : random.nextInt(10);
+			tree.reset(weights, size);
+			for (int update = 0; update < 20; update++) {
+				final int index = random.nextInt(size);
+				weights[index] = random.nextInt(10);
+				tree.set(index, weights[index]);
+
+				double sum = 0;
+				for (int i = 0; i < size; i++) {
+					assertEquals(sum, tree.prefixSum(i), 1e-9);
+					assertEquals(weights[i], tree.get(i), 0);
+					sum += weights[i];
+				}
+				assertEquals(sum, tree.total(), 1e-9);
+				if (sum == 0)
+					continue;
+
+				final double value = random.nextDouble() * sum;
+				int expected = 0;
+				double cumulative = weights[0];
+				while (cumulative <= value) {
+					expected++;
+					cumulative += weights[expected];
+				}
+				assertEquals(expected, tree.find(value));
+			}
+		}
+	}
+
+	@Test
+	public void testUpdate() {
+		final FenwickTree tree = new FenwickTree(4);
+		tree.reset(new double[] { 1, 1, 1, 1 }, 4);
+		tree.add(1, 2);
+		tree.set(3, 0);
+		assertEquals(5, tree.total(), 0);
+		assertEquals(4, tree.prefixSum(2), 0);
+		assertEquals(1, tree.find(1));
+		assertEquals(2, tree.find(4));
+		assertEquals(2, tree.find(5));
+	}
+}
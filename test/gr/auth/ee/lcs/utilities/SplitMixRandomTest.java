@@ -0,0 +1,74 @@
+/*
+ *	Copyright (C) 2011 by Allamanis Miltiadis
+ *
+ *	Permission is hereby granted, free of charge, to any person obtaining a copy
+ *	of this software and associated documentation files (the "Software"), to deal
+ *	in the Software without restriction, including without limitation the rights
+ *	to use, copy, modify, merge, publish, distribute, sublicense, and/or sell
+ *	copies of the Software, and to permit persons to whom the Software is
+ *	furnished to do so, subject to the following conditions:
+ *
+ *	The above copyright notice and this permission notice shall be included in
+ *	all copies or substantial portions of the Software.
+ *
+ *	THE SOFTWARE IS PROVIDED "AS IS", WITHOUT WARRANTY OF ANY KIND, EXPRESS OR
+ *	IMPLIED, INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY,
+ *	FITNESS FOR A PARTICULAR PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE
+ *	AUTHORS OR COPYRIGHT HOLDERS BE LIABLE FOR ANY CLAIM, DAMAGES OR OTHER
+ *	LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR OTHERWISE, ARISING FROM,
+ *	OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER DEALINGS IN
+ *	THE SOFTWARE.
+ */
+package gr.auth.ee.lcs.utilities;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * A test for the splittable random generator and the random source.
+ * 
+ * @author Miltos Allamanis
+ * 
+ */
+public class SplitMixRandomTest {
+
+	@Test
+	public void testRanges() {
+		final SplitMixRandom random = new SplitMixRandom(7);
+		final int[] counts = new int[5];
+		for (int i = 0; i < 10000; i++) {
+			final double value = random.nextDouble();
+			assertTrue((value >= 0) && (value < 1));
+			counts[random.nextInt(counts.length)]++;
+		}
+		for (int i = 0; i < counts.length; i++)
+			assertTrue(counts[i] > 1500);
+	}
+
+	@Test
+	public void testReproducible() {
+		final SplitMixRandom a = new SplitMixRandom(42);
+		final SplitMixRandom b = new SplitMixRandom(42);
+		for (int i = 0; i < 100; i++)
+			assertEquals(a.nextLong(), b.nextLong());
+
+		final SplitMixRandom splitA = a.split();
+		final SplitMixRandom splitB = b.split();
+		assertEquals(splitA.nextLong(), splitB.nextLong());
+		assertFalse(splitA.nextLong() == a.nextLong());
+	}
+
+	@Test
+	public void testRunSeed() {
+		RandomSource.setRunSeed(11);
+		final double first = RandomSource.nextDouble();
+		final long stream = RandomSource.deriveSeed(3);
+		RandomSource.setRunSeed(11);
+		assertEquals(first, RandomSource.nextDouble(), 0);
+		assertEquals(stream, RandomSource.deriveSeed(3));
+		assertFalse(stream == RandomSource.deriveSeed(4));
+	}
+}